@@ -55,6 +55,7 @@ import com.facebook.buck.step.fs.CopyStep;
 import com.facebook.buck.step.fs.MakeCleanDirectoryStep;
 import com.facebook.buck.step.fs.MkdirStep;
 import com.facebook.buck.step.fs.XzStep;
+import com.facebook.buck.util.BuckConstant;
 import com.facebook.buck.zip.RepackZipEntriesStep;
 import com.facebook.buck.zip.ZipScrubberStep;
 import com.google.common.annotations.VisibleForTesting;
@@ -1057,7 +1058,9 @@ public class AndroidBinary
         successDir,
         dxOptions,
         dxExecutorService,
-        xzCompressionLevel);
+        xzCompressionLevel,
+        // Kept in scratch space, so it outlives the rule's outputs but not a clean.
+        Optional.of(BuckConstant.getScratchPath().resolve("__smart_dex_cache__")));
     steps.add(smartDexingCommand);
 
     if (isReorderingClasses()) {
@@ -175,7 +175,6 @@ public class AndroidNativeLibsPackageableGraphEnhancer {
                           .build())),
               pathResolver,
               cxxBuckConfig,
-              nativePlatforms,
               nativeLinkableLibs,
               nativeLinkableLibsAssets);
 
@@ -126,15 +126,7 @@ public class DxStep extends ShellStep {
   protected ImmutableList<String> getShellCommandInternal(ExecutionContext context) {
     ImmutableList.Builder<String> builder = ImmutableList.builder();
 
-    AndroidPlatformTarget androidPlatformTarget = context.getAndroidPlatformTarget();
-    String dx = androidPlatformTarget.getDxExecutable().toString();
-
-    if (options.contains(Option.USE_CUSTOM_DX_IF_AVAILABLE)) {
-      String customDx = getPathToCustomDx.get();
-      dx = customDx != null ? customDx : dx;
-    }
-
-    builder.add(dx);
+    builder.add(getDxExecutable(context, options, getPathToCustomDx));
 
     // Add the Xmx override, but not for in-process dexing, since the dexer won't understand it.
     // Also, if DX works in-process, it probably wouldn't need an enlarged Xmx.
@@ -170,6 +162,33 @@ public class DxStep extends ShellStep {
     return builder.build();
   }
 
+  /**
+   * Identifies the {@code dx} which a step with the given options runs, so that dexes kept across
+   * builds are not reused once it changes.  The path of the executable names the build tools it
+   * comes from, and dexing in-process also depends on the version of the dexer in buck itself.
+   */
+  public static String getDxVersion(ExecutionContext context, Set<Option> options) {
+    String dx = getDxExecutable(context, options, DEFAULT_GET_CUSTOM_DX);
+    if (options.contains(Option.RUN_IN_PROCESS)) {
+      return dx + ":" + com.android.dx.Version.VERSION;
+    }
+    return dx;
+  }
+
+  private static String getDxExecutable(
+      ExecutionContext context,
+      Set<Option> options,
+      Supplier<String> getPathToCustomDx) {
+    AndroidPlatformTarget androidPlatformTarget = context.getAndroidPlatformTarget();
+    String dx = androidPlatformTarget.getDxExecutable().toString();
+
+    if (options.contains(Option.USE_CUSTOM_DX_IF_AVAILABLE)) {
+      String customDx = getPathToCustomDx.get();
+      dx = customDx != null ? customDx : dx;
+    }
+    return dx;
+  }
+
   @Override
   public int execute(ExecutionContext context) throws InterruptedException {
     if (options.contains(Option.RUN_IN_PROCESS)) {
@@ -21,11 +21,11 @@ import com.facebook.buck.cxx.CxxPlatform;
 import com.facebook.buck.cxx.CxxToolProvider;
 import com.facebook.buck.cxx.DebugPathSanitizer;
 import com.facebook.buck.cxx.DefaultLinkerProvider;
+import com.facebook.buck.cxx.ElfSymbolNameTool;
 import com.facebook.buck.cxx.GnuArchiver;
 import com.facebook.buck.cxx.GnuLinker;
 import com.facebook.buck.cxx.Linker;
 import com.facebook.buck.cxx.LinkerProvider;
-import com.facebook.buck.cxx.PosixNmSymbolNameTool;
 import com.facebook.buck.cxx.PreprocessorProvider;
 import com.facebook.buck.cxx.VersionedTool;
 import com.facebook.buck.io.ExecutableFinder;
@@ -439,9 +439,8 @@ public class NdkCxxPlatforms {
             "-Wl,--as-needed")
         .setStrip(
             getGccTool(ndkRoot, targetConfiguration, host, "strip", version, executableFinder))
-        .setSymbolNameTool(
-            new PosixNmSymbolNameTool(
-                getGccTool(ndkRoot, targetConfiguration, host, "nm", version, executableFinder)))
+        // NDK toolchains only ever produce ELF, so symbols can be read without forking `nm`.
+        .setSymbolNameTool(new ElfSymbolNameTool())
         .setAr(
             new GnuArchiver(
                 getGccTool(ndkRoot, targetConfiguration, host, "ar", version, executableFinder)))
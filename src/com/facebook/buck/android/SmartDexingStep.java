@@ -16,20 +16,30 @@
 package com.facebook.buck.android;
 
 import com.facebook.buck.android.DxStep.Option;
+import com.facebook.buck.io.PathListing;
 import com.facebook.buck.io.ProjectFilesystem;
+import com.facebook.buck.jvm.java.classes.ClasspathTraversal;
+import com.facebook.buck.jvm.java.classes.DefaultClasspathTraverser;
+import com.facebook.buck.jvm.java.classes.FileLike;
+import com.facebook.buck.jvm.java.classes.FileLikes;
 import com.facebook.buck.model.BuildTarget;
 import com.facebook.buck.rules.Sha1HashCode;
+import com.facebook.buck.step.AbstractExecutionStep;
 import com.facebook.buck.step.CompositeStep;
 import com.facebook.buck.step.DefaultStepRunner;
 import com.facebook.buck.step.ExecutionContext;
 import com.facebook.buck.step.Step;
 import com.facebook.buck.step.StepFailedException;
 import com.facebook.buck.step.StepRunner;
+import com.facebook.buck.step.fs.MoveStep;
 import com.facebook.buck.step.fs.RmStep;
 import com.facebook.buck.step.fs.WriteFileStep;
 import com.facebook.buck.step.fs.XzStep;
+import com.facebook.buck.zip.CustomZipEntry;
+import com.facebook.buck.zip.CustomZipOutputStream;
 import com.facebook.buck.zip.RepackZipEntriesStep;
 import com.facebook.buck.zip.ZipCompressionLevel;
+import com.facebook.buck.zip.ZipOutputStreams;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Charsets;
 import com.google.common.base.Functions;
@@ -43,21 +53,30 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.hash.HashCode;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
 import com.google.common.util.concurrent.ListeningExecutorService;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.Semaphore;
 
 import javax.annotation.Nullable;
@@ -92,6 +111,16 @@ public class SmartDexingStep implements Step {
       (int) (Runtime.getRuntime().maxMemory() / 2 / 1024 / 1024);
   private static final Semaphore memorySemaphore = new Semaphore(MAX_MEMORY);
 
+  /**
+   * After dexing, the cache of dexed inputs is trimmed to this many times the size of the inputs,
+   * dropping the dexes which were used least recently.  That keeps every dex of this build with
+   * room to spare for those of other builds which share the cache.
+   */
+  private static final long INPUT_DEX_CACHE_SIZE_PER_INPUT_BYTE = 4;
+
+  /** The cache of dexed inputs is never trimmed to less than this, however small the inputs. */
+  private static final long MIN_INPUT_DEX_CACHE_SIZE = 512 * 1024 * 1024;
+
   public interface DexInputHashesProvider {
     ImmutableMap<Path, Sha1HashCode> getDexInputHashes();
   }
@@ -104,6 +133,32 @@ public class SmartDexingStep implements Step {
   private final EnumSet<DxStep.Option> dxOptions;
   private final ListeningExecutorService executorService;
   private final Optional<Integer> xzCompressionLevel;
+  private final Optional<Path> inputDexCacheDir;
+
+  public SmartDexingStep(
+      ProjectFilesystem filesystem,
+      Path primaryOutputPath,
+      Supplier<Set<Path>> primaryInputsToDex,
+      Optional<Path> secondaryOutputDir,
+      Optional<Supplier<Multimap<Path, Path>>> secondaryInputsToDex,
+      DexInputHashesProvider dexInputHashesProvider,
+      Path successDir,
+      EnumSet<Option> dxOptions,
+      ListeningExecutorService executorService,
+      Optional<Integer> xzCompressionLevel) {
+    this(
+        filesystem,
+        primaryOutputPath,
+        primaryInputsToDex,
+        secondaryOutputDir,
+        secondaryInputsToDex,
+        dexInputHashesProvider,
+        successDir,
+        dxOptions,
+        executorService,
+        xzCompressionLevel,
+        Optional.<Path>absent());
+  }
 
   /**
    * @param primaryOutputPath Path for the primary dex artifact.
@@ -117,6 +172,9 @@ public class SmartDexingStep implements Step {
    *     corresponding jar files (value) as the input.
    * @param successDir Directory where success artifacts are written.
    * @param executorService The thread pool to execute the dx command on.
+   * @param inputDexCacheDir Directory in which to keep each input dexed on its own, keyed by the
+   *     input's hash, if outputs with several inputs should be merged from those rather than
+   *     dexing all of their inputs again whenever one of them changes.
    */
   public SmartDexingStep(
       ProjectFilesystem filesystem,
@@ -128,7 +186,8 @@ public class SmartDexingStep implements Step {
       Path successDir,
       EnumSet<Option> dxOptions,
       ListeningExecutorService executorService,
-      Optional<Integer> xzCompressionLevel) {
+      Optional<Integer> xzCompressionLevel,
+      Optional<Path> inputDexCacheDir) {
     this.filesystem = filesystem;
     this.outputToInputsSupplier = Suppliers.memoize(
         new Supplier<Multimap<Path, Path>>() {
@@ -148,6 +207,7 @@ public class SmartDexingStep implements Step {
     this.dxOptions = dxOptions;
     this.executorService = executorService;
     this.xzCompressionLevel = xzCompressionLevel;
+    this.inputDexCacheDir = inputDexCacheDir;
   }
 
   public static int determineOptimalThreadCount() {
@@ -231,12 +291,63 @@ public class SmartDexingStep implements Step {
     DefaultStepRunner stepRunner = new DefaultStepRunner(context);
     // Invoke dx commands in parallel for maximum thread utilization.  In testing, dx revealed
     // itself to be CPU (and not I/O) bound making it a good candidate for parallelization.
-    List<Step> dxSteps = generateDxCommands(filesystem, outputToInputs);
+    ImmutableList.Builder<Step> inputDexStepsBuilder = ImmutableList.builder();
+    List<Step> dxSteps =
+        generateDxCommands(context, filesystem, outputToInputs, inputDexStepsBuilder);
+    ImmutableList<Step> inputDexSteps = inputDexStepsBuilder.build();
+    // Inputs which are dexed on their own must be before the outputs merged from them.
+    stepRunner.runStepsInParallelAndWait(
+        inputDexSteps,
+        Optional.<BuildTarget>absent(),
+        executorService,
+        DefaultStepRunner.NOOP_CALLBACK);
     stepRunner.runStepsInParallelAndWait(
         dxSteps,
         Optional.<BuildTarget>absent(),
         executorService,
         DefaultStepRunner.NOOP_CALLBACK);
+    if (inputDexCacheDir.isPresent() && !inputDexSteps.isEmpty()) {
+      long inputSize = 0;
+      for (Path input : ImmutableSet.copyOf(outputToInputs.values())) {
+        inputSize += getSize(filesystem, input);
+      }
+      evictInputDexes(
+          filesystem,
+          inputDexCacheDir.get(),
+          Math.max(MIN_INPUT_DEX_CACHE_SIZE, INPUT_DEX_CACHE_SIZE_PER_INPUT_BYTE * inputSize));
+    }
+  }
+
+  private static long getSize(ProjectFilesystem filesystem, Path path) throws IOException {
+    if (!filesystem.isDirectory(path)) {
+      return filesystem.getFileSize(path);
+    }
+    long size = 0;
+    for (Path file : filesystem.getFilesUnderPath(path)) {
+      size += filesystem.getFileSize(file);
+    }
+    return size;
+  }
+
+  /**
+   * Deletes the dexes in the cache of dexed inputs which were used least recently, along with any
+   * temporary files left behind by dexing which never finished, until what is left is smaller
+   * than {@code maxSize} bytes.
+   */
+  @VisibleForTesting
+  static void evictInputDexes(
+      ProjectFilesystem filesystem,
+      Path inputDexCacheDir,
+      long maxSize) throws IOException {
+    for (Path path : PathListing.listMatchingPathsWithFilters(
+             filesystem.resolve(inputDexCacheDir),
+             "*.jar",
+             PathListing.GET_PATH_MODIFIED_TIME,
+             PathListing.FilterMode.EXCLUDE,
+             Optional.<Integer>absent(),
+             Optional.of(maxSize))) {
+      Files.deleteIfExists(path);
+    }
   }
 
   /**
@@ -286,10 +397,15 @@ public class SmartDexingStep implements Step {
   /**
    * Once the {@code .class} files have been split into separate zip files, each must be converted
    * to a {@code .dex} file.
+   *
+   * @param inputDexSteps receives the steps which dex pieces of inputs on their own into the cache
+   *     of dexed inputs, which must run before the returned steps.
    */
   private List<Step> generateDxCommands(
+      ExecutionContext context,
       ProjectFilesystem filesystem,
-      Multimap<Path, Path> outputToInputs) throws IOException {
+      Multimap<Path, Path> outputToInputs,
+      ImmutableList.Builder<Step> inputDexSteps) throws IOException {
     ImmutableList.Builder<DxPseudoRule> pseudoRules = ImmutableList.builder();
 
     ImmutableMap<Path, Sha1HashCode> dexInputHashes = dexInputHashesProvider.getDexInputHashes();
@@ -303,19 +419,125 @@ public class SmartDexingStep implements Step {
               outputFile,
               successDir.resolve(outputFile.getFileName()),
               dxOptions,
-              xzCompressionLevel));
+              xzCompressionLevel,
+              inputDexCacheDir));
+    }
+
+    String dxVersion = "";
+    if (inputDexCacheDir.isPresent()) {
+      dxVersion = DxStep.getDxVersion(context, dxOptions);
+      filesystem.mkdirs(inputDexCacheDir.get());
     }
 
     ImmutableList.Builder<Step> steps = ImmutableList.builder();
+    // Several outputs may share a piece, but it only needs dexing once.
+    Set<Path> inputDexesToCreate = new HashSet<>();
     for (DxPseudoRule pseudoRule : pseudoRules.build()) {
       if (!pseudoRule.checkIsCached()) {
-        steps.addAll(pseudoRule.buildInternal());
+        ImmutableList<InputDexPiece> pieces = pseudoRule.getInputDexPieces(dxVersion);
+        for (InputDexPiece piece : pieces) {
+          if (filesystem.exists(piece.getDex())) {
+            // Keep the dexes which are still used from being evicted first.
+            filesystem.touch(piece.getDex());
+          } else if (inputDexesToCreate.add(piece.getDex())) {
+            inputDexSteps.add(createInputDexStep(filesystem, piece, dxOptions));
+          }
+        }
+        steps.addAll(pseudoRule.buildInternal(pieces));
       }
     }
 
     return steps.build();
   }
 
+  /**
+   * Dexes a piece of an input into the cache of dexed inputs.  Its classes are copied into a jar
+   * of their own, which is dexed to a temporary file beside the piece's final path and then moved
+   * there, so that a dex which is in the cache is always complete, even when several builds share
+   * the cache.
+   */
+  private static Step createInputDexStep(
+      final ProjectFilesystem filesystem,
+      final InputDexPiece piece,
+      EnumSet<Option> dxOptions) throws IOException {
+    Path dex = piece.getDex();
+    final Path classesJar = filesystem.createTempFile(
+        dex.getParent(),
+        dex.getFileName().toString(),
+        ".classes.tmp.jar");
+    // dx writes a jar rather than a bare dex as long as the output ends in .jar.
+    Path tempDex = filesystem.createTempFile(
+        dex.getParent(),
+        dex.getFileName().toString(),
+        ".tmp.jar");
+    Step copyClasses = new AbstractExecutionStep("smart_dex_copy_classes") {
+      @Override
+      public int execute(ExecutionContext context) throws IOException {
+        try (final CustomZipOutputStream out =
+                 ZipOutputStreams.newOutputStream(filesystem.resolve(classesJar))) {
+          new DefaultClasspathTraverser().traverse(
+              new ClasspathTraversal(ImmutableSet.of(piece.getInput()), filesystem) {
+                @Override
+                public void visit(FileLike entry) throws IOException {
+                  if (!piece.getClasses().contains(entry.getRelativePath())) {
+                    return;
+                  }
+                  out.putNextEntry(new CustomZipEntry(entry.getRelativePath()));
+                  try (InputStream in = entry.getInput()) {
+                    ByteStreams.copy(in, out);
+                  }
+                  out.closeEntry();
+                }
+              });
+        }
+        return 0;
+      }
+    };
+    return new CompositeStep(
+        ImmutableList.of(
+            copyClasses,
+            new DxStep(filesystem, tempDex, ImmutableList.of(classesJar), dxOptions),
+            new RmStep(filesystem, classesJar, /* shouldForceDeletion */ true),
+            new MoveStep(
+                filesystem,
+                tempDex,
+                dex,
+                StandardCopyOption.ATOMIC_MOVE)));
+  }
+
+  /**
+   * The classes of one package of an input, which are dexed on their own into the cache of dexed
+   * inputs, keyed by their names and contents.  Outputs are merged from the dexes of their pieces,
+   * so that changing one class of a large input only means dexing its package again.
+   */
+  @VisibleForTesting
+  static class InputDexPiece {
+    private final Path input;
+    private final ImmutableSortedSet<String> classes;
+    private final Path dex;
+
+    InputDexPiece(Path input, ImmutableSortedSet<String> classes, Path dex) {
+      this.input = input;
+      this.classes = classes;
+      this.dex = dex;
+    }
+
+    /** @return the input, a jar or directory of classes, which the piece is part of. */
+    Path getInput() {
+      return input;
+    }
+
+    /** @return the paths of the piece's classes within its input. */
+    ImmutableSortedSet<String> getClasses() {
+      return classes;
+    }
+
+    /** @return where the piece is kept once it has been dexed. */
+    Path getDex() {
+      return dex;
+    }
+  }
+
   /**
    * Internally designed to simulate a dexing buck rule so that once refactored more broadly as
    * such it should be straightforward to convert this code.
@@ -336,6 +558,7 @@ public class SmartDexingStep implements Step {
     @Nullable
     private String newInputsHash;
     private final Optional<Integer> xzCompressionLevel;
+    private final Optional<Path> inputDexCacheDir;
 
     public DxPseudoRule(
         ProjectFilesystem filesystem,
@@ -345,6 +568,26 @@ public class SmartDexingStep implements Step {
         Path outputHashPath,
         EnumSet<Option> dxOptions,
         Optional<Integer> xzCompressionLevel) {
+      this(
+          filesystem,
+          dexInputHashes,
+          srcs,
+          outputPath,
+          outputHashPath,
+          dxOptions,
+          xzCompressionLevel,
+          Optional.<Path>absent());
+    }
+
+    public DxPseudoRule(
+        ProjectFilesystem filesystem,
+        Map<Path, Sha1HashCode> dexInputHashes,
+        Set<Path> srcs,
+        Path outputPath,
+        Path outputHashPath,
+        EnumSet<Option> dxOptions,
+        Optional<Integer> xzCompressionLevel,
+        Optional<Path> inputDexCacheDir) {
       this.filesystem = filesystem;
       this.dexInputHashes = ImmutableMap.copyOf(dexInputHashes);
       this.srcs = ImmutableSet.copyOf(srcs);
@@ -352,6 +595,7 @@ public class SmartDexingStep implements Step {
       this.outputHashPath = outputHashPath;
       this.dxOptions = dxOptions;
       this.xzCompressionLevel = xzCompressionLevel;
+      this.inputDexCacheDir = inputDexCacheDir;
     }
 
     /**
@@ -390,15 +634,83 @@ public class SmartDexingStep implements Step {
       return newInputsHash.equals(currentInputsHash);
     }
 
-    public List<Step> buildInternal() {
+    /**
+     * The pieces of the inputs in the cache of dexed inputs, one for each package of each input,
+     * from which the output is merged, or nothing if the output is dexed from its inputs directly.
+     * Only outputs with more than one piece are merged, as otherwise the output is as cheap to
+     * create as the piece's own dex.
+     *
+     * @param dxVersion identifies the {@code dx} which dexes the pieces, as returned by
+     *     {@link DxStep#getDxVersion}.
+     */
+    public ImmutableList<InputDexPiece> getInputDexPieces(String dxVersion) throws IOException {
+      if (!inputDexCacheDir.isPresent()) {
+        return ImmutableList.of();
+      }
+      ImmutableList.Builder<InputDexPiece> pieces = ImmutableList.builder();
+      for (Path src : srcs) {
+        // The hash of each class by its path, by package, sorted so that pieces hash the same way
+        // whatever order the input lists its classes in.
+        final Map<String, SortedMap<String, HashCode>> packages = new TreeMap<>();
+        new DefaultClasspathTraverser().traverse(
+            new ClasspathTraversal(ImmutableSet.of(src), filesystem) {
+              @Override
+              public void visit(FileLike entry) throws IOException {
+                if (!FileLikes.isClassFile(entry)) {
+                  return;
+                }
+                String name = entry.getRelativePath();
+                String packageName = name.substring(0, Math.max(0, name.lastIndexOf('/')));
+                SortedMap<String, HashCode> classes = packages.get(packageName);
+                if (classes == null) {
+                  classes = new TreeMap<>();
+                  packages.put(packageName, classes);
+                }
+                try (InputStream in = entry.getInput()) {
+                  classes.put(name, Hashing.sha1().hashBytes(ByteStreams.toByteArray(in)));
+                }
+              }
+            });
+
+        for (SortedMap<String, HashCode> classes : packages.values()) {
+          Hasher hasher = Hashing.sha1().newHasher();
+          for (Map.Entry<String, HashCode> entry : classes.entrySet()) {
+            hasher.putString(entry.getKey(), Charsets.UTF_8);
+            hasher.putBytes(entry.getValue().asBytes());
+          }
+          // The same classes dex differently with different options or versions of dx.
+          for (Option option : dxOptions) {
+            hasher.putString(option.name(), Charsets.UTF_8);
+          }
+          hasher.putString(dxVersion, Charsets.UTF_8);
+          pieces.add(
+              new InputDexPiece(
+                  src,
+                  ImmutableSortedSet.copyOf(classes.keySet()),
+                  inputDexCacheDir.get().resolve(hasher.hash() + ".dex.jar")));
+        }
+      }
+      ImmutableList<InputDexPiece> allPieces = pieces.build();
+      return allPieces.size() < 2 ? ImmutableList.<InputDexPiece>of() : allPieces;
+    }
+
+    /**
+     * @param pieces the pieces of the inputs, as returned by {@link #getInputDexPieces}.
+     */
+    public List<Step> buildInternal(ImmutableList<InputDexPiece> pieces) {
       Preconditions.checkState(newInputsHash != null, "Must call checkIsCached first!");
 
       List<Step> steps = Lists.newArrayList();
 
+      ImmutableSet.Builder<Path> pieceDexes = ImmutableSet.builder();
+      for (InputDexPiece piece : pieces) {
+        pieceDexes.add(piece.getDex());
+      }
       steps.add(
           createDxStepForDxPseudoRule(
               filesystem,
-              srcs,
+              // dx merges inputs which are already dexed rather than dexing them again.
+              pieces.isEmpty() ? srcs : pieceDexes.build(),
               outputPath,
               dxOptions,
               xzCompressionLevel));
@@ -201,7 +201,8 @@ public class SplitZipStep implements Step {
       if (dexSplitMode.useLinearAllocSplitDex()) {
         zipSplitterFactory = new DalvikAwareZipSplitterFactory(
             dexSplitMode.getLinearAllocHardLimit(),
-            wantedInPrimaryZip);
+            wantedInPrimaryZip,
+            context.getExecutorService(ExecutionContext.ExecutorPool.CPU));
       } else {
         zipSplitterFactory = new DefaultZipSplitterFactory(ZIP_SIZE_SOFT_LIMIT,
             ZIP_SIZE_HARD_LIMIT);
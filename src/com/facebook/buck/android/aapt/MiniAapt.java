@@ -33,29 +33,39 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
 
 /**
  * Step which parses resources in an android {@code res} directory and compiles them into a
@@ -73,16 +83,6 @@ public class MiniAapt implements Step {
   private static final String ITEM_TAG = "item";
   private static final String CUSTOM_DRAWABLE_PREFIX = "app-";
 
-  private static final XPathExpression ANDROID_ID_USAGE =
-      createExpression("//@*[starts-with(., '@') and " +
-              "not(starts-with(., '@+')) and " +
-              "not(starts-with(., '@android:')) and " +
-              "not(starts-with(., '@null'))]");
-
-  private static final XPathExpression ANDROID_ID_DEFINITION =
-      createExpression("//@*[starts-with(., '@+') and " +
-              "not(starts-with(., '@+android:id'))]");
-
   private static final ImmutableMap<String, RType> RESOURCE_TYPES = getResourceTypes();
   private static final ImmutableSet<String> IGNORED_TAGS = ImmutableSet.of(
       "eat-comment",
@@ -134,14 +134,6 @@ public class MiniAapt implements Step {
     this.resourceUnion = resourceUnion;
   }
 
-  private static XPathExpression createExpression(String expressionStr) {
-    try {
-      return XPathFactory.newInstance().newXPath().compile(expressionStr);
-    } catch (XPathExpressionException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
   private static ImmutableMap<String, RType> getResourceTypes() {
     ImmutableMap.Builder<String, RType> types = ImmutableMap.builder();
     for (RType rType : RType.values()) {
@@ -164,8 +156,11 @@ public class MiniAapt implements Step {
 
     try {
       collectResources(filesystem, context.getBuckEventBus());
-      processXmlFilesForIds(filesystem, references);
-    } catch (IOException | XPathExpressionException | ResourceParseException e) {
+      processXmlFilesForIds(
+          filesystem,
+          context.getExecutorService(ExecutionContext.ExecutorPool.CPU),
+          references);
+    } catch (IOException | ResourceParseException e) {
       context.logError(e, "Error parsing resources to generate resource IDs for %s.", resDirectory);
       return 1;
     }
@@ -459,67 +454,118 @@ public class MiniAapt implements Step {
 
   void processXmlFilesForIds(
       ProjectFilesystem filesystem,
+      ListeningExecutorService executorService,
       ImmutableSet.Builder<RDotTxtEntry> references)
-      throws IOException, XPathExpressionException, ResourceParseException {
+      throws IOException, ResourceParseException, InterruptedException {
     Path absoluteResDir = resolver.getAbsolutePath(resDirectory);
     Path relativeResDir = resolver.getRelativePath(resDirectory);
+    List<ListenableFuture<ResourceIds>> scans = new ArrayList<>();
     for (Path path : filesystem.getFilesUnderPath(absoluteResDir, ENDS_WITH_XML)) {
       String dirname = relativeResDir.relativize(path).getName(0).toString();
       if (isAValuesDir(dirname)) {
         // Ignore files under values* directories.
         continue;
       }
-      processXmlFile(filesystem, path, references);
+      scans.add(executorService.submit(createXmlFileScanner(filesystem, path)));
+    }
+
+    // The files are scanned in parallel, but ids are handed out in the order in which the files
+    // were listed, so that the generated R.txt does not depend on thread scheduling.
+    try {
+      for (ListenableFuture<ResourceIds> scan : scans) {
+        addResourceIds(scan.get(), references);
+      }
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      Throwables.propagateIfInstanceOf(e.getCause(), ResourceParseException.class);
+      throw Throwables.propagate(e.getCause());
+    } finally {
+      for (ListenableFuture<ResourceIds> scan : scans) {
+        scan.cancel(true);
+      }
     }
   }
 
+  private static Callable<ResourceIds> createXmlFileScanner(
+      final ProjectFilesystem filesystem,
+      final Path xmlFile) {
+    return new Callable<ResourceIds>() {
+      @Override
+      public ResourceIds call() throws IOException, ResourceParseException {
+        return scanXmlFile(filesystem, xmlFile);
+      }
+    };
+  }
+
   @VisibleForTesting
   void processXmlFile(
       ProjectFilesystem filesystem,
       Path xmlFile,
       ImmutableSet.Builder<RDotTxtEntry> references)
-      throws IOException, XPathExpressionException, ResourceParseException {
-    try (InputStream stream = filesystem.newFileInputStream(xmlFile)) {
-      Document dom = parseXml(xmlFile, stream);
-      NodeList nodesWithIds =
-          (NodeList) ANDROID_ID_DEFINITION.evaluate(dom, XPathConstants.NODESET);
-      for (int i = 0; i < nodesWithIds.getLength(); i++) {
-        String resourceName = nodesWithIds.item(i).getNodeValue();
-        if (!resourceName.startsWith(ID_DEFINITION_PREFIX)) {
-          throw new ResourceParseException("Invalid definition of a resource: '%s'", resourceName);
-        }
-        Preconditions.checkState(resourceName.startsWith(ID_DEFINITION_PREFIX));
+      throws IOException, ResourceParseException {
+    addResourceIds(scanXmlFile(filesystem, xmlFile), references);
+  }
 
-        resourceCollector.addIntResourceIfNotPresent(
-            RType.ID,
-            resourceName.substring(ID_DEFINITION_PREFIX.length()));
-      }
+  private void addResourceIds(
+      ResourceIds resourceIds,
+      ImmutableSet.Builder<RDotTxtEntry> references) {
+    for (String name : resourceIds.definitions) {
+      resourceCollector.addIntResourceIfNotPresent(RType.ID, name);
+    }
+    references.addAll(resourceIds.references);
+  }
 
-      NodeList nodesUsingIds =
-          (NodeList) ANDROID_ID_USAGE.evaluate(dom, XPathConstants.NODESET);
-      for (int i = 0; i < nodesUsingIds.getLength(); i++) {
-        String resourceName = nodesUsingIds.item(i).getNodeValue();
-        int slashPosition = resourceName.indexOf('/');
-        if (resourceName.charAt(0) != '@' || slashPosition == -1) {
-          throw new ResourceParseException("Invalid definition of a resource: '%s'", resourceName);
-        }
+  /**
+   * Extracts the ids defined and the resources referenced by an {@code xml} file in a single
+   * streaming pass, without building a DOM. This does not touch the {@link AaptResourceCollector},
+   * so it is safe to call concurrently for different files.
+   */
+  private static ResourceIds scanXmlFile(ProjectFilesystem filesystem, Path xmlFile)
+      throws IOException, ResourceParseException {
+    ResourceAttributeHandler handler = new ResourceAttributeHandler();
+    try (InputStream stream = filesystem.newFileInputStream(xmlFile)) {
+      SAXParserFactory.newInstance().newSAXParser().parse(stream, handler);
+    } catch (SAXException e) {
+      throw new ResourceParseException(
+          "Error parsing xml file '%s': %s.",
+          xmlFile,
+          e.getMessage());
+    } catch (ParserConfigurationException e) {
+      throw new RuntimeException(e);
+    }
 
-        String rawRType = resourceName.substring(1, slashPosition);
-        String name = resourceName.substring(slashPosition + 1);
+    ImmutableList.Builder<String> definitions = ImmutableList.builder();
+    for (String resourceName : handler.definitions) {
+      if (!resourceName.startsWith(ID_DEFINITION_PREFIX)) {
+        throw new ResourceParseException("Invalid definition of a resource: '%s'", resourceName);
+      }
+      definitions.add(resourceName.substring(ID_DEFINITION_PREFIX.length()));
+    }
 
-        String nodeName = nodesUsingIds.item(i).getNodeName();
-        if (name.startsWith("android:") || nodeName.startsWith("tools:")) {
-          continue;
-        }
-        if (!RESOURCE_TYPES.containsKey(rawRType)) {
-          throw new ResourceParseException("Invalid reference '%s' in '%s'", resourceName, xmlFile);
-        }
-        RType rType = Preconditions.checkNotNull(RESOURCE_TYPES.get(rawRType));
+    ImmutableList.Builder<RDotTxtEntry> references = ImmutableList.builder();
+    for (Map.Entry<String, String> usage : handler.usages) {
+      String resourceName = usage.getValue();
+      int slashPosition = resourceName.indexOf('/');
+      if (resourceName.charAt(0) != '@' || slashPosition == -1) {
+        throw new ResourceParseException("Invalid definition of a resource: '%s'", resourceName);
+      }
 
+      String rawRType = resourceName.substring(1, slashPosition);
+      String name = resourceName.substring(slashPosition + 1);
 
-        references.add(new FakeRDotTxtEntry(IdType.INT, rType, sanitizeName(name)));
+      String nodeName = usage.getKey();
+      if (name.startsWith("android:") || nodeName.startsWith("tools:")) {
+        continue;
+      }
+      if (!RESOURCE_TYPES.containsKey(rawRType)) {
+        throw new ResourceParseException("Invalid reference '%s' in '%s'", resourceName, xmlFile);
       }
+      RType rType = Preconditions.checkNotNull(RESOURCE_TYPES.get(rawRType));
+
+      references.add(new FakeRDotTxtEntry(IdType.INT, rType, sanitizeName(name)));
     }
+
+    return new ResourceIds(definitions.build(), references.build());
   }
 
   private static Document parseXml(Path filepath, InputStream inputStream)
@@ -598,6 +644,60 @@ public class MiniAapt implements Step {
     return getShortName() + " " + resDirectory;
   }
 
+  /**
+   * The ids defined ({@code @+id/name}) and the resources referenced ({@code @type/name}) by a
+   * single {@code xml} file, in the order in which they appear in it.
+   */
+  private static class ResourceIds {
+    private final ImmutableList<String> definitions;
+    private final ImmutableList<RDotTxtEntry> references;
+
+    private ResourceIds(
+        ImmutableList<String> definitions,
+        ImmutableList<RDotTxtEntry> references) {
+      this.definitions = definitions;
+      this.references = references;
+    }
+  }
+
+  /**
+   * Collects the attribute values that define or reference a resource. Attributes of an element
+   * are visited sorted by name, which is the order in which the DOM based implementation used to
+   * see them; this keeps the ids assigned to {@code @+id} definitions stable.
+   */
+  private static class ResourceAttributeHandler extends DefaultHandler {
+    private final List<String> definitions = new ArrayList<>();
+    private final List<Map.Entry<String, String>> usages = new ArrayList<>();
+    private final SortedMap<String, String> attributes = new TreeMap<>();
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attrs) {
+      attributes.clear();
+      for (int i = 0; i < attrs.getLength(); i++) {
+        String name = attrs.getQName(i);
+        if (name.equals("xmlns") || name.startsWith("xmlns:")) {
+          continue;
+        }
+        attributes.put(name, attrs.getValue(i));
+      }
+
+      for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+        String value = attribute.getValue();
+        if (!value.startsWith("@") ||
+            value.startsWith("@+android:id") ||
+            value.startsWith("@android:") ||
+            value.startsWith("@null")) {
+          continue;
+        }
+        if (value.startsWith("@+")) {
+          definitions.add(value);
+        } else {
+          usages.add(Maps.immutableEntry(attribute.getKey(), value));
+        }
+      }
+    }
+  }
+
   @SuppressWarnings("serial")
   @VisibleForTesting
   static class ResourceParseException extends Exception {
@@ -15,7 +15,6 @@
  */
 package com.facebook.buck.android.relinker;
 
-import com.facebook.buck.android.NdkCxxPlatform;
 import com.facebook.buck.android.NdkCxxPlatforms.TargetCpuType;
 import com.facebook.buck.cxx.CxxBuckConfig;
 import com.facebook.buck.cxx.CxxLink;
@@ -65,14 +64,12 @@ public class NativeRelinker {
   private final CxxBuckConfig cxxBuckConfig;
   private final ImmutableMap<Pair<TargetCpuType, String>, SourcePath> relinkedLibs;
   private final ImmutableMap<Pair<TargetCpuType, String>, SourcePath> relinkedLibsAssets;
-  private ImmutableMap<TargetCpuType, NdkCxxPlatform> nativePlatforms;
   private ImmutableList<RelinkerRule> rules;
 
   public NativeRelinker(
       BuildRuleParams buildRuleParams,
       SourcePathResolver resolver,
       CxxBuckConfig cxxBuckConfig,
-      ImmutableMap<TargetCpuType, NdkCxxPlatform> nativePlatforms,
       ImmutableMap<Pair<TargetCpuType, String>, SourcePath> linkableLibs,
       ImmutableMap<Pair<TargetCpuType, String>, SourcePath> linkableLibsAssets) {
     Preconditions.checkArgument(
@@ -83,7 +80,6 @@ public class NativeRelinker {
     this.buildRuleParams = buildRuleParams;
     this.resolver = resolver;
     this.cxxBuckConfig = cxxBuckConfig;
-    this.nativePlatforms = nativePlatforms;
 
     /*
     When relinking a library, any symbols needed by a (transitive) dependent must continue to be
@@ -244,7 +240,6 @@ public class NativeRelinker {
         resolver,
         ImmutableList.copyOf(Lists.transform(relinkerDeps, getSymbolsNeeded)),
         cpuType,
-        nativePlatforms.get(cpuType).getObjdump(),
         cxxBuckConfig,
         source,
         linker != null,
@@ -32,7 +32,6 @@ import com.facebook.buck.rules.OverrideScheduleRule;
 import com.facebook.buck.rules.RuleScheduleInfo;
 import com.facebook.buck.rules.SourcePath;
 import com.facebook.buck.rules.SourcePathResolver;
-import com.facebook.buck.rules.Tool;
 import com.facebook.buck.rules.args.Arg;
 import com.facebook.buck.rules.args.StringArg;
 import com.facebook.buck.step.AbstractExecutionStep;
@@ -64,8 +63,6 @@ class RelinkerRule extends AbstractBuildRule implements OverrideScheduleRule {
   @AddToRuleKey
   private final SourcePath baseLibSourcePath;
   @AddToRuleKey
-  private final Tool objdump;
-  @AddToRuleKey
   private final Boolean isRelinkable;
   @AddToRuleKey
   private final ImmutableList<Arg> linkerArgs;
@@ -80,7 +77,6 @@ class RelinkerRule extends AbstractBuildRule implements OverrideScheduleRule {
       SourcePathResolver resolver,
       ImmutableList<SourcePath> symbolsNeededPaths,
       NdkCxxPlatforms.TargetCpuType cpuType,
-      Tool objdump,
       CxxBuckConfig cxxBuckConfig,
       SourcePath baseLibSourcePath,
       boolean isRelinkable,
@@ -88,7 +84,6 @@ class RelinkerRule extends AbstractBuildRule implements OverrideScheduleRule {
       ImmutableList<Arg> linkerArgs) {
     super(withDepsFromArgs(buildRuleParams, resolver, linkerArgs), resolver);
     this.cpuType = cpuType;
-    this.objdump = objdump;
     this.cxxBuckConfig = cxxBuckConfig;
     this.isRelinkable = isRelinkable;
     this.linkerArgs = linkerArgs;
@@ -232,11 +227,8 @@ class RelinkerRule extends AbstractBuildRule implements OverrideScheduleRule {
     return getScratchDirPath().resolve(getBaseLibPath().getFileName());
   }
 
-  private Symbols getSymbols(Path path) throws IOException, InterruptedException {
-    return Symbols.getSymbols(
-        objdump,
-        getResolver(),
-        absolutify(path));
+  private Symbols getSymbols(Path path) throws IOException {
+    return Symbols.getSymbols(absolutify(path));
   }
 
   private Path getRelativeVersionFilePath() {
@@ -244,7 +236,7 @@ class RelinkerRule extends AbstractBuildRule implements OverrideScheduleRule {
   }
 
   private void writeVersionScript(
-      ImmutableSet<String> symbolsNeeded) throws IOException, InterruptedException {
+      ImmutableSet<String> symbolsNeeded) throws IOException {
     Symbols sym = getSymbols(getBaseLibPath());
     Set<String> defined = Sets.difference(sym.all, sym.undefined);
     String versionScript = getVersionScript(symbolsNeeded, defined);
@@ -15,19 +15,17 @@
  */
 package com.facebook.buck.android.relinker;
 
-import com.facebook.buck.rules.SourcePathResolver;
-import com.facebook.buck.rules.Tool;
-import com.google.common.collect.ImmutableList;
+import com.facebook.buck.cxx.elf.Elf;
+import com.facebook.buck.cxx.elf.ElfSection;
+import com.facebook.buck.cxx.elf.ElfSymbolTable;
+import com.facebook.buck.util.HumanReadableException;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableSet;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import com.facebook.buck.util.BgProcessKiller;
 
 public class Symbols {
   public ImmutableSet<String> undefined;
@@ -43,63 +41,38 @@ public class Symbols {
     this.all = all;
   }
 
-  public static Symbols getSymbols(
-      Tool objdump,
-      SourcePathResolver resolver,
-      Path lib) throws IOException, InterruptedException {
+  /**
+   * Reads the dynamic symbol table (what `objdump -T` would list) of the given shared library
+   * directly from its memory mapped ELF contents.
+   */
+  public static Symbols getSymbols(Path lib) throws IOException {
     ImmutableSet.Builder<String> undefined = ImmutableSet.builder();
     ImmutableSet.Builder<String> global = ImmutableSet.builder();
     ImmutableSet.Builder<String> all = ImmutableSet.builder();
 
-    // See `man objdump`.
-    Pattern re = Pattern.compile(
-        "\\s*" +
-            "(?<address>[0-9a-f]{8})" +
-            " " +
-            "(?<global>.)" +
-            "(?<weak>.)" +
-            "(?<constructor>.)" +
-            "(?<warning>.)" +
-            "(?<indirect>.)" +
-            "(?<debugging>.)" +
-            "(?<type>.)" +
-            "\\s*" +
-            "(?<section>[^\\s]*)" +
-            "\\s*" +
-            "(?<align>[0-9a-f]*)" +
-            " " +
-            "(?<name>[^\\s]*)");
-
-    ImmutableList<String> args = ImmutableList.<String>builder()
-        .addAll(objdump.getCommandPrefix(resolver))
-        .add("-T")
-        .add(lib.toString())
-        .build();
-
-    Process p =
-        BgProcessKiller.startProcess(
-            new ProcessBuilder(args)
-            .redirectError(ProcessBuilder.Redirect.INHERIT));
-    BufferedReader output = new BufferedReader(new InputStreamReader(p.getInputStream()));
-    String line;
-
-    while ((line = output.readLine()) != null) {
-      Matcher m = re.matcher(line);
-      if (!m.matches()) {
-        continue;
+    try (FileChannel channel = FileChannel.open(lib)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (!Elf.isElf(buffer)) {
+        throw new HumanReadableException("%s is not an ELF file", lib);
       }
-      String symbol = m.group("name");
-      if ("*UND*".equals(m.group("section"))) {
-        undefined.add(symbol);
-      } else if ("gu!".contains(m.group("global"))) {
-        global.add(symbol);
+      Elf elf = new Elf(buffer);
+      Optional<ElfSection> dynsym = elf.getSectionByName(".dynsym");
+      if (dynsym.isPresent()) {
+        ElfSymbolTable symbolTable = ElfSymbolTable.parse(elf.header.ei_class, dynsym.get());
+        for (ElfSymbolTable.Entry symbol : symbolTable.entries) {
+          String name = elf.getSymbolName(dynsym.get(), symbol);
+          if (name.isEmpty()) {
+            continue;
+          }
+          if (symbol.isUndefined()) {
+            undefined.add(name);
+          } else if (symbol.st_info.bind == ElfSymbolTable.Entry.Info.Bind.STB_GLOBAL ||
+              symbol.st_info.bind == ElfSymbolTable.Entry.Info.Bind.STB_GNU_UNIQUE) {
+            global.add(name);
+          }
+          all.add(name);
+        }
       }
-      all.add(symbol);
-    }
-    p.waitFor();
-
-    if (p.exitValue() != 0) {
-      throw new RuntimeException("Objdump exited with value: " + p.exitValue());
     }
 
     return new Symbols(undefined.build(), global.build(), all.build());
@@ -79,7 +79,8 @@ public class SwiftStdlibStep implements Step {
 
   @Override
   public int execute(ExecutionContext context) throws InterruptedException {
-    ListeningProcessExecutor executor = new ListeningProcessExecutor();
+    ListeningProcessExecutor executor =
+        context.getProcessExecutor().getListeningProcessExecutor();
     ProcessExecutorParams params = makeProcessExecutorParams();
     SimpleProcessListener listener = new SimpleProcessListener();
 
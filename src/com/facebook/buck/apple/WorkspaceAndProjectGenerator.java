@@ -31,6 +31,7 @@ import com.facebook.buck.model.BuildTargets;
 import com.facebook.buck.model.FlavorDomain;
 import com.facebook.buck.model.HasBuildTarget;
 import com.facebook.buck.model.HasTests;
+import com.facebook.buck.model.Pair;
 import com.facebook.buck.model.UnflavoredBuildTarget;
 import com.facebook.buck.rules.BuildRuleType;
 import com.facebook.buck.rules.Cell;
@@ -39,12 +40,14 @@ import com.facebook.buck.rules.TargetGraph;
 import com.facebook.buck.rules.TargetNode;
 import com.facebook.buck.util.HumanReadableException;
 import com.facebook.buck.util.Optionals;
+import com.facebook.buck.util.concurrent.MoreFutures;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -56,13 +59,19 @@ import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 public class WorkspaceAndProjectGenerator {
   private static final Logger LOG = Logger.get(WorkspaceAndProjectGenerator.class);
@@ -179,7 +188,21 @@ public class WorkspaceAndProjectGenerator {
 
   public Path generateWorkspaceAndDependentProjects(
       Map<Path, ProjectGenerator> projectGenerators)
-      throws IOException {
+      throws IOException, InterruptedException {
+    return generateWorkspaceAndDependentProjects(
+        projectGenerators,
+        MoreExecutors.newDirectExecutorService());
+  }
+
+  /**
+   * Generates the workspace and any projects it needs which aren't already in
+   * {@code projectGenerators}.  Projects are independent of each other, so they are generated
+   * concurrently on the given executor.
+   */
+  public Path generateWorkspaceAndDependentProjects(
+      Map<Path, ProjectGenerator> projectGenerators,
+      ListeningExecutorService executor)
+      throws IOException, InterruptedException {
     LOG.debug("Generating workspace for target %s", workspaceBuildTarget);
 
     String workspaceName = XcodeWorkspaceConfigDescription.getWorkspaceNameFromArg(
@@ -295,6 +318,8 @@ public class WorkspaceAndProjectGenerator {
       }
       ImmutableMultimap<Cell, BuildTarget> projectCellToBuildTargets =
           projectCellToBuildTargetsBuilder.build();
+      List<Pair<Path, ProjectGenerator>> workspaceProjects = new ArrayList<>();
+      List<ProjectGenerator> generatorsToRun = new ArrayList<>();
       for (Cell projectCell : projectCellToBuildTargets.keySet()) {
         ImmutableMultimap.Builder<Path, BuildTarget> projectDirectoryToBuildTargetsBuilder =
             ImmutableMultimap.builder();
@@ -359,19 +384,28 @@ public class WorkspaceAndProjectGenerator {
                 cxxBuckConfig)
                 .setTestsToGenerateAsStaticLibraries(groupableTests);
 
-            generator.createXcodeProjects();
-            requiredBuildTargetsBuilder.addAll(generator.getRequiredBuildTargets());
+            generatorsToRun.add(generator);
             projectGenerators.put(projectDirectory, generator);
           } else {
             LOG.debug("Already generated project for target %s, skipping", projectDirectory);
           }
 
-          workspaceGenerator.addFilePath(relativeTargetCell.resolve(generator.getProjectPath()));
+          workspaceProjects.add(new Pair<>(relativeTargetCell, generator));
+        }
+      }
 
-          buildTargetToPbxTargetMapBuilder.putAll(generator.getBuildTargetToGeneratedTargetMap());
-          for (PBXTarget target : generator.getBuildTargetToGeneratedTargetMap().values()) {
-            targetToProjectPathMapBuilder.put(target, generator.getProjectPath());
-          }
+      generateProjects(generatorsToRun, executor);
+      for (ProjectGenerator generator : generatorsToRun) {
+        requiredBuildTargetsBuilder.addAll(generator.getRequiredBuildTargets());
+      }
+      for (Pair<Path, ProjectGenerator> workspaceProject : workspaceProjects) {
+        ProjectGenerator generator = workspaceProject.getSecond();
+        workspaceGenerator.addFilePath(
+            workspaceProject.getFirst().resolve(generator.getProjectPath()));
+
+        buildTargetToPbxTargetMapBuilder.putAll(generator.getBuildTargetToGeneratedTargetMap());
+        for (PBXTarget target : generator.getBuildTargetToGeneratedTargetMap().values()) {
+          targetToProjectPathMapBuilder.put(target, generator.getProjectPath());
         }
       }
 
@@ -468,6 +502,29 @@ public class WorkspaceAndProjectGenerator {
     return workspacePath;
   }
 
+  private static void generateProjects(
+      List<ProjectGenerator> generators,
+      ListeningExecutorService executor)
+      throws IOException, InterruptedException {
+    List<Callable<Void>> callables = new ArrayList<>();
+    for (final ProjectGenerator generator : generators) {
+      callables.add(
+          new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+              generator.createXcodeProjects();
+              return null;
+            }
+          });
+    }
+    try {
+      MoreFutures.getAll(executor, callables);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
   private Optional<BuildTarget> getTargetToBuildWithBuck() {
     if (buildWithBuck) {
       return workspaceArguments.srcTarget;
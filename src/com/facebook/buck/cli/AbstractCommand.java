@@ -225,6 +225,7 @@ public abstract class AbstractCommand implements Command {
         .setJavaPackageFinder(params.getJavaPackageFinder())
         .setObjectMapper(params.getObjectMapper())
         .setExecutors(params.getExecutors())
+        .setPersistentWorkerProcesses(params.getPersistentWorkerProcesses())
         .build();
   }
 
@@ -63,8 +63,9 @@ public class AutodepsCommand extends AbstractCommand {
    * command on a specific set of BUCK files, but at least initially, we will only support running
    * this on the entire project.
    *
-   * Finally, the initial implementation is admittedly very inefficient because it does not do any
-   * caching. It should leverage Watchman to avoid re-scanning the entire filesystem every time.
+   * Finally, the symbols of Java files are cached by the hash of their contents from one run to the
+   * next, but the command still re-scans the entire filesystem every time. It should leverage
+   * Watchman to avoid that.
    */
 
   @Override
@@ -153,6 +154,7 @@ public class AutodepsCommand extends AbstractCommand {
       // Traverse the TargetGraph to find all of the auto-generated dependencies.
       JavaDepsFinder javaDepsFinder = JavaDepsFinder.createJavaDepsFinder(
           params.getBuckConfig(),
+          cell.getFilesystem(),
           params.getCell().getCellRoots(),
           params.getObjectMapper(),
           buildContext,
@@ -745,6 +745,26 @@ public class BuckConfig {
         .or(WorkQueueExecutionOrder.LIFO);
   }
 
+  /**
+   * @return whether zips written during the build, including those of outputs packaged for the
+   *     cache, should deflate their entries in parallel.
+   */
+  public boolean isParallelZipEnabled() {
+    return getBooleanValue("build", "parallel_zip", false);
+  }
+
+  /**
+   * @return the selected execution order of the test work queue, which is the build work queue's
+   *     order if one is configured.  Tests are queued slowest first, so it is FIFO by default.
+   */
+  public WorkQueueExecutionOrder getTestWorkQueueExecutionOrder() {
+    return getEnum(
+        "build",
+        "work_queue_execution_order",
+        WorkQueueExecutionOrder.class)
+        .or(WorkQueueExecutionOrder.FIFO);
+  }
+
   /**
    * @return the path for the given section and property.
    */
@@ -40,6 +40,7 @@ import com.facebook.buck.rules.BuildRule;
 import com.facebook.buck.rules.BuildRuleResolver;
 import com.facebook.buck.rules.CachingBuildEngine;
 import com.facebook.buck.rules.TargetGraphAndBuildTargets;
+import com.facebook.buck.shell.WorkerProcess;
 import com.facebook.buck.slb.NoHealthyServersException;
 import com.facebook.buck.step.AdbOptions;
 import com.facebook.buck.step.ExecutionContext;
@@ -73,6 +74,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nullable;
 
@@ -233,7 +235,8 @@ public class BuildCommand extends AbstractCommand {
       Clock clock,
       Optional<AdbOptions> adbOptions,
       Optional<TargetDeviceOptions> targetDeviceOptions,
-      Map<ExecutionContext.ExecutorPool, ListeningExecutorService> executors) {
+      Map<ExecutionContext.ExecutorPool, ListeningExecutorService> executors,
+      Optional<ConcurrentMap<String, WorkerProcess>> persistentWorkerProcesses) {
     if (console.getVerbosity() == Verbosity.ALL) {
       console.getStdErr().printf("Creating a build with %d threads.\n", buckConfig.getNumThreads());
     }
@@ -258,7 +261,9 @@ public class BuildCommand extends AbstractCommand {
         getConcurrencyLimit(buckConfig),
         adbOptions,
         targetDeviceOptions,
-        executors);
+        executors,
+        persistentWorkerProcesses,
+        buckConfig.isParallelZipEnabled());
   }
 
   @Nullable private Build lastBuild;
@@ -463,7 +468,8 @@ public class BuildCommand extends AbstractCommand {
         params.getClock(),
         Optional.<AdbOptions>absent(),
         Optional.<TargetDeviceOptions>absent(),
-        params.getExecutors())) {
+        params.getExecutors(),
+        params.getPersistentWorkerProcesses())) {
       lastBuild = build;
       return build.executeAndPrintFailuresToEventBus(
           buildTargets,
@@ -24,6 +24,7 @@ import com.facebook.buck.jvm.core.JavaPackageFinder;
 import com.facebook.buck.parser.Parser;
 import com.facebook.buck.rules.ActionGraphCache;
 import com.facebook.buck.rules.Cell;
+import com.facebook.buck.shell.WorkerProcess;
 import com.facebook.buck.step.ExecutionContext;
 import com.facebook.buck.timing.Clock;
 import com.facebook.buck.util.Console;
@@ -39,6 +40,7 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 
 import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * {@link CommandRunnerParams} is the collection of parameters needed to run a {@link Command}.
@@ -64,6 +66,7 @@ class CommandRunnerParams {
   private final Map<ExecutionContext.ExecutorPool, ListeningExecutorService> executors;
   private final BuildEnvironmentDescription buildEnvironmentDescription;
   private final ActionGraphCache actionGraphCache;
+  private final Optional<ConcurrentMap<String, WorkerProcess>> persistentWorkerProcesses;
 
   public CommandRunnerParams(
       Console console,
@@ -84,7 +87,8 @@ class CommandRunnerParams {
       FileHashCache fileHashCache,
       Map<ExecutionContext.ExecutorPool, ListeningExecutorService> executors,
       BuildEnvironmentDescription buildEnvironmentDescription,
-      ActionGraphCache actionGraphCache) {
+      ActionGraphCache actionGraphCache,
+      Optional<ConcurrentMap<String, WorkerProcess>> persistentWorkerProcesses) {
     this.console = console;
     this.stdIn = stdIn;
     this.cell = cell;
@@ -104,6 +108,7 @@ class CommandRunnerParams {
     this.executors = executors;
     this.buildEnvironmentDescription = buildEnvironmentDescription;
     this.actionGraphCache = actionGraphCache;
+    this.persistentWorkerProcesses = persistentWorkerProcesses;
   }
 
   public Console getConsole() {
@@ -182,6 +187,13 @@ class CommandRunnerParams {
     return actionGraphCache;
   }
 
+  /**
+   * @return worker processes which buckd keeps between commands, if this is running in buckd.
+   */
+  public Optional<ConcurrentMap<String, WorkerProcess>> getPersistentWorkerProcesses() {
+    return persistentWorkerProcesses;
+  }
+
   protected ExecutionContext createExecutionContext() {
     return ExecutionContext.builder()
         .setConsole(console)
@@ -192,6 +204,7 @@ class CommandRunnerParams {
         .setJavaPackageFinder(javaPackageFinder)
         .setObjectMapper(objectMapper)
         .setExecutors(executors)
+        .setPersistentWorkerProcesses(persistentWorkerProcesses)
         .build();
   }
 
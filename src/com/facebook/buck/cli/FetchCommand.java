@@ -119,7 +119,8 @@ public class FetchCommand extends BuildCommand {
           params.getClock(),
           Optional.<AdbOptions>absent(),
           Optional.<TargetDeviceOptions>absent(),
-          params.getExecutors())) {
+          params.getExecutors(),
+          params.getPersistentWorkerProcesses())) {
         exitCode = build.executeAndPrintFailuresToEventBus(
             buildTargets,
             isKeepGoing(),
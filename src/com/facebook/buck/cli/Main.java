@@ -68,6 +68,7 @@ import com.facebook.buck.rules.KnownBuildRuleTypes;
 import com.facebook.buck.rules.KnownBuildRuleTypesFactory;
 import com.facebook.buck.rules.coercer.DefaultTypeCoercerFactory;
 import com.facebook.buck.rules.coercer.TypeCoercerFactory;
+import com.facebook.buck.shell.WorkerProcess;
 import com.facebook.buck.step.ExecutionContext;
 import com.facebook.buck.test.TestConfig;
 import com.facebook.buck.test.TestResultSummaryVerbosity;
@@ -158,6 +159,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
@@ -258,6 +261,8 @@ public final class Main {
     private final Optional<WebServer> webServer;
     private final UUID watchmanQueryUUID;
     private final ActionGraphCache actionGraphCache;
+    private final ConcurrentMap<String, WorkerProcess> persistentWorkerProcesses =
+        new ConcurrentHashMap<>();
 
     public Daemon(
         Cell cell,
@@ -356,6 +361,10 @@ public final class Main {
       return actionGraphCache;
     }
 
+    private ConcurrentMap<String, WorkerProcess> getPersistentWorkerProcesses() {
+      return persistentWorkerProcesses;
+    }
+
     private DefaultFileHashCache getFileHashCache() {
       return hashCache;
     }
@@ -437,6 +446,18 @@ public final class Main {
     @Override
     public void close() throws IOException {
       shutdownWebServer();
+      closePersistentWorkerProcesses();
+    }
+
+    private void closePersistentWorkerProcesses() {
+      for (WorkerProcess process : persistentWorkerProcesses.values()) {
+        try {
+          process.close();
+        } catch (IOException | HumanReadableException e) {
+          LOG.debug(e, "Failed to close persistent worker process.");
+        }
+      }
+      persistentWorkerProcesses.clear();
     }
 
     private void shutdownWebServer() {
@@ -1053,7 +1074,8 @@ public final class Main {
                   fileHashCache,
                   executors,
                   buildEnvironmentDescription,
-                  actionGraphCache));
+                  actionGraphCache,
+                  getPersistentWorkerProcessesFromDaemon(context, rootCell)));
           // Wait for HTTP writes to complete.
           closeHttpExecutorService(
               cacheBuckConfig, Optional.of(buildEventBus), httpWriteExecutorService);
@@ -1279,6 +1301,16 @@ public final class Main {
     return new ActionGraphCache();
   }
 
+  private Optional<ConcurrentMap<String, WorkerProcess>> getPersistentWorkerProcessesFromDaemon(
+      Optional<NGContext> context,
+      Cell cell)
+      throws IOException, InterruptedException {
+    if (context.isPresent()) {
+      return Optional.of(getDaemon(cell, objectMapper).getPersistentWorkerProcesses());
+    }
+    return Optional.absent();
+  }
+
   private void loadListenersFromBuckConfig(
       ImmutableList.Builder<BuckEventListener> eventListeners,
       ProjectFilesystem projectFilesystem,
@@ -64,6 +64,7 @@ import com.facebook.buck.rules.ProjectConfig;
 import com.facebook.buck.rules.SourcePathResolver;
 import com.facebook.buck.rules.TargetGraph;
 import com.facebook.buck.rules.TargetGraphAndTargets;
+import com.facebook.buck.rules.TargetGraphHashing;
 import com.facebook.buck.rules.TargetNode;
 import com.facebook.buck.step.ExecutionContext;
 import com.facebook.buck.util.HumanReadableException;
@@ -79,6 +80,9 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.base.Splitter;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -88,8 +92,10 @@ import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
 import com.google.common.io.Files;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.kohsuke.args4j.Option;
 
@@ -221,6 +227,13 @@ public class ProjectCommand extends BuildCommand {
           "cleaner which removes any .iml files which weren't generated as part of the project.")
   private boolean runIjCleaner = false;
 
+  @Option(
+      name = "--incremental-ij-generation",
+      usage = "With --experimental-ij-generation, only regenerates the modules whose targets " +
+          "have changed since the last incremental run, which is much faster when buckd has " +
+          "already parsed the project.")
+  private boolean incrementalIjGeneration = false;
+
   @Option(
       name = "--focus",
       depends = "--build-with-buck",
@@ -287,6 +300,13 @@ public class ProjectCommand extends BuildCommand {
     return buckConfig.getBooleanValue("project", "ide_prompt", true);
   }
 
+  /**
+   * Returns true if independent Xcode projects should be generated concurrently.
+   */
+  public boolean getParallelXcodeProjectGeneration(BuckConfig buckConfig) {
+    return buckConfig.getBooleanValue("project", "parallel_xcode_project_generation", false);
+  }
+
   private Optional<Ide> getIdeFromBuckConfig(BuckConfig buckConfig) {
     return buckConfig.getValue("project", "ide").transform(
             new Function<String, Ide>() {
@@ -444,13 +464,15 @@ public class ProjectCommand extends BuildCommand {
                 params,
                 projectGraph,
                 targetGraphAndTargets,
-                passedInTargetsSet);
+                passedInTargetsSet,
+                pool.getExecutor());
             break;
           case XCODE:
             result = runXcodeProjectGenerator(
                 params,
                 targetGraphAndTargets,
-                passedInTargetsSet);
+                passedInTargetsSet,
+                pool.getExecutor());
             break;
           default:
             // unreachable
@@ -536,7 +558,8 @@ public class ProjectCommand extends BuildCommand {
    */
   int runExperimentalIntellijProjectGenerator(
       CommandRunnerParams params,
-      final TargetGraphAndTargets targetGraphAndTargets) throws IOException, InterruptedException {
+      final TargetGraphAndTargets targetGraphAndTargets,
+      ListeningExecutorService executor) throws IOException, InterruptedException {
     ActionGraphAndResolver result = Preconditions.checkNotNull(
         ActionGraphCache.getFreshActionGraph(
             params.getBuckEventBus(),
@@ -555,7 +578,16 @@ public class ProjectCommand extends BuildCommand {
         sourcePathResolver,
         params.getCell().getFilesystem(),
         getIntellijAggregationMode(params.getBuckConfig()),
-        params.getBuckConfig());
+        params.getBuckConfig(),
+        executor,
+        incrementalIjGeneration ?
+            Optional.of(
+                TargetGraphHashing.hashTargetGraph(
+                    params.getCell(),
+                    targetGraphAndTargets.getTargetGraph(),
+                    params.getFileHashCache(),
+                    targetGraphAndTargets.getTargetGraph().getNodes())) :
+            Optional.<ImmutableMap<BuildTarget, HashCode>>absent());
 
     ImmutableSet<BuildTarget> requiredBuildTargets = project.write(runIjCleaner);
 
@@ -652,10 +684,11 @@ public class ProjectCommand extends BuildCommand {
       CommandRunnerParams params,
       TargetGraph projectGraph,
       TargetGraphAndTargets targetGraphAndTargets,
-      ImmutableSet<BuildTarget> passedInTargetsSet)
+      ImmutableSet<BuildTarget> passedInTargetsSet,
+      ListeningExecutorService executor)
       throws IOException, InterruptedException {
     if (isExperimentalIntelliJProjectGenerationEnabled()) {
-      return runExperimentalIntellijProjectGenerator(params, targetGraphAndTargets);
+      return runExperimentalIntellijProjectGenerator(params, targetGraphAndTargets, executor);
     }
     // Create an ActionGraph that only contains targets that can be represented as IDE
     // configuration files.
@@ -780,7 +813,8 @@ public class ProjectCommand extends BuildCommand {
   int runXcodeProjectGenerator(
       final CommandRunnerParams params,
       final TargetGraphAndTargets targetGraphAndTargets,
-      ImmutableSet<BuildTarget> passedInTargetsSet)
+      ImmutableSet<BuildTarget> passedInTargetsSet,
+      ListeningExecutorService executor)
       throws IOException, InterruptedException {
     int exitCode = 0;
     AppleConfig appleConfig = new AppleConfig(params.getBuckConfig());
@@ -801,7 +835,10 @@ public class ProjectCommand extends BuildCommand {
         new HashMap<Path, ProjectGenerator>(),
         getCombinedProject(),
         buildWithBuck || shouldForceBuildingWithBuck(params.getBuckConfig(), passedInTargetsSet),
-        getCombineTestBundles());
+        getCombineTestBundles(),
+        getParallelXcodeProjectGeneration(params.getBuckConfig())
+            ? executor
+            : MoreExecutors.newDirectExecutorService());
     if (!requiredBuildTargets.isEmpty()) {
       BuildCommand buildCommand = new BuildCommand(FluentIterable.from(requiredBuildTargets)
           .transform(Functions.toStringFunction())
@@ -833,7 +870,8 @@ public class ProjectCommand extends BuildCommand {
       Map<Path, ProjectGenerator> projectGenerators,
       boolean combinedProject,
       boolean buildWithBuck,
-      boolean combineTestBundles)
+      boolean combineTestBundles,
+      ListeningExecutorService executor)
       throws IOException, InterruptedException {
     ImmutableSet<BuildTarget> targets;
     if (passedInTargetsSet.isEmpty()) {
@@ -851,6 +889,19 @@ public class ProjectCommand extends BuildCommand {
         ? AppleBuildRules.filterGroupableTests(testTargetNodes)
         : ImmutableSet.<TargetNode<AppleTestDescription.Arg>>of();
     ImmutableSet.Builder<BuildTarget> requiredBuildTargetsBuilder = ImmutableSet.builder();
+    // Building an action graph for a node is expensive, and the same nodes are looked up by many
+    // projects across all the workspaces, so share the results between them.
+    final LoadingCache<TargetNode<?>, SourcePathResolver> sourcePathResolverCache =
+        CacheBuilder.newBuilder().build(
+            new CacheLoader<TargetNode<?>, SourcePathResolver>() {
+              @Override
+              public SourcePathResolver load(TargetNode<?> input) {
+                return new SourcePathResolver(
+                    ActionGraphCache.getFreshActionGraph(params.getBuckEventBus(),
+                        targetGraphAndTargets.getTargetGraph().getSubgraph(
+                        ImmutableSet.of(input))).getResolver());
+              }
+            });
     for (final BuildTarget inputTarget : targets) {
       TargetNode<?> inputNode = targetGraphAndTargets.getTargetGraph().get(inputTarget);
       XcodeWorkspaceConfigDescription.Arg workspaceArgs;
@@ -893,17 +944,14 @@ public class ProjectCommand extends BuildCommand {
           new Function<TargetNode<?>, SourcePathResolver>() {
             @Override
             public SourcePathResolver apply(TargetNode<?> input) {
-              return new SourcePathResolver(
-                  ActionGraphCache.getFreshActionGraph(params.getBuckEventBus(),
-                      targetGraphAndTargets.getTargetGraph().getSubgraph(
-                      ImmutableSet.of(input))).getResolver());
+              return sourcePathResolverCache.getUnchecked(input);
             }
           },
           params.getBuckEventBus(),
           halideBuckConfig,
           cxxBuckConfig);
       generator.setGroupableTests(groupableTests);
-      generator.generateWorkspaceAndDependentProjects(projectGenerators);
+      generator.generateWorkspaceAndDependentProjects(projectGenerators, executor);
       ImmutableSet<BuildTarget> requiredBuildTargetsForWorkspace =
           generator.getRequiredBuildTargets();
       LOG.debug(
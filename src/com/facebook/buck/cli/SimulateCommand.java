@@ -20,15 +20,22 @@ import com.facebook.buck.event.ConsoleEvent;
 import com.facebook.buck.log.Logger;
 import com.facebook.buck.rules.ActionGraphAndResolver;
 import com.facebook.buck.simulate.BuildSimulator;
+import com.facebook.buck.simulate.SchedulingPolicy;
+import com.facebook.buck.simulate.SimulateCacheTier;
 import com.facebook.buck.simulate.SimulateReport;
 import com.facebook.buck.simulate.SimulateTimes;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.facebook.buck.util.HumanReadableException;
+import com.google.common.base.Ascii;
 import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.google.common.io.Files;
 
 import org.kohsuke.args4j.Argument;
@@ -37,6 +44,7 @@ import org.kohsuke.args4j.Option;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 
 public class SimulateCommand extends AbstractCommand {
@@ -45,6 +53,9 @@ public class SimulateCommand extends AbstractCommand {
   private static final String TIMES_FILE_STRING_ARG = "--times-file";
   private static final String REPORT_FILE_STRING_ARG = "--report-file";
   private static final String RULE_FALLBACK_TIME_MILLIS_ARG = "--rule-fallback-time-millis";
+  private static final String THREAD_COUNTS_ARG = "--thread-counts";
+  private static final String SCHEDULING_POLICIES_ARG = "--scheduling-policies";
+  private static final String CACHE_TIER_ARG = "--cache-tier";
 
   @Option(
       name = REPORT_FILE_STRING_ARG,
@@ -62,44 +73,70 @@ public class SimulateCommand extends AbstractCommand {
           "this value will be used instead. default=10ms")
   private long ruleFallbackTimeMillis = 10;
 
+  @Option(
+      name = THREAD_COUNTS_ARG,
+      usage = "Comma separated numbers of threads to simulate the build with, e.g. 8,16,32. " +
+          "default=the number of threads the build would use")
+  private String threadCounts = "";
+
+  @Option(
+      name = SCHEDULING_POLICIES_ARG,
+      usage = "Comma separated orders to run the rules which are ready to build in: fifo, lifo " +
+          "or critical_path. default=the build's work_queue_execution_order")
+  private String schedulingPolicies = "";
+
+  @Option(
+      name = CACHE_TIER_ARG,
+      usage = "A cache tier to look every rule up in before building it, given as " +
+          "name:hit_rate:fetch_millis[:lookup_millis]. May be given several times, in the order " +
+          "the tiers are looked up in.")
+  private List<String> cacheTiers = Lists.newArrayList();
+
   @Argument
   private List<String> arguments = Lists.newArrayList();
 
   @Override
   public int runWithoutHelp(CommandRunnerParams params) throws IOException, InterruptedException {
 
+    ImmutableList<Integer> threadCountsToSimulate = parseThreadCounts(params.getBuckConfig());
+    ImmutableList<SchedulingPolicy> policies = parseSchedulingPolicies(params.getBuckConfig());
+    ImmutableList<SimulateCacheTier> tiers = parseCacheTiers();
+
+    SimulateTimes times = Strings.isNullOrEmpty(simulateTimesFile) ?
+        SimulateTimes.createEmpty(ruleFallbackTimeMillis) :
+        SimulateTimes.createFromJsonFile(
+            params.getObjectMapper(),
+            simulateTimesFile,
+            ruleFallbackTimeMillis);
+
     // Create a BuildCommand to generate the ActionGraph.
     BuildCommand buildCommand = new BuildCommand(arguments);
-    ActionGraphAndResolver actionGraphAndResolver;
+    SimulateReport report;
     try (CommandThreadManager pool = new CommandThreadManager(
         "Simulate",
         params.getBuckConfig().getWorkQueueExecutionOrder(),
         getConcurrencyLimit(params.getBuckConfig()))) {
-      actionGraphAndResolver = buildCommand.createActionGraphAndResolver(
+      ActionGraphAndResolver actionGraphAndResolver = buildCommand.createActionGraphAndResolver(
           params,
           pool.getExecutor());
-    }
-    if (actionGraphAndResolver == null) {
-      return 1;
-    }
+      if (actionGraphAndResolver == null) {
+        return 1;
+      }
 
-    SimulateTimes times = Strings.isNullOrEmpty(simulateTimesFile) ?
-        SimulateTimes.createEmpty(ruleFallbackTimeMillis) :
-        SimulateTimes.createFromJsonFile(
-            params.getObjectMapper(),
-            simulateTimesFile,
-            ruleFallbackTimeMillis);
-
-    // Run the simulation with the generated ActionGraph.
-    BuildSimulator simulator = new BuildSimulator(
-        params.getBuckEventBus(),
-        times,
-        actionGraphAndResolver.getActionGraph(),
-        actionGraphAndResolver.getResolver(),
-        params.getBuckConfig().getNumThreads());
-    SimulateReport report = simulator.simulateBuild(
-        params.getClock().currentTimeMillis(),
-        buildCommand.getBuildTargets());
+      // Run the simulations with the generated ActionGraph.
+      BuildSimulator simulator = new BuildSimulator(
+          params.getBuckEventBus(),
+          times,
+          actionGraphAndResolver.getActionGraph(),
+          actionGraphAndResolver.getResolver(),
+          threadCountsToSimulate,
+          policies,
+          tiers,
+          pool.getExecutor());
+      report = simulator.simulateBuild(
+          params.getClock().currentTimeMillis(),
+          buildCommand.getBuildTargets());
+    }
 
     // Write down results.
     outputReport(params.getObjectMapper(), report);
@@ -112,6 +149,68 @@ public class SimulateCommand extends AbstractCommand {
     return 0;
   }
 
+  private ImmutableList<Integer> parseThreadCounts(BuckConfig buckConfig) {
+    if (threadCounts.isEmpty()) {
+      return ImmutableList.of(buckConfig.getNumThreads());
+    }
+    ImmutableList.Builder<Integer> counts = ImmutableList.builder();
+    for (String count : Splitter.on(',').trimResults().omitEmptyStrings().split(threadCounts)) {
+      try {
+        int parsed = Integer.parseInt(count);
+        if (parsed <= 0) {
+          throw new NumberFormatException();
+        }
+        counts.add(parsed);
+      } catch (NumberFormatException e) {
+        throw new HumanReadableException(
+            "%s should be positive numbers of threads, but got [%s].",
+            THREAD_COUNTS_ARG,
+            count);
+      }
+    }
+    if (counts.build().isEmpty()) {
+      throw new HumanReadableException(
+          "%s needs at least one number of threads.",
+          THREAD_COUNTS_ARG);
+    }
+    return counts.build();
+  }
+
+  private ImmutableList<SchedulingPolicy> parseSchedulingPolicies(BuckConfig buckConfig) {
+    if (schedulingPolicies.isEmpty()) {
+      return ImmutableList.of(
+          buckConfig.getWorkQueueExecutionOrder() == WorkQueueExecutionOrder.FIFO ?
+              SchedulingPolicy.FIFO :
+              SchedulingPolicy.LIFO);
+    }
+    ImmutableList.Builder<SchedulingPolicy> policies = ImmutableList.builder();
+    for (String policy :
+        Splitter.on(',').trimResults().omitEmptyStrings().split(schedulingPolicies)) {
+      try {
+        policies.add(SchedulingPolicy.valueOf(Ascii.toUpperCase(policy)));
+      } catch (IllegalArgumentException e) {
+        throw new HumanReadableException(
+            "Unknown scheduling policy [%s], expected one of: %s.",
+            policy,
+            Ascii.toLowerCase(Joiner.on(", ").join(SchedulingPolicy.values())));
+      }
+    }
+    return policies.build();
+  }
+
+  private ImmutableList<SimulateCacheTier> parseCacheTiers() {
+    ImmutableList.Builder<SimulateCacheTier> tiers = ImmutableList.builder();
+    Set<String> names = Sets.newHashSet();
+    for (String spec : cacheTiers) {
+      SimulateCacheTier tier = SimulateCacheTier.parse(spec);
+      if (!names.add(tier.getName())) {
+        throw new HumanReadableException("Cache tier %s is given more than once.", tier.getName());
+      }
+      tiers.add(tier);
+    }
+    return tiers.build();
+  }
+
   private void outputReport(ObjectMapper jsonConverter, SimulateReport report)
       throws IOException {
     // Pretty print the output.
@@ -152,6 +251,21 @@ public class SimulateCommand extends AbstractCommand {
     builder.add(RULE_FALLBACK_TIME_MILLIS_ARG);
     builder.add(Long.toString(ruleFallbackTimeMillis));
 
+    if (!threadCounts.isEmpty()) {
+      builder.add(THREAD_COUNTS_ARG);
+      builder.add(threadCounts);
+    }
+
+    if (!schedulingPolicies.isEmpty()) {
+      builder.add(SCHEDULING_POLICIES_ARG);
+      builder.add(schedulingPolicies);
+    }
+
+    for (String cacheTier : cacheTiers) {
+      builder.add(CACHE_TIER_ARG);
+      builder.add(cacheTier);
+    }
+
     return builder.build();
   }
 }
@@ -40,6 +40,8 @@ public class SlbBuckConfig {
   private static final String LATENCY_CHECK_TIME_RANGE_MILLIS =
       "slb_latency_check_time_range_millis";
   private static final String MAX_ACCEPTABLE_LATENCY_MILLIS = "slb_max_acceptable_latency_millis";
+  private static final String HEALTH_SNAPSHOT_REFRESH_INTERVAL_MILLIS =
+      "slb_health_snapshot_refresh_interval_millis";
 
   private final String parentSection;
   private final BuckConfig buckConfig;
@@ -108,6 +110,12 @@ public class SlbBuckConfig {
           buckConfig.getFloat(parentSection, MAX_ERROR_PERCENTAGE).get());
     }
 
+    if (buckConfig.getValue(parentSection, HEALTH_SNAPSHOT_REFRESH_INTERVAL_MILLIS).isPresent()) {
+      configBuilder.setHealthSnapshotRefreshIntervalMillis(
+          buckConfig.getLong(parentSection, HEALTH_SNAPSHOT_REFRESH_INTERVAL_MILLIS)
+              .get().intValue());
+    }
+
     return new ClientSideSlb(configBuilder.build());
   }
 }
@@ -79,6 +79,8 @@ import javax.annotation.Nullable;
 public class TestCommand extends BuildCommand {
 
   public static final String USE_RESULTS_CACHE = "use_results_cache";
+  public static final String PERSISTENT_JUNIT_RUNNER_MAX_TESTS =
+      "persistent_junit_runner_max_tests";
 
   private static final Logger LOG = Logger.get(TestCommand.class);
 
@@ -252,6 +254,8 @@ public class TestCommand extends BuildCommand {
         .setShufflingTests(isShufflingTests)
         .setPathToXmlTestOutput(Optional.fromNullable(pathToXmlTestOutput))
         .setPathToJavaAgent(Optional.fromNullable(pathToJavaAgent))
+        .setPersistentJUnitRunnerMaxTests(
+            params.getBuckConfig().getInteger("test", PERSISTENT_JUNIT_RUNNER_MAX_TESTS))
         .setCoverageReportFormat(coverageReportFormat)
         .setCoverageReportTitle(coverageReportTitle)
         .build();
@@ -276,7 +280,7 @@ public class TestCommand extends BuildCommand {
     try (
         CommandThreadManager testPool = new CommandThreadManager(
             "Test-Run",
-            params.getBuckConfig().getWorkQueueExecutionOrder(),
+            params.getBuckConfig().getTestWorkQueueExecutionOrder(),
             concurrencyLimit)) {
       return TestRunning.runTests(
           params,
@@ -486,7 +490,8 @@ public class TestCommand extends BuildCommand {
           params.getClock(),
           Optional.of(getAdbOptions(params.getBuckConfig())),
           Optional.of(getTargetDeviceOptions()),
-          params.getExecutors())) {
+          params.getExecutors(),
+          params.getPersistentWorkerProcesses())) {
 
         // Build all of the test rules.
         int exitCode = build.executeAndPrintFailuresToEventBus(
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.cli;
+
+import com.facebook.buck.io.ProjectFilesystem;
+import com.facebook.buck.log.Logger;
+import com.facebook.buck.model.BuildTarget;
+import com.facebook.buck.test.TestCaseSummary;
+import com.facebook.buck.test.TestResults;
+import com.facebook.buck.util.BuckConstant;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers how long test rules, and the test cases within them, took to run in previous
+ * invocations, so that {@link TestRunning} can start the slowest tests first and predict how long
+ * a run will take.
+ */
+public class TestDurationHistory {
+
+  private static final Logger LOG = Logger.get(TestDurationHistory.class);
+
+  @VisibleForTesting
+  static final Path PATH = BuckConstant.getScratchPath().resolve("test_durations.json");
+
+  private static final String RULES = "rules";
+  private static final String TEST_CASES = "test_cases";
+
+  private final ConcurrentMap<String, Long> ruleDurations;
+  private final ConcurrentMap<String, Long> testCaseDurations;
+
+  @VisibleForTesting
+  TestDurationHistory(Map<String, Long> ruleDurations, Map<String, Long> testCaseDurations) {
+    this.ruleDurations = new ConcurrentHashMap<>(ruleDurations);
+    this.testCaseDurations = new ConcurrentHashMap<>(testCaseDurations);
+  }
+
+  /**
+   * @return the history saved by a previous run, or an empty one if there is none or it cannot
+   *     be read.
+   */
+  public static TestDurationHistory load(ProjectFilesystem filesystem, ObjectMapper objectMapper) {
+    Optional<String> contents = filesystem.readFileIfItExists(PATH);
+    if (contents.isPresent()) {
+      try {
+        Map<String, Map<String, Long>> durations = objectMapper.readValue(
+            contents.get(),
+            new TypeReference<Map<String, Map<String, Long>>>() {});
+        return new TestDurationHistory(
+            withoutNullValues(durations.get(RULES)),
+            withoutNullValues(durations.get(TEST_CASES)));
+      } catch (IOException e) {
+        LOG.warn(e, "Ignoring unreadable test duration history in %s", PATH);
+      }
+    }
+    return new TestDurationHistory(
+        ImmutableMap.<String, Long>of(),
+        ImmutableMap.<String, Long>of());
+  }
+
+  private static Map<String, Long> withoutNullValues(Map<String, Long> durations) {
+    Map<String, Long> result = new TreeMap<>();
+    if (durations != null) {
+      for (Map.Entry<String, Long> entry : durations.entrySet()) {
+        if (entry.getValue() != null) {
+          result.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    return result;
+  }
+
+  public void save(ProjectFilesystem filesystem, ObjectMapper objectMapper) throws IOException {
+    filesystem.createParentDirs(PATH);
+    filesystem.writeContentsToPath(
+        objectMapper.writeValueAsString(
+            ImmutableMap.of(
+                RULES, new TreeMap<>(ruleDurations),
+                TEST_CASES, new TreeMap<>(testCaseDurations))),
+        PATH);
+  }
+
+  public void recordRuleDuration(BuildTarget target, long durationMillis) {
+    ruleDurations.put(target.getFullyQualifiedName(), durationMillis);
+  }
+
+  public void recordTestCaseDurations(TestResults results) {
+    for (TestCaseSummary testCase : results.getTestCases()) {
+      testCaseDurations.put(testCase.getTestCaseName(), testCase.getTotalTime());
+    }
+  }
+
+  public Optional<Long> getRuleDuration(BuildTarget target) {
+    return Optional.fromNullable(ruleDurations.get(target.getFullyQualifiedName()));
+  }
+
+  public Optional<Long> getTestCaseDuration(String testCaseName) {
+    return Optional.fromNullable(testCaseDurations.get(testCaseName));
+  }
+
+  /**
+   * @return how long the given rule is expected to take.  Rules we have never seen are assumed to
+   *     take as long as the average of the ones we have, or absent if there's no history at all.
+   */
+  public Optional<Long> estimateRuleDuration(BuildTarget target) {
+    Optional<Long> duration = getRuleDuration(target);
+    if (duration.isPresent() || ruleDurations.isEmpty()) {
+      return duration;
+    }
+    long total = 0;
+    int count = 0;
+    for (long known : ruleDurations.values()) {
+      total += known;
+      count++;
+    }
+    return Optional.of(count == 0 ? 0 : total / count);
+  }
+
+  /**
+   * @return the time it takes to run jobs of the given durations, in the given order, on a pool of
+   *     {@code threads} threads which always picks up the next job as soon as one becomes free.
+   */
+  public static long predictWallTime(Iterable<Long> durations, int threads) {
+    PriorityQueue<Long> threadFinishTimes = new PriorityQueue<>();
+    for (int i = 0; i < Math.max(1, threads); i++) {
+      threadFinishTimes.add(0L);
+    }
+    long wallTime = 0;
+    for (long duration : durations) {
+      long finishTime = threadFinishTimes.remove() + duration;
+      threadFinishTimes.add(finishTime);
+      wallTime = Math.max(wallTime, finishTime);
+    }
+    return wallTime;
+  }
+}
@@ -88,6 +88,8 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -95,6 +97,8 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -180,6 +184,13 @@ public class TestRunning {
     List<ListenableFuture<TestResults>> results = Lists.newArrayList();
 
     TestRuleKeyFileHelper testRuleKeyFileHelper = new TestRuleKeyFileHelper(buildEngine);
+    final TestDurationHistory durationHistory = TestDurationHistory.load(
+        params.getCell().getFilesystem(),
+        params.getObjectMapper());
+    // Partial or dry runs don't tell us how long a test really takes.
+    final boolean shouldRecordDurations =
+        !options.isDryRun() && options.getTestSelectorList().isEmpty();
+    final Set<BuildTarget> executedTestTargets = Sets.newConcurrentHashSet();
     final AtomicInteger lastReportedTestSequenceNumber = new AtomicInteger();
     final List<TestRun> separateTestRuns = Lists.newArrayList();
     List<TestRun> parallelTestRuns = Lists.newArrayList();
@@ -289,6 +300,7 @@ public class TestRunning {
         if (!testSteps.isEmpty()) {
           stepsBuilder.addAll(testSteps);
           stepsBuilder.add(testRuleKeyFileHelper.createRuleKeyInDirStep(test));
+          executedTestTargets.add(test.getBuildTarget());
         }
         steps = stepsBuilder.build();
       } else {
@@ -317,12 +329,23 @@ public class TestRunning {
       }
     }
 
+    // Start the tests which took longest last time first, so that a slow test picked up near the
+    // end of the run doesn't keep us waiting after every other thread has gone idle.
+    parallelTestRuns = sortSlowestFirst(parallelTestRuns, durationHistory);
+    long predictedWallTimeMillis = predictWallTime(
+        parallelTestRuns,
+        separateTestRuns,
+        durationHistory,
+        executionContext.getConcurrencyLimit().threadLimit);
+
+    final ConcurrentMap<BuildTarget, Long> testStartTimes = new ConcurrentHashMap<>();
     final StepRunner.StepRunningCallback testStepRunningCallback =
         new StepRunner.StepRunningCallback() {
           @Override
           public void stepsWillRun(Optional<BuildTarget> buildTarget) {
             Preconditions.checkState(buildTarget.isPresent());
             LOG.debug("Test steps will run for %s", buildTarget);
+            testStartTimes.put(buildTarget.get(), params.getClock().currentTimeMillis());
             params.getBuckEventBus().post(TestRuleEvent.started(buildTarget.get()));
           }
 
@@ -330,10 +353,19 @@ public class TestRunning {
           public void stepsDidRun(Optional<BuildTarget> buildTarget) {
             Preconditions.checkState(buildTarget.isPresent());
             LOG.debug("Test steps did run for %s", buildTarget);
+            Long startTime = testStartTimes.remove(buildTarget.get());
+            if (shouldRecordDurations &&
+                startTime != null &&
+                executedTestTargets.contains(buildTarget.get())) {
+              durationHistory.recordRuleDuration(
+                  buildTarget.get(),
+                  params.getClock().currentTimeMillis() - startTime);
+            }
             params.getBuckEventBus().post(TestRuleEvent.finished(buildTarget.get()));
           }
         };
 
+    long startTimeMillis = params.getClock().currentTimeMillis();
     for (TestRun testRun : parallelTestRuns) {
       ListenableFuture<TestResults> testResults =
           stepRunner.runStepsAndYieldResult(
@@ -426,7 +458,30 @@ public class TestRunning {
       throw e;
     }
 
-    params.getBuckEventBus().post(TestRunEvent.finished(testTargets, completedResults));
+    long actualWallTimeMillis = params.getClock().currentTimeMillis() - startTimeMillis;
+    LOG.debug(
+        "Tests took %d ms, predicted %d ms",
+        actualWallTimeMillis,
+        predictedWallTimeMillis);
+    params.getBuckEventBus().post(
+        TestRunEvent.finished(
+            testTargets,
+            completedResults,
+            predictedWallTimeMillis,
+            actualWallTimeMillis));
+
+    if (shouldRecordDurations && !executedTestTargets.isEmpty()) {
+      for (TestResults testResults : completedResults) {
+        if (executedTestTargets.contains(testResults.getBuildTarget())) {
+          durationHistory.recordTestCaseDurations(testResults);
+        }
+      }
+      try {
+        durationHistory.save(params.getCell().getFilesystem(), params.getObjectMapper());
+      } catch (IOException e) {
+        LOG.warn(e, "Could not save test durations");
+      }
+    }
 
     // Write out the results as XML, if requested.
     Optional<String> path = options.getPathToXmlTestOutput();
@@ -473,6 +528,58 @@ public class TestRunning {
     return failures ? TEST_FAILURES_EXIT_CODE : 0;
   }
 
+  /**
+   * @return the given test runs, ordered so that the ones expected to take longest come first.
+   *     Runs we know nothing about keep their relative order.
+   */
+  @VisibleForTesting
+  static List<TestRun> sortSlowestFirst(
+      List<TestRun> testRuns,
+      final TestDurationHistory durationHistory) {
+    List<TestRun> sorted = Lists.newArrayList(testRuns);
+    Collections.sort(
+        sorted,
+        new Comparator<TestRun>() {
+          @Override
+          public int compare(TestRun a, TestRun b) {
+            return Long.compare(
+                getPredictedDuration(b, durationHistory),
+                getPredictedDuration(a, durationHistory));
+          }
+        });
+    return sorted;
+  }
+
+  /**
+   * @return how long we expect running the given parallel and separate tests to take, or 0 if we
+   *     have no history to go on.
+   */
+  private static long predictWallTime(
+      List<TestRun> parallelTestRuns,
+      List<TestRun> separateTestRuns,
+      TestDurationHistory durationHistory,
+      int threads) {
+    List<Long> parallelDurations = Lists.newArrayList();
+    for (TestRun testRun : parallelTestRuns) {
+      parallelDurations.add(getPredictedDuration(testRun, durationHistory));
+    }
+    long wallTime = TestDurationHistory.predictWallTime(parallelDurations, threads);
+    for (TestRun testRun : separateTestRuns) {
+      wallTime += getPredictedDuration(testRun, durationHistory);
+    }
+    return wallTime;
+  }
+
+  private static long getPredictedDuration(
+      TestRun testRun,
+      TestDurationHistory durationHistory) {
+    // Cached tests have nothing to run.
+    if (testRun.getSteps().isEmpty()) {
+      return 0;
+    }
+    return durationHistory.estimateRuleDuration(testRun.getTest().getBuildTarget()).or(0L);
+  }
+
   private static ListenableFuture<TestResults> transformTestResults(
       final CommandRunnerParams params,
       ListenableFuture<TestResults> originalTestResults,
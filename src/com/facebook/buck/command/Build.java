@@ -18,6 +18,9 @@ package com.facebook.buck.command;
 
 import com.facebook.buck.android.AndroidPlatformTarget;
 import com.facebook.buck.artifact_cache.ArtifactCache;
+import com.facebook.buck.counters.Counter;
+import com.facebook.buck.counters.CounterRegistry;
+import com.facebook.buck.counters.SamplingCounter;
 import com.facebook.buck.event.BuckEventBus;
 import com.facebook.buck.event.ConsoleEvent;
 import com.facebook.buck.event.ThrowableConsoleEvent;
@@ -34,6 +37,7 @@ import com.facebook.buck.rules.BuildResult;
 import com.facebook.buck.rules.BuildRule;
 import com.facebook.buck.rules.BuildRuleResolver;
 import com.facebook.buck.rules.ImmutableBuildContext;
+import com.facebook.buck.shell.WorkerProcess;
 import com.facebook.buck.step.AdbOptions;
 import com.facebook.buck.step.DefaultStepRunner;
 import com.facebook.buck.step.ExecutionContext;
@@ -44,6 +48,8 @@ import com.facebook.buck.timing.Clock;
 import com.facebook.buck.util.Console;
 import com.facebook.buck.util.ExceptionWithHumanReadableMessage;
 import com.facebook.buck.util.HumanReadableException;
+import com.facebook.buck.util.ProcessExecutor;
+import com.facebook.buck.util.ProcessSpawnListener;
 import com.facebook.buck.util.concurrent.ConcurrencyLimit;
 import com.facebook.buck.util.environment.Platform;
 import com.facebook.buck.util.immutables.BuckStyleImmutable;
@@ -62,6 +68,7 @@ import com.google.common.io.Files;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.immutables.value.Value;
 
@@ -72,12 +79,16 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 
 public class Build implements Closeable {
 
+  private static final String PROCESS_COUNTER_CATEGORY = "buck_processes";
+
   private static final Predicate<BuildResult> RULES_FAILED_PREDICATE =
       new Predicate<BuildResult>() {
         @Override
@@ -121,11 +132,15 @@ public class Build implements Closeable {
       ConcurrencyLimit concurrencyLimit,
       Optional<AdbOptions> adbOptions,
       Optional<TargetDeviceOptions> targetDeviceOptions,
-      Map<ExecutionContext.ExecutorPool, ListeningExecutorService> executors) {
+      Map<ExecutionContext.ExecutorPool, ListeningExecutorService> executors,
+      Optional<ConcurrentMap<String, WorkerProcess>> persistentWorkerProcesses,
+      boolean isParallelZipEnabled) {
     this.actionGraph = actionGraph;
     this.ruleResolver = ruleResolver;
     this.executionContext = ExecutionContext.builder()
         .setConsole(console)
+        .setProcessExecutor(
+            new ProcessExecutor(console, createProcessSpawnLatencyCounter(eventBus)))
         .setAndroidPlatformTargetSupplier(androidPlatformTargetSupplier)
         .setTargetDevice(targetDevice)
         .setDefaultTestTimeoutMillis(defaultTestTimeoutMillis)
@@ -141,6 +156,8 @@ public class Build implements Closeable {
         .setAdbOptions(adbOptions)
         .setTargetDeviceOptions(targetDeviceOptions)
         .setExecutors(executors)
+        .setPersistentWorkerProcesses(persistentWorkerProcesses)
+        .setParallelZipEnabled(isParallelZipEnabled)
         .build();
     this.artifactCache = artifactCache;
     this.buildEngine = buildEngine;
@@ -150,6 +167,24 @@ public class Build implements Closeable {
     this.objectMapper = objectMapper;
   }
 
+  /**
+   * Creates a counter of how long the build's processes take to spawn, in microseconds.
+   */
+  private static ProcessSpawnListener createProcessSpawnLatencyCounter(BuckEventBus eventBus) {
+    final SamplingCounter counter = new SamplingCounter(
+        PROCESS_COUNTER_CATEGORY,
+        "spawn_latency_micros",
+        ImmutableMap.<String, String>of());
+    eventBus.post(
+        new CounterRegistry.AsyncCounterRegistrationEvent(ImmutableList.<Counter>of(counter)));
+    return new ProcessSpawnListener() {
+      @Override
+      public void onProcessSpawned(long spawnLatencyNanos) {
+        counter.addSample(TimeUnit.NANOSECONDS.toMicros(spawnLatencyNanos));
+      }
+    };
+  }
+
   public ActionGraph getActionGraph() {
     return actionGraph;
   }
@@ -197,6 +232,13 @@ public class Build implements Closeable {
         .putAllEnvironment(executionContext.getEnvironment())
         .setKeepGoing(isKeepGoing)
         .setShouldReportAbsolutePaths(executionContext.shouldReportAbsolutePaths())
+        .setArtifactPackagingExecutor(
+            executionContext.isParallelZipEnabled() ?
+                Optional.of(
+                    Optional.fromNullable(
+                        executionContext.getExecutors().get(ExecutionContext.ExecutorPool.CPU))
+                        .or(MoreExecutors.newDirectExecutorService())) :
+                Optional.<ListeningExecutorService>absent())
         .build();
 
     ImmutableSet<BuildTarget> targetsToBuild = FluentIterable.from(targetish)
@@ -200,6 +200,13 @@ abstract class AbstractCxxSourceRuleFactory {
 
   @VisibleForTesting
   public CxxPreprocessAndCompile createPreprocessBuildRule(String name, CxxSource source) {
+    return createPreprocessBuildRule(name, source, /* hashNormalizedOutput */ false);
+  }
+
+  private CxxPreprocessAndCompile createPreprocessBuildRule(
+      String name,
+      CxxSource source,
+      boolean hashNormalizedOutput) {
     Preconditions.checkArgument(CxxSourceTypes.isPreprocessableType(source.getType()));
 
     BuildTarget target = createPreprocessBuildTarget(name, source.getType());
@@ -211,45 +218,67 @@ abstract class AbstractCxxSourceRuleFactory {
             CxxSourceTypes.getPreprocessorOutputType(source.getType()))
                 .resolve(getResolver());
 
+    BuildRuleParams params = getParams().copyWithChanges(
+        target,
+        new DepsBuilder()
+            .addPreprocessDeps()
+            .add(preprocessorDelegate.getPreprocessor())
+            // We shouldn't really need to depend on the compiler for preprocess-only rules,
+            // but the `CxxPreprocessAndCompile` class adds the entire `CompilerDelegate` to
+            // the rule key, which means the input-based rule key factory expects to be
+            // included in the dep list.
+            .add(compiler)
+            .add(source),
+        Suppliers.ofInstance(ImmutableSortedSet.<BuildRule>of()));
+    CompilerDelegate compilerDelegate = new CompilerDelegate(
+        getPathResolver(),
+        getCxxPlatform().getDebugPathSanitizer(),
+        compiler,
+        computeCompilerFlags(source.getType(), source.getFlags()));
+
     // Build the CxxCompile rule and add it to our sorted set of build rules.
-    CxxPreprocessAndCompile result =
-        CxxPreprocessAndCompile.preprocess(
-            getParams().copyWithChanges(
-                target,
-                new DepsBuilder()
-                    .addPreprocessDeps()
-                    .add(preprocessorDelegate.getPreprocessor())
-                    // We shouldn't really need to depend on the compiler for preprocess-only rules,
-                    // but the `CxxPreprocessAndCompile` class adds the entire `CompilerDelegate` to
-                    // the rule key, which means the input-based rule key factory expects to be
-                    // included in the dep list.
-                    .add(compiler)
-                    .add(source),
-                Suppliers.ofInstance(ImmutableSortedSet.<BuildRule>of())),
-            getPathResolver(),
-            preprocessorDelegate,
-            new CompilerDelegate(
-                getPathResolver(),
-                getCxxPlatform().getDebugPathSanitizer(),
-                compiler,
-                computeCompilerFlags(source.getType(), source.getFlags())),
-            getPreprocessOutputPath(target, source.getType(), name),
-            source.getPath(),
-            source.getType(),
-            getCxxPlatform().getDebugPathSanitizer());
+    CxxPreprocessAndCompile result;
+    if (hashNormalizedOutput) {
+      result = CxxPreprocessAndCompile.preprocessAndHashNormalizedOutput(
+          params,
+          getPathResolver(),
+          preprocessorDelegate,
+          compilerDelegate,
+          getPreprocessOutputPath(target, source.getType(), name),
+          source.getPath(),
+          source.getType(),
+          getCxxPlatform().getDebugPathSanitizer());
+    } else {
+      result = CxxPreprocessAndCompile.preprocess(
+          params,
+          getPathResolver(),
+          preprocessorDelegate,
+          compilerDelegate,
+          getPreprocessOutputPath(target, source.getType(), name),
+          source.getPath(),
+          source.getType(),
+          getCxxPlatform().getDebugPathSanitizer());
+    }
     getResolver().addToIndex(result);
     return result;
   }
 
   @VisibleForTesting
   CxxPreprocessAndCompile requirePreprocessBuildRule(String name, CxxSource source) {
+    return requirePreprocessBuildRule(name, source, /* hashNormalizedOutput */ false);
+  }
+
+  private CxxPreprocessAndCompile requirePreprocessBuildRule(
+      String name,
+      CxxSource source,
+      boolean hashNormalizedOutput) {
     BuildTarget target = createPreprocessBuildTarget(name, source.getType());
     Optional<CxxPreprocessAndCompile> existingRule = getResolver().getRuleOptionalWithType(
         target, CxxPreprocessAndCompile.class);
     if (existingRule.isPresent()) {
       return existingRule.get();
     }
-    return createPreprocessBuildRule(name, source);
+    return createPreprocessBuildRule(name, source, hashNormalizedOutput);
   }
 
   /**
@@ -342,6 +371,17 @@ abstract class AbstractCxxSourceRuleFactory {
   public CxxPreprocessAndCompile createCompileBuildRule(
       String name,
       CxxSource source) {
+    return createCompileBuildRule(name, source, Optional.<SourcePath>absent());
+  }
+
+  /**
+   * @param normalizedSourceHash if present, the hash of the normalized preprocessed source, which
+   *     the rule is keyed on in place of the source.
+   */
+  private CxxPreprocessAndCompile createCompileBuildRule(
+      String name,
+      CxxSource source,
+      Optional<SourcePath> normalizedSourceHash) {
 
     Preconditions.checkArgument(CxxSourceTypes.isCompilableType(source.getType()));
 
@@ -362,28 +402,51 @@ abstract class AbstractCxxSourceRuleFactory {
         .addAllRuleFlags(source.getFlags())
         .build();
 
-    // Build the CxxCompile rule and add it to our sorted set of build rules.
-    CxxPreprocessAndCompile result = CxxPreprocessAndCompile.compile(
-        getParams().copyWithChanges(
-            target,
-            new DepsBuilder().add(compiler).add(source),
-            Suppliers.ofInstance(ImmutableSortedSet.<BuildRule>of())),
+    BuildRuleParams params = getParams().copyWithChanges(
+        target,
+        new DepsBuilder().add(compiler).add(source),
+        Suppliers.ofInstance(ImmutableSortedSet.<BuildRule>of()));
+    CompilerDelegate compilerDelegate = new CompilerDelegate(
         getPathResolver(),
-        new CompilerDelegate(
-            getPathResolver(),
-            getCxxPlatform().getDebugPathSanitizer(),
-            compiler,
-            flags),
-        getCompileOutputPath(target, name),
-        source.getPath(),
-        source.getType(),
-        getCxxPlatform().getDebugPathSanitizer());
+        getCxxPlatform().getDebugPathSanitizer(),
+        compiler,
+        flags);
+
+    // Build the CxxCompile rule and add it to our sorted set of build rules.
+    CxxPreprocessAndCompile result;
+    if (normalizedSourceHash.isPresent()) {
+      result = CxxPreprocessAndCompile.compileKeyedOnNormalizedInput(
+          params,
+          getPathResolver(),
+          compilerDelegate,
+          getCompileOutputPath(target, name),
+          source.getPath(),
+          normalizedSourceHash.get(),
+          source.getType(),
+          getCxxPlatform().getDebugPathSanitizer());
+    } else {
+      result = CxxPreprocessAndCompile.compile(
+          params,
+          getPathResolver(),
+          compilerDelegate,
+          getCompileOutputPath(target, name),
+          source.getPath(),
+          source.getType(),
+          getCxxPlatform().getDebugPathSanitizer());
+    }
     getResolver().addToIndex(result);
     return result;
   }
 
   @VisibleForTesting
   CxxPreprocessAndCompile requireCompileBuildRule(String name, CxxSource source) {
+    return requireCompileBuildRule(name, source, Optional.<SourcePath>absent());
+  }
+
+  private CxxPreprocessAndCompile requireCompileBuildRule(
+      String name,
+      CxxSource source,
+      Optional<SourcePath> normalizedSourceHash) {
 
     BuildTarget target = createCompileBuildTarget(name);
     Optional<CxxPreprocessAndCompile> existingRule = getResolver().getRuleOptionalWithType(
@@ -396,7 +459,7 @@ abstract class AbstractCxxSourceRuleFactory {
       return existingRule.get();
     }
 
-    return createCompileBuildRule(name, source);
+    return createCompileBuildRule(name, source, normalizedSourceHash);
 
   }
 
@@ -677,6 +740,31 @@ abstract class AbstractCxxSourceRuleFactory {
           break;
         }
 
+        case SEPARATE_NORMALIZED: {
+
+          // As above, but key the compile build rule on the hash of the normalized preprocessed
+          // source, rather than on the source.
+          Optional<SourcePath> normalizedSourceHash = Optional.absent();
+          if (CxxSourceTypes.isPreprocessableType(source.getType())) {
+            CxxPreprocessAndCompile rule =
+                requirePreprocessBuildRule(name, source, /* hashNormalizedOutput */ true);
+            source = CxxSource.copyOf(source)
+                .withType(CxxSourceTypes.getPreprocessorOutputType(source.getType()))
+                .withPath(
+                    new BuildTargetSourcePath(rule.getBuildTarget()));
+            normalizedSourceHash = Optional.<SourcePath>of(
+                new BuildTargetSourcePath(
+                    rule.getBuildTarget(),
+                    rule.getNormalizedOutputHashPath()));
+          }
+
+          CxxPreprocessAndCompile rule =
+              requireCompileBuildRule(name, source, normalizedSourceHash);
+          objects.add(rule);
+
+          break;
+        }
+
         // $CASES-OMITTED$
         default:
           throw new IllegalStateException();
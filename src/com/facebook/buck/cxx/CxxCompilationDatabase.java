@@ -162,7 +162,8 @@ public class CxxCompilationDatabase extends AbstractBuildRule
       List<CxxCompilationDatabaseEntry> entries = Lists.newArrayList();
       for (CxxPreprocessAndCompile compileRule : compileRules) {
         Optional<CxxPreprocessAndCompile> preprocessRule = Optional.absent();
-        if (preprocessMode == CxxPreprocessMode.SEPARATE) {
+        if (preprocessMode == CxxPreprocessMode.SEPARATE ||
+            preprocessMode == CxxPreprocessMode.SEPARATE_NORMALIZED) {
           for (BuildRule buildRule : compileRule.getDeclaredDeps()) {
             if (CxxSourceRuleFactory.isPreprocessFlavoredBuildTarget(buildRule.getBuildTarget())) {
               preprocessRule = Optional.of((CxxPreprocessAndCompile) buildRule);
@@ -23,10 +23,14 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.base.StandardSystemProperty;
 import com.google.common.collect.ImmutableList;
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.StringReader;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.regex.Matcher;
@@ -40,6 +44,8 @@ import java.util.regex.Pattern;
  */
 class CxxErrorTransformerFactory {
 
+  private static final String LINE_SEPARATOR = StandardSystemProperty.LINE_SEPARATOR.value();
+
   private final Optional<Path> workingDir;
   private final Optional<Function<Path, Path>> absolutifier;
   private final HeaderPathNormalizer pathNormalizer;
@@ -79,6 +85,23 @@ class CxxErrorTransformerFactory {
     };
   }
 
+  /**
+   * Transforms each line of error output which has already been read in full.
+   */
+  public String transformLines(String text) {
+    StringBuilder builder = new StringBuilder();
+    try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        builder.append(transformLine(line)).append(LINE_SEPARATOR);
+      }
+    } catch (IOException e) {
+      // Reading from a string can't fail.
+      throw new IllegalStateException(e);
+    }
+    return builder.toString();
+  }
+
   private static final ImmutableList<Pattern> PATH_PATTERNS =
       ImmutableList.of(
           Pattern.compile(
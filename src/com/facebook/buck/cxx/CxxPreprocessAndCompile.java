@@ -56,8 +56,10 @@ public class CxxPreprocessAndCompile
   private final CompilerDelegate compilerDelegate;
   @AddToRuleKey(stringify = true)
   private final Path output;
-  @AddToRuleKey
+  // Added to the rule key by hand, as compile rules may be keyed on another input.
   private final SourcePath input;
+  private final Optional<SourcePath> normalizedInputHash;
+  private final boolean hashNormalizedOutput;
   private final Optional<PrecompiledHeaderReference> precompiledHeader;
   private final CxxSource.Type inputType;
   private final DebugPathSanitizer sanitizer;
@@ -74,7 +76,42 @@ public class CxxPreprocessAndCompile
       CxxSource.Type inputType,
       Optional<PrecompiledHeaderReference> precompiledHeader,
       DebugPathSanitizer sanitizer) {
+    this(
+        params,
+        resolver,
+        operation,
+        preprocessDelegate,
+        compilerDelegate,
+        output,
+        input,
+        Optional.<SourcePath>absent(),
+        false,
+        inputType,
+        precompiledHeader,
+        sanitizer);
+  }
+
+  private CxxPreprocessAndCompile(
+      BuildRuleParams params,
+      SourcePathResolver resolver,
+      CxxPreprocessAndCompileStep.Operation operation,
+      Optional<PreprocessorDelegate> preprocessDelegate,
+      CompilerDelegate compilerDelegate,
+      Path output,
+      SourcePath input,
+      Optional<SourcePath> normalizedInputHash,
+      boolean hashNormalizedOutput,
+      CxxSource.Type inputType,
+      Optional<PrecompiledHeaderReference> precompiledHeader,
+      DebugPathSanitizer sanitizer) {
     super(params, resolver);
+    Preconditions.checkState(
+        !normalizedInputHash.isPresent() ||
+            operation == CxxPreprocessAndCompileStep.Operation.COMPILE,
+        "Only preprocessed sources can be keyed on their normalized hash.");
+    Preconditions.checkState(
+        !hashNormalizedOutput || operation == CxxPreprocessAndCompileStep.Operation.PREPROCESS,
+        "Only preprocessed output can be normalized and hashed.");
     Preconditions.checkState(operation.isPreprocess() == preprocessDelegate.isPresent());
     if (precompiledHeader.isPresent()) {
       Preconditions.checkState(
@@ -86,6 +123,8 @@ public class CxxPreprocessAndCompile
     this.compilerDelegate = compilerDelegate;
     this.output = output;
     this.input = input;
+    this.normalizedInputHash = normalizedInputHash;
+    this.hashNormalizedOutput = hashNormalizedOutput;
     this.inputType = inputType;
     this.precompiledHeader = precompiledHeader;
     this.sanitizer = sanitizer;
@@ -115,6 +154,37 @@ public class CxxPreprocessAndCompile
         sanitizer);
   }
 
+  /**
+   * @return a {@link CxxPreprocessAndCompile} step that compiles the given preprocessed source, and
+   *     whose rule key uses the hash of the normalized preprocessed source in place of the source
+   *     itself.
+   * @param normalizedInputHash the hash written by a rule from
+   *     {@link #preprocessAndHashNormalizedOutput}.
+   */
+  public static CxxPreprocessAndCompile compileKeyedOnNormalizedInput(
+      BuildRuleParams params,
+      SourcePathResolver resolver,
+      CompilerDelegate compilerDelegate,
+      Path output,
+      SourcePath input,
+      SourcePath normalizedInputHash,
+      CxxSource.Type inputType,
+      DebugPathSanitizer sanitizer) {
+    return new CxxPreprocessAndCompile(
+        params,
+        resolver,
+        CxxPreprocessAndCompileStep.Operation.COMPILE,
+        Optional.<PreprocessorDelegate>absent(),
+        compilerDelegate,
+        output,
+        input,
+        Optional.of(normalizedInputHash),
+        false,
+        inputType,
+        Optional.<PrecompiledHeaderReference>absent(),
+        sanitizer);
+  }
+
   /**
    * @return a {@link CxxPreprocessAndCompile} step that preprocesses the given source.
    */
@@ -140,6 +210,35 @@ public class CxxPreprocessAndCompile
         sanitizer);
   }
 
+  /**
+   * @return a {@link CxxPreprocessAndCompile} step that preprocesses the given source, and also
+   *     writes the hash of its output without line markers to
+   *     {@link #getNormalizedOutputHashPath()}.
+   */
+  public static CxxPreprocessAndCompile preprocessAndHashNormalizedOutput(
+      BuildRuleParams params,
+      SourcePathResolver resolver,
+      PreprocessorDelegate preprocessorDelegate,
+      CompilerDelegate compilerDelegate,
+      Path output,
+      SourcePath input,
+      CxxSource.Type inputType,
+      DebugPathSanitizer sanitizer) {
+    return new CxxPreprocessAndCompile(
+        params,
+        resolver,
+        CxxPreprocessAndCompileStep.Operation.PREPROCESS,
+        Optional.of(preprocessorDelegate),
+        compilerDelegate,
+        output,
+        input,
+        Optional.<SourcePath>absent(),
+        true,
+        inputType,
+        Optional.<PrecompiledHeaderReference>absent(),
+        sanitizer);
+  }
+
   /**
    * @return a {@link CxxPreprocessAndCompile} step that preprocesses and compiles the given source.
    */
@@ -171,6 +270,11 @@ public class CxxPreprocessAndCompile
 
   @Override
   public RuleKeyBuilder appendToRuleKey(RuleKeyBuilder builder) {
+    builder.setReflectively("input", normalizedInputHash.or(input));
+    if (hashNormalizedOutput) {
+      builder.setReflectively("normalizedOutputHash", getNormalizedOutputHashPath().toString());
+    }
+
     // If a sanitizer is being used for compilation, we need to record the working directory in
     // the rule key, as changing this changes the generated object file.
     if (operation == CxxPreprocessAndCompileStep.Operation.COMPILE_MUNGE_DEBUGINFO) {
@@ -180,6 +284,10 @@ public class CxxPreprocessAndCompile
     return builder;
   }
 
+  public Path getNormalizedOutputHashPath() {
+    return output.getFileSystem().getPath(output.toString() + ".normalized.sha1");
+  }
+
   private Path getDepFilePath() {
     return output.getFileSystem().getPath(output.toString() + ".dep");
   }
@@ -277,10 +385,19 @@ public class CxxPreprocessAndCompile
       BuildableContext buildableContext) {
     Path scratchDir = BuildTargets.getScratchPath(getBuildTarget(), "%s-tmp");
     buildableContext.recordArtifact(output);
-    return ImmutableList.of(
-        new MkdirStep(getProjectFilesystem(), output.getParent()),
-        new MakeCleanDirectoryStep(getProjectFilesystem(), scratchDir),
-        makeMainStep(scratchDir));
+    ImmutableList.Builder<Step> steps = ImmutableList.<Step>builder()
+        .add(new MkdirStep(getProjectFilesystem(), output.getParent()))
+        .add(new MakeCleanDirectoryStep(getProjectFilesystem(), scratchDir))
+        .add(makeMainStep(scratchDir));
+    if (hashNormalizedOutput) {
+      buildableContext.recordArtifact(getNormalizedOutputHashPath());
+      steps.add(
+          new HashNormalizedPreprocessedSourceStep(
+              getProjectFilesystem(),
+              output,
+              getNormalizedOutputHashPath()));
+    }
+    return steps.build();
   }
 
   @VisibleForTesting
@@ -26,6 +26,8 @@ import com.facebook.buck.util.Escaper;
 import com.facebook.buck.util.LineProcessorRunnable;
 import com.facebook.buck.util.ManagedRunnable;
 import com.facebook.buck.util.MoreThrowables;
+import com.facebook.buck.util.ProcessExecutor;
+import com.facebook.buck.util.ProcessExecutorParams;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
@@ -34,6 +36,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Files;
 
 import java.io.ByteArrayOutputStream;
@@ -333,7 +336,59 @@ public class CxxPreprocessAndCompileStep implements Step {
     }
   }
 
+  /**
+   * Runs a command which writes its output straight to a file, so that only its error output needs
+   * to be read, through {@link ProcessExecutor}, which reads it with NuProcess on a pool of I/O
+   * threads shared by all processes rather than on a thread started for this one.
+   */
+  private int executeListening(ExecutionContext context)
+      throws IOException, InterruptedException {
+    ProcessBuilder builder = makeSubprocessBuilder(context);
+    builder.command(getCommand(context.getAnsi().isAnsiTerminal()));
+    ProcessExecutorParams params = ProcessExecutorParams.builder()
+        .setCommand(builder.command())
+        .setDirectory(builder.directory())
+        .setEnvironment(ImmutableMap.copyOf(builder.environment()))
+        .build();
+
+    LOG.debug(
+        "Running command (pwd=%s): %s",
+        builder.directory(),
+        getDescription(context));
+
+    // This waits for all of the process's output to be handled, not just for it to exit.  As the
+    // compiler's output is captured rather than printed, it's left as it is, without highlighting.
+    ProcessExecutor.Result result = context.getProcessExecutor().launchAndExecute(
+        params,
+        ImmutableSet.of(
+            ProcessExecutor.Option.EXPECTING_STD_OUT,
+            ProcessExecutor.Option.EXPECTING_STD_ERR,
+            ProcessExecutor.Option.IS_SILENT),
+        /* stdin */ Optional.<String>absent(),
+        /* timeOutMs */ Optional.<Long>absent(),
+        /* timeOutHandler */ Optional.<Function<Process, Void>>absent());
+    int exitCode = result.getExitCode();
+
+    // If we generated any error output, print that to the console.
+    String err = createErrorTransformerFactory(context).transformLines(result.getStderr().get());
+    if (!err.isEmpty()) {
+      context.getBuckEventBus().post(
+          createConsoleEvent(
+              context,
+              preprocessorCommand.or(compilerCommand).get().supportsColorsInDiagnostics(),
+              exitCode == 0 ? Level.WARNING : Level.SEVERE,
+              err));
+    }
+
+    return exitCode;
+  }
+
   private int executeOther(ExecutionContext context) throws Exception {
+    // Only preprocessed output has to be postprocessed on its way to its file.
+    if (operation != Operation.PREPROCESS) {
+      return executeListening(context);
+    }
+
     ProcessBuilder builder = makeSubprocessBuilder(context);
 
     builder.command(getCommand(context.getAnsi().isAnsiTerminal()));
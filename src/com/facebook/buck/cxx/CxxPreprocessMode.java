@@ -32,6 +32,15 @@ public enum CxxPreprocessMode {
    */
   PIPED,
 
+  /**
+   * As SEPARATE, but the preprocessor also hashes its output with the line markers and blank lines
+   * stripped, and the .o files are keyed on that hash rather than on the .i files, so that header
+   * changes which only move code around, such as edits to comments, are cache hits for the
+   * compiler.  The cached .o files may have been built with the old line numbers in their debug
+   * information.
+   */
+  SEPARATE_NORMALIZED,
+
   /**
    * Run the preprocessor and compiler together.  Does not currently normalize debugging
    * information at the preprocessor level; does a search-and-replace on the debug section
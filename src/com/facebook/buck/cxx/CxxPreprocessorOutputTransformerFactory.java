@@ -69,6 +69,15 @@ class CxxPreprocessorOutputTransformerFactory {
   private static final Pattern LINE_MARKERS =
       Pattern.compile("^# (?<num>\\d+) \"(?<path>[^\"]+)\"(?<rest>.*)?$");
 
+  /**
+   * @return whether the line is a line marker, which only records where the lines which follow it
+   *     came from, so has no effect on what they compile to other than their debug info.
+   */
+  static boolean isLineMarker(String line) {
+    return (line.startsWith("# ") && LINE_MARKERS.matcher(line).find()) ||
+        line.startsWith("#line ");
+  }
+
   @VisibleForTesting
   String transformLine(String line) {
     if (line.startsWith("# ")) {
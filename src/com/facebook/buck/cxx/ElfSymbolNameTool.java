@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.cxx;
+
+import com.facebook.buck.cxx.elf.Elf;
+import com.facebook.buck.cxx.elf.ElfSection;
+import com.facebook.buck.cxx.elf.ElfSymbolTable;
+import com.facebook.buck.model.BuildTarget;
+import com.facebook.buck.model.BuildTargets;
+import com.facebook.buck.rules.AbstractBuildRule;
+import com.facebook.buck.rules.AddToRuleKey;
+import com.facebook.buck.rules.BuildContext;
+import com.facebook.buck.rules.BuildRule;
+import com.facebook.buck.rules.BuildRuleParams;
+import com.facebook.buck.rules.BuildRuleResolver;
+import com.facebook.buck.rules.BuildTargetSourcePath;
+import com.facebook.buck.rules.BuildableContext;
+import com.facebook.buck.rules.SourcePath;
+import com.facebook.buck.rules.SourcePathResolver;
+import com.facebook.buck.step.AbstractExecutionStep;
+import com.facebook.buck.step.ExecutionContext;
+import com.facebook.buck.step.Step;
+import com.facebook.buck.step.fs.MkdirStep;
+import com.facebook.buck.util.HumanReadableException;
+import com.google.common.base.Optional;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A {@link SymbolNameTool} implementation which reads the symbol tables of ELF inputs directly,
+ * rather than running and parsing the output of an external `nm` process.  It can only be used on
+ * platforms whose linker inputs are all ELF files.
+ */
+public class ElfSymbolNameTool implements SymbolNameTool {
+
+  @Override
+  public SourcePath createUndefinedSymbolsFile(
+      BuildRuleParams baseParams,
+      BuildRuleResolver ruleResolver,
+      SourcePathResolver pathResolver,
+      BuildTarget target,
+      Iterable<? extends SourcePath> linkerInputs) {
+    ruleResolver.addToIndex(
+        new UndefinedSymbolsFile(
+            baseParams.copyWithChanges(
+                target,
+                Suppliers.ofInstance(
+                    ImmutableSortedSet.copyOf(pathResolver.filterBuildRuleInputs(linkerInputs))),
+                Suppliers.ofInstance(ImmutableSortedSet.<BuildRule>of())),
+            pathResolver,
+            linkerInputs));
+    return new BuildTargetSourcePath(target);
+  }
+
+  /**
+   * @return the names of the undefined external symbols (i.e. what `nm -g -u` would list) in the
+   *     given ELF file.  The static symbol table is used if present, falling back to the dynamic
+   *     one for stripped shared libraries.
+   */
+  static ImmutableList<String> getUndefinedSymbols(Path path) throws IOException {
+    ImmutableList.Builder<String> symbols = ImmutableList.builder();
+    try (FileChannel channel = FileChannel.open(path)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (!Elf.isElf(buffer)) {
+        throw new HumanReadableException("%s: cannot read symbols from a non-ELF file", path);
+      }
+      Elf elf = new Elf(buffer);
+      Optional<ElfSection> section = elf.getSectionByName(".symtab").or(
+          elf.getSectionByName(".dynsym"));
+      if (!section.isPresent()) {
+        return symbols.build();
+      }
+      ElfSymbolTable symbolTable = ElfSymbolTable.parse(elf.header.ei_class, section.get());
+      for (ElfSymbolTable.Entry symbol : symbolTable.entries) {
+        if (!symbol.isUndefined() ||
+            (symbol.st_info.bind != ElfSymbolTable.Entry.Info.Bind.STB_GLOBAL &&
+                symbol.st_info.bind != ElfSymbolTable.Entry.Info.Bind.STB_WEAK)) {
+          continue;
+        }
+        String name = elf.getSymbolName(section.get(), symbol);
+        if (!name.isEmpty()) {
+          symbols.add(name);
+        }
+      }
+    }
+    return symbols.build();
+  }
+
+  private static class UndefinedSymbolsFile extends AbstractBuildRule {
+
+    @AddToRuleKey
+    private final Iterable<? extends SourcePath> inputs;
+
+    public UndefinedSymbolsFile(
+        BuildRuleParams buildRuleParams,
+        SourcePathResolver resolver,
+        Iterable<? extends SourcePath> inputs) {
+      super(buildRuleParams, resolver);
+      this.inputs = inputs;
+    }
+
+    private Path getUndefinedSymbolsPath() {
+      return BuildTargets.getGenPath(getBuildTarget(), "%s/undefined_symbols.txt");
+    }
+
+    @Override
+    public ImmutableList<Step> getBuildSteps(
+        BuildContext context,
+        final BuildableContext buildableContext) {
+      final Path output = getUndefinedSymbolsPath();
+
+      // Cache the symbols file.
+      buildableContext.recordArtifact(output);
+
+      return ImmutableList.of(
+          new MkdirStep(getProjectFilesystem(), output.getParent()),
+          new AbstractExecutionStep("elf_undefined_symbols") {
+            @Override
+            public int execute(ExecutionContext context) throws IOException {
+              Set<String> symbols = new LinkedHashSet<>();
+              for (SourcePath input : inputs) {
+                symbols.addAll(getUndefinedSymbols(getResolver().getAbsolutePath(input)));
+              }
+              getProjectFilesystem().writeLinesToPath(symbols, output);
+              return 0;
+            }
+          });
+    }
+
+    @Override
+    public Path getPathToOutput() {
+      return getUndefinedSymbolsPath();
+    }
+
+  }
+
+}
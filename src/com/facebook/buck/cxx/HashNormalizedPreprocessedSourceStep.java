@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.facebook.buck.cxx;
+
+import com.facebook.buck.io.ProjectFilesystem;
+import com.facebook.buck.step.AbstractExecutionStep;
+import com.facebook.buck.step.ExecutionContext;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+
+/**
+ * Hashes preprocessed source without its line markers and empty lines, which are most of what
+ * changes when the headers it includes have only had their comments edited or their code moved,
+ * and writes the hash out in hex.  Every other line is hashed exactly, so that anything which can
+ * change the object file, such as whitespace in a raw string literal, changes the hash.
+ */
+class HashNormalizedPreprocessedSourceStep extends AbstractExecutionStep {
+
+  private final ProjectFilesystem filesystem;
+  private final Path input;
+  private final Path output;
+
+  public HashNormalizedPreprocessedSourceStep(
+      ProjectFilesystem filesystem,
+      Path input,
+      Path output) {
+    super("hash normalized preprocessed source");
+    this.filesystem = filesystem;
+    this.input = input;
+    this.output = output;
+  }
+
+  @Override
+  public int execute(ExecutionContext context) throws IOException {
+    HashCode hash;
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(filesystem.newFileInputStream(input), Charsets.UTF_8))) {
+      hash = hashNormalizedLines(reader);
+    }
+    filesystem.writeContentsToPath(hash.toString(), output);
+    return 0;
+  }
+
+  @VisibleForTesting
+  static HashCode hashNormalizedLines(BufferedReader reader) throws IOException {
+    Hasher hasher = Hashing.sha1().newHasher();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      // Other lines are hashed as they are: even whitespace matters inside a raw string literal.
+      if (line.isEmpty() || CxxPreprocessorOutputTransformerFactory.isLineMarker(line)) {
+        continue;
+      }
+      hasher.putString(line, Charsets.UTF_8).putChar('\n');
+    }
+    return hasher.hash();
+  }
+}
@@ -85,6 +85,15 @@ public class Elf {
     return Optional.absent();
   }
 
+  /**
+   * @return the name of the given symbol, found in the string table linked to from the symbol
+   *     table section which contains it.
+   */
+  public String getSymbolName(ElfSection symbolTableSection, ElfSymbolTable.Entry symbol) {
+    ElfSection stringTable = getSectionByIndex((int) symbolTableSection.header.sh_link);
+    return stringTable.lookupString(symbol.st_name);
+  }
+
   /**
    * @return whether the data this buffer points to is most likely ELF.
    */
@@ -44,7 +44,8 @@ public class ElfSection {
       body = ByteBuffer.wrap(new byte[0]);
     } else {
       buffer.position((int) header.sh_off);
-      body = buffer.slice();
+      // Slicing resets the byte order, so carry over the one picked up from the ELF header.
+      body = buffer.slice().order(buffer.order());
       body.limit((int) header.sh_size);
     }
 
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.cxx.elf;
+
+import com.google.common.collect.ImmutableList;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encapsulates the entries of an ELF symbol table section (e.g. {@code .symtab} or
+ * {@code .dynsym}).
+ */
+// CHECKSTYLE.OFF: LocalVariableName
+// CHECKSTYLE.OFF: ParameterName
+public class ElfSymbolTable {
+
+  // The section index used by symbols which are not defined in this file.
+  public static final int SHN_UNDEF = 0;
+
+  public final ImmutableList<Entry> entries;
+
+  ElfSymbolTable(ImmutableList<Entry> entries) {
+    this.entries = entries;
+  }
+
+  /**
+   * @return a {@link ElfSymbolTable} parsed from the body of the given symbol table section.
+   */
+  public static ElfSymbolTable parse(ElfHeader.EIClass ei_class, ElfSection section) {
+    ByteBuffer buffer = section.body.duplicate().order(section.body.order());
+    long entrySize = section.header.sh_entsize;
+    int numberOfEntries = entrySize == 0 ? 0 : (int) (section.header.sh_size / entrySize);
+    ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+    for (int i = 0; i < numberOfEntries; i++) {
+      buffer.position((int) (i * entrySize));
+      entries.add(Entry.parse(ei_class, buffer));
+    }
+    return new ElfSymbolTable(entries.build());
+  }
+
+  /**
+   * Encapsulates the data in a single ELF symbol table entry.
+   */
+  public static class Entry {
+
+    // CHECKSTYLE.OFF: MemberName
+    public final long st_name;
+    public final Info st_info;
+    public final int st_other;
+    public final int st_shndx;
+    public final long st_value;
+    public final long st_size;
+    // CHECKSTYLE.ON: MemberName
+
+    Entry(
+        long st_name,
+        Info st_info,
+        int st_other,
+        int st_shndx,
+        long st_value,
+        long st_size) {
+      this.st_name = st_name;
+      this.st_info = st_info;
+      this.st_other = st_other;
+      this.st_shndx = st_shndx;
+      this.st_value = st_value;
+      this.st_size = st_size;
+    }
+
+    /**
+     * @return whether this symbol refers to something defined outside of this file.
+     */
+    public boolean isUndefined() {
+      return st_shndx == SHN_UNDEF;
+    }
+
+    private static long getUnsignedInt(ByteBuffer buffer) {
+      return (buffer.getInt() & 0xffffffffL);
+    }
+
+    private static int getUnsignedShort(ByteBuffer buffer) {
+      return (buffer.getShort() & 0xffff);
+    }
+
+    private static int getUnsignedByte(ByteBuffer buffer) {
+      return (buffer.get() & 0xff);
+    }
+
+    /**
+     * @return either a 32- or 64-bit ELF symbol table entry parsed from the given buffer.
+     */
+    static Entry parse(ElfHeader.EIClass ei_class, ByteBuffer buffer) {
+      if (ei_class == ElfHeader.EIClass.ELFCLASS32) {
+        long st_name = getUnsignedInt(buffer);
+        long st_value = getUnsignedInt(buffer);
+        long st_size = getUnsignedInt(buffer);
+        Info st_info = Info.parse(getUnsignedByte(buffer));
+        int st_other = getUnsignedByte(buffer);
+        int st_shndx = getUnsignedShort(buffer);
+        return new Entry(st_name, st_info, st_other, st_shndx, st_value, st_size);
+      } else {
+        long st_name = getUnsignedInt(buffer);
+        Info st_info = Info.parse(getUnsignedByte(buffer));
+        int st_other = getUnsignedByte(buffer);
+        int st_shndx = getUnsignedShort(buffer);
+        long st_value = buffer.getLong();
+        long st_size = buffer.getLong();
+        return new Entry(st_name, st_info, st_other, st_shndx, st_value, st_size);
+      }
+    }
+
+    /**
+     * The binding and type of a symbol, packed into the {@code st_info} field.
+     */
+    public static class Info {
+
+      public final Bind bind;
+      public final Type type;
+
+      Info(Bind bind, Type type) {
+        this.bind = bind;
+        this.type = type;
+      }
+
+      static Info parse(int st_info) {
+        return new Info(Bind.valueOf(st_info >> 4), Type.valueOf(st_info & 0xf));
+      }
+
+      public enum Bind {
+
+        STB_LOCAL(0),
+        STB_GLOBAL(1),
+        STB_WEAK(2),
+        STB_GNU_UNIQUE(10),
+
+        // Represents one of the OS/processor specific values.
+        STB_UNKNOWN(0xff),
+        ;
+
+        private final int value;
+
+        Bind(int value) {
+          this.value = value;
+        }
+
+        static Bind valueOf(int val) {
+          for (Bind bind : Bind.values()) {
+            if (bind.value == val) {
+              return bind;
+            }
+          }
+          return STB_UNKNOWN;
+        }
+
+      }
+
+      public enum Type {
+
+        STT_NOTYPE(0),
+        STT_OBJECT(1),
+        STT_FUNC(2),
+        STT_SECTION(3),
+        STT_FILE(4),
+        STT_COMMON(5),
+        STT_TLS(6),
+        STT_GNU_IFUNC(10),
+
+        // Represents one of the OS/processor specific values.
+        STT_UNKNOWN(0xff),
+        ;
+
+        private final int value;
+
+        Type(int value) {
+          this.value = value;
+        }
+
+        static Type valueOf(int val) {
+          for (Type type : Type.values()) {
+            if (type.value == val) {
+              return type;
+            }
+          }
+          return STT_UNKNOWN;
+        }
+
+      }
+
+    }
+
+  }
+
+}
+
+// CHECKSTYLE.ON: ParameterName
+// CHECKSTYLE.ON: LocalVariableName
@@ -29,6 +29,8 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -65,6 +67,9 @@ import javax.annotation.Nullable;
 public class DalvikAwareZipSplitter implements ZipSplitter {
   private static final Logger LOG = Logger.get(DalvikAwareZipSplitter.class);
 
+  // Enough classes read ahead to keep every core analyzing while the next ones are read.
+  private static final int MAX_PENDING_CLASSES = Runtime.getRuntime().availableProcessors() * 2;
+
   private final ProjectFilesystem filesystem;
   private final Set<Path> inFiles;
   private final Path outPrimary;
@@ -73,6 +78,7 @@ public class DalvikAwareZipSplitter implements ZipSplitter {
   private final Path reportDir;
   private final long linearAllocLimit;
   private final DalvikStatsCache dalvikStatsCache;
+  private final ListeningExecutorService executorService;
   private final DexSplitStrategy dexSplitStrategy;
   private final ImmutableSet<String> secondaryHeadSet;
   private final ImmutableSet<String> secondaryTailSet;
@@ -100,7 +106,8 @@ public class DalvikAwareZipSplitter implements ZipSplitter {
       ImmutableSet<String> secondaryTailSet,
       DexSplitStrategy dexSplitStrategy,
       ZipSplitter.CanaryStrategy canaryStrategy,
-      Path reportDir) {
+      Path reportDir,
+      ListeningExecutorService executorService) {
     if (linearAllocLimit <= 0) {
       throw new HumanReadableException("linear_alloc_hard_limit must be greater than zero.");
     }
@@ -117,6 +124,7 @@ public class DalvikAwareZipSplitter implements ZipSplitter {
     this.dexSplitStrategy = dexSplitStrategy;
     this.linearAllocLimit = linearAllocLimit;
     this.dalvikStatsCache = new DalvikStatsCache();
+    this.executorService = executorService;
   }
 
   public static DalvikAwareZipSplitter splitZip(
@@ -133,6 +141,42 @@ public class DalvikAwareZipSplitter implements ZipSplitter {
       DexSplitStrategy dexSplitStrategy,
       ZipSplitter.CanaryStrategy canaryStrategy,
       Path reportDir) {
+    return splitZip(
+        filesystem,
+        inFiles,
+        outPrimary,
+        outSecondaryDir,
+        secondaryPattern,
+        linearAllocLimit,
+        requiredInPrimaryZip,
+        wantedInPrimaryZip,
+        secondaryHeadSet,
+        secondaryTailSet,
+        dexSplitStrategy,
+        canaryStrategy,
+        reportDir,
+        MoreExecutors.newDirectExecutorService());
+  }
+
+  /**
+   * @param executorService analyzes the classes which haven't been seen before in parallel, before
+   *     any are split.
+   */
+  public static DalvikAwareZipSplitter splitZip(
+      ProjectFilesystem filesystem,
+      Set<Path> inFiles,
+      Path outPrimary,
+      Path outSecondaryDir,
+      String secondaryPattern,
+      long linearAllocLimit,
+      Predicate<String> requiredInPrimaryZip,
+      Set<String> wantedInPrimaryZip,
+      ImmutableSet<String> secondaryHeadSet,
+      ImmutableSet<String> secondaryTailSet,
+      DexSplitStrategy dexSplitStrategy,
+      ZipSplitter.CanaryStrategy canaryStrategy,
+      Path reportDir,
+      ListeningExecutorService executorService) {
     return new DalvikAwareZipSplitter(
         filesystem,
         inFiles,
@@ -146,11 +190,19 @@ public class DalvikAwareZipSplitter implements ZipSplitter {
         secondaryTailSet,
         dexSplitStrategy,
         canaryStrategy,
-        reportDir);
+        reportDir,
+        executorService);
   }
 
   @Override
   public List<Path> execute() throws IOException {
+    LOG.debug("Analyzing classes which are not cached");
+    dalvikStatsCache.computeMissingStats(
+        inFiles,
+        filesystem,
+        executorService,
+        MAX_PENDING_CLASSES);
+
     ClasspathTraverser classpathTraverser = new DefaultClasspathTraverser();
     final Set<String> secondaryTail = new HashSet<String>();
 
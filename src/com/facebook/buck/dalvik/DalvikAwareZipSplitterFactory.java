@@ -19,6 +19,8 @@ package com.facebook.buck.dalvik;
 import com.facebook.buck.io.ProjectFilesystem;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import java.nio.file.Path;
 import java.util.Set;
@@ -27,12 +29,24 @@ public class DalvikAwareZipSplitterFactory implements ZipSplitterFactory {
 
   private final long linearAllocLimit;
   private final Set<String> wantedInPrimaryZip;
+  private final ListeningExecutorService executorService;
 
   public DalvikAwareZipSplitterFactory(
       long linearAllocLimit,
       Set<String> wantedInPrimaryZip) {
+    this(linearAllocLimit, wantedInPrimaryZip, MoreExecutors.newDirectExecutorService());
+  }
+
+  /**
+   * @param executorService analyzes the classes to split in parallel.
+   */
+  public DalvikAwareZipSplitterFactory(
+      long linearAllocLimit,
+      Set<String> wantedInPrimaryZip,
+      ListeningExecutorService executorService) {
     this.linearAllocLimit = linearAllocLimit;
     this.wantedInPrimaryZip = wantedInPrimaryZip;
+    this.executorService = executorService;
   }
 
   @Override
@@ -61,6 +75,7 @@ public class DalvikAwareZipSplitterFactory implements ZipSplitterFactory {
         secondaryTailSet,
         dexSplitStrategy,
         canaryStrategy,
-        reportDir);
+        reportDir,
+        executorService);
   }
 }
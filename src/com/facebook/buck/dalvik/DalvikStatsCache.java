@@ -16,22 +16,70 @@
 
 package com.facebook.buck.dalvik;
 
+import com.facebook.buck.io.ProjectFilesystem;
+import com.facebook.buck.jvm.java.classes.ClasspathTraversal;
+import com.facebook.buck.jvm.java.classes.DefaultClasspathTraverser;
 import com.facebook.buck.jvm.java.classes.FileLike;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.MapMaker;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 
 /**
  * Cache to memoize results from DalvikStatsTool.
+ * <p>
+ * Stats are shared by every cache in the process, keyed by the contents of the class they were
+ * computed from, so that buckd only analyzes the classes which have changed since the last build.
+ * They are softly referenced, so they give way to anything else which needs the memory.
+ * <p>
+ * The hash of each class analyzed up front is remembered by its container and path, so that
+ * looking it up later needn't read and hash it again.  Those are only good while the inputs are
+ * unchanged, so each cache must only be used for one split.
  */
 class DalvikStatsCache {
 
+  private static final Cache<HashCode, DalvikStatsTool.Stats> SHARED_STATS =
+      CacheBuilder.newBuilder().softValues().build();
+
+  private final Cache<HashCode, DalvikStatsTool.Stats> sharedStats;
   private final ConcurrentMap<FileLike, DalvikStatsTool.Stats> cache;
+  private final ConcurrentMap<String, HashCode> hashes;
 
   DalvikStatsCache() {
+    this(SHARED_STATS);
+  }
+
+  @VisibleForTesting
+  DalvikStatsCache(Cache<HashCode, DalvikStatsTool.Stats> sharedStats) {
+    this.sharedStats = sharedStats;
     cache = new MapMaker().weakKeys().makeMap();
+    hashes = new ConcurrentHashMap<>();
+  }
+
+  private static String getHashKey(FileLike entry) {
+    return entry.getContainer() + "!/" + entry.getRelativePath();
   }
 
   DalvikStatsTool.Stats getStats(FileLike entry) {
@@ -47,8 +95,23 @@ class DalvikStatsCache {
       return stats;
     }
 
+    HashCode knownHash = hashes.get(getHashKey(entry));
+    if (knownHash != null) {
+      stats = sharedStats.getIfPresent(knownHash);
+      if (stats != null) {
+        cache.put(entry, stats);
+        return stats;
+      }
+    }
+
     try (InputStream is = entry.getInput()) {
-      stats = DalvikStatsTool.getEstimate(is);
+      byte[] contents = ByteStreams.toByteArray(is);
+      HashCode hash = Hashing.sha1().hashBytes(contents);
+      stats = sharedStats.getIfPresent(hash);
+      if (stats == null) {
+        stats = DalvikStatsTool.getEstimate(new ByteArrayInputStream(contents));
+        sharedStats.put(hash, stats);
+      }
       cache.put(entry, stats);
       return stats;
     } catch (IOException e) {
@@ -57,4 +120,75 @@ class DalvikStatsCache {
       throw new RuntimeException(String.format("Error calculating size for %s.", name), e);
     }
   }
+
+  /**
+   * Analyzes the classes in {@code inFiles} which aren't in the cache yet on {@code executor}, so
+   * that they needn't be analyzed one at a time as they are later looked up.  At most
+   * {@code maxPendingClasses} of them are read ahead of the analysis, which bounds the memory
+   * holding their contents.
+   */
+  void computeMissingStats(
+      Set<Path> inFiles,
+      ProjectFilesystem filesystem,
+      final ListeningExecutorService executor,
+      int maxPendingClasses) throws IOException {
+    Preconditions.checkArgument(maxPendingClasses > 0);
+    final List<ListenableFuture<Void>> futures = new ArrayList<>();
+    final Set<HashCode> submitted = new HashSet<>();
+    final Semaphore pending = new Semaphore(maxPendingClasses);
+    new DefaultClasspathTraverser().traverse(
+        new ClasspathTraversal(inFiles, filesystem) {
+          @Override
+          public void visit(FileLike entry) throws IOException {
+            final String name = entry.getRelativePath();
+            if (!name.endsWith(".class")) {
+              return;
+            }
+            final byte[] contents;
+            try (InputStream is = entry.getInput()) {
+              contents = ByteStreams.toByteArray(is);
+            }
+            final HashCode hash = Hashing.sha1().hashBytes(contents);
+            hashes.put(getHashKey(entry), hash);
+            if (sharedStats.getIfPresent(hash) != null || !submitted.add(hash)) {
+              return;
+            }
+            try {
+              pending.acquire();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw new IOException("Interrupted while analyzing classes.", e);
+            }
+            futures.add(
+                executor.submit(
+                    new Callable<Void>() {
+                      @Override
+                      public Void call() throws IOException {
+                        try {
+                          sharedStats.put(
+                              hash,
+                              DalvikStatsTool.getEstimate(new ByteArrayInputStream(contents)));
+                        } catch (RuntimeException e) {
+                          throw new RuntimeException(
+                              String.format("Error calculating size for %s.", name),
+                              e);
+                        } finally {
+                          pending.release();
+                        }
+                        return null;
+                      }
+                    }));
+          }
+        });
+
+    try {
+      Futures.allAsList(futures).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while analyzing classes.", e);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
+    }
+  }
 }
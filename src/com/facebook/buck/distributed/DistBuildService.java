@@ -34,6 +34,7 @@ import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 
+import java.net.URI;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -54,10 +55,15 @@ public class DistBuildService {
       throws NoHealthyServersException {
     this.distBuildConfig = distBuildConfig;
     this.eventBus = eventBus;
-    try {
-      HttpLoadBalancer client =
-          distBuildConfig.getFrontendConfig().createHttpClientSideSlb(new DefaultClock(), eventBus);
-      this.frontendUrl = client.getBestServer().toString();
+    try (HttpLoadBalancer client =
+             distBuildConfig.getFrontendConfig().createHttpClientSideSlb(
+                 new DefaultClock(),
+                 eventBus)) {
+      // Requests to the frontend are sent over ThriftOverHttp rather than through the load
+      // balancer, which is only used to pick it.
+      URI server = client.getBestServer();
+      client.reportRequestCancelled(server);
+      this.frontendUrl = server.toString();
     } catch (NoHealthyServersException ex)  {
       LOG.error("No healthy distributed build frontend server found. " +
           "Do you have them listed in your .buckconfig or .buckconfig.local?");
@@ -69,7 +69,21 @@ public abstract class ArtifactCompressionEvent
   }
 
   public static Finished finished(Started started) {
-    return new Finished(started);
+    return new Finished(started, 0, 0, 0);
+  }
+
+  /**
+   * @param uncompressedSize the size of the files which went into the artifact.
+   * @param compressedSize the size of the artifact.
+   * @param storedSize how much of {@code uncompressedSize} was stored as it was rather than being
+   *     compressed, as it was already compressed.
+   */
+  public static Finished finished(
+      Started started,
+      long uncompressedSize,
+      long compressedSize,
+      long storedSize) {
+    return new Finished(started, uncompressedSize, compressedSize, storedSize);
   }
 
   public static class Started extends ArtifactCompressionEvent {
@@ -85,9 +99,35 @@ public abstract class ArtifactCompressionEvent
   }
 
   public static class Finished extends ArtifactCompressionEvent {
+    private final long uncompressedSize;
+    private final long compressedSize;
+    private final long storedSize;
+
     protected Finished(
-        Started started) {
+        Started started,
+        long uncompressedSize,
+        long compressedSize,
+        long storedSize) {
       super(started.getEventKey(), started.getOperation(), started.getRuleKeys());
+      this.uncompressedSize = uncompressedSize;
+      this.compressedSize = compressedSize;
+      this.storedSize = storedSize;
+    }
+
+    public long getUncompressedSize() {
+      return uncompressedSize;
+    }
+
+    public long getCompressedSize() {
+      return compressedSize;
+    }
+
+    /**
+     * @return how many bytes were not compressed because they already were, which is compression
+     *     work saved.
+     */
+    public long getStoredSize() {
+      return storedSize;
     }
 
     @Override
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.MinMaxPriorityQueue;
+import com.google.common.collect.Ordering;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * A small summary of a Chrome trace, written beside it so that the trace viewer can list traces
+ * and serve slices of them without reading the whole file.
+ * <p>
+ * Besides the command and the span of time the trace covers, the index records where in the
+ * trace file each chunk of roughly {@link #CHUNK_SIZE_BYTES} of events starts, and the times of
+ * the earliest and latest events in it.  Each chunk starts with the {@code [} or {@code ,} which
+ * precedes its first event in the JSON array.  Chunks are only recorded for uncompressed traces.
+ */
+@JsonInclude(Include.NON_NULL)
+public class ChromeTraceIndex {
+
+  public static final String INDEX_SUFFIX = ".index";
+
+  public static final int CHUNK_SIZE_BYTES = 1024 * 1024;
+
+  /**
+   * The number of slowest rules the index keeps.
+   */
+  public static final int SLOWEST_RULES_TO_KEEP = 50;
+
+  @Nullable
+  private final String buildId;
+  @Nullable
+  private final String command;
+  private final long startMicros;
+  private final long endMicros;
+  private final int ruleCount;
+  private final ImmutableSortedMap<String, Integer> cacheResults;
+  private final ImmutableList<RuleSummary> slowestRules;
+  private final ImmutableList<Chunk> chunks;
+
+  @JsonCreator
+  public ChromeTraceIndex(
+      @JsonProperty("build_id") @Nullable String buildId,
+      @JsonProperty("command") @Nullable String command,
+      @JsonProperty("start_micros") long startMicros,
+      @JsonProperty("end_micros") long endMicros,
+      @JsonProperty("rule_count") int ruleCount,
+      @JsonProperty("cache_results") @Nullable Map<String, Integer> cacheResults,
+      @JsonProperty("slowest_rules") @Nullable List<RuleSummary> slowestRules,
+      @JsonProperty("chunks") @Nullable List<Chunk> chunks) {
+    this.buildId = buildId;
+    this.command = command;
+    this.startMicros = startMicros;
+    this.endMicros = endMicros;
+    this.ruleCount = ruleCount;
+    this.cacheResults = cacheResults == null ?
+        ImmutableSortedMap.<String, Integer>of() :
+        ImmutableSortedMap.copyOf(cacheResults);
+    this.slowestRules = slowestRules == null ?
+        ImmutableList.<RuleSummary>of() :
+        ImmutableList.copyOf(slowestRules);
+    this.chunks = chunks == null ? ImmutableList.<Chunk>of() : ImmutableList.copyOf(chunks);
+  }
+
+  /**
+   * @return the path of the index for the trace at {@code tracePath}.
+   */
+  public static Path getIndexPath(Path tracePath) {
+    return tracePath.resolveSibling(tracePath.getFileName() + INDEX_SUFFIX);
+  }
+
+  @JsonProperty("build_id")
+  @Nullable
+  public String getBuildId() {
+    return buildId;
+  }
+
+  @JsonIgnore
+  public Optional<String> getCommand() {
+    return Optional.fromNullable(command);
+  }
+
+  @JsonProperty("command")
+  @Nullable
+  String getCommandOrNull() {
+    return command;
+  }
+
+  @JsonProperty("start_micros")
+  public long getStartMicros() {
+    return startMicros;
+  }
+
+  @JsonProperty("end_micros")
+  public long getEndMicros() {
+    return endMicros;
+  }
+
+  @JsonProperty("rule_count")
+  public int getRuleCount() {
+    return ruleCount;
+  }
+
+  /**
+   * @return how many rules finished with each cache result.
+   */
+  @JsonProperty("cache_results")
+  public ImmutableSortedMap<String, Integer> getCacheResults() {
+    return cacheResults;
+  }
+
+  /**
+   * @return the rules which took longest to build, slowest first.
+   */
+  @JsonProperty("slowest_rules")
+  public ImmutableList<RuleSummary> getSlowestRules() {
+    return slowestRules;
+  }
+
+  @JsonProperty("chunks")
+  public ImmutableList<Chunk> getChunks() {
+    return chunks;
+  }
+
+  /**
+   * @return the chunks holding any events between {@code startMicros} and {@code endMicros},
+   *     inclusive, in the order they appear in the trace.
+   */
+  public ImmutableList<Chunk> getChunksBetween(long startMicros, long endMicros) {
+    ImmutableList.Builder<Chunk> overlapping = ImmutableList.builder();
+    for (Chunk chunk : chunks) {
+      if (chunk.getMaxMicros() >= startMicros && chunk.getMinMicros() <= endMicros) {
+        overlapping.add(chunk);
+      }
+    }
+    return overlapping.build();
+  }
+
+  /**
+   * How long a rule took to build, from when it first started to when it finished.
+   */
+  public static class RuleSummary {
+    private final String name;
+    private final long startMicros;
+    private final long durationMicros;
+    private final String cacheResult;
+
+    @JsonCreator
+    public RuleSummary(
+        @JsonProperty("name") String name,
+        @JsonProperty("start_micros") long startMicros,
+        @JsonProperty("duration_micros") long durationMicros,
+        @JsonProperty("cache_result") String cacheResult) {
+      this.name = name;
+      this.startMicros = startMicros;
+      this.durationMicros = durationMicros;
+      this.cacheResult = cacheResult;
+    }
+
+    @JsonProperty("name")
+    public String getName() {
+      return name;
+    }
+
+    @JsonProperty("start_micros")
+    public long getStartMicros() {
+      return startMicros;
+    }
+
+    @JsonProperty("duration_micros")
+    public long getDurationMicros() {
+      return durationMicros;
+    }
+
+    @JsonProperty("cache_result")
+    public String getCacheResult() {
+      return cacheResult;
+    }
+  }
+
+  /**
+   * A run of consecutive events in the trace file.
+   */
+  public static class Chunk {
+    private final long offset;
+    private final long length;
+    private final long minMicros;
+    private final long maxMicros;
+
+    @JsonCreator
+    public Chunk(
+        @JsonProperty("offset") long offset,
+        @JsonProperty("length") long length,
+        @JsonProperty("min_micros") long minMicros,
+        @JsonProperty("max_micros") long maxMicros) {
+      this.offset = offset;
+      this.length = length;
+      this.minMicros = minMicros;
+      this.maxMicros = maxMicros;
+    }
+
+    @JsonProperty("offset")
+    public long getOffset() {
+      return offset;
+    }
+
+    @JsonProperty("length")
+    public long getLength() {
+      return length;
+    }
+
+    @JsonProperty("min_micros")
+    public long getMinMicros() {
+      return minMicros;
+    }
+
+    @JsonProperty("max_micros")
+    public long getMaxMicros() {
+      return maxMicros;
+    }
+  }
+
+  /**
+   * Builds up an index as a trace is written.  Not thread safe: the trace's writer should call it
+   * from the thread which writes the events.
+   */
+  public static class Builder {
+    private static final Comparator<RuleSummary> SLOWEST_FIRST =
+        new Comparator<RuleSummary>() {
+          @Override
+          public int compare(RuleSummary a, RuleSummary b) {
+            return Long.compare(b.getDurationMicros(), a.getDurationMicros());
+          }
+        };
+
+    private final String buildId;
+    private final boolean recordChunks;
+    @Nullable
+    private String command;
+    private long startMicros = Long.MAX_VALUE;
+    private long endMicros = Long.MIN_VALUE;
+    private int ruleCount = 0;
+    private final Map<String, Long> ruleStartMicros = new HashMap<>();
+    private final Map<String, Integer> cacheResults = new TreeMap<>();
+    private final MinMaxPriorityQueue<RuleSummary> slowestRules =
+        MinMaxPriorityQueue.orderedBy(SLOWEST_FIRST)
+            .maximumSize(SLOWEST_RULES_TO_KEEP)
+            .create();
+    private final ImmutableList.Builder<Chunk> chunks = ImmutableList.builder();
+    private long chunkOffset = 0;
+    private long chunkMinMicros = Long.MAX_VALUE;
+    private long chunkMaxMicros = Long.MIN_VALUE;
+
+    /**
+     * @param recordChunks whether the offsets of events in the trace file are meaningful, i.e.
+     *     whether the trace is uncompressed.
+     */
+    public Builder(String buildId, boolean recordChunks) {
+      this.buildId = buildId;
+      this.recordChunks = recordChunks;
+    }
+
+    public Builder setCommand(String command) {
+      this.command = command;
+      return this;
+    }
+
+    /**
+     * Records an event which has been written to the trace.
+     *
+     * @param offsetAfterEvent how many bytes of the trace have been written, including the event.
+     */
+    public Builder eventWritten(ChromeTraceEvent event, long offsetAfterEvent) {
+      long micros = event.getMicroTime();
+      if (event.getPhase() != ChromeTraceEvent.Phase.METADATA) {
+        startMicros = Math.min(startMicros, micros);
+        endMicros = Math.max(endMicros, micros);
+      }
+      if (recordChunks) {
+        chunkMinMicros = Math.min(chunkMinMicros, micros);
+        chunkMaxMicros = Math.max(chunkMaxMicros, micros);
+        if (offsetAfterEvent - chunkOffset >= CHUNK_SIZE_BYTES) {
+          finishChunk(offsetAfterEvent);
+        }
+      }
+      return this;
+    }
+
+    /**
+     * Records that a rule started or was resumed.  Only the first start of a rule counts.
+     */
+    public Builder ruleStarted(String name, long micros) {
+      if (!ruleStartMicros.containsKey(name)) {
+        ruleStartMicros.put(name, micros);
+      }
+      return this;
+    }
+
+    public Builder ruleFinished(String name, long micros, String cacheResult) {
+      Long started = ruleStartMicros.remove(name);
+      ruleCount++;
+      Integer count = cacheResults.get(cacheResult);
+      cacheResults.put(cacheResult, count == null ? 1 : count + 1);
+      if (started != null) {
+        slowestRules.add(new RuleSummary(name, started, micros - started, cacheResult));
+      }
+      return this;
+    }
+
+    /**
+     * @param traceLength how many bytes of events were written to the trace, not including the
+     *     closing bracket of the JSON array.
+     */
+    public ChromeTraceIndex build(long traceLength) {
+      Preconditions.checkArgument(traceLength >= chunkOffset);
+      if (recordChunks && traceLength > chunkOffset) {
+        finishChunk(traceLength);
+      }
+      boolean hasEvents = startMicros <= endMicros;
+      return new ChromeTraceIndex(
+          buildId,
+          command,
+          hasEvents ? startMicros : 0,
+          hasEvents ? endMicros : 0,
+          ruleCount,
+          ImmutableMap.copyOf(cacheResults),
+          Ordering.from(SLOWEST_FIRST).sortedCopy(slowestRules),
+          chunks.build());
+    }
+
+    private void finishChunk(long endOffset) {
+      chunks.add(new Chunk(chunkOffset, endOffset - chunkOffset, chunkMinMicros, chunkMaxMicros));
+      chunkOffset = endOffset;
+      chunkMinMicros = Long.MAX_VALUE;
+      chunkMaxMicros = Long.MIN_VALUE;
+    }
+  }
+}
@@ -23,6 +23,7 @@ import com.facebook.buck.event.ArtifactCompressionEvent;
 import com.facebook.buck.event.BuckEvent;
 import com.facebook.buck.event.BuckEventListener;
 import com.facebook.buck.event.ChromeTraceEvent;
+import com.facebook.buck.event.ChromeTraceIndex;
 import com.facebook.buck.event.CompilerPluginDurationEvent;
 import com.facebook.buck.event.InstallEvent;
 import com.facebook.buck.event.SimplePerfEvent;
@@ -61,6 +62,7 @@ import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.eventbus.Subscribe;
+import com.google.common.io.CountingOutputStream;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -75,6 +77,9 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Logs events to a json file formatted to be viewed in Chrome Trace View (chrome://tracing).
+ * <p>
+ * A {@link ChromeTraceIndex} is written beside the trace, so that the trace viewer can list
+ * traces and serve parts of them without reading them in full.
  */
 public class ChromeTraceBuildListener implements BuckEventListener {
   private static final Logger LOG = Logger.get(ChromeTraceBuildListener.class);
@@ -88,7 +93,10 @@ public class ChromeTraceBuildListener implements BuckEventListener {
   private final ThreadLocal<SimpleDateFormat> dateFormat;
   private final Path tracePath;
   private final OutputStream traceStream;
+  private final CountingOutputStream countingTraceStream;
   private final JsonGenerator jsonGenerator;
+  // Only used from the output executor, until it has been shut down.
+  private final ChromeTraceIndex.Builder indexBuilder;
 
   private final ExecutorService outputExecutor;
 
@@ -139,7 +147,13 @@ public class ChromeTraceBuildListener implements BuckEventListener {
     TracePathAndStream tracePathAndStream = createPathAndStream(buildId);
     this.tracePath = tracePathAndStream.getPath();
     this.traceStream = tracePathAndStream.getStream();
-    this.jsonGenerator = objectMapper.getFactory().createGenerator(this.traceStream);
+    this.countingTraceStream = new CountingOutputStream(this.traceStream);
+    this.jsonGenerator = objectMapper.getFactory().createGenerator(this.countingTraceStream);
+    // Flushing the generator after each event hands its bytes on to be counted, but the trace
+    // stream's own buffer should only be written out when it fills up.
+    this.jsonGenerator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+    // Offsets into a compressed trace would be of no use to anyone reading it.
+    this.indexBuilder = new ChromeTraceIndex.Builder(buildId.toString(), !compressTraces);
 
     this.jsonGenerator.writeStartArray();
     addProcessMetadataEvent();
@@ -179,6 +193,7 @@ public class ChromeTraceBuildListener implements BuckEventListener {
                Optional.of(tracesToKeep),
                Optional.<Long>absent())) {
         projectFilesystem.deleteFileAtPath(path);
+        projectFilesystem.deleteFileAtPathIfExists(ChromeTraceIndex.getIndexPath(path));
       }
     } catch (IOException e) {
       LOG.error(e, "Couldn't list paths in trace directory %s", traceDirectory);
@@ -217,9 +232,15 @@ public class ChromeTraceBuildListener implements BuckEventListener {
         Thread.currentThread().interrupt();
       }
 
+      jsonGenerator.flush();
+      ChromeTraceIndex index = indexBuilder.build(countingTraceStream.getCount());
       jsonGenerator.writeEndArray();
       jsonGenerator.close();
       traceStream.close();
+      try (OutputStream indexStream =
+               projectFilesystem.newFileOutputStream(ChromeTraceIndex.getIndexPath(tracePath))) {
+        mapper.writeValue(indexStream, index);
+      }
       String symlinkName = compressTraces ? "build.trace.gz" : "build.trace";
       Path symlinkPath = BuckConstant.getBuckTraceDir().resolve(symlinkName);
       projectFilesystem.createSymLink(
@@ -256,7 +277,15 @@ public class ChromeTraceBuildListener implements BuckEventListener {
   }
 
   @Subscribe
-  public void commandStarted(CommandEvent.Started started) {
+  public void commandStarted(final CommandEvent.Started started) {
+    submitIndexUpdate(
+        new Runnable() {
+          @Override
+          public void run() {
+            indexBuilder.setCommand(
+                "buck " + started.getCommandName() + " " + Joiner.on(' ').join(started.getArgs()));
+          }
+        });
     writeChromeTraceEvent("buck",
         started.getCommandName(),
         ChromeTraceEvent.Phase.BEGIN,
@@ -296,8 +325,17 @@ public class ChromeTraceBuildListener implements BuckEventListener {
   }
 
   @Subscribe
-  public void ruleStarted(BuildRuleEvent.Started started) {
-    BuildRule buildRule = started.getBuildRule();
+  public void ruleStarted(final BuildRuleEvent.Started started) {
+    final BuildRule buildRule = started.getBuildRule();
+    submitIndexUpdate(
+        new Runnable() {
+          @Override
+          public void run() {
+            indexBuilder.ruleStarted(
+                buildRule.getFullyQualifiedName(),
+                TimeUnit.NANOSECONDS.toMicros(started.getNanoTime()));
+          }
+        });
     writeChromeTraceEvent("buck",
         buildRule.getFullyQualifiedName(),
         ChromeTraceEvent.Phase.BEGIN,
@@ -306,7 +344,17 @@ public class ChromeTraceBuildListener implements BuckEventListener {
   }
 
   @Subscribe
-  public void ruleFinished(BuildRuleEvent.Finished finished) {
+  public void ruleFinished(final BuildRuleEvent.Finished finished) {
+    submitIndexUpdate(
+        new Runnable() {
+          @Override
+          public void run() {
+            indexBuilder.ruleFinished(
+                finished.getBuildRule().getFullyQualifiedName(),
+                TimeUnit.NANOSECONDS.toMicros(finished.getNanoTime()),
+                finished.getCacheResult().toString().toLowerCase());
+          }
+        });
     writeChromeTraceEvent("buck",
         finished.getBuildRule().getFullyQualifiedName(),
         ChromeTraceEvent.Phase.END,
@@ -550,7 +598,16 @@ public class ChromeTraceBuildListener implements BuckEventListener {
 
   @Subscribe
   public void artifactCompressionFinished(ArtifactCompressionEvent.Finished finished) {
-    writeArtifactCompressionEvent(finished, ChromeTraceEvent.Phase.END);
+    writeChromeTraceEvent(
+        "buck",
+        finished.getCategory(),
+        ChromeTraceEvent.Phase.END,
+        ImmutableMap.of(
+            "rule_key", Joiner.on(", ").join(finished.getRuleKeys()),
+            "uncompressed_size", Long.toString(finished.getUncompressedSize()),
+            "compressed_size", Long.toString(finished.getCompressedSize()),
+            "stored_size", Long.toString(finished.getStoredSize())),
+        finished);
   }
 
   public void writeArtifactCompressionEvent(
@@ -694,6 +751,9 @@ public class ChromeTraceBuildListener implements BuckEventListener {
       public Void call() throws Exception {
         try {
           mapper.writeValue(jsonGenerator, chromeTraceEvent);
+          // Make the count include the event.  This doesn't flush the trace stream itself.
+          jsonGenerator.flush();
+          indexBuilder.eventWritten(chromeTraceEvent, countingTraceStream.getCount());
         } catch (IOException e) {
           // Swallow any failures to write.
         }
@@ -702,6 +762,10 @@ public class ChromeTraceBuildListener implements BuckEventListener {
     });
   }
 
+  private void submitIndexUpdate(Runnable update) {
+    outputExecutor.submit(update);
+  }
+
   private class TracePathAndStream {
     private final Path path;
     private final OutputStream stream;
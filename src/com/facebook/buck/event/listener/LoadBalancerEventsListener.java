@@ -75,18 +75,14 @@ public class LoadBalancerEventsListener implements BuckEventListener {
   @Subscribe
   public void onServerHealthManagerEvent(ServerHealthManagerEvent event) {
     ServerHealthManagerEventData data = event.getData();
-    if (data.noHealthyServersAvailable()) {
-      noHealthyServersCounter.inc();
-    }
+    noHealthyServersCounter.inc(data.getNoHealthyServersCount());
 
     for (PerServerData perServerData : data.getPerServerData()) {
       ServerCounters counters = getServerCounters(perServerData.getServer());
       if (perServerData.isServerUnhealthy()) {
         counters.getServerNotHealthyCount().inc();
       }
-      if (perServerData.isBestServer()) {
-        counters.getIsBestServerCount().inc();
-      }
+      counters.getIsBestServerCount().inc(perServerData.getBestServerCount());
     }
   }
 
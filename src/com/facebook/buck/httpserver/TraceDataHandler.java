@@ -17,6 +17,7 @@
 package com.facebook.buck.httpserver;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
 import com.google.common.io.CharStreams;
 import com.google.common.net.MediaType;
 
@@ -31,12 +32,16 @@ import java.util.Iterator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.annotation.Nullable;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 /**
  * HTTP handler for requests to the {@code /tracedata} path.
+ * <p>
+ * The optional {@code start} and {@code end} parameters, in microseconds, limit the response to
+ * the parts of indexed traces which hold events from that window of time.
  */
 class TraceDataHandler extends AbstractHandler {
 
@@ -93,7 +98,17 @@ class TraceDataHandler extends AbstractHandler {
 
     responseWriter.write("[");
 
-    Iterator<InputStream> traceStreams = tracesHelper.getInputsForTraces(id).iterator();
+    Optional<Long> startMicros = parseMicros(baseRequest.getParameter("start"));
+    Optional<Long> endMicros = parseMicros(baseRequest.getParameter("end"));
+    Iterator<InputStream> traceStreams;
+    if (startMicros.isPresent() || endMicros.isPresent()) {
+      traceStreams = tracesHelper.getInputsForTraces(
+          id,
+          startMicros.or(Long.MIN_VALUE),
+          endMicros.or(Long.MAX_VALUE)).iterator();
+    } else {
+      traceStreams = tracesHelper.getInputsForTraces(id).iterator();
+    }
     boolean isFirst = true;
 
     while (traceStreams.hasNext()) {
@@ -118,4 +133,15 @@ class TraceDataHandler extends AbstractHandler {
     response.flushBuffer();
     baseRequest.setHandled(true);
   }
+
+  private static Optional<Long> parseMicros(@Nullable String value) {
+    if (value == null) {
+      return Optional.absent();
+    }
+    try {
+      return Optional.of(Long.parseLong(value));
+    } catch (NumberFormatException e) {
+      return Optional.absent();
+    }
+  }
 }
@@ -16,13 +16,18 @@
 
 package com.facebook.buck.httpserver;
 
+import com.facebook.buck.event.ChromeTraceIndex;
 import com.facebook.buck.io.ProjectFilesystem;
 import com.facebook.buck.log.Logger;
 import com.facebook.buck.util.BuckConstant;
 import com.facebook.buck.util.HumanReadableException;
+import com.facebook.buck.util.ObjectMappers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Charsets;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -45,6 +50,8 @@ public class TracesHelper {
 
   private static final Logger logger = Logger.get(TracesHelper.class);
 
+  private static final ObjectMapper MAPPER = ObjectMappers.newDefaultInstance();
+
   private final ProjectFilesystem projectFilesystem;
 
   TracesHelper(ProjectFilesystem projectFilesystem) {
@@ -92,6 +99,46 @@ public class TracesHelper {
     return tracesBuilder.build();
   }
 
+  /**
+   * Like {@link #getInputsForTraces(String)}, but for traces with an index, only reads the parts
+   * of them holding events between {@code startMicros} and {@code endMicros}.  Each input is still
+   * a JSON array of events.
+   */
+  Iterable<InputStream> getInputsForTraces(
+      String id,
+      long startMicros,
+      long endMicros) throws IOException {
+    ImmutableList.Builder<InputStream> tracesBuilder = ImmutableList.builder();
+    for (final Path p : getPathsToTraces(id)) {
+      Optional<ChromeTraceIndex> index = getIndexFor(p);
+      if (!index.isPresent() || index.get().getChunks().isEmpty()) {
+        tracesBuilder.add(projectFilesystem.getInputStreamForRelativePath(p));
+        continue;
+      }
+
+      ByteSource trace = new ByteSource() {
+        @Override
+        public InputStream openStream() throws IOException {
+          return projectFilesystem.newFileInputStream(p);
+        }
+      };
+      ImmutableList.Builder<ByteSource> slice = ImmutableList.builder();
+      slice.add(ByteSource.wrap("[".getBytes(Charsets.UTF_8)));
+      boolean isFirst = true;
+      for (ChromeTraceIndex.Chunk chunk : index.get().getChunksBetween(startMicros, endMicros)) {
+        if (!isFirst) {
+          slice.add(ByteSource.wrap(",".getBytes(Charsets.UTF_8)));
+        }
+        isFirst = false;
+        // Leave out the bracket or comma which comes before the chunk's first event.
+        slice.add(trace.slice(chunk.getOffset() + 1, chunk.getLength() - 1));
+      }
+      slice.add(ByteSource.wrap("]".getBytes(Charsets.UTF_8)));
+      tracesBuilder.add(ByteSource.concat(slice.build()).openStream());
+    }
+    return tracesBuilder.build();
+  }
+
   TraceAttributes getTraceAttributesFor(String id) throws IOException {
     for (Path p : getPathsToTraces(id)) {
       if (isTraceForBuild(p, id)) {
@@ -102,17 +149,37 @@ public class TracesHelper {
   }
 
   /**
-   * Parses a trace file and returns the command that the user executed to create the trace.
+   * Returns the command that the user executed to create the trace, from the trace's index if it
+   * has one, or by parsing the start of the trace file otherwise.
    * <p>
    * This method tries to be reasonably tolerant of changes to the .trace file schema, returning
    * {@link Optional#absent()} if it does not find the fields in the JSON that it expects.
    */
   TraceAttributes getTraceAttributesFor(Path pathToTrace) throws IOException {
     long lastModifiedTime = projectFilesystem.getLastModifiedTime(pathToTrace);
-    Optional<String> command = parseCommandFrom(pathToTrace);
+    Optional<ChromeTraceIndex> index = getIndexFor(pathToTrace);
+    Optional<String> command = index.isPresent() && index.get().getCommand().isPresent() ?
+        index.get().getCommand() :
+        parseCommandFrom(pathToTrace);
     return new TraceAttributes(command, lastModifiedTime);
   }
 
+  /**
+   * @return the index written beside the given trace, if there is one which can be read.
+   */
+  Optional<ChromeTraceIndex> getIndexFor(Path pathToTrace) {
+    Path indexPath = ChromeTraceIndex.getIndexPath(pathToTrace);
+    if (!projectFilesystem.exists(indexPath)) {
+      return Optional.absent();
+    }
+    try (InputStream input = projectFilesystem.newFileInputStream(indexPath)) {
+      return Optional.of(MAPPER.readValue(input, ChromeTraceIndex.class));
+    } catch (IOException e) {
+      logger.warn(e, "Could not read trace index %s", indexPath);
+      return Optional.absent();
+    }
+  }
+
   private Optional<String> parseCommandFrom(Path pathToTrace) {
     try (
         InputStream input = projectFilesystem.newFileInputStream(pathToTrace);
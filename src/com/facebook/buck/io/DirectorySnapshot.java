@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.facebook.buck.io;
+
+import com.facebook.buck.log.Logger;
+import com.google.common.collect.ImmutableSet;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The names of the entries in the directories under a project root, read with one directory
+ * listing per directory the first time one of its entries is looked up, so that checking whether
+ * the paths named by build files exist doesn't take a stat for every one of them.
+ * <p>
+ * Listings are kept until they're invalidated, so whoever keeps a snapshot across commands, as
+ * the daemon's parser does, must pass on the paths which are added or removed.  A path which is
+ * missing from a listing may have been created since, so callers should check the filesystem
+ * before reporting it as missing.
+ */
+public class DirectorySnapshot {
+
+  private static final Logger LOG = Logger.get(DirectorySnapshot.class);
+
+  private final Path root;
+  // Keyed by directory, relative to root.
+  private final ConcurrentMap<Path, ImmutableSet<String>> listings = new ConcurrentHashMap<>();
+
+  public DirectorySnapshot(Path root) {
+    this.root = root;
+  }
+
+  /**
+   * @return true if the path, relative to the root, was in its directory's listing.  Paths
+   *     outside the root, or the root itself, are never found.
+   */
+  public boolean exists(Path pathRelativeToRoot) {
+    if (pathRelativeToRoot.isAbsolute() || pathRelativeToRoot.toString().isEmpty()) {
+      return false;
+    }
+    for (Path part : pathRelativeToRoot) {
+      if (part.toString().equals("..") || part.toString().equals(".")) {
+        return false;
+      }
+    }
+    Path fileName = pathRelativeToRoot.getFileName();
+    Path parent = pathRelativeToRoot.getParent();
+    return getListing(parent == null ? root.getFileSystem().getPath("") : parent)
+        .contains(fileName.toString());
+  }
+
+  /**
+   * Drops what was read about the directory holding the given path, and, if the path is a
+   * directory, what was read about it and everything under it.
+   */
+  public void invalidate(Path pathRelativeToRoot) {
+    Path parent = pathRelativeToRoot.getParent();
+    listings.remove(parent == null ? root.getFileSystem().getPath("") : parent);
+    Iterator<Path> directories = listings.keySet().iterator();
+    while (directories.hasNext()) {
+      if (directories.next().startsWith(pathRelativeToRoot)) {
+        directories.remove();
+      }
+    }
+  }
+
+  public void invalidateAll() {
+    listings.clear();
+  }
+
+  private ImmutableSet<String> getListing(Path directory) {
+    ImmutableSet<String> listing = listings.get(directory);
+    if (listing != null) {
+      return listing;
+    }
+
+    ImmutableSet.Builder<String> names = ImmutableSet.builder();
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(root.resolve(directory))) {
+      for (Path entry : entries) {
+        names.add(entry.getFileName().toString());
+      }
+    } catch (NoSuchFileException | NotDirectoryException e) {
+      // Nothing is in a directory which doesn't exist.
+    } catch (IOException e) {
+      // Don't remember anything, so that the next lookup tries again.
+      LOG.debug(e, "Could not list %s", directory);
+      return ImmutableSet.of();
+    }
+    listing = names.build();
+    ImmutableSet<String> existing = listings.putIfAbsent(directory, listing);
+    return existing == null ? listing : existing;
+  }
+}
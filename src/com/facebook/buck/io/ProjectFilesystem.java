@@ -23,6 +23,7 @@ import com.facebook.buck.zip.CustomZipEntry;
 import com.facebook.buck.zip.CustomZipOutputStream;
 import com.facebook.buck.zip.ZipOutputStreams;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ascii;
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
@@ -40,6 +41,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
 import com.google.common.hash.Hashing;
 import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
@@ -83,6 +85,9 @@ import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
 
 import javax.annotation.Nullable;
 
@@ -126,6 +131,14 @@ public class ProjectFilesystem {
   // A non-exhaustive list of characters that might indicate that we're about to deal with a glob.
   private static final Pattern GLOB_CHARS = Pattern.compile("[\\*\\?\\{\\[]");
 
+  // Archives and media which deflating again would hardly shrink.
+  private static final ImmutableSet<String> ALREADY_COMPRESSED_EXTENSIONS = ImmutableSet.of(
+      "7z", "aar", "apk", "bz2", "gif", "gz", "jar", "jpeg", "jpg", "lzma", "png", "webp", "xz",
+      "zip");
+
+  // Already compressed files up to this size are read into memory to be stored in artifact zips.
+  private static final long MAX_IN_MEMORY_STORED_ENTRY_SIZE = 4 * 1024 * 1024;
+
   @VisibleForTesting
   static final String BUCK_BUCKD_DIR_KEY = "buck.buckd_dir";
 
@@ -142,6 +155,8 @@ public class ProjectFilesystem {
   @VisibleForTesting
   protected boolean ignoreValidityOfPaths;
 
+  private final DirectorySnapshot directorySnapshot;
+
   public ProjectFilesystem(Path root) {
     this(
         root.getFileSystem(),
@@ -201,6 +216,7 @@ public class ProjectFilesystem {
           }
         });
     this.ignoreValidityOfPaths = false;
+    this.directorySnapshot = new DirectorySnapshot(this.projectRoot);
     this.blackListedPaths = blackListedPaths;
 
     this.blackListedDirectories = FluentIterable.from(this.blackListedPaths)
@@ -401,6 +417,26 @@ public class ProjectFilesystem {
     return file;
   }
 
+  /**
+   * As {@link #getPathForRelativeExistingPath(java.nio.file.Path)}, but checks the
+   * {@link DirectorySnapshot} first, for paths in the source tree which are checked often, such as
+   * those named by build files.
+   */
+  public Path getPathForRelativeExistingSourcePath(Path pathRelativeToProjectRoot) {
+    if (!ignoreValidityOfPaths && directorySnapshot.exists(pathRelativeToProjectRoot)) {
+      return getPathForRelativePath(pathRelativeToProjectRoot);
+    }
+    return getPathForRelativeExistingPath(pathRelativeToProjectRoot);
+  }
+
+  /**
+   * @return the names of the entries of the directories under the project root, as they were when
+   *     they were first looked at.
+   */
+  public DirectorySnapshot getDirectorySnapshot() {
+    return directorySnapshot;
+  }
+
   public boolean exists(Path pathRelativeToProjectRoot) {
     return Files.exists(getPathForRelativePath(pathRelativeToProjectRoot));
   }
@@ -1020,6 +1056,82 @@ public class ProjectFilesystem {
     }
   }
 
+  /**
+   * Like {@link #createZip(Collection, Path)}, but for packaging build outputs to store in a cache:
+   * files which are already compressed, such as jars and xz archives, are stored as they are rather
+   * than being deflated again, and the rest are deflated on {@code executor}, with up to
+   * {@code maxPendingEntries} of them in flight at once.  The entries are still written in order,
+   * so the same outputs always make the same zip.
+   *
+   * @return the number of bytes which were stored without being deflated.
+   */
+  public long createArtifactZip(
+      Collection<Path> pathsToIncludeInZip,
+      Path out,
+      ListeningExecutorService executor,
+      int maxPendingEntries) throws IOException {
+    long storedBytes = 0;
+    try (CustomZipOutputStream zip = ZipOutputStreams.newParallelOutputStream(
+             ZipOutputStreams.newOutputStream(out),
+             executor,
+             maxPendingEntries)) {
+      for (Path path : pathsToIncludeInZip) {
+        boolean isDirectory = isDirectory(path);
+        CustomZipEntry entry = new CustomZipEntry(path, isDirectory);
+
+        // We want deterministic ZIPs, so avoid mtimes.
+        entry.setFakeTime();
+
+        entry.setExternalAttributes(getFileAttributesForZipEntry(path));
+
+        byte[] contents = null;
+        if (!isDirectory && isAlreadyCompressed(path)) {
+          // Stored entries need their size and CRC before their data is written.  Small files are
+          // read once into memory, where they would be buffered for writing anyway.  Large ones
+          // are read twice rather than held in memory, once for the CRC and once to copy them.
+          entry.setCompressionLevel(Deflater.NO_COMPRESSION);
+          CRC32 crc = new CRC32();
+          long size;
+          if (getFileSize(path) <= MAX_IN_MEMORY_STORED_ENTRY_SIZE) {
+            contents = Files.readAllBytes(getPathForRelativePath(path));
+            crc.update(contents);
+            size = contents.length;
+          } else {
+            try (InputStream input = new CheckedInputStream(newFileInputStream(path), crc)) {
+              size = ByteStreams.copy(input, ByteStreams.nullOutputStream());
+            }
+          }
+          entry.setSize(size);
+          entry.setCompressedSize(size);
+          entry.setCrc(crc.getValue());
+          storedBytes += size;
+        }
+
+        zip.putNextEntry(entry);
+        if (contents != null) {
+          zip.write(contents);
+        } else if (!isDirectory) {
+          try (InputStream input = newFileInputStream(path)) {
+            ByteStreams.copy(input, zip);
+          }
+        }
+        zip.closeEntry();
+      }
+    }
+    return storedBytes;
+  }
+
+  /**
+   * @return whether the file at {@code path} is of a kind which is already compressed, and so
+   *     would gain little from being deflated again.
+   */
+  public static boolean isAlreadyCompressed(Path path) {
+    String name = path.getFileName().toString();
+    int dot = name.lastIndexOf('.');
+    return dot != -1 &&
+        ALREADY_COMPRESSED_EXTENSIONS.contains(Ascii.toLowerCase(name.substring(dot + 1)));
+  }
+
   public long getFileAttributesForZipEntry(Path path) throws IOException {
     long mode = 0;
     // Support executable files.  If we detect this file is executable, store this
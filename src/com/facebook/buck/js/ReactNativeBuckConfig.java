@@ -57,6 +57,20 @@ public class ReactNativeBuckConfig {
     return packagerWorker.get();
   }
 
+  /**
+   * @return the most instances of the packager to run at once, so that bundles can be built in
+   *     parallel.
+   */
+  public int getPackagerMaxWorkers() {
+    int maxWorkers = delegate.getInteger("react-native", "packager_max_workers").or(1);
+    if (maxWorkers < 1) {
+      throw new HumanReadableException(
+          "react-native.packager_max_workers must be at least 1, got %d.",
+          maxWorkers);
+    }
+    return maxWorkers;
+  }
+
   public Optional<Path> getServer() {
     return delegate.getPath("react-native", "server");
   }
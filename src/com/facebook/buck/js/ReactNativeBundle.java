@@ -69,6 +69,8 @@ public class ReactNativeBundle extends AbstractBuildRule implements AbiRule {
   private final Optional<String> packagerFlags;
 
   private final ReactNativeDeps depsFinder;
+  // How many packagers may run at once doesn't change what they produce.
+  private final int packagerMaxWorkers;
   private final Path jsOutputDir;
   private final Path resource;
 
@@ -82,7 +84,8 @@ public class ReactNativeBundle extends AbstractBuildRule implements AbiRule {
       Optional<String> packagerFlags,
       Tool jsPackager,
       ReactNativePlatform platform,
-      ReactNativeDeps depsFinder) {
+      ReactNativeDeps depsFinder,
+      int packagerMaxWorkers) {
     super(ruleParams, resolver);
     this.entryPath = entryPath;
     this.isUnbundle = isUnbundle;
@@ -92,6 +95,7 @@ public class ReactNativeBundle extends AbstractBuildRule implements AbiRule {
     this.jsPackager = jsPackager;
     this.platform = platform;
     this.depsFinder = depsFinder;
+    this.packagerMaxWorkers = packagerMaxWorkers;
     BuildTarget buildTarget = ruleParams.getBuildTarget();
     this.jsOutputDir = getPathToJSBundleDir(buildTarget);
     this.resource = getPathToResources(buildTarget);
@@ -133,7 +137,8 @@ public class ReactNativeBundle extends AbstractBuildRule implements AbiRule {
         isDevMode,
         getProjectFilesystem().resolve(outputFile),
         getProjectFilesystem().resolve(resource),
-        getProjectFilesystem().resolve(sourceMapOutput));
+        getProjectFilesystem().resolve(sourceMapOutput),
+        packagerMaxWorkers);
     stepBuilder.add(workerStep);
   }
 
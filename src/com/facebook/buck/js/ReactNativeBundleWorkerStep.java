@@ -37,7 +37,8 @@ public class ReactNativeBundleWorkerStep extends WorkerShellStep {
       boolean isDevMode,
       Path outputFile,
       Path resourcePath,
-      Path sourceMapFile) {
+      Path sourceMapFile,
+      int packagerMaxWorkers) {
     super(
         filesystem,
         filesystem.resolve(tmpDir),
@@ -58,7 +59,9 @@ public class ReactNativeBundleWorkerStep extends WorkerShellStep {
                     isDevMode ? "true" : "false",
                     outputFile.toString(),
                     resourcePath.toString(),
-                    sourceMapFile.toString()))),
+                    sourceMapFile.toString()),
+                packagerMaxWorkers,
+                /* multiplexed */ false)),
         Optional.<WorkerJobParams>absent(),
         Optional.<WorkerJobParams>absent());
   }
@@ -71,6 +71,9 @@ public class ReactNativeDeps extends AbstractBuildRule
   @AddToRuleKey
   private final Tool jsPackager;
 
+  // How many packagers may run at once doesn't change what they produce.
+  private final int packagerMaxWorkers;
+
   private final Path outputDir;
   private final Path inputsHashFile;
 
@@ -83,13 +86,15 @@ public class ReactNativeDeps extends AbstractBuildRule
       ImmutableSortedSet<SourcePath> srcs,
       SourcePath entryPath,
       ReactNativePlatform platform,
-      Optional<String> packagerFlags) {
+      Optional<String> packagerFlags,
+      int packagerMaxWorkers) {
     super(ruleParams, resolver);
     this.jsPackager = jsPackager;
     this.srcs = srcs;
     this.entryPath = entryPath;
     this.platform = platform;
     this.packagerFlags = packagerFlags;
+    this.packagerMaxWorkers = packagerMaxWorkers;
     this.outputDir = BuildTargets.getGenPath(getBuildTarget(), "%s");
     this.inputsHashFile = outputDir.resolve("inputs_hash.txt");
     this.outputInitializer = new BuildOutputInitializer<>(ruleParams.getBuildTarget(), this);
@@ -165,7 +170,8 @@ public class ReactNativeDeps extends AbstractBuildRule
         packagerFlags,
         platform,
         getProjectFilesystem().resolve(getResolver().getAbsolutePath(entryPath)),
-        getProjectFilesystem().resolve(outputFile));
+        getProjectFilesystem().resolve(outputFile),
+        packagerMaxWorkers);
     stepBuilder.add(workerStep);
   }
 
@@ -33,7 +33,8 @@ public class ReactNativeDepsWorkerStep extends WorkerShellStep {
       Optional<String> additionalPackagerFlags,
       ReactNativePlatform platform,
       Path entryFile,
-      Path outputFile) {
+      Path outputFile,
+      int packagerMaxWorkers) {
     super(
         filesystem,
         filesystem.resolve(tmpDir),
@@ -49,7 +50,9 @@ public class ReactNativeDepsWorkerStep extends WorkerShellStep {
                     "--command dependencies --platform %s --entry-file %s --output %s",
                     platform.toString(),
                     entryFile.toString(),
-                    outputFile.toString()))),
+                    outputFile.toString()),
+                packagerMaxWorkers,
+                /* multiplexed */ false)),
         Optional.<WorkerJobParams>absent(),
         Optional.<WorkerJobParams>absent());
   }
@@ -63,7 +63,8 @@ public class ReactNativeLibraryGraphEnhancer {
         args.srcs.get(),
         args.entryPath,
         platform,
-        args.packagerFlags);
+        args.packagerFlags,
+        buckConfig.getPackagerMaxWorkers());
     return resolver.addToIndex(depsFinder);
   }
 
@@ -98,7 +99,8 @@ public class ReactNativeLibraryGraphEnhancer {
         args.packagerFlags,
         jsPackager,
         ReactNativePlatform.ANDROID,
-        reactNativeDeps);
+        reactNativeDeps,
+        buckConfig.getPackagerMaxWorkers());
     resolver.addToIndex(bundle);
 
     ImmutableList.Builder<BuildRule> extraDeps = ImmutableList.builder();
@@ -161,6 +163,7 @@ public class ReactNativeLibraryGraphEnhancer {
         args.packagerFlags,
         jsPackager,
         ReactNativePlatform.IOS,
-        reactNativeDeps);
+        reactNativeDeps,
+        buckConfig.getPackagerMaxWorkers());
   }
 }
@@ -17,6 +17,8 @@ package com.facebook.buck.jvm.groovy;
 
 import com.facebook.buck.cli.BuckConfig;
 import com.facebook.buck.io.ExecutableFinder;
+import com.facebook.buck.jvm.java.JavaBuckConfig;
+import com.facebook.buck.jvm.java.PersistentCompiler;
 import com.facebook.buck.rules.HashedFileTool;
 import com.facebook.buck.rules.Tool;
 import com.facebook.buck.util.HumanReadableException;
@@ -35,7 +37,25 @@ public class GroovyBuckConfig {
   }
 
   Supplier<Tool> getGroovyCompiler() {
+    return Suppliers.<Tool>ofInstance(new HashedFileTool(findGroovyc()));
+  }
 
+  /**
+   * @return the groovyc to run in persistent workers rather than through
+   *     {@link #getGroovyCompiler}, if {@code groovy.persistent_compiler} is enabled.
+   */
+  Optional<PersistentCompiler> getPersistentCompiler() {
+    if (!delegate.getBooleanValue("groovy", "persistent_compiler", false)) {
+      return Optional.absent();
+    }
+    return Optional.of(
+        PersistentCompiler.fromDistribution(
+            new JavaBuckConfig(delegate).getDefaultJavaOptions().getJavaRuntimeLauncher(),
+            "groovyc",
+            findGroovyc()));
+  }
+
+  private Path findGroovyc() {
     Optional<Path> path = delegate.getPath("groovy", "groovy_home");
     final Path groovyHomePath;
     if (path.isPresent()) {
@@ -51,11 +71,8 @@ public class GroovyBuckConfig {
       }
     }
 
-    Path compiler =
-        new ExecutableFinder().getExecutable(
-            groovyHomePath.resolve("bin/groovyc"),
-            delegate.getEnvironment());
-
-    return Suppliers.<Tool>ofInstance(new HashedFileTool(compiler));
+    return new ExecutableFinder().getExecutable(
+        groovyHomePath.resolve("bin/groovyc"),
+        delegate.getEnvironment());
   }
 }
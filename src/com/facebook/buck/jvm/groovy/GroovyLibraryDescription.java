@@ -110,7 +110,8 @@ public class GroovyLibraryDescription implements Description<GroovyLibraryDescri
                         params,
                         resolver,
                         pathResolver,
-                        args)),
+                        args),
+                    groovyBuckConfig.getPersistentCompiler()),
                 Optional.<Path>absent(),
                 Optional.<String>absent(),
                 ImmutableSortedSet.<BuildTarget>of()));
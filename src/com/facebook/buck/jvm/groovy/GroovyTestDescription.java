@@ -99,7 +99,8 @@ public class GroovyTestDescription implements Description<GroovyTestDescription.
             resolver,
             pathResolver,
             args
-        ));
+        ),
+        groovyBuckConfig.getPersistentCompiler());
 
     JavaTest test =
         resolver.addToIndex(
@@ -24,6 +24,7 @@ import com.facebook.buck.io.ProjectFilesystem;
 import com.facebook.buck.jvm.java.Javac;
 import com.facebook.buck.jvm.java.JavacOptions;
 import com.facebook.buck.jvm.java.OptionsConsumer;
+import com.facebook.buck.jvm.java.PersistentCompiler;
 import com.facebook.buck.rules.SourcePathResolver;
 import com.facebook.buck.rules.Tool;
 import com.facebook.buck.step.ExecutionContext;
@@ -53,6 +54,7 @@ class GroovycStep implements Step {
   private final Path pathToSrcsList;
   private final ImmutableSortedSet<Path> declaredClasspathEntries;
   private final ProjectFilesystem filesystem;
+  private final Optional<PersistentCompiler> persistentCompiler;
 
   GroovycStep(
       Tool groovyc,
@@ -63,7 +65,8 @@ class GroovycStep implements Step {
       ImmutableSortedSet<Path> sourceFilePaths,
       Path pathToSrcsList,
       ImmutableSortedSet<Path> declaredClasspathEntries,
-      ProjectFilesystem filesystem) {
+      ProjectFilesystem filesystem,
+      Optional<PersistentCompiler> persistentCompiler) {
     this.groovyc = groovyc;
     this.extraArguments = extraArguments;
     this.javacOptions = javacOptions;
@@ -73,10 +76,21 @@ class GroovycStep implements Step {
     this.pathToSrcsList = pathToSrcsList;
     this.declaredClasspathEntries = declaredClasspathEntries;
     this.filesystem = filesystem;
+    this.persistentCompiler = persistentCompiler;
   }
 
   @Override
   public int execute(ExecutionContext context) throws IOException, InterruptedException {
+    if (persistentCompiler.isPresent()) {
+      writePathToSourcesList(sourceFilePaths);
+      // The persistent compiler takes the place of the groovyc script, so leave that out.
+      ImmutableList<String> command = createCommand();
+      return persistentCompiler.get().compile(
+          context,
+          filesystem,
+          command.subList(1, command.size()));
+    }
+
     ProcessBuilder processBuilder = new ProcessBuilder(createCommand());
 
     Map<String, String> env = processBuilder.environment();
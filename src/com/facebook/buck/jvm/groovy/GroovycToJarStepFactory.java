@@ -20,6 +20,7 @@ import com.facebook.buck.io.ProjectFilesystem;
 import com.facebook.buck.jvm.core.SuggestBuildRules;
 import com.facebook.buck.jvm.java.BaseCompileToJarStepFactory;
 import com.facebook.buck.jvm.java.JavacOptions;
+import com.facebook.buck.jvm.java.PersistentCompiler;
 import com.facebook.buck.model.BuildTarget;
 import com.facebook.buck.rules.BuildContext;
 import com.facebook.buck.rules.BuildableContext;
@@ -38,14 +39,18 @@ class GroovycToJarStepFactory extends BaseCompileToJarStepFactory {
   private final Tool groovyc;
   private final Optional<ImmutableList<String>> extraArguments;
   private final JavacOptions javacOptions;
+  // Only changes how groovyc is run, not what it outputs, so this is left out of the rule key.
+  private final Optional<PersistentCompiler> persistentCompiler;
 
   public GroovycToJarStepFactory(
       Tool groovyc,
       Optional<ImmutableList<String>> extraArguments,
-      JavacOptions javacOptions) {
+      JavacOptions javacOptions,
+      Optional<PersistentCompiler> persistentCompiler) {
     this.groovyc = groovyc;
     this.extraArguments = extraArguments;
     this.javacOptions = javacOptions;
+    this.persistentCompiler = persistentCompiler;
   }
 
   @Override
@@ -74,7 +79,8 @@ class GroovycToJarStepFactory extends BaseCompileToJarStepFactory {
             sourceFilePaths,
             pathToSrcsList,
             declaredClasspathEntries,
-            filesystem));
+            filesystem,
+            persistentCompiler));
   }
 
   @Override
@@ -159,8 +159,37 @@ abstract class AbstractJUnitJvmArgs {
       ProjectFilesystem filesystem,
       Verbosity verbosity,
       long defaultTestTimeoutMillis) {
+    formatJvmArgsToList(args, args, filesystem, verbosity);
+
+    args.add(
+        "-classpath",
+        "@" + filesystem.resolve(getClasspathFile()).toString() + File.pathSeparator +
+        getTestRunnerClasspath().toString());
+
+    args.add(FileClassPathRunner.class.getName());
+
+    // Specify the Java class whose main() method should be run. This is the class that is
+    // responsible for running the tests.
+    args.add(getTestType().getDefaultTestRunner());
+
+    formatTestRunnerArgsToList(args, defaultTestTimeoutMillis);
+  }
+
+  /**
+   * Formats the arguments with which to start the JVM, splitting out the system properties which
+   * are specific to this test run (rather than to the JVM) so that a persistent test runner can set
+   * them for each run.
+   *
+   * @param jvmArgs receives the arguments which have to be passed to the JVM at startup.
+   * @param testProperties receives the {@code -D} arguments which describe this test run.
+   */
+  public void formatJvmArgsToList(
+      ImmutableList.Builder<String> jvmArgs,
+      ImmutableList.Builder<String> testProperties,
+      ProjectFilesystem filesystem,
+      Verbosity verbosity) {
     if (getTmpDirectory().isPresent()) {
-      args.add(
+      testProperties.add(
           String.format(
               "-Djava.io.tmpdir=%s",
               filesystem.resolve(getTmpDirectory().get())));
@@ -168,42 +197,42 @@ abstract class AbstractJUnitJvmArgs {
 
     // NOTE(agallagher): These propbably don't belong here, but buck integration tests need
     // to find the test runner classes, so propagate these down via the relevant properties.
-    args.add(String.format("-Dbuck.testrunner_classes=%s", getTestRunnerClasspath()));
+    testProperties.add(String.format("-Dbuck.testrunner_classes=%s", getTestRunnerClasspath()));
 
     if (isCodeCoverageEnabled()) {
-      args.add(String.format("-javaagent:%s=destfile=%s/%s,append=true",
+      jvmArgs.add(String.format("-javaagent:%s=destfile=%s/%s,append=true",
           JacocoConstants.PATH_TO_JACOCO_AGENT_JAR,
           JacocoConstants.JACOCO_OUTPUT_DIR,
           JacocoConstants.JACOCO_EXEC_COVERAGE_FILE));
     }
 
     if (getPathToJavaAgent().isPresent()) {
-      args.add(String.format("-agentpath:%s", getPathToJavaAgent().get()));
+      jvmArgs.add(String.format("-agentpath:%s", getPathToJavaAgent().get()));
     }
 
     // Include the buildId
-    args.add(String.format("-D%s=%s", BUILD_ID_PROPERTY, getBuildId()));
+    testProperties.add(String.format("-D%s=%s", BUILD_ID_PROPERTY, getBuildId()));
 
     // Include the baseDir
-    args.add(
+    testProperties.add(
         String.format("-D%s=%s", MODULE_BASE_PATH_PROPERTY, getBuckModuleBaseSourceCodePath()));
 
     // Include log levels
     if (getStdOutLogLevel().isPresent()) {
-      args.add(
+      testProperties.add(
           String.format(
               "-D%s=%s",
               STD_OUT_LOG_LEVEL_PROPERTY, getStdOutLogLevel().get()));
     }
     if (getStdErrLogLevel().isPresent()) {
-      args.add(
+      testProperties.add(
           String.format(
               "-D%s=%s",
               STD_ERR_LOG_LEVEL_PROPERTY, getStdErrLogLevel().get()));
     }
 
     if (getRobolectricLogPath().isPresent()) {
-      args.add(
+      testProperties.add(
           String.format(
               "-Drobolectric.logging=%s", getRobolectricLogPath().get()));
     }
@@ -212,30 +241,26 @@ abstract class AbstractJUnitJvmArgs {
       // This is the default config used by IntelliJ. By doing this, all a user
       // needs to do is create a new "Remote" debug config. Note that we start
       // suspended, so tests will not run until the user connects.
-      args.add("-agentlib:jdwp=transport=dt_socket,server=y,suspend=y,address=5005");
+      jvmArgs.add("-agentlib:jdwp=transport=dt_socket,server=y,suspend=y,address=5005");
     }
 
     // User-defined VM arguments, such as -D or -X.
     if (getExtraJvmArgs().isPresent()) {
-      args.addAll(getExtraJvmArgs().get());
+      jvmArgs.addAll(getExtraJvmArgs().get());
     }
 
     // verbose flag, if appropriate.
     if (verbosity.shouldUseVerbosityFlagIfAvailable()) {
-      args.add("-verbose");
+      jvmArgs.add("-verbose");
     }
+  }
 
-    args.add(
-        "-classpath",
-        "@" + filesystem.resolve(getClasspathFile()).toString() + File.pathSeparator +
-        getTestRunnerClasspath().toString());
-
-    args.add(FileClassPathRunner.class.getName());
-
-    // Specify the Java class whose main() method should be run. This is the class that is
-    // responsible for running the tests.
-    args.add(getTestType().getDefaultTestRunner());
-
+  /**
+   * Formats the arguments expected by the test runner's main() method.
+   */
+  public void formatTestRunnerArgsToList(
+      ImmutableList.Builder<String> args,
+      long defaultTestTimeoutMillis) {
     // The first argument to the test runner is where the test results should be written. It is not
     // reliable to write test results to stdout or stderr because there may be output from the unit
     // tests written to those file descriptors, as well.
@@ -86,6 +86,11 @@ abstract class AbstractJavacOptions implements RuleKeyAppendable {
     return SpoolMode.INTERMEDIATE_TO_DISK;
   }
 
+  @Value.Default
+  protected boolean isPipeliningEnabled() {
+    return false;
+  }
+
   @Value.Default
   protected boolean isProductionBuild() {
     return false;
@@ -118,6 +123,16 @@ abstract class AbstractJavacOptions implements RuleKeyAppendable {
     return javacSource == JavacSource.JAR || javacSource == JavacSource.JDK;
   }
 
+  /**
+   * @return whether rules compiled with these options should compile against the ABI jars of their
+   *     deps, so that they can start building as soon as those have been published.  Annotation
+   *     processors may read resources from the classpath, which ABI jars don't contain, so rules
+   *     using them are never pipelined.
+   */
+  public boolean isPipelined() {
+    return isPipeliningEnabled() && getAnnotationProcessingParams().isEmpty();
+  }
+
   public JavacSource getJavacSource() {
     if (getJavacPath().isPresent()) {
       return JavacSource.EXTERNAL;
@@ -221,6 +236,11 @@ abstract class AbstractJavacOptions implements RuleKeyAppendable {
         .setReflectively("annotationProcessingParams", getAnnotationProcessingParams())
         .setReflectively("spoolMode", getSpoolMode());
 
+    // Only add this when set, so that rule keys are unchanged while pipelining is off.
+    if (isPipelined()) {
+      builder.setReflectively("pipelined", true);
+    }
+
     return builder;
   }
 
@@ -270,6 +290,7 @@ abstract class AbstractJavacOptions implements RuleKeyAppendable {
     builder.setJavacPath(options.getJavacPath());
     builder.setJavacJarPath(options.getJavacJarPath());
     builder.setSpoolMode(options.getSpoolMode());
+    builder.setPipeliningEnabled(options.isPipeliningEnabled());
     builder.setAnnotationProcessingParams(options.getAnnotationProcessingParams());
     builder.putAllSourceToBootclasspath(options.getSourceToBootclasspath());
     builder.setBootclasspath(options.getBootclasspath());
@@ -38,6 +38,11 @@ import java.util.List;
  */
 public abstract class BaseCompileToJarStepFactory implements CompileToJarStepFactory {
 
+  @Override
+  public boolean isPipelined() {
+    return false;
+  }
+
   @Override
   public void createCompileToJarStep(
       BuildContext context,
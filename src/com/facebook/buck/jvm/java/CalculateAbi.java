@@ -25,32 +25,46 @@ import com.facebook.buck.rules.AddToRuleKey;
 import com.facebook.buck.rules.BuildContext;
 import com.facebook.buck.rules.BuildRule;
 import com.facebook.buck.rules.BuildRuleParams;
+import com.facebook.buck.rules.BuildTargetSourcePath;
 import com.facebook.buck.rules.BuildableContext;
 import com.facebook.buck.rules.SourcePath;
 import com.facebook.buck.rules.SourcePathResolver;
+import com.facebook.buck.rules.SupportsPipelining;
 import com.facebook.buck.rules.keys.SupportsInputBasedRuleKey;
 import com.facebook.buck.step.Step;
 import com.facebook.buck.step.fs.MkdirStep;
 import com.facebook.buck.step.fs.RmStep;
+import com.google.common.base.Optional;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedSet;
 
 import java.nio.file.Path;
 
-public class CalculateAbi extends AbstractBuildRule implements SupportsInputBasedRuleKey {
+public class CalculateAbi extends AbstractBuildRule
+    implements SupportsInputBasedRuleKey, SupportsPipelining {
 
   public static final Flavor FLAVOR = ImmutableFlavor.of("abi");
 
   @AddToRuleKey
   private final SourcePath binaryJar;
+  private final boolean pipelined;
 
   public CalculateAbi(
       BuildRuleParams buildRuleParams,
       SourcePathResolver resolver,
       SourcePath binaryJar) {
+    this(buildRuleParams, resolver, binaryJar, /* pipelined */ false);
+  }
+
+  private CalculateAbi(
+      BuildRuleParams buildRuleParams,
+      SourcePathResolver resolver,
+      SourcePath binaryJar,
+      boolean pipelined) {
     super(buildRuleParams, resolver);
     this.binaryJar = binaryJar;
+    this.pipelined = pipelined;
   }
 
   public static CalculateAbi of(
@@ -58,6 +72,21 @@ public class CalculateAbi extends AbstractBuildRule implements SupportsInputBase
       SourcePathResolver pathResolver,
       BuildRuleParams libraryParams,
       SourcePath library) {
+    // A pipelined library publishes its ABI jar before it has finished building, so work from that
+    // rather than its output jar, and let rules depending on this ABI start building sooner.
+    Optional<BuildRule> rule = pathResolver.getRule(library);
+    boolean pipelined =
+        rule.isPresent() &&
+        rule.get() instanceof DefaultJavaLibrary &&
+        ((DefaultJavaLibrary) rule.get()).isPipelined();
+    SourcePath binaryJar = library;
+    if (pipelined) {
+      BuildTarget libraryTarget = rule.get().getBuildTarget();
+      binaryJar = new BuildTargetSourcePath(
+          libraryTarget,
+          DefaultJavaLibrary.getOutputAbiJarPath(libraryTarget));
+    }
+
     return new CalculateAbi(
         libraryParams.copyWithChanges(
             target,
@@ -65,7 +94,8 @@ public class CalculateAbi extends AbstractBuildRule implements SupportsInputBase
                 ImmutableSortedSet.copyOf(pathResolver.filterBuildRuleInputs(library))),
             Suppliers.ofInstance(ImmutableSortedSet.<BuildRule>of())),
         pathResolver,
-        library);
+        binaryJar,
+        pipelined);
   }
 
   private Path getAbiJarPath() {
@@ -87,6 +117,11 @@ public class CalculateAbi extends AbstractBuildRule implements SupportsInputBase
             getPathToOutput()));
   }
 
+  @Override
+  public ImmutableSortedSet<BuildRule> getPipelinedDeps() {
+    return pipelined ? getDeps() : ImmutableSortedSet.<BuildRule>of();
+  }
+
   @Override
   public Path getPathToOutput() {
     return getAbiJarPath();
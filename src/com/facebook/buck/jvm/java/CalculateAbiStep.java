@@ -21,29 +21,53 @@ import com.facebook.buck.io.ProjectFilesystem;
 import com.facebook.buck.jvm.java.abi.StubJar;
 import com.facebook.buck.rules.keys.AbiRule;
 import com.facebook.buck.rules.BuildableContext;
+import com.facebook.buck.rules.PublishingStep;
 import com.facebook.buck.rules.Sha1HashCode;
 import com.facebook.buck.step.ExecutionContext;
-import com.facebook.buck.step.Step;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.regex.Pattern;
 
-public class CalculateAbiStep implements Step {
+/**
+ * Writes the ABI jar of a jar or directory of classes, and records its hash as the ABI key.  Rules
+ * pipelined on the rule running this step may start building once it has run.
+ */
+public class CalculateAbiStep implements PublishingStep {
 
   private final BuildableContext buildableContext;
   private final ProjectFilesystem filesystem;
   private final Path binaryJar;
   private final Path abiJar;
+  private final boolean useStubJarCache;
 
   public CalculateAbiStep(
       BuildableContext buildableContext,
       ProjectFilesystem filesystem,
       Path binaryJar,
       Path abiJar) {
+    this(buildableContext, filesystem, binaryJar, abiJar, /* useStubJarCache */ false);
+  }
+
+  /**
+   * @param useStubJarCache whether to reuse the ABI jar of any identical jar, via the
+   *     {@link StubJarCache}.  Only worth it for jars which rarely change.
+   */
+  public CalculateAbiStep(
+      BuildableContext buildableContext,
+      ProjectFilesystem filesystem,
+      Path binaryJar,
+      Path abiJar,
+      boolean useStubJarCache) {
     this.buildableContext = buildableContext;
     this.filesystem = filesystem;
     this.binaryJar = binaryJar;
     this.abiJar = abiJar;
+    this.useStubJarCache = useStubJarCache;
   }
 
   @Override
@@ -69,17 +93,48 @@ public class CalculateAbiStep implements Step {
       BuildableContext buildableContext) throws IOException {
     Path binJar = filesystem.resolve(binaryJar);
 
+    ListeningExecutorService executor =
+        context.getExecutorService(ExecutionContext.ExecutorPool.CPU);
+    int maxPendingClasses = context.getConcurrencyLimit().threadLimit * 2;
     try {
-      new StubJar(binJar).writeTo(filesystem, abiJar);
+      if (useStubJarCache && !filesystem.isDirectory(binJar)) {
+        new StubJarCache(filesystem).writeStubJar(binJar, abiJar, executor, maxPendingClasses);
+      } else {
+        new StubJar(binJar).writeTo(filesystem, abiJar, executor, maxPendingClasses);
+      }
       buildableContext.recordArtifact(abiJar);
       return abiJar;
     } catch (IllegalArgumentException e) {
       // Thrown when ASM chokes on an input file. Fall back to the input jar, but warn the user.
+      if (!filesystem.isDirectory(binJar)) {
+        context.postEvent(
+            ConsoleEvent.warning(
+                "Unable to create abi jar from %s. Falling back to hashing that jar",
+                binaryJar));
+        return binJar;
+      }
+
+      // A directory of classes can't be hashed directly, and rules pipelined on this one compile
+      // against the ABI jar, so jar the classes up as they are and use that.
       context.postEvent(
           ConsoleEvent.warning(
-              "Unable to create abi jar from %s. Falling back to hashing that jar",
+              "Unable to create abi jar from %s. Falling back to jarring its classes",
               binaryJar));
-      return binJar;
+      filesystem.deleteFileAtPathIfExists(abiJar);
+      int exitCode = JarDirectoryStepHelper.createJarFile(
+          filesystem,
+          abiJar,
+          ImmutableSortedSet.of(binJar),
+          /* mainClass */ Optional.<String>absent(),
+          /* manifestFile */ Optional.<Path>absent(),
+          /* mergeManifests */ true,
+          /* blacklist */ ImmutableSet.<Pattern>of(),
+          context);
+      if (exitCode != 0) {
+        throw new IOException(String.format("Failed to jar the classes in %s", binaryJar));
+      }
+      buildableContext.recordArtifact(abiJar);
+      return abiJar;
     }
   }
 
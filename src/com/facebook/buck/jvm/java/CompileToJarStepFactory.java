@@ -36,6 +36,13 @@ import java.nio.file.Path;
  */
 public interface CompileToJarStepFactory extends RuleKeyAppendable {
 
+  /**
+   * @return whether rules using this factory should compile against the ABI jars of their deps,
+   *     and publish their own ABI jar before packing their classes into a jar, so that their
+   *     builds can be pipelined.
+   */
+  boolean isPipelined();
+
   void createCompileStep(
       BuildContext context,
       ImmutableSortedSet<Path> sourceFilePaths,
@@ -40,6 +40,7 @@ import com.facebook.buck.rules.OnDiskBuildInfo;
 import com.facebook.buck.rules.SourcePath;
 import com.facebook.buck.rules.SourcePathResolver;
 import com.facebook.buck.rules.SourcePaths;
+import com.facebook.buck.rules.SupportsPipelining;
 import com.facebook.buck.rules.keys.SupportsInputBasedRuleKey;
 import com.facebook.buck.step.Step;
 import com.facebook.buck.step.fs.MakeCleanDirectoryStep;
@@ -58,6 +59,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.hash.HashCode;
 import com.google.common.reflect.ClassPath;
@@ -68,6 +70,7 @@ import java.net.URLClassLoader;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Nullable;
@@ -92,7 +95,7 @@ import javax.annotation.Nullable;
 public class DefaultJavaLibrary extends AbstractBuildRule
     implements JavaLibrary, HasClasspathEntries, ExportDependencies,
     InitializableFromDisk<JavaLibrary.Data>, AndroidPackageable,
-    SupportsInputBasedRuleKey, HasTests {
+    SupportsInputBasedRuleKey, SupportsPipelining, HasTests {
 
   private static final BuildableProperties OUTPUT_TYPE = new BuildableProperties(LIBRARY);
 
@@ -120,6 +123,7 @@ public class DefaultJavaLibrary extends AbstractBuildRule
   private final Supplier<ImmutableSet<JavaLibrary>> transitiveClasspathDepsSupplier;
   private final Supplier<ImmutableSetMultimap<JavaLibrary, Path>>
       declaredClasspathEntriesSupplier;
+  private final Supplier<ImmutableSortedSet<BuildRule>> pipelinedDepsSupplier;
 
   private final SourcePath abiJar;
   private final boolean trackClassUsage;
@@ -314,6 +318,15 @@ public class DefaultJavaLibrary extends AbstractBuildRule
           }
         });
 
+    this.pipelinedDepsSupplier =
+        Suppliers.memoize(
+            new Supplier<ImmutableSortedSet<BuildRule>>() {
+              @Override
+              public ImmutableSortedSet<BuildRule> get() {
+                return computePipelinedDeps();
+              }
+            });
+
     this.buildOutputInitializer = new BuildOutputInitializer<>(params.getBuildTarget(), this);
     this.generatedSourceFolder = generatedSourceFolder;
   }
@@ -338,6 +351,11 @@ public class DefaultJavaLibrary extends AbstractBuildRule
             target.getShortNameAndFlavorPostfix()));
   }
 
+  static Path getOutputAbiJarPath(BuildTarget target) {
+    return getOutputJarDirPath(target)
+        .resolve(String.format("%s-abi.jar", target.getShortNameAndFlavorPostfix()));
+  }
+
   static Path getUsedClassesFilePath(BuildTarget target) {
     return getOutputJarDirPath(target).resolve("used-classes.json");
   }
@@ -395,6 +413,72 @@ public class DefaultJavaLibrary extends AbstractBuildRule
     return outputClasspathEntriesSupplier.get();
   }
 
+  /**
+   * @return whether this rule compiles against the ABI jars of its deps, and publishes its own ABI
+   *     jar before packing its classes into a jar.
+   */
+  boolean isPipelined() {
+    return compileStepFactory.isPipelined();
+  }
+
+  /**
+   * @return the deps whose ABI jars this rule compiles against: the libraries on its classpath
+   *     which publish their ABI jar early, and the rules calculating the ABI of its deps.
+   */
+  @Override
+  public ImmutableSortedSet<BuildRule> getPipelinedDeps() {
+    return pipelinedDepsSupplier.get();
+  }
+
+  private ImmutableSortedSet<BuildRule> computePipelinedDeps() {
+    if (!isPipelined()) {
+      return ImmutableSortedSet.of();
+    }
+
+    Set<JavaLibrary> classpathLibraries = Sets.newHashSet(getDeclaredClasspathEntries().keySet());
+    for (JavaLibrary library : JavaLibraryClasspathProvider.getJavaLibraryDeps(providedDeps)) {
+      classpathLibraries.addAll(library.getOutputClasspathEntries().keySet());
+    }
+
+    ImmutableSortedSet.Builder<BuildRule> pipelinedDeps = ImmutableSortedSet.naturalOrder();
+    for (BuildRule dep : getDeps()) {
+      if (dep instanceof CalculateAbi ||
+          (dep instanceof DefaultJavaLibrary &&
+              ((DefaultJavaLibrary) dep).isPipelined() &&
+              classpathLibraries.contains(dep))) {
+        pipelinedDeps.add(dep);
+      }
+    }
+    return pipelinedDeps.build();
+  }
+
+  /**
+   * @return the classpath with the jars of the libraries this rule is pipelined on replaced by
+   *     the ABI jars they publish before those jars are written.
+   */
+  private ImmutableSortedSet<Path> getPipelinedClasspath(ImmutableSortedSet<Path> classpath) {
+    Map<Path, Path> abiJars = Maps.newHashMap();
+    for (BuildRule dep : getPipelinedDeps()) {
+      if (!(dep instanceof DefaultJavaLibrary)) {
+        continue;
+      }
+      DefaultJavaLibrary library = (DefaultJavaLibrary) dep;
+      if (library.outputJar.isPresent()) {
+        abiJars.put(
+            library.getProjectFilesystem().resolve(library.outputJar.get()),
+            library.getProjectFilesystem().resolve(
+                getOutputAbiJarPath(library.getBuildTarget())));
+      }
+    }
+
+    ImmutableSortedSet.Builder<Path> pipelinedClasspath = ImmutableSortedSet.naturalOrder();
+    for (Path entry : classpath) {
+      Path abiJar = abiJars.get(entry);
+      pipelinedClasspath.add(abiJar != null ? abiJar : entry);
+    }
+    return pipelinedClasspath.build();
+  }
+
   @Override
   public Optional<Path> getGeneratedSourcePath() {
     return generatedSourceFolder;
@@ -456,6 +540,9 @@ public class DefaultJavaLibrary extends AbstractBuildRule
         .addAll(declaredClasspathEntries.values())
         .addAll(provided)
         .build();
+    if (isPipelined()) {
+      declared = getPipelinedClasspath(declared);
+    }
 
 
     // Make sure that this directory exists because ABI information will be written here.
@@ -495,50 +582,89 @@ public class DefaultJavaLibrary extends AbstractBuildRule
       steps.add(new MakeCleanDirectoryStep(getProjectFilesystem(), scratchDir));
       Optional<Path> workingDirectory = Optional.of(scratchDir);
 
-      compileStepFactory.createCompileToJarStep(
-          context,
-          getJavaSrcs(),
-          target,
-          getResolver(),
-          getProjectFilesystem(),
-          declared,
-          outputDirectory,
-          workingDirectory,
-          pathToSrcsList,
-          Optional.of(suggestBuildRule),
-          postprocessClassesCommands,
-          ImmutableSortedSet.of(outputDirectory),
-          /* mainClass */ Optional.<String>absent(),
-          /* manifestFile */ Optional.<Path>absent(),
-          outputJar.get(),
-          usedClassesFilePath,
-          /* output params */
-          steps,
-          buildableContext);
+      if (isPipelined()) {
+        // Leave the classes in the output directory, so the ABI can be published from there.
+        compileStepFactory.createCompileStep(
+            context,
+            getJavaSrcs(),
+            target,
+            getResolver(),
+            getProjectFilesystem(),
+            declared,
+            outputDirectory,
+            workingDirectory,
+            pathToSrcsList,
+            Optional.of(suggestBuildRule),
+            usedClassesFilePath,
+            steps,
+            buildableContext);
+        steps.addAll(
+            BaseCompileToJarStepFactory.addPostprocessClassesCommands(
+                getProjectFilesystem().getRootPath(),
+                postprocessClassesCommands,
+                outputDirectory));
+      } else {
+        compileStepFactory.createCompileToJarStep(
+            context,
+            getJavaSrcs(),
+            target,
+            getResolver(),
+            getProjectFilesystem(),
+            declared,
+            outputDirectory,
+            workingDirectory,
+            pathToSrcsList,
+            Optional.of(suggestBuildRule),
+            postprocessClassesCommands,
+            ImmutableSortedSet.of(outputDirectory),
+            /* mainClass */ Optional.<String>absent(),
+            /* manifestFile */ Optional.<Path>absent(),
+            outputJar.get(),
+            usedClassesFilePath,
+            /* output params */
+            steps,
+            buildableContext);
+      }
     }
 
 
-    Path abiJar = getOutputJarDirPath(target)
-        .resolve(String.format("%s-abi.jar", target.getShortNameAndFlavorPostfix()));
+    Path abiJar = getOutputAbiJarPath(target);
 
     if (outputJar.isPresent()) {
       Path output = outputJar.get();
 
-      // No source files, only resources
-      if (getJavaSrcs().isEmpty()) {
+      if (isPipelined()) {
+        // Publish the ABI before jarring the classes, so that the rules pipelined on this one can
+        // start compiling against it in the meantime.
+        steps.add(
+            new CalculateAbiStep(
+                buildableContext,
+                getProjectFilesystem(),
+                outputDirectory,
+                abiJar));
         steps.add(
             new JarDirectoryStep(
                 getProjectFilesystem(),
                 output,
                 ImmutableSortedSet.of(outputDirectory),
-          /* mainClass */ null,
-          /* manifestFile */ null));
+                /* mainClass */ null,
+                /* manifestFile */ null));
+      } else {
+        // No source files, only resources
+        if (getJavaSrcs().isEmpty()) {
+          steps.add(
+              new JarDirectoryStep(
+                  getProjectFilesystem(),
+                  output,
+                  ImmutableSortedSet.of(outputDirectory),
+                  /* mainClass */ null,
+                  /* manifestFile */ null));
+        }
+
+        // Calculate the ABI.
+        steps.add(new CalculateAbiStep(buildableContext, getProjectFilesystem(), output, abiJar));
       }
       buildableContext.recordArtifact(output);
-
-      // Calculate the ABI.
-
-      steps.add(new CalculateAbiStep(buildableContext, getProjectFilesystem(), output, abiJar));
     } else {
       Path scratch = BuildTargets.getScratchPath(
           target,
@@ -19,31 +19,54 @@ package com.facebook.buck.jvm.java;
 import com.facebook.buck.io.ExecutableFinder;
 import com.facebook.buck.io.ProjectFilesystem;
 import com.facebook.buck.log.Logger;
+import com.facebook.buck.event.ConsoleEvent;
 import com.facebook.buck.shell.ShellStep;
+import com.facebook.buck.shell.WorkerJobResult;
+import com.facebook.buck.shell.WorkerProcess;
 import com.facebook.buck.step.ExecutionContext;
+import com.facebook.buck.util.BuckConstant;
+import com.facebook.buck.util.HumanReadableException;
 import com.facebook.buck.util.ProcessExecutor;
 import com.facebook.buck.util.ProcessExecutorParams;
+import com.facebook.buck.util.Verbosity;
 import com.facebook.buck.util.environment.Platform;
 import com.google.common.base.Function;
+import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class JUnitStep extends ShellStep {
   private static final Logger LOG = Logger.get(JUnitStep.class);
 
+  private static final String PERSISTENT_RUNNER_MAIN_CLASS =
+      "com.facebook.buck.testrunner.JUnitWorkerMain";
+
+  // The exit code with which a persistent runner asks not to be reused, because the tests it ran
+  // have left threads behind.  Keep in sync with JUnitWorkerMain.
+  private static final int PERSISTENT_RUNNER_RETIRE_EXIT_CODE = 75;
+
+  // Gives every idle persistent runner a unique key in the ExecutionContext's worker map.
+  private static final AtomicInteger NEXT_PERSISTENT_RUNNER_ID = new AtomicInteger();
+
   private final ProjectFilesystem filesystem;
   private final JavaRuntimeLauncher javaRuntimeLauncher;
   private final ImmutableMap<String, String> nativeLibsEnvironment;
   private final Optional<Long> testRuleTimeoutMs;
   private final JUnitJvmArgs junitJvmArgs;
+  private final Optional<Integer> persistentRunnerMaxTests;
 
   // Set when the junit command times out.
   private boolean hasTimedOut = false;
@@ -53,13 +76,15 @@ public class JUnitStep extends ShellStep {
       Map<String, String> nativeLibsEnvironment,
       Optional<Long> testRuleTimeoutMs,
       JavaRuntimeLauncher javaRuntimeLauncher,
-      JUnitJvmArgs junitJvmArgs) {
+      JUnitJvmArgs junitJvmArgs,
+      Optional<Integer> persistentRunnerMaxTests) {
     super(filesystem.getRootPath());
     this.filesystem = filesystem;
     this.javaRuntimeLauncher = javaRuntimeLauncher;
     this.nativeLibsEnvironment = ImmutableMap.copyOf(nativeLibsEnvironment);
     this.testRuleTimeoutMs = testRuleTimeoutMs;
     this.junitJvmArgs = junitJvmArgs;
+    this.persistentRunnerMaxTests = persistentRunnerMaxTests;
   }
 
   @Override
@@ -86,6 +111,155 @@ public class JUnitStep extends ShellStep {
     return args.build();
   }
 
+  @Override
+  public int execute(ExecutionContext context) throws InterruptedException {
+    if (!canUsePersistentRunner()) {
+      return super.execute(context);
+    }
+    try {
+      return executeInPersistentRunner(context);
+    } catch (IOException e) {
+      LOG.error(e, "Failed to run tests in a persistent test runner.");
+      return 1;
+    }
+  }
+
+  private boolean canUsePersistentRunner() {
+    // A persistent runner can't suspend for a debugger before every test rule, and timing out one
+    // rule means killing the runner, so these keep launching a JVM of their own.
+    return persistentRunnerMaxTests.isPresent() &&
+        junitJvmArgs.getTestType() == TestType.JUNIT &&
+        !junitJvmArgs.isDebugEnabled() &&
+        !testRuleTimeoutMs.isPresent();
+  }
+
+  /**
+   * Runs the tests in one of the idle persistent runners which were started with the same JVM
+   * arguments and environment, launching a new runner if there are none.  The per-test system
+   * properties and classpath are sent along with the test classes, and runners are retired after
+   * running {@link #persistentRunnerMaxTests} test rules, or when they report having leaked
+   * threads.
+   */
+  private int executeInPersistentRunner(ExecutionContext context) throws IOException {
+    ImmutableList.Builder<String> command = ImmutableList.builder();
+    ImmutableList.Builder<String> jobArgs = ImmutableList.builder();
+    command.add(javaRuntimeLauncher.getCommand());
+    junitJvmArgs.formatJvmArgsToList(command, jobArgs, filesystem, context.getVerbosity());
+    command.add(
+        "-classpath",
+        junitJvmArgs.getTestRunnerClasspath().toString(),
+        PERSISTENT_RUNNER_MAIN_CLASS);
+
+    // Nothing outside of buck-out (e.g. third-party jars) changes during a build, so the runner
+    // can keep those entries loaded between test rules.
+    Path buckOut = filesystem.resolve(BuckConstant.getBuckOutputPath());
+    ImmutableList.Builder<String> sharedClasspath = ImmutableList.builder();
+    ImmutableList.Builder<String> classpath = ImmutableList.builder();
+    for (String entry : filesystem.readLines(junitJvmArgs.getClasspathFile())) {
+      if (entry.isEmpty()) {
+        continue;
+      }
+      if (filesystem.resolve(entry).startsWith(buckOut)) {
+        classpath.add(entry);
+      } else {
+        sharedClasspath.add(entry);
+      }
+    }
+    classpath.add(junitJvmArgs.getTestRunnerClasspath().toString());
+    jobArgs.add("--shared-classpath", Joiner.on(File.pathSeparator).join(sharedClasspath.build()));
+    jobArgs.add("--classpath", Joiner.on(File.pathSeparator).join(classpath.build()));
+    jobArgs.add("--");
+    junitJvmArgs.formatTestRunnerArgsToList(jobArgs, context.getDefaultTestTimeoutMillis());
+
+    // The per-rule TMP directory is left out, as it would stop runners from being shared.  The
+    // tests still see their own directory through the java.io.tmpdir property.
+    ImmutableMap<String, String> environment = ImmutableMap.<String, String>builder()
+        .putAll(context.getEnvironment())
+        .putAll(nativeLibsEnvironment)
+        .build();
+    String key = String.format(
+        "junit:%s %s",
+        ImmutableSortedMap.copyOf(nativeLibsEnvironment),
+        Joiner.on(' ').join(command.build()));
+
+    WorkerProcess process = acquirePersistentRunner(context, key, command.build(), environment);
+    boolean isReusable = false;
+    boolean isLaunched = false;
+    try {
+      process.ensureLaunchAndHandshake();
+      isLaunched = true;
+      WorkerJobResult result =
+          process.submitAndWaitForJob(Joiner.on('\0').join(jobArgs.build()));
+
+      Verbosity verbosity = context.getVerbosity();
+      if (result.getStdout().isPresent() && !result.getStdout().get().isEmpty() &&
+          shouldPrintStdout(verbosity)) {
+        context.postEvent(ConsoleEvent.info("%s", result.getStdout().get()));
+      }
+      if (result.getStderr().isPresent() && !result.getStderr().get().isEmpty() &&
+          shouldPrintStderr(verbosity)) {
+        context.postEvent(ConsoleEvent.warning("%s", result.getStderr().get()));
+      }
+
+      int exitCode = result.getExitCode();
+      if (exitCode == PERSISTENT_RUNNER_RETIRE_EXIT_CODE) {
+        LOG.debug("Retiring persistent test runner which leaked threads: %s", key);
+        exitCode = 0;
+      } else {
+        isReusable = process.getJobCount() < persistentRunnerMaxTests.get();
+      }
+      return exitCode;
+    } catch (HumanReadableException e) {
+      // The runner died or broke the protocol, most likely because a test called System.exit().
+      context.getStdErr().println(context.getAnsi().asErrorText(e.getHumanReadableErrorMessage()));
+      return 1;
+    } finally {
+      if (isReusable) {
+        context.getWorkerProcesses().put(
+            key + "#" + NEXT_PERSISTENT_RUNNER_ID.getAndIncrement(),
+            process);
+      } else if (isLaunched) {
+        try {
+          process.close();
+        } catch (IOException | HumanReadableException e) {
+          LOG.debug(e, "Failed to close persistent test runner: %s", key);
+        }
+      }
+    }
+  }
+
+  /**
+   * Takes an idle persistent runner for the given key out of the {@link ExecutionContext}'s worker
+   * processes, so that no other step can use it until it is put back, or creates a new one.
+   */
+  private WorkerProcess acquirePersistentRunner(
+      ExecutionContext context,
+      String key,
+      ImmutableList<String> command,
+      ImmutableMap<String, String> environment) throws IOException {
+    ConcurrentMap<String, WorkerProcess> processes = context.getWorkerProcesses();
+    for (Map.Entry<String, WorkerProcess> entry : processes.entrySet()) {
+      if (entry.getKey().startsWith(key + "#") &&
+          processes.remove(entry.getKey(), entry.getValue())) {
+        return entry.getValue();
+      }
+    }
+
+    Path tmpPath = BuckConstant.getScratchPath()
+        .resolve("junit-runners")
+        .resolve(String.valueOf(NEXT_PERSISTENT_RUNNER_ID.getAndIncrement()));
+    filesystem.mkdirs(tmpPath);
+    return new WorkerProcess(
+        context.getProcessExecutor(),
+        ProcessExecutorParams.builder()
+            .setCommand(command)
+            .setEnvironment(environment)
+            .setDirectory(filesystem.getRootPath().toFile())
+            .build(),
+        filesystem,
+        tmpPath);
+  }
+
   @Override
   public ImmutableMap<String, String> getEnvironmentVariables(ExecutionContext context) {
     ImmutableMap.Builder<String, String> env = ImmutableMap.builder();
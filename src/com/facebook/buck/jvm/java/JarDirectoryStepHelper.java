@@ -25,6 +25,7 @@ import com.facebook.buck.io.ProjectFilesystem;
 import com.facebook.buck.model.Pair;
 import com.facebook.buck.step.ExecutionContext;
 import com.facebook.buck.zip.CustomZipOutputStream;
+import com.facebook.buck.zip.RawZipFile;
 import com.facebook.buck.zip.ZipConstants;
 import com.facebook.buck.zip.ZipOutputStreams;
 import com.google.common.base.Optional;
@@ -158,8 +159,15 @@ public class JarDirectoryStepHelper {
       ExecutionContext context) throws IOException {
 
     Path absoluteOutputPath = filesystem.getPathForRelativePath(pathToOutputFile);
-    try (CustomZipOutputStream outputFile = ZipOutputStreams.newOutputStream(
-        absoluteOutputPath, APPEND_TO_ZIP)) {
+    try (
+        CustomZipOutputStream zipOut =
+            ZipOutputStreams.newOutputStream(absoluteOutputPath, APPEND_TO_ZIP);
+        CustomZipOutputStream outputFile = context.isParallelZipEnabled() ?
+            ZipOutputStreams.newParallelOutputStream(
+                zipOut,
+                context.getExecutorService(ExecutionContext.ExecutorPool.CPU),
+                context.getConcurrencyLimit().threadLimit) :
+            zipOut) {
       return createJarFile(filesystem,
           pathToOutputFile,
           outputFile,
@@ -215,6 +223,7 @@ public class JarDirectoryStepHelper {
       Set<String> alreadyAddedEntries,
       BuckEventBus eventBus,
       Iterable<Pattern> blacklist) throws IOException {
+    Optional<RawZipFile> rawZip = RawZipFile.open(inputFile);
     try (ZipFile zip = new ZipFile(inputFile.toFile())) {
       zipEntryLoop:
       for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); ) {
@@ -253,6 +262,12 @@ public class JarDirectoryStepHelper {
           }
         }
 
+        // Where we can, copy the entry's compressed bytes straight across rather than inflating
+        // them only to deflate them again.
+        if (rawZip.isPresent() && rawZip.get().copyRawEntry(entry, jar)) {
+          continue;
+        }
+
         ZipEntry newEntry = new ZipEntry(entry);
 
         // For deflated entries, the act of re-"putting" this entry means we're re-compressing
@@ -278,6 +293,10 @@ public class JarDirectoryStepHelper {
     } catch (ZipException e) {
       throw new IOException(
           "Failed to process zip file " + inputFile + ": " + e.getMessage(), e);
+    } finally {
+      if (rawZip.isPresent()) {
+        rawZip.get().close();
+      }
     }
   }
 
@@ -72,6 +72,7 @@ public class JavaBuckConfig {
         .setSourceLevel(sourceLevel.or(TARGETED_JAVA_VERSION))
         .setTargetLevel(targetLevel.or(TARGETED_JAVA_VERSION))
         .setSpoolMode(spoolMode)
+        .setPipeliningEnabled(delegate.getBooleanValue("java", "pipelining", false))
         .putAllSourceToBootclasspath(bootclasspaths.build())
         .addAllExtraArguments(extraArguments)
         .build();
@@ -267,7 +267,8 @@ public class JavaTest
         nativeLibsEnvironment,
         testRuleTimeoutMs,
         javaRuntimeLauncher,
-        args);
+        args,
+        options.getPersistentJUnitRunnerMaxTests());
   }
 
   /**
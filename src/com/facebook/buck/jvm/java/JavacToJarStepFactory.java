@@ -41,6 +41,11 @@ public class JavacToJarStepFactory extends BaseCompileToJarStepFactory {
     this.amender = amender;
   }
 
+  @Override
+  public boolean isPipelined() {
+    return javacOptions.isPipelined();
+  }
+
   @Override
   public void createCompileStep(
       BuildContext context,
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.jvm.java;
+
+import com.facebook.buck.event.ConsoleEvent;
+import com.facebook.buck.io.ProjectFilesystem;
+import com.facebook.buck.log.Logger;
+import com.facebook.buck.shell.WorkerJobResult;
+import com.facebook.buck.shell.WorkerProcess;
+import com.facebook.buck.step.ExecutionContext;
+import com.facebook.buck.util.BuckConstant;
+import com.facebook.buck.util.HumanReadableException;
+import com.facebook.buck.util.ProcessExecutorParams;
+import com.facebook.buck.util.Verbosity;
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Ordering;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A JVM compiler, such as scalac or groovyc, which runs in persistent worker processes rather
+ * than in a JVM of its own for every library, so that only the first library it compiles pays for
+ * starting and warming up the compiler.
+ * <p>
+ * Idle workers are kept in the {@link ExecutionContext}'s persistent worker processes when buckd
+ * provides them, so they stay warm from one build to the next, and in its per-build worker
+ * processes otherwise.  Each worker compiles one library at a time, so as many are started as
+ * there are libraries being compiled at once.
+ */
+public class PersistentCompiler {
+
+  private static final Logger LOG = Logger.get(PersistentCompiler.class);
+
+  // TODO(#9027062): Migrate this to a PackagedResource so we don't make assumptions
+  // about the ant build.
+  private static final Path WORKER_CLASSES =
+      Paths.get(
+          System.getProperty(
+              "buck.testrunner_classes",
+              new File("build/testrunner/classes").getAbsolutePath()));
+
+  private static final String WORKER_MAIN_CLASS =
+      "com.facebook.buck.jvm.java.runner.CompilerWorkerMain";
+
+  // Gives every idle worker a unique key in the worker map.
+  private static final AtomicInteger NEXT_WORKER_ID = new AtomicInteger();
+
+  private final JavaRuntimeLauncher javaRuntimeLauncher;
+  private final String compilerName;
+  private final ImmutableList<Path> compilerClasspath;
+
+  /**
+   * @param compilerName the compiler, as {@code CompilerWorkerMain} knows it: {@code scalac} or
+   *     {@code groovyc}.
+   * @param compilerClasspath the jars which make up the compiler.
+   */
+  public PersistentCompiler(
+      JavaRuntimeLauncher javaRuntimeLauncher,
+      String compilerName,
+      ImmutableList<Path> compilerClasspath) {
+    this.javaRuntimeLauncher = javaRuntimeLauncher;
+    this.compilerName = compilerName;
+    this.compilerClasspath = compilerClasspath;
+  }
+
+  /**
+   * Creates a compiler which runs from the jars of a distribution like Scala's or Groovy's, which
+   * keep the compiler's jars in a {@code lib} directory beside the {@code bin} directory holding
+   * the script which launches it.
+   *
+   * @param script the script which launches the compiler, e.g. {@code $SCALA_HOME/bin/scalac}.
+   */
+  public static PersistentCompiler fromDistribution(
+      JavaRuntimeLauncher javaRuntimeLauncher,
+      String compilerName,
+      Path script) {
+    ImmutableList.Builder<Path> jars = ImmutableList.builder();
+    Path libDir;
+    try {
+      // Package managers tend to link the script onto the PATH, so look beside the real one.
+      libDir = script.toRealPath().getParent().resolveSibling("lib");
+      try (DirectoryStream<Path> entries = Files.newDirectoryStream(libDir, "*.jar")) {
+        for (Path jar : Ordering.natural().sortedCopy(entries)) {
+          jars.add(jar);
+        }
+      }
+    } catch (IOException e) {
+      throw new HumanReadableException(
+          e,
+          "Could not find the jars for %s beside %s: %s",
+          compilerName,
+          script,
+          e.getMessage());
+    }
+    ImmutableList<Path> compilerClasspath = jars.build();
+    if (compilerClasspath.isEmpty()) {
+      throw new HumanReadableException(
+          "Could not find the jars for %s in %s",
+          compilerName,
+          libDir);
+    }
+    return new PersistentCompiler(javaRuntimeLauncher, compilerName, compilerClasspath);
+  }
+
+  public ImmutableList<Path> getCompilerClasspath() {
+    return compilerClasspath;
+  }
+
+  /**
+   * Runs the compiler in an idle worker, launching a new worker if there are none.
+   *
+   * @param args the arguments the compiler would be given on its command line, with any relative
+   *     paths relative to the root of {@code filesystem}.
+   * @return the compiler's exit code.
+   */
+  public int compile(
+      ExecutionContext context,
+      ProjectFilesystem filesystem,
+      ImmutableList<String> args) {
+    ImmutableList<String> command = ImmutableList.of(
+        javaRuntimeLauncher.getCommand(),
+        "-classpath",
+        WORKER_CLASSES.toString(),
+        WORKER_MAIN_CLASS,
+        "--compiler",
+        compilerName,
+        "--classpath",
+        Joiner.on(File.pathSeparator).join(compilerClasspath));
+    String key = String.format(
+        "%s:%s %s",
+        compilerName,
+        filesystem.getRootPath(),
+        Joiner.on(' ').join(command));
+    ConcurrentMap<String, WorkerProcess> processes =
+        context.getPersistentWorkerProcesses().or(context.getWorkerProcesses());
+
+    while (true) {
+      Optional<WorkerProcess> idleProcess = takeIdleWorker(processes, key);
+      WorkerProcess process;
+      try {
+        process = idleProcess.isPresent() ?
+            idleProcess.get() :
+            launchWorker(context, filesystem, command);
+      } catch (IOException | HumanReadableException e) {
+        context.logError(e, "Failed to start a persistent %s.", compilerName);
+        return 1;
+      }
+
+      WorkerJobResult result;
+      try {
+        result = process.submitAndWaitForJob(Joiner.on('\0').join(args));
+      } catch (IOException | HumanReadableException e) {
+        closeWorker(process, key);
+        if (idleProcess.isPresent()) {
+          // Idle workers may have died since they were last used, e.g. if an earlier build was
+          // interrupted, so try again with another one.
+          LOG.debug(e, "Idle persistent %s failed, trying another.", compilerName);
+          continue;
+        }
+        context.logError(e, "Persistent %s failed.", compilerName);
+        return 1;
+      }
+      processes.put(key + "#" + NEXT_WORKER_ID.getAndIncrement(), process);
+
+      int exitCode = result.getExitCode();
+      Verbosity verbosity = context.getVerbosity();
+      if (result.getStdout().isPresent() && !result.getStdout().get().isEmpty() &&
+          verbosity.shouldPrintOutput()) {
+        context.postEvent(ConsoleEvent.info("%s", result.getStdout().get()));
+      }
+      if (result.getStderr().isPresent() && !result.getStderr().get().isEmpty() &&
+          (exitCode != 0 || verbosity.shouldPrintStandardInformation())) {
+        context.postEvent(ConsoleEvent.warning("%s", result.getStderr().get()));
+      }
+      return exitCode;
+    }
+  }
+
+  /**
+   * Takes an idle worker for the given key out of {@code processes}, so that no other step can use
+   * it until it is put back.
+   */
+  private static Optional<WorkerProcess> takeIdleWorker(
+      ConcurrentMap<String, WorkerProcess> processes,
+      String key) {
+    for (Map.Entry<String, WorkerProcess> entry : processes.entrySet()) {
+      if (entry.getKey().startsWith(key + "#") &&
+          processes.remove(entry.getKey(), entry.getValue())) {
+        return Optional.of(entry.getValue());
+      }
+    }
+    return Optional.absent();
+  }
+
+  private WorkerProcess launchWorker(
+      ExecutionContext context,
+      ProjectFilesystem filesystem,
+      ImmutableList<String> command) throws IOException {
+    Path tmpPath = BuckConstant.getScratchPath()
+        .resolve(compilerName + "-workers")
+        .resolve(String.valueOf(NEXT_WORKER_ID.getAndIncrement()));
+    filesystem.mkdirs(tmpPath);
+    WorkerProcess process = new WorkerProcess(
+        context.getProcessExecutor(),
+        ProcessExecutorParams.builder()
+            .setCommand(command)
+            .setEnvironment(context.getEnvironment())
+            .setDirectory(filesystem.getRootPath().toFile())
+            .build(),
+        filesystem,
+        tmpPath);
+    process.ensureLaunchAndHandshake();
+    return process;
+  }
+
+  private void closeWorker(WorkerProcess process, String key) {
+    try {
+      process.close();
+    } catch (IOException | HumanReadableException e) {
+      LOG.debug(e, "Failed to close persistent compiler: %s", key);
+    }
+  }
+}
@@ -233,7 +233,8 @@ public class PrebuiltJar extends AbstractBuildRule
             buildableContext,
             getProjectFilesystem(),
             resolvedBinaryJar,
-            internalAbiJar));
+            internalAbiJar,
+            /* useStubJarCache */ true));
 
     JavaLibraryRules.addAccumulateClassNamesStep(this, buildableContext, steps);
 
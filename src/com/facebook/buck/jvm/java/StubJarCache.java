@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.jvm.java;
+
+import com.facebook.buck.io.ProjectFilesystem;
+import com.facebook.buck.jvm.java.abi.StubJar;
+import com.facebook.buck.model.BuckVersion;
+import com.facebook.buck.util.BuckConstant;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Stub jars of jars which rarely change, such as those of {@code prebuilt_jar}s, kept under
+ * {@code buck-out} and keyed by the SHA-1 of the jar they were stubbed from, so that a jar is only
+ * stubbed once however many rules, branches or clean builds use it.
+ */
+public class StubJarCache {
+
+  private static final Path DEFAULT_CACHE_PATH =
+      BuckConstant.getBuckOutputPath().resolve("stub_jars");
+
+  private final ProjectFilesystem filesystem;
+  private final Path cacheDir;
+
+  public StubJarCache(ProjectFilesystem filesystem) {
+    this(filesystem, DEFAULT_CACHE_PATH);
+  }
+
+  @VisibleForTesting
+  StubJarCache(ProjectFilesystem filesystem, Path cacheDir) {
+    this.filesystem = filesystem;
+    this.cacheDir = cacheDir;
+  }
+
+  /**
+   * Writes the stub jar of {@code binaryJar} to {@code abiJar}, only stubbing it if no jar with
+   * the same contents has been stubbed before.
+   */
+  public void writeStubJar(
+      Path binaryJar,
+      Path abiJar,
+      ListeningExecutorService executor,
+      int maxPendingClasses) throws IOException {
+    Path cachedJar = cacheDir.resolve(getKey(binaryJar) + ".jar");
+    if (!filesystem.exists(cachedJar)) {
+      filesystem.mkdirs(cacheDir);
+      // Stub to a temporary file and move it into place, so that concurrent builds never see a
+      // partially written jar.
+      Path tmp = filesystem.createTempFile(cacheDir, "stub", ".tmp");
+      try {
+        filesystem.deleteFileAtPathIfExists(tmp);
+        new StubJar(binaryJar).writeTo(filesystem, tmp, executor, maxPendingClasses);
+        filesystem.move(tmp, cachedJar, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        filesystem.deleteFileAtPathIfExists(tmp);
+      }
+    }
+    filesystem.copyFile(cachedJar, abiJar);
+  }
+
+  private String getKey(Path binaryJar) throws IOException {
+    // The stubs generated for a jar change along with the code generating them.
+    return Hashing.sha1().newHasher()
+        .putString(BuckVersion.getVersion(), Charsets.UTF_8)
+        .putString(filesystem.computeSha1(binaryJar), Charsets.UTF_8)
+        .hash()
+        .toString();
+  }
+}
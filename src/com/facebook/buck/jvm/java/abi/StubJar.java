@@ -23,20 +23,30 @@ import static org.objectweb.asm.ClassReader.SKIP_FRAMES;
 import com.facebook.buck.io.ProjectFilesystem;
 import com.facebook.buck.zip.ZipConstants;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
 import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.objectweb.asm.ClassReader;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
@@ -50,6 +60,20 @@ public class StubJar {
   }
 
   public void writeTo(ProjectFilesystem filesystem, Path path) throws IOException {
+    writeTo(filesystem, path, MoreExecutors.newDirectExecutorService(), 1);
+  }
+
+  /**
+   * Writes the stub jar, stubbing classes on {@code executor} with at most
+   * {@code maxPendingClasses} of them in memory at once.  Classes are still written in the order
+   * the {@link Walker} visits them, so the jar is the same as one written serially.
+   */
+  public void writeTo(
+      ProjectFilesystem filesystem,
+      Path path,
+      ListeningExecutorService executor,
+      int maxPendingClasses) throws IOException {
+    Preconditions.checkArgument(maxPendingClasses > 0);
     Preconditions.checkState(!filesystem.exists(path), "Output file already exists: %s)", path);
 
     if (path.getParent() != null && !filesystem.exists(path.getParent())) {
@@ -60,7 +84,8 @@ public class StubJar {
     try (
         OutputStream fos = filesystem.newFileOutputStream(path);
         JarOutputStream jar = new JarOutputStream(fos)) {
-      final CreateStubAction createStubAction = new CreateStubAction(jar);
+      final CreateStubAction createStubAction =
+          new CreateStubAction(jar, executor, maxPendingClasses);
       walker.walk(createStubAction);
       createStubAction.finish();
     }
@@ -68,26 +93,48 @@ public class StubJar {
 
   private static class CreateStubAction implements FileAction {
     private final JarOutputStream jar;
+    private final ListeningExecutorService executor;
+    private final int maxPendingClasses;
+    private final Deque<ListenableFuture<StubClass>> pending = new ArrayDeque<>();
     private final ImmutableSortedMap.Builder<String, HashCode> entriesMapBuilder =
         ImmutableSortedMap.naturalOrder();
 
-    public CreateStubAction(JarOutputStream jar) {
+    public CreateStubAction(
+        JarOutputStream jar,
+        ListeningExecutorService executor,
+        int maxPendingClasses) {
       this.jar = jar;
+      this.executor = executor;
+      this.maxPendingClasses = maxPendingClasses;
     }
 
     @Override
     public void visit(Path relativizedPath, InputStream stream) throws IOException {
-      String fileName = relativizedPath.toString();
+      final String fileName = relativizedPath.toString();
       if (!fileName.endsWith(".class")) {
         return;
       }
 
-      ByteSource stubClassBytes = getStubClassBytes(stream, fileName);
-      writeToJar(fileName, stubClassBytes);
-      recordHash(fileName, stubClassBytes);
+      // The stream is only valid during this call, so read the class before handing it off.
+      final byte[] classBytes = ByteStreams.toByteArray(stream);
+      pending.add(
+          executor.submit(
+              new Callable<StubClass>() {
+                @Override
+                public StubClass call() throws IOException {
+                  ByteSource stubClassBytes = getStubClassBytes(classBytes, fileName);
+                  // We don't need a cryptographic hash, just a good one with super-low collision
+                  // probability
+                  HashCode hashCode = stubClassBytes.hash(Hashing.murmur3_128());
+                  return new StubClass(fileName, stubClassBytes, hashCode);
+                }
+              }));
+      writePendingClasses(maxPendingClasses);
     }
 
     public void finish() throws IOException {
+      writePendingClasses(0);
+
       final ImmutableSortedMap<String, HashCode> entriesMap = entriesMapBuilder.build();
       if (entriesMap.isEmpty()) {
         return;
@@ -116,9 +163,31 @@ public class StubJar {
       writer.flush();
     }
 
-    private ByteSource getStubClassBytes(InputStream stream,
-        String fileName) throws IOException {
-      ClassReader classReader = new ClassReader(stream);
+    /**
+     * Writes out classes from the head of the queue, waiting for them to be stubbed while more
+     * than {@code maxRemaining} are still pending.
+     */
+    private void writePendingClasses(int maxRemaining) throws IOException {
+      while (!pending.isEmpty() &&
+          (pending.size() > maxRemaining || pending.peek().isDone())) {
+        StubClass stubClass;
+        try {
+          stubClass = pending.remove().get();
+        } catch (ExecutionException e) {
+          // ASM reports malformed classes with unchecked exceptions, which callers rely on seeing.
+          Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+          throw Throwables.propagate(e.getCause());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while stubbing classes");
+        }
+        writeToJar(stubClass.fileName, stubClass.bytes);
+        entriesMapBuilder.put(stubClass.fileName, stubClass.hashCode);
+      }
+    }
+
+    private static ByteSource getStubClassBytes(byte[] classBytes, String fileName) {
+      ClassReader classReader = new ClassReader(classBytes);
       ClassMirror visitor = new ClassMirror(fileName);
       classReader.accept(visitor, SKIP_CODE | SKIP_DEBUG | SKIP_FRAMES);
       return visitor.getStubClassBytes();
@@ -136,14 +205,17 @@ public class StubJar {
       entry.setTime(ZipConstants.getFakeTime());
       jar.putNextEntry(entry);
     }
+  }
 
-    private void recordHash(
-        String fileName,
-        ByteSource stubClassBytes) throws IOException {
-      // We don't need a cryptographic hash, just a good one with super-low collision probability
-      HashCode hashCode = stubClassBytes.hash(Hashing.murmur3_128());
+  private static class StubClass {
+    private final String fileName;
+    private final ByteSource bytes;
+    private final HashCode hashCode;
 
-      entriesMapBuilder.put(fileName, hashCode);
+    public StubClass(String fileName, ByteSource bytes, HashCode hashCode) {
+      this.fileName = fileName;
+      this.bytes = bytes;
+      this.hashCode = hashCode;
     }
   }
 }
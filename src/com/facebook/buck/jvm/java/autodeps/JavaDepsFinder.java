@@ -21,12 +21,14 @@ import com.facebook.buck.autodeps.DepsForBuildFiles;
 import com.facebook.buck.autodeps.DepsForBuildFiles.DependencyType;
 import com.facebook.buck.cli.BuckConfig;
 import com.facebook.buck.graph.AbstractBottomUpTraversal;
+import com.facebook.buck.io.ProjectFilesystem;
 import com.facebook.buck.jvm.java.JavaBuckConfig;
 import com.facebook.buck.jvm.java.JavaFileParser;
 import com.facebook.buck.jvm.java.JavaLibraryDescription;
 import com.facebook.buck.jvm.java.JavaTestDescription;
 import com.facebook.buck.jvm.java.JavacOptions;
 import com.facebook.buck.jvm.java.PrebuiltJarDescription;
+import com.facebook.buck.log.Logger;
 import com.facebook.buck.model.BuildTarget;
 import com.facebook.buck.parser.BuildTargetParser;
 import com.facebook.buck.parser.BuildTargetPatternParser;
@@ -56,8 +58,11 @@ import com.google.common.collect.Ordering;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
@@ -67,6 +72,8 @@ import javax.annotation.Nullable;
 
 public class JavaDepsFinder {
 
+  private static final Logger LOG = Logger.get(JavaDepsFinder.class);
+
   private static final String BUCK_CONFIG_SECTION = "autodeps";
 
   /**
@@ -80,22 +87,33 @@ public class JavaDepsFinder {
   private final ObjectMapper objectMapper;
   private final BuildContext buildContext;
   private final BuildEngine buildEngine;
+  private final ProjectFilesystem projectFilesystem;
+  private final JavaSymbolsIndex symbolsIndex;
 
-  public JavaDepsFinder(
+  JavaDepsFinder(
       ImmutableSortedMap<String, BuildTarget> javaPackageMapping,
       JavaFileParser javaFileParser,
       ObjectMapper objectMapper,
       BuildContext buildContext,
-      BuildEngine buildEngine) {
+      BuildEngine buildEngine,
+      ProjectFilesystem projectFilesystem,
+      JavaSymbolsIndex symbolsIndex) {
     this.javaPackageMapping = javaPackageMapping;
     this.javaFileParser = javaFileParser;
     this.objectMapper = objectMapper;
     this.buildContext = buildContext;
     this.buildEngine = buildEngine;
+    this.projectFilesystem = projectFilesystem;
+    this.symbolsIndex = symbolsIndex;
   }
 
+  /**
+   * @param projectFilesystem the project whose symbol index, which lets unchanged Java files go
+   *     unparsed from one run to the next, is loaded and saved.
+   */
   public static JavaDepsFinder createJavaDepsFinder(
       BuckConfig buckConfig,
+      ProjectFilesystem projectFilesystem,
       final Function<Optional<String>, Path> cellNames,
       ObjectMapper objectMapper,
       BuildContext buildContext,
@@ -147,7 +165,9 @@ public class JavaDepsFinder {
         javaFileParser,
         objectMapper,
         buildContext,
-        buildEngine);
+        buildEngine,
+        projectFilesystem,
+        JavaSymbolsIndex.load(projectFilesystem, JavaSymbolsIndex.DEFAULT_PATH));
   }
 
   private static final Set<BuildRuleType> RULES_TO_VISIT = ImmutableSet.of(
@@ -179,12 +199,10 @@ public class JavaDepsFinder {
 
     // Walk the graph and for each Java rule we find, do the following:
     // 1. Make note if it has autodeps = True.
-    // 2. If it does, record its required symbols.
-    // 3. Record the Java entities it provides (regardless of whether autodeps = True).
-    //
-    // Currently, we traverse the entire target graph using a single thread. However, the work to
-    // visit each node could be done in parallel, so long as the updates to the above collections
-    // were thread-safe.
+    // 2. Start extracting its symbols.
+    // Extracting the symbols is the expensive part, so it is left to the build engine, which does
+    // it in parallel across its executor.
+    final List<PendingSymbols> pendingSymbols = new ArrayList<>();
     new AbstractBottomUpTraversal<TargetNode<?>, Void>(graph) {
       @Override
       public void visit(TargetNode<?> node) {
@@ -220,17 +238,31 @@ public class JavaDepsFinder {
           ruleToRulesThatExportIt.put(exportedDep, buildTarget);
         }
 
-        Symbols symbols = getJavaFileFeatures(node, autodeps);
-        if (autodeps) {
-          ruleToRequiredSymbols.putAll(buildTarget, symbols.required);
-          ruleToExportedSymbols.putAll(buildTarget, symbols.exported);
-        }
-        for (String providedEntity : symbols.provided) {
-          symbolToProviders.put(providedEntity, buildTarget);
-        }
+        pendingSymbols.add(startExtractingSymbols(node, autodeps));
       }
     }.traverse();
 
+    // Then, as the symbols for each rule come in:
+    // 3. If it has autodeps = True, record its required symbols.
+    // 4. Record the Java entities it provides (regardless of whether autodeps = True).
+    for (PendingSymbols pending : pendingSymbols) {
+      BuildTarget buildTarget = pending.buildTarget;
+      Symbols symbols = pending.getSymbols();
+      if (pending.shouldRecordRequiredSymbols) {
+        ruleToRequiredSymbols.putAll(buildTarget, symbols.required);
+        ruleToExportedSymbols.putAll(buildTarget, symbols.exported);
+      }
+      for (String providedEntity : symbols.provided) {
+        symbolToProviders.put(providedEntity, buildTarget);
+      }
+    }
+
+    try {
+      symbolsIndex.save(projectFilesystem, JavaSymbolsIndex.DEFAULT_PATH);
+    } catch (IOException e) {
+      LOG.warn(e, "Failed to save the Java symbols index.");
+    }
+
     // For the rules that expect to have their deps generated, look through all of their required
     // symbols and try to find the build rule that provides each symbols. Store these build rules in
     // the depsForBuildFiles data structure.
@@ -345,7 +377,9 @@ public class JavaDepsFinder {
     return depsForBuildFiles;
   }
 
-  private Symbols getJavaFileFeatures(TargetNode<?> node, boolean shouldRecordRequiredSymbols) {
+  private PendingSymbols startExtractingSymbols(
+      TargetNode<?> node,
+      boolean shouldRecordRequiredSymbols) {
     // Build a JavaLibrarySymbolsFinder to create the JavaFileFeatures. By making use of Buck's
     // build cache, we can often avoid running a Java parser.
     BuildTarget buildTarget = node.getBuildTarget();
@@ -361,11 +395,12 @@ public class JavaDepsFinder {
       symbolsFinder = new JavaLibrarySymbolsFinder(
           arg.srcs.get(),
           javaFileParser,
-          shouldRecordRequiredSymbols);
+          shouldRecordRequiredSymbols,
+          symbolsIndex);
     } else {
       PrebuiltJarDescription.Arg arg = (PrebuiltJarDescription.Arg) argForNode;
       generatedSymbols = ImmutableSortedSet.of();
-      symbolsFinder = new PrebuiltJarSymbolsFinder(arg.binaryJar);
+      symbolsFinder = new PrebuiltJarSymbolsFinder(arg.binaryJar, symbolsIndex);
     }
 
     // Build the rule, leveraging Buck's build cache.
@@ -375,18 +410,11 @@ public class JavaDepsFinder {
         generatedSymbols,
         objectMapper,
         node.getRuleFactoryParams().getProjectFilesystem());
-    ListenableFuture<BuildResult> future = buildEngine.build(buildContext, buildRule);
-    BuildResult result = Futures.getUnchecked(future);
-
-    Symbols features;
-    if (result.getSuccess() != null) {
-      features = buildRule.getFeatures();
-    } else {
-      Throwable failure = result.getFailure();
-      Preconditions.checkNotNull(failure);
-      throw new RuntimeException("Failed to extract Java symbols for " + buildTarget, failure);
-    }
-    return features;
+    return new PendingSymbols(
+        buildTarget,
+        shouldRecordRequiredSymbols,
+        buildRule,
+        buildEngine.build(buildContext, buildRule));
   }
 
   /**
@@ -402,4 +430,35 @@ public class JavaDepsFinder {
     }
     return null;
   }
+
+  /**
+   * The symbols of a rule, which are still being extracted by the build engine.
+   */
+  private static class PendingSymbols {
+    private final BuildTarget buildTarget;
+    private final boolean shouldRecordRequiredSymbols;
+    private final JavaSymbolsRule buildRule;
+    private final ListenableFuture<BuildResult> result;
+
+    public PendingSymbols(
+        BuildTarget buildTarget,
+        boolean shouldRecordRequiredSymbols,
+        JavaSymbolsRule buildRule,
+        ListenableFuture<BuildResult> result) {
+      this.buildTarget = buildTarget;
+      this.shouldRecordRequiredSymbols = shouldRecordRequiredSymbols;
+      this.buildRule = buildRule;
+      this.result = result;
+    }
+
+    public Symbols getSymbols() {
+      BuildResult buildResult = Futures.getUnchecked(result);
+      if (buildResult.getSuccess() == null) {
+        Throwable failure = buildResult.getFailure();
+        Preconditions.checkNotNull(failure);
+        throw new RuntimeException("Failed to extract Java symbols for " + buildTarget, failure);
+      }
+      return buildRule.getFeatures();
+    }
+  }
 }
@@ -29,9 +29,11 @@ import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
-import com.google.common.io.Files;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.Set;
@@ -56,16 +58,20 @@ final class JavaLibrarySymbolsFinder implements JavaSymbolsRule.SymbolsFinder {
 
   private final boolean shouldRecordRequiredSymbols;
 
+  private final JavaSymbolsIndex index;
+
   JavaLibrarySymbolsFinder(
       ImmutableSortedSet<SourcePath> srcs,
       JavaFileParser javaFileParser,
-      boolean shouldRecordRequiredSymbols) {
+      boolean shouldRecordRequiredSymbols,
+      JavaSymbolsIndex index) {
     // Avoid all the construction in the common case where all srcs are instances of PathSourcePath.
     this.srcs = Iterables.all(srcs, IS_PATH_SOURCE_PATH)
         ? srcs
         : FluentIterable.from(srcs).filter(IS_PATH_SOURCE_PATH).toSortedSet(Ordering.natural());
     this.javaFileParser = javaFileParser;
     this.shouldRecordRequiredSymbols = shouldRecordRequiredSymbols;
+    this.index = index;
   }
 
   @Override
@@ -81,21 +87,31 @@ final class JavaLibrarySymbolsFinder implements JavaSymbolsRule.SymbolsFinder {
       PathSourcePath sourcePath = (PathSourcePath) src;
       ProjectFilesystem filesystem = sourcePath.getFilesystem();
       Path absolutePath = filesystem.resolve(sourcePath.getRelativePath());
-      String code;
+      byte[] contents;
       try {
-        code = Files.toString(absolutePath.toFile(), Charsets.UTF_8);
+        contents = Files.readAllBytes(absolutePath);
       } catch (IOException e) {
         throw new RuntimeException(e);
       }
 
-      JavaFileParser.JavaFileFeatures features = javaFileParser
-          .extractFeaturesFromJavaCode(code);
+      // Only parse files which the index hasn't seen with these contents before.
+      HashCode contentHash = Hashing.sha1().hashBytes(contents);
+      Symbols features = index.get(contentHash);
+      if (features == null) {
+        JavaFileParser.JavaFileFeatures parsed = javaFileParser
+            .extractFeaturesFromJavaCode(new String(contents, Charsets.UTF_8));
+        features = new Symbols(
+            parsed.providedSymbols,
+            parsed.requiredSymbols,
+            parsed.exportedSymbols);
+        index.put(contentHash, features);
+      }
       if (shouldRecordRequiredSymbols) {
-        requiredSymbols.addAll(features.requiredSymbols);
-        exportedSymbols.addAll(features.exportedSymbols);
+        Iterables.addAll(requiredSymbols, features.required);
+        Iterables.addAll(exportedSymbols, features.exported);
       }
 
-      providedSymbols.addAll(features.providedSymbols);
+      Iterables.addAll(providedSymbols, features.provided);
     }
 
     return new Symbols(
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.facebook.buck.jvm.java.autodeps;
+
+import com.facebook.buck.io.ProjectFilesystem;
+import com.facebook.buck.log.Logger;
+import com.facebook.buck.util.BuckConstant;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.google.common.hash.HashCode;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * The symbols which Java source files and prebuilt jars provide, require and export, keyed by the
+ * hash of their contents, and kept from one run of {@code buck autodeps} to the next so that only
+ * the files which have changed since are parsed again.  Each {@link JavaSymbolsRule} is already
+ * cached by its rule key, but that covers a whole library, so editing one file of a library would
+ * otherwise mean parsing all of them.
+ * <p>
+ * The index is stored in a compact binary form: a table of every distinct symbol, followed by the
+ * entries, which refer to symbols by their position in the table as variable-length integers.
+ * Every entry which was loaded is saved again, whether or not it was looked up, since libraries
+ * whose rules are cached don't look up their files at all.  Each entry records how many saves
+ * ago it was last used, and once there are more than {@link #MAX_ENTRIES} the least recently
+ * used are dropped, so the index doesn't grow with every edit.
+ * <p>
+ * Lookups and additions may be made from any number of threads at once.
+ */
+final class JavaSymbolsIndex {
+
+  private static final Logger LOG = Logger.get(JavaSymbolsIndex.class);
+
+  static final Path DEFAULT_PATH =
+      BuckConstant.getBuckOutputPath().resolve("autodeps").resolve("java_symbols.idx");
+
+  // Bump the version whenever the format, or the symbols the finders extract, change.
+  private static final int MAGIC = 0x4a53594d;
+  private static final int VERSION = 2;
+
+  // Enough for every file of a very large repository, with room for the old versions of those
+  // which were edited.
+  @VisibleForTesting
+  static final int MAX_ENTRIES = 1 << 20;
+
+  private final ConcurrentMap<HashCode, Symbols> entries;
+  // The generation in which each entry was last used.  Each save is a new generation.
+  private final ConcurrentMap<HashCode, Integer> lastUsed;
+  private final int generation;
+
+  private JavaSymbolsIndex(
+      ConcurrentMap<HashCode, Symbols> entries,
+      ConcurrentMap<HashCode, Integer> lastUsed,
+      int generation) {
+    this.entries = entries;
+    this.lastUsed = lastUsed;
+    this.generation = generation;
+  }
+
+  static JavaSymbolsIndex createEmpty() {
+    return new JavaSymbolsIndex(
+        new ConcurrentHashMap<HashCode, Symbols>(),
+        new ConcurrentHashMap<HashCode, Integer>(),
+        0);
+  }
+
+  /**
+   * Loads the index saved at {@code path}, or creates an empty one if there is none or it can't
+   * be read, as it's only a cache.
+   */
+  static JavaSymbolsIndex load(ProjectFilesystem filesystem, Path path) {
+    if (!filesystem.exists(path)) {
+      return createEmpty();
+    }
+    try (DataInputStream input = new DataInputStream(filesystem.newFileInputStream(path))) {
+      if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+        LOG.debug("Ignoring Java symbols index in an old format: %s", path);
+        return createEmpty();
+      }
+      int savedGeneration = input.readInt();
+      String[] symbolTable = new String[input.readInt()];
+      for (int i = 0; i < symbolTable.length; ++i) {
+        symbolTable[i] = input.readUTF();
+      }
+      int size = input.readInt();
+      ConcurrentMap<HashCode, Symbols> entries = new ConcurrentHashMap<>(size);
+      ConcurrentMap<HashCode, Integer> lastUsed = new ConcurrentHashMap<>(size);
+      for (int i = 0; i < size; ++i) {
+        byte[] hashBytes = new byte[input.readUnsignedByte()];
+        input.readFully(hashBytes);
+        HashCode hash = HashCode.fromBytes(hashBytes);
+        lastUsed.put(hash, savedGeneration - readVarInt(input));
+        entries.put(
+            hash,
+            new Symbols(
+                readSymbols(input, symbolTable),
+                readSymbols(input, symbolTable),
+                readSymbols(input, symbolTable)));
+      }
+      return new JavaSymbolsIndex(entries, lastUsed, savedGeneration + 1);
+    } catch (IOException | RuntimeException e) {
+      LOG.warn(e, "Ignoring Java symbols index which could not be read: %s", path);
+      return createEmpty();
+    }
+  }
+
+  /**
+   * @return the symbols of the file whose contents have the given hash, if they are known.
+   */
+  @Nullable
+  Symbols get(HashCode contentHash) {
+    Symbols symbols = entries.get(contentHash);
+    if (symbols != null) {
+      lastUsed.put(contentHash, generation);
+    }
+    return symbols;
+  }
+
+  void put(HashCode contentHash, Symbols symbols) {
+    entries.put(
+        contentHash,
+        new Symbols(
+            ImmutableList.copyOf(symbols.provided),
+            ImmutableList.copyOf(symbols.required),
+            ImmutableList.copyOf(symbols.exported)));
+    lastUsed.put(contentHash, generation);
+  }
+
+  @VisibleForTesting
+  int size() {
+    return entries.size();
+  }
+
+  /**
+   * Writes out the index, dropping the least recently used entries if there are more than
+   * {@link #MAX_ENTRIES}.  The index is written to a temporary file first, so that a run which is
+   * interrupted leaves the old one in place.
+   */
+  void save(ProjectFilesystem filesystem, Path path) throws IOException {
+    save(filesystem, path, MAX_ENTRIES);
+  }
+
+  @VisibleForTesting
+  void save(ProjectFilesystem filesystem, Path path, int maxEntries) throws IOException {
+    // Take a snapshot, in case entries are still being used.
+    ImmutableMap<HashCode, Integer> lastUsedSnapshot = ImmutableMap.copyOf(lastUsed);
+    List<HashCode> mostRecentlyUsed = Ordering.natural()
+        .onResultOf(Functions.forMap(lastUsedSnapshot))
+        .reverse()
+        .sortedCopy(lastUsedSnapshot.keySet());
+    Map<HashCode, Symbols> toSave = Maps.newLinkedHashMap();
+    Map<String, Integer> symbolTable = Maps.newLinkedHashMap();
+    for (HashCode hash : Iterables.limit(mostRecentlyUsed, maxEntries)) {
+      Symbols symbols = entries.get(hash);
+      toSave.put(hash, symbols);
+      for (String symbol :
+          Iterables.concat(symbols.provided, symbols.required, symbols.exported)) {
+        if (!symbolTable.containsKey(symbol)) {
+          symbolTable.put(symbol, symbolTable.size());
+        }
+      }
+    }
+
+    filesystem.createParentDirs(path);
+    Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+    try (DataOutputStream output = new DataOutputStream(filesystem.newFileOutputStream(tmpPath))) {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeInt(generation);
+      output.writeInt(symbolTable.size());
+      for (String symbol : symbolTable.keySet()) {
+        output.writeUTF(symbol);
+      }
+      output.writeInt(toSave.size());
+      for (Map.Entry<HashCode, Symbols> entry : toSave.entrySet()) {
+        byte[] hash = entry.getKey().asBytes();
+        output.writeByte(hash.length);
+        output.write(hash);
+        writeVarInt(output, generation - lastUsedSnapshot.get(entry.getKey()));
+        writeSymbols(output, entry.getValue().provided, symbolTable);
+        writeSymbols(output, entry.getValue().required, symbolTable);
+        writeSymbols(output, entry.getValue().exported, symbolTable);
+      }
+    }
+    filesystem.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static ImmutableList<String> readSymbols(DataInputStream input, String[] symbolTable)
+      throws IOException {
+    int count = readVarInt(input);
+    List<String> symbols = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      symbols.add(symbolTable[readVarInt(input)]);
+    }
+    return ImmutableList.copyOf(symbols);
+  }
+
+  private static void writeSymbols(
+      DataOutputStream output,
+      Iterable<String> symbols,
+      Map<String, Integer> symbolTable) throws IOException {
+    writeVarInt(output, Iterables.size(symbols));
+    for (String symbol : symbols) {
+      writeVarInt(output, symbolTable.get(symbol));
+    }
+  }
+
+  private static int readVarInt(DataInputStream input) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = input.readUnsignedByte();
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed variable-length integer.");
+  }
+
+  private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+    while ((value & ~0x7f) != 0) {
+      output.writeByte((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    output.writeByte(value);
+  }
+}
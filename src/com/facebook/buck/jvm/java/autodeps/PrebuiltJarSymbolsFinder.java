@@ -22,6 +22,9 @@ import com.facebook.buck.rules.RuleKeyBuilder;
 import com.facebook.buck.rules.SourcePath;
 import com.facebook.buck.util.ZipFileTraversal;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -36,8 +39,11 @@ final class PrebuiltJarSymbolsFinder implements JavaSymbolsRule.SymbolsFinder {
 
   private final SourcePath binaryJar;
 
-  PrebuiltJarSymbolsFinder(SourcePath binaryJar) {
+  private final JavaSymbolsIndex index;
+
+  PrebuiltJarSymbolsFinder(SourcePath binaryJar, JavaSymbolsIndex index) {
     this.binaryJar = binaryJar;
+    this.index = index;
   }
 
   @Override
@@ -49,6 +55,11 @@ final class PrebuiltJarSymbolsFinder implements JavaSymbolsRule.SymbolsFinder {
     PathSourcePath sourcePath = (PathSourcePath) binaryJar;
     ProjectFilesystem filesystem = sourcePath.getFilesystem();
     Path absolutePath = filesystem.resolve(sourcePath.getRelativePath());
+    HashCode contentHash = Files.asByteSource(absolutePath.toFile()).hash(Hashing.sha1());
+    Symbols indexed = index.get(contentHash);
+    if (indexed != null) {
+      return indexed;
+    }
 
     final Set<String> providedSymbols = new HashSet<>();
     new ZipFileTraversal(absolutePath) {
@@ -64,7 +75,10 @@ final class PrebuiltJarSymbolsFinder implements JavaSymbolsRule.SymbolsFinder {
         providedSymbols.add(fullyQualifiedName);
       }
     }.traverse();
-    return new Symbols(providedSymbols, ImmutableList.<String>of(), ImmutableList.<String>of());
+    Symbols symbols =
+        new Symbols(providedSymbols, ImmutableList.<String>of(), ImmutableList.<String>of());
+    index.put(contentHash, symbols);
+    return symbols;
   }
 
   @Override
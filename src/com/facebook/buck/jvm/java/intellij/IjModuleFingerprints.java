@@ -0,0 +1,203 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.jvm.java.intellij;
+
+import com.facebook.buck.cli.BuckConfig;
+import com.facebook.buck.hashing.StringHashing;
+import com.facebook.buck.io.ProjectFilesystem;
+import com.facebook.buck.log.Logger;
+import com.facebook.buck.model.BuildTarget;
+import com.facebook.buck.rules.TargetNode;
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Ordering;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers what each module file was generated from, so that an incremental run of
+ * {@code buck project} only regenerates the modules whose targets have changed since.
+ * <p>
+ * A module's fingerprint covers the hashes of its targets, which take in their dependencies and
+ * the contents of their inputs, and the shape of the whole project: which modules it has and how
+ * they are written.  Directories which appear on disk without any target referring to them don't
+ * change any fingerprint, so they only get excluded by a full regeneration.
+ */
+class IjModuleFingerprints {
+
+  private static final Logger LOG = Logger.get(IjModuleFingerprints.class);
+
+  static final Path FINGERPRINTS_FILE =
+      IjProjectWriter.IDEA_CONFIG_DIR_PREFIX.resolve(".buck-module-fingerprints");
+
+  // The .buckconfig sections whose settings can change how modules are written.
+  private static final ImmutableList<String> CONFIG_SECTIONS =
+      ImmutableList.of("intellij", "android");
+
+  private final ProjectFilesystem projectFilesystem;
+  private final ImmutableMap<Path, HashCode> previousFingerprints;
+  private final ImmutableSortedMap<Path, HashCode> fingerprints;
+
+  private IjModuleFingerprints(
+      ProjectFilesystem projectFilesystem,
+      ImmutableMap<Path, HashCode> previousFingerprints,
+      ImmutableSortedMap<Path, HashCode> fingerprints) {
+    this.projectFilesystem = projectFilesystem;
+    this.previousFingerprints = previousFingerprints;
+    this.fingerprints = fingerprints;
+  }
+
+  /**
+   * Fingerprints the given modules, and reads the fingerprints saved by the last run.
+   *
+   * @param targetHashes the hashes of the targets in the modules, as computed by
+   *     {@link com.facebook.buck.rules.TargetGraphHashing}.
+   * @param projectSalt anything else which affects how every module is written, such as the
+   *     aggregation mode.
+   */
+  static IjModuleFingerprints compute(
+      ProjectFilesystem projectFilesystem,
+      Iterable<IjModule> modules,
+      Map<BuildTarget, HashCode> targetHashes,
+      String projectSalt) throws IOException {
+    Hasher projectHasher = Hashing.sha1().newHasher();
+    StringHashing.hashStringAndLength(projectHasher, projectSalt);
+    projectHasher.putBytes(IjProjectWriter.hashTemplates().asBytes());
+    for (IjModule module :
+        FluentIterable.from(modules).toSortedList(
+            Ordering.natural().onResultOf(IjModule.TO_MODULE_BASE_PATH))) {
+      StringHashing.hashStringAndLength(projectHasher, module.getModuleBasePath().toString());
+    }
+    HashCode projectHash = projectHasher.hash();
+
+    ImmutableSortedMap.Builder<Path, HashCode> fingerprints = ImmutableSortedMap.naturalOrder();
+    for (IjModule module : modules) {
+      Optional<HashCode> fingerprint = fingerprint(module, targetHashes, projectHash);
+      if (fingerprint.isPresent()) {
+        fingerprints.put(module.getModuleImlFilePath(), fingerprint.get());
+      }
+    }
+    return new IjModuleFingerprints(
+        projectFilesystem,
+        read(projectFilesystem),
+        fingerprints.build());
+  }
+
+  /**
+   * Forgets the fingerprints saved by the last incremental run.  This should be done whenever the
+   * modules are written without checking them, as the saved fingerprints might no longer describe
+   * the files on disk.
+   */
+  static void clear(ProjectFilesystem projectFilesystem) throws IOException {
+    projectFilesystem.deleteFileAtPathIfExists(FINGERPRINTS_FILE);
+  }
+
+  /**
+   * @return the salt for {@link #compute}, covering the aggregation mode and the settings in
+   *     {@code buckConfig} which can change how modules are written.
+   */
+  static String getProjectSalt(
+      IjModuleGraph.AggregationMode aggregationMode,
+      BuckConfig buckConfig) {
+    StringBuilder salt = new StringBuilder(aggregationMode.toString());
+    for (String section : CONFIG_SECTIONS) {
+      for (Map.Entry<String, String> entry :
+          ImmutableSortedMap.copyOf(buckConfig.getEntriesForSection(section)).entrySet()) {
+        salt.append('\n')
+            .append(section).append('.').append(entry.getKey())
+            .append('=').append(entry.getValue());
+      }
+    }
+    return salt.toString();
+  }
+
+  /**
+   * @return whether the module's file was generated by an earlier run from exactly what it would
+   *     be generated from now, and is still there.
+   */
+  boolean isUnchanged(IjModule module) {
+    Path path = module.getModuleImlFilePath();
+    HashCode fingerprint = fingerprints.get(path);
+    return fingerprint != null &&
+        fingerprint.equals(previousFingerprints.get(path)) &&
+        projectFilesystem.exists(path);
+  }
+
+  /**
+   * Saves the fingerprints for the next run to compare against.  This should only be done once
+   * all of the modules have been written.
+   */
+  void save() throws IOException {
+    ImmutableList.Builder<String> lines = ImmutableList.builder();
+    for (Map.Entry<Path, HashCode> entry : fingerprints.entrySet()) {
+      lines.add(entry.getValue() + " " + entry.getKey());
+    }
+    projectFilesystem.writeLinesToPath(lines.build(), FINGERPRINTS_FILE);
+  }
+
+  private static Optional<HashCode> fingerprint(
+      IjModule module,
+      Map<BuildTarget, HashCode> targetHashes,
+      HashCode projectHash) {
+    Hasher hasher = Hashing.sha1().newHasher();
+    hasher.putBytes(projectHash.asBytes());
+    ImmutableSortedSet<BuildTarget> targets = FluentIterable.from(module.getTargets())
+        .transform(TargetNode.TO_TARGET)
+        .toSortedSet(Ordering.natural());
+    for (BuildTarget target : targets) {
+      HashCode targetHash = targetHashes.get(target);
+      if (targetHash == null) {
+        // Without a hash for every target, there's no telling whether the module has changed.
+        return Optional.absent();
+      }
+      StringHashing.hashStringAndLength(hasher, target.toString());
+      hasher.putBytes(targetHash.asBytes());
+    }
+    return Optional.of(hasher.hash());
+  }
+
+  private static ImmutableMap<Path, HashCode> read(ProjectFilesystem projectFilesystem) {
+    if (!projectFilesystem.exists(FINGERPRINTS_FILE)) {
+      return ImmutableMap.of();
+    }
+    ImmutableMap.Builder<Path, HashCode> fingerprints = ImmutableMap.builder();
+    try {
+      for (String line : projectFilesystem.readLines(FINGERPRINTS_FILE)) {
+        List<String> parts = Splitter.on(' ').limit(2).splitToList(line);
+        if (parts.size() == 2) {
+          fingerprints.put(Paths.get(parts.get(1)), HashCode.fromString(parts.get(0)));
+        }
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      LOG.warn(e, "Could not read %s, regenerating every module.", FINGERPRINTS_FILE);
+      return ImmutableMap.of();
+    }
+    return fingerprints.build();
+  }
+}
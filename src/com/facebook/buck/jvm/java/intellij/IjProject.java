@@ -37,7 +37,12 @@ import com.facebook.buck.rules.TargetGraphAndTargets;
 import com.facebook.buck.rules.TargetNode;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -55,6 +60,8 @@ public class IjProject {
   private final ProjectFilesystem projectFilesystem;
   private final IjModuleGraph.AggregationMode aggregationMode;
   private final BuckConfig buckConfig;
+  private final ListeningExecutorService executorService;
+  private final Optional<ImmutableMap<BuildTarget, HashCode>> targetHashes;
 
   public IjProject(
       TargetGraphAndTargets targetGraphAndTargets,
@@ -65,6 +72,36 @@ public class IjProject {
       ProjectFilesystem projectFilesystem,
       IjModuleGraph.AggregationMode aggregationMode,
       BuckConfig buckConfig) {
+    this(
+        targetGraphAndTargets,
+        javaPackageFinder,
+        javaFileParser,
+        buildRuleResolver,
+        sourcePathResolver,
+        projectFilesystem,
+        aggregationMode,
+        buckConfig,
+        MoreExecutors.newDirectExecutorService(),
+        Optional.<ImmutableMap<BuildTarget, HashCode>>absent());
+  }
+
+  /**
+   * @param executorService writes the project's files.
+   * @param targetHashes the {@link com.facebook.buck.rules.TargetGraphHashing} hashes of the
+   *     targets in the project.  When given, only the modules whose targets have changed since the
+   *     last time the project was written with hashes are regenerated.
+   */
+  public IjProject(
+      TargetGraphAndTargets targetGraphAndTargets,
+      JavaPackageFinder javaPackageFinder,
+      JavaFileParser javaFileParser,
+      BuildRuleResolver buildRuleResolver,
+      SourcePathResolver sourcePathResolver,
+      ProjectFilesystem projectFilesystem,
+      IjModuleGraph.AggregationMode aggregationMode,
+      BuckConfig buckConfig,
+      ListeningExecutorService executorService,
+      Optional<ImmutableMap<BuildTarget, HashCode>> targetHashes) {
     this.targetGraphAndTargets = targetGraphAndTargets;
     this.javaPackageFinder = javaPackageFinder;
     this.javaFileParser = javaFileParser;
@@ -73,6 +110,8 @@ public class IjProject {
     this.projectFilesystem = projectFilesystem;
     this.aggregationMode = aggregationMode;
     this.buckConfig = buckConfig;
+    this.executorService = executorService;
+    this.targetHashes = targetHashes;
   }
 
   /**
@@ -83,7 +122,8 @@ public class IjProject {
    *   correctly.
    * @throws IOException
    */
-  public ImmutableSet<BuildTarget> write(boolean runPostGenerationCleaner) throws IOException {
+  public ImmutableSet<BuildTarget> write(boolean runPostGenerationCleaner)
+      throws IOException, InterruptedException {
     final ImmutableSet.Builder<BuildTarget> requiredBuildTargets = ImmutableSet.builder();
     IjLibraryFactory libraryFactory = new DefaultIjLibraryFactory(
         new DefaultIjLibraryFactory.IjLibraryFactoryResolver() {
@@ -201,10 +241,36 @@ public class IjProject {
         projectFilesystem,
         IjProjectTemplateDataPreparer.createPackageLookupPathSet(moduleGraph),
         javaPackageFinder);
+    IjProjectTemplateDataPreparer templateDataPreparer =
+        new IjProjectTemplateDataPreparer(parsingJavaPackageFinder, moduleGraph, projectFilesystem);
+    Optional<IjModuleFingerprints> fingerprints = Optional.absent();
+    if (targetHashes.isPresent()) {
+      fingerprints = Optional.of(
+          IjModuleFingerprints.compute(
+              projectFilesystem,
+              templateDataPreparer.getModulesToBeWritten(),
+              targetHashes.get(),
+              IjModuleFingerprints.getProjectSalt(aggregationMode, buckConfig)));
+    } else {
+      // Every module is about to be rewritten, so an incremental run mustn't trust what the last
+      // one saved.
+      IjModuleFingerprints.clear(projectFilesystem);
+    }
+    final Optional<IjModuleFingerprints> finalFingerprints = fingerprints;
     IjProjectWriter writer = new IjProjectWriter(
-        new IjProjectTemplateDataPreparer(parsingJavaPackageFinder, moduleGraph, projectFilesystem),
-        projectFilesystem);
+        templateDataPreparer,
+        projectFilesystem,
+        executorService,
+        new Predicate<IjModule>() {
+          @Override
+          public boolean apply(IjModule module) {
+            return finalFingerprints.isPresent() && finalFingerprints.get().isUnchanged(module);
+          }
+        });
     writer.write(buckConfig, runPostGenerationCleaner);
+    if (fingerprints.isPresent()) {
+      fingerprints.get().save();
+    }
     return requiredBuildTargets.build();
   }
 }
@@ -17,10 +17,20 @@
 package com.facebook.buck.jvm.java.intellij;
 
 import com.facebook.buck.cli.BuckConfig;
+import com.facebook.buck.hashing.StringHashing;
 import com.facebook.buck.io.ProjectFilesystem;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.base.Throwables;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.common.io.Resources;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.stringtemplate.v4.AutoIndentWriter;
 import org.stringtemplate.v4.ST;
@@ -33,6 +43,10 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Writes the serialized representations of IntelliJ project components to disk.
@@ -59,26 +73,75 @@ public class IjProjectWriter {
     }
   }
 
-  private IjProjectTemplateDataPreparer projectDataPreparer;
-  private ProjectFilesystem projectFilesystem;
+  private final IjProjectTemplateDataPreparer projectDataPreparer;
+  private final ProjectFilesystem projectFilesystem;
+  private final ListeningExecutorService executorService;
+  private final Predicate<IjModule> isModuleUnchanged;
 
   public IjProjectWriter(
       IjProjectTemplateDataPreparer projectDataPreparer,
       ProjectFilesystem projectFilesystem) {
+    this(
+        projectDataPreparer,
+        projectFilesystem,
+        MoreExecutors.newDirectExecutorService(),
+        Predicates.<IjModule>alwaysFalse());
+  }
+
+  /**
+   * @param executorService renders and writes the modules and libraries.
+   * @param isModuleUnchanged picks out the modules whose files are already up to date, which are
+   *     left alone.
+   */
+  public IjProjectWriter(
+      IjProjectTemplateDataPreparer projectDataPreparer,
+      ProjectFilesystem projectFilesystem,
+      ListeningExecutorService executorService,
+      Predicate<IjModule> isModuleUnchanged) {
     this.projectDataPreparer = projectDataPreparer;
     this.projectFilesystem = projectFilesystem;
+    this.executorService = executorService;
+    this.isModuleUnchanged = isModuleUnchanged;
   }
 
-  public void write(BuckConfig buckConfig, boolean runPostGenerationCleaner) throws IOException {
+  public void write(BuckConfig buckConfig, boolean runPostGenerationCleaner)
+      throws IOException, InterruptedException {
     IJProjectCleaner cleaner = new IJProjectCleaner(projectFilesystem);
 
-    for (IjModule module : projectDataPreparer.getModulesToBeWritten()) {
-      Path generatedModuleFile = writeModule(module);
-      cleaner.doNotDelete(generatedModuleFile);
+    projectFilesystem.mkdirs(MODULES_PREFIX);
+    projectFilesystem.mkdirs(LIBRARIES_PREFIX);
+    List<ListenableFuture<Path>> generatedFiles = new ArrayList<>();
+    for (final IjModule module : projectDataPreparer.getModulesToBeWritten()) {
+      if (isModuleUnchanged.apply(module)) {
+        cleaner.doNotDelete(module.getModuleImlFilePath());
+        continue;
+      }
+      generatedFiles.add(
+          executorService.submit(
+              new Callable<Path>() {
+                @Override
+                public Path call() throws IOException {
+                  return writeModule(module);
+                }
+              }));
     }
-    for (IjLibrary library : projectDataPreparer.getLibrariesToBeWritten()) {
-      Path generatedLibraryFile = writeLibrary(library);
-      cleaner.doNotDelete(generatedLibraryFile);
+    for (final IjLibrary library : projectDataPreparer.getLibrariesToBeWritten()) {
+      generatedFiles.add(
+          executorService.submit(
+              new Callable<Path>() {
+                @Override
+                public Path call() throws IOException {
+                  return writeLibrary(library);
+                }
+              }));
+    }
+    try {
+      for (Path generatedFile : Futures.allAsList(generatedFiles).get()) {
+        cleaner.doNotDelete(generatedFile);
+      }
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
     }
     Path indexFile = writeModulesIndex();
     cleaner.doNotDelete(indexFile);
@@ -88,8 +151,19 @@ public class IjProjectWriter {
     }
   }
 
+  /**
+   * @return a hash of the templates the project is written with, so that any files written with
+   *     an older version of them can be told apart.
+   */
+  static HashCode hashTemplates() throws IOException {
+    Hasher hasher = Hashing.sha1().newHasher();
+    for (StringTemplateFile file : StringTemplateFile.values()) {
+      StringHashing.hashStringAndLength(hasher, getTemplate(file));
+    }
+    return hasher.hash();
+  }
+
   private Path writeModule(IjModule module) throws IOException {
-    projectFilesystem.mkdirs(MODULES_PREFIX);
     Path path = module.getModuleImlFilePath();
 
     ST moduleContents = getST(StringTemplateFile.MODULE_TEMPLATE);
@@ -112,7 +186,6 @@ public class IjProjectWriter {
   }
 
   private Path writeLibrary(IjLibrary library) throws IOException {
-    projectFilesystem.mkdirs(LIBRARIES_PREFIX);
     Path path = LIBRARIES_PREFIX.resolve(library.getName() + ".xml");
 
     ST contents = getST(StringTemplateFile.LIBRARY_TEMPLATE);
@@ -139,17 +212,24 @@ public class IjProjectWriter {
   }
 
   private static ST getST(StringTemplateFile file) throws IOException {
+    return new ST(getTemplate(file), DELIMITER, DELIMITER);
+  }
+
+  private static String getTemplate(StringTemplateFile file) throws IOException {
     URL templateUrl = Resources.getResource(IjProjectWriter.class, file.getFileName());
-    String template = Resources.toString(templateUrl, StandardCharsets.UTF_8);
-    return new ST(template, DELIMITER, DELIMITER);
+    return Resources.toString(templateUrl, StandardCharsets.UTF_8);
   }
 
+  /**
+   * Renders the template and writes it to the given path, unless the file there already holds
+   * exactly what would be written, so that IntelliJ doesn't see a change and reindex it.
+   */
   @VisibleForTesting
   protected void writeToFile(ST contents, Path path) throws IOException {
     StringWriter stringWriter = new StringWriter();
     AutoIndentWriter noIndentWriter = new AutoIndentWriter(stringWriter);
     contents.write(noIndentWriter);
-    byte[] renderedContentsBytes = noIndentWriter.toString().getBytes(StandardCharsets.UTF_8);
+    byte[] renderedContentsBytes = stringWriter.toString().getBytes(StandardCharsets.UTF_8);
     if (projectFilesystem.exists(path)) {
       String fileSha1 = projectFilesystem.computeSha1(path);
       String contentsSha1 = Hashing.sha1().hashBytes(renderedContentsBytes).toString();
@@ -166,7 +246,7 @@ public class IjProjectWriter {
     try {
       danglingTempFile = true;
       try (OutputStream outputStream = projectFilesystem.newFileOutputStream(tempFile)) {
-        outputStream.write(contents.render().getBytes());
+        outputStream.write(renderedContentsBytes);
       }
       projectFilesystem.createParentDirs(path);
       projectFilesystem.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.jvm.java.runner;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base class for Java programs which run as persistent workers, speaking version 0 of Buck's
+ * worker process protocol (see {@code com.facebook.buck.shell.WorkerProcessProtocolZero}) on stdin
+ * and stdout.
+ * <p>
+ * The arguments file of each command holds NUL-separated arguments, and the output of a command
+ * is written to the stdout and stderr files named in the command.  {@link System#out} and
+ * {@link System#err} stay the same objects for the life of the worker, and only the files behind
+ * them change from command to command, so libraries which hold on to them (such as the Scala
+ * compiler's {@code Console}) still write to the right files.
+ * <p>
+ * IMPORTANT! This class limits itself to types that are available in the JDK, as it is loaded
+ * alongside the code which workers run.
+ */
+public abstract class AbstractWorkerMain {
+
+  protected static final String ENCODING = "UTF-8";
+
+  private static final String PROTOCOL_VERSION = "0";
+
+  private final PushbackReader in;
+  private final Writer out;
+
+  protected AbstractWorkerMain(Reader in, Writer out) {
+    this.in = new PushbackReader(in);
+    this.out = out;
+  }
+
+  /**
+   * Runs a worker over this process's stdin and stdout, and exits once Buck closes the message
+   * stream.
+   *
+   * @param factory creates the worker from the protocol's reader and writer.
+   */
+  protected static void serve(WorkerFactory factory) throws IOException {
+    PrintStream protocolStream = System.out;
+    // Anything else written to stdout would corrupt the protocol, so send it to stderr instead.
+    System.setOut(System.err);
+
+    AbstractWorkerMain worker = factory.create(
+        new BufferedReader(new InputStreamReader(System.in, ENCODING)),
+        new OutputStreamWriter(protocolStream, ENCODING));
+    try {
+      worker.run();
+    } catch (Throwable e) {
+      e.printStackTrace();
+    } finally {
+      // Don't let commands which have left non-daemon threads behind keep the process alive once
+      // Buck is done with it.
+      System.exit(0);
+    }
+  }
+
+  /**
+   * Creates a worker which talks to Buck through the given reader and writer.
+   */
+  protected interface WorkerFactory {
+    AbstractWorkerMain create(Reader in, Writer out);
+  }
+
+  /**
+   * Runs a single command, with {@link System#out} and {@link System#err} going to the command's
+   * output files.
+   *
+   * @return the exit code to report to Buck.
+   */
+  protected abstract int runCommand(List<String> args);
+
+  public void run() throws IOException {
+    expect('[');
+    Map<String, String> handshake = readObject();
+    if (!"handshake".equals(handshake.get("type")) ||
+        !PROTOCOL_VERSION.equals(handshake.get("protocol_version"))) {
+      throw new IOException("Unexpected handshake: " + handshake);
+    }
+    out.write(
+        "[{\"id\":" + handshake.get("id") + ",\"type\":\"handshake\"," +
+        "\"protocol_version\":\"" + PROTOCOL_VERSION + "\",\"capabilities\":[]}");
+    out.flush();
+
+    PrintStream originalOut = System.out;
+    PrintStream originalErr = System.err;
+    RedirectingOutputStream stdoutRedirect = new RedirectingOutputStream(originalOut);
+    RedirectingOutputStream stderrRedirect = new RedirectingOutputStream(originalErr);
+    PrintStream stdout = new PrintStream(stdoutRedirect, true, ENCODING);
+    PrintStream stderr = new PrintStream(stderrRedirect, true, ENCODING);
+    System.setOut(stdout);
+    System.setErr(stderr);
+    try {
+      while (true) {
+        int c = readNonWhitespace();
+        if (c == ']' || c == -1) {
+          out.write("]");
+          out.flush();
+          return;
+        }
+        if (c != ',') {
+          throw new IOException("Unexpected character in message stream: " + (char) c);
+        }
+
+        Map<String, String> command = readObject();
+        String type = "result";
+        int exitCode;
+        if (!"command".equals(command.get("type"))) {
+          type = "error";
+          exitCode = 1;
+        } else if (command.get("args_path") == null ||
+            command.get("stdout_path") == null ||
+            command.get("stderr_path") == null) {
+          type = "error";
+          exitCode = 2;
+        } else {
+          exitCode = runCommandWithOutputIn(
+              command.get("args_path"),
+              command.get("stdout_path"),
+              command.get("stderr_path"),
+              stdoutRedirect,
+              stderrRedirect);
+          // Put back the streams in case the command replaced them.
+          System.setOut(stdout);
+          System.setErr(stderr);
+        }
+        out.write(
+            ",{\"id\":" + command.get("id") + ",\"type\":\"" + type + "\"," +
+            "\"exit_code\":" + exitCode + "}");
+        out.flush();
+      }
+    } finally {
+      System.setOut(originalOut);
+      System.setErr(originalErr);
+    }
+  }
+
+  private int runCommandWithOutputIn(
+      String argsPath,
+      String stdoutPath,
+      String stderrPath,
+      RedirectingOutputStream stdoutRedirect,
+      RedirectingOutputStream stderrRedirect) {
+    OutputStream originalOut = stdoutRedirect.target;
+    OutputStream originalErr = stderrRedirect.target;
+    try (OutputStream stdout = new FileOutputStream(stdoutPath);
+         OutputStream stderr = new FileOutputStream(stderrPath)) {
+      stdoutRedirect.target = stdout;
+      stderrRedirect.target = stderr;
+      try {
+        return runCommand(readArgs(argsPath));
+      } catch (IOException e) {
+        e.printStackTrace();
+        return 1;
+      } finally {
+        System.out.flush();
+        System.err.flush();
+        stdoutRedirect.target = originalOut;
+        stderrRedirect.target = originalErr;
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+      return 1;
+    }
+  }
+
+  protected static URL[] toUrls(String classpath) throws IOException {
+    List<URL> urls = new ArrayList<>();
+    for (String entry : classpath.split(File.pathSeparator)) {
+      if (!entry.isEmpty()) {
+        urls.add(new File(entry).toURI().toURL());
+      }
+    }
+    return urls.toArray(new URL[urls.size()]);
+  }
+
+  private static List<String> readArgs(String argsPath) throws IOException {
+    StringBuilder contents = new StringBuilder();
+    try (Reader reader = new InputStreamReader(new FileInputStream(argsPath), ENCODING)) {
+      char[] buffer = new char[8192];
+      for (int read = reader.read(buffer); read != -1; read = reader.read(buffer)) {
+        contents.append(buffer, 0, read);
+      }
+    }
+    List<String> args = new ArrayList<>();
+    for (String arg : contents.toString().split("\0")) {
+      if (!arg.isEmpty()) {
+        args.add(arg);
+      }
+    }
+    return args;
+  }
+
+  /**
+   * Reads a flat JSON object, as sent by Buck, into a map from property names to values. Numbers
+   * are kept in their textual form, and arrays (which are always empty) are read as "".
+   */
+  private Map<String, String> readObject() throws IOException {
+    Map<String, String> object = new HashMap<>();
+    expect('{');
+    int c = readNonWhitespace();
+    while (c != '}') {
+      if (c == -1) {
+        throw new IOException("Unterminated object in message stream");
+      }
+      in.unread(c);
+      String name = readString();
+      expect(':');
+      c = readNonWhitespace();
+      String value;
+      if (c == '"') {
+        in.unread(c);
+        value = readString();
+      } else if (c == '[') {
+        expect(']');
+        value = "";
+      } else {
+        StringBuilder literal = new StringBuilder();
+        while (c != -1 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+          literal.append((char) c);
+          c = in.read();
+        }
+        if (c != -1) {
+          in.unread(c);
+        }
+        value = literal.toString();
+      }
+      object.put(name, value);
+      c = readNonWhitespace();
+      if (c == ',') {
+        c = readNonWhitespace();
+      }
+    }
+    return object;
+  }
+
+  private String readString() throws IOException {
+    expect('"');
+    StringBuilder string = new StringBuilder();
+    for (int c = in.read(); c != '"'; c = in.read()) {
+      if (c == -1) {
+        throw new IOException("Unterminated string in message stream");
+      }
+      if (c == '\\') {
+        c = in.read();
+        switch (c) {
+          case 'b':
+            c = '\b';
+            break;
+          case 'f':
+            c = '\f';
+            break;
+          case 'n':
+            c = '\n';
+            break;
+          case 'r':
+            c = '\r';
+            break;
+          case 't':
+            c = '\t';
+            break;
+          case 'u':
+            char[] hex = new char[4];
+            for (int i = 0; i < hex.length; i++) {
+              hex[i] = (char) in.read();
+            }
+            c = Integer.parseInt(new String(hex), 16);
+            break;
+          default:
+            // '"', '\\' and '/' stand for themselves.
+            break;
+        }
+      }
+      string.append((char) c);
+    }
+    return string.toString();
+  }
+
+  private void expect(char expected) throws IOException {
+    int c = readNonWhitespace();
+    if (c != expected) {
+      throw new IOException(
+          "Expected '" + expected + "' in message stream but got " +
+          (c == -1 ? "end of stream" : "'" + (char) c + "'"));
+    }
+  }
+
+  private int readNonWhitespace() throws IOException {
+    int c = in.read();
+    while (c != -1 && Character.isWhitespace(c)) {
+      c = in.read();
+    }
+    return c;
+  }
+
+  /**
+   * Writes to whichever stream is its current target.
+   */
+  private static class RedirectingOutputStream extends OutputStream {
+    private volatile OutputStream target;
+
+    public RedirectingOutputStream(OutputStream target) {
+      this.target = target;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      target.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      target.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      target.flush();
+    }
+  }
+}
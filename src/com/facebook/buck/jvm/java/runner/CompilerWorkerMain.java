@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.jvm.java.runner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Launcher for a persistent scalac or groovyc, which compiles many libraries in the same JVM so
+ * that only the first pays for JVM startup and for loading and warming up the compiler.
+ * <p>
+ * The worker is started with:
+ * <ul>
+ *   <li>{@code --compiler} (string) {@code scalac} or {@code groovyc}
+ *   <li>{@code --classpath} (string) the compiler's own classpath, e.g. the jars in
+ *       {@code $SCALA_HOME/lib}
+ * </ul>
+ * and speaks version 0 of Buck's worker process protocol (see {@link AbstractWorkerMain}). The
+ * arguments file of each command holds the arguments the compiler would be given on its command
+ * line, and the worker answers with 0 if they compiled, or 1 if they didn't.
+ */
+public class CompilerWorkerMain extends AbstractWorkerMain {
+
+  private static final String SCALAC = "scalac";
+  private static final String GROOVYC = "groovyc";
+
+  private final String compiler;
+  private final ClassLoader compilerClassLoader;
+
+  CompilerWorkerMain(Reader in, Writer out, String compiler, ClassLoader compilerClassLoader) {
+    super(in, out);
+    this.compiler = compiler;
+    this.compilerClassLoader = compilerClassLoader;
+  }
+
+  public static void main(String[] args) throws Throwable {
+    String compiler = null;
+    String classpath = "";
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--compiler") && i + 1 < args.length) {
+        compiler = args[++i];
+      } else if (args[i].equals("--classpath") && i + 1 < args.length) {
+        classpath = args[++i];
+      } else {
+        throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+      }
+    }
+    if (!SCALAC.equals(compiler) && !GROOVYC.equals(compiler)) {
+      throw new IllegalArgumentException("Unknown compiler: " + compiler);
+    }
+
+    final String compilerName = compiler;
+    final ClassLoader classLoader = createCompilerClassLoader(compiler, classpath);
+    serve(
+        new WorkerFactory() {
+          @Override
+          public AbstractWorkerMain create(Reader in, Writer out) {
+            return new CompilerWorkerMain(in, out, compilerName, classLoader);
+          }
+        });
+  }
+
+  static ClassLoader createCompilerClassLoader(String compiler, String classpath)
+      throws IOException {
+    List<URL> urls = new ArrayList<>(Arrays.asList(toUrls(classpath)));
+    if (GROOVYC.equals(compiler)) {
+      // Like the groovyc script, make javac available for joint compilation of Java sources.
+      File toolsJar = new File(System.getProperty("java.home"), "../lib/tools.jar");
+      if (toolsJar.isFile()) {
+        urls.add(toolsJar.toURI().toURL());
+      }
+    }
+    // Parent the compiler's class loader to the extension class loader, so that it can't see the
+    // classes of this worker.
+    return new URLClassLoader(
+        urls.toArray(new URL[urls.size()]),
+        ClassLoader.getSystemClassLoader().getParent());
+  }
+
+  @Override
+  protected int runCommand(List<String> args) {
+    String[] compilerArgs = args.toArray(new String[args.size()]);
+    Thread thread = Thread.currentThread();
+    ClassLoader originalContextClassLoader = thread.getContextClassLoader();
+    thread.setContextClassLoader(compilerClassLoader);
+    try {
+      boolean succeeded = SCALAC.equals(compiler) ?
+          runScalac(compilerArgs) :
+          runGroovyc(compilerArgs);
+      return succeeded ? 0 : 1;
+    } catch (InvocationTargetException e) {
+      e.getCause().printStackTrace();
+      return 1;
+    } catch (ReflectiveOperationException e) {
+      e.printStackTrace();
+      return 1;
+    } finally {
+      thread.setContextClassLoader(originalContextClassLoader);
+    }
+  }
+
+  private boolean runScalac(String[] args) throws ReflectiveOperationException {
+    Class<?> main = compilerClassLoader.loadClass("scala.tools.nsc.Main");
+    Object result = main.getMethod("process", String[].class).invoke(null, (Object) args);
+    if (result instanceof Boolean) {
+      return (Boolean) result;
+    }
+    // Before Scala 2.11, process() didn't say whether compilation failed, so ask its reporter.
+    Object reporter = main.getMethod("reporter").invoke(null);
+    Method hasErrors = reporter.getClass().getMethod("hasErrors");
+    return !((Boolean) hasErrors.invoke(reporter));
+  }
+
+  private boolean runGroovyc(String[] args) throws ReflectiveOperationException {
+    try {
+      compilerClassLoader.loadClass("org.codehaus.groovy.tools.FileSystemCompiler")
+          .getMethod("commandLineCompile", String[].class)
+          .invoke(null, (Object) args);
+      return true;
+    } catch (InvocationTargetException e) {
+      // Like the groovyc script, report compilation errors without a stack trace.
+      System.err.println(e.getCause().getMessage());
+      return false;
+    }
+  }
+}
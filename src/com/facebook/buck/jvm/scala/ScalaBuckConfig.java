@@ -18,6 +18,8 @@ package com.facebook.buck.jvm.scala;
 
 import com.facebook.buck.cli.BuckConfig;
 import com.facebook.buck.io.ExecutableFinder;
+import com.facebook.buck.jvm.java.JavaBuckConfig;
+import com.facebook.buck.jvm.java.PersistentCompiler;
 import com.facebook.buck.model.BuildTarget;
 import com.facebook.buck.rules.BuildRuleResolver;
 import com.facebook.buck.rules.CommandTool;
@@ -67,23 +69,48 @@ public class ScalaBuckConfig {
             delegate.getValue(SECTION, "compiler_flags").or("")));
   }
 
+  /**
+   * @return the scalac to run in persistent workers rather than through {@link #getScalac}, if
+   *     {@code scala.persistent_compiler} is enabled.
+   */
+  Optional<PersistentCompiler> getPersistentCompiler() {
+    if (!delegate.getBooleanValue(SECTION, "persistent_compiler", false)) {
+      return Optional.absent();
+    }
+    if (getScalacTarget().isPresent()) {
+      throw new HumanReadableException(
+          "scala.persistent_compiler needs scala.compiler to be the path to a Scala " +
+          "distribution's scalac rather than a build target.");
+    }
+
+    Optional<Path> configScalac = delegate.getPath(SECTION, "compiler");
+    return Optional.of(
+        PersistentCompiler.fromDistribution(
+            new JavaBuckConfig(delegate).getDefaultJavaOptions().getJavaRuntimeLauncher(),
+            "scalac",
+            configScalac.isPresent() ? configScalac.get() : findExternalScalac()));
+  }
+
   private Tool findScalac(BuildRuleResolver resolver) {
     Optional<Tool> configScalac = delegate.getTool(SECTION, "compiler", resolver);
     if (configScalac.isPresent()) {
       return configScalac.get();
     }
+    return new HashedFileTool(findExternalScalac());
+  }
 
+  private Path findExternalScalac() {
     Optional<Path> externalScalac = new ExecutableFinder().getOptionalExecutable(
         Paths.get("scalac"), delegate.getEnvironment());
     if (externalScalac.isPresent()) {
-      return new HashedFileTool(externalScalac.get());
+      return externalScalac.get();
     }
 
     String scalaHome = delegate.getEnvironment().get("SCALA_HOME");
     if (scalaHome != null) {
       Path scalacInHomePath = Paths.get(scalaHome, "bin", "scalac");
       if (scalacInHomePath.toFile().exists()) {
-        return new HashedFileTool(scalacInHomePath);
+        return scalacInHomePath;
       }
       throw new HumanReadableException("Could not find scalac at $SCALA_HOME/bin/scalac.");
     }
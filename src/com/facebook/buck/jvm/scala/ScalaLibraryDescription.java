@@ -123,7 +123,8 @@ public class ScalaLibraryDescription implements Description<ScalaLibraryDescript
                     ImmutableList.<String>builder()
                         .addAll(scalaBuckConfig.getCompilerFlags())
                         .addAll(args.extraArguments.get())
-                        .build()),
+                        .build(),
+                    scalaBuckConfig.getPersistentCompiler()),
                 args.resourcesRoot,
                 args.mavenCoords,
                 args.tests.get()));
@@ -148,8 +148,8 @@ public class ScalaTestDescription implements Description<ScalaTestDescription.Ar
                     ImmutableList.<String>builder()
                         .addAll(config.getCompilerFlags())
                         .addAll(args.extraArguments.get())
-                        .build()
-                ),
+                        .build(),
+                    config.getPersistentCompiler()),
                 javaOptions.getJavaRuntimeLauncher(),
                 args.vmArgs.get(),
                 /* sourcesUnderTest */ cxxLibraryEnhancement.nativeLibsEnvironment,
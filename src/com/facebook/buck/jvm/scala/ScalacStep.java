@@ -17,6 +17,7 @@
 package com.facebook.buck.jvm.scala;
 
 import com.facebook.buck.io.ProjectFilesystem;
+import com.facebook.buck.jvm.java.PersistentCompiler;
 import com.facebook.buck.rules.SourcePathResolver;
 import com.facebook.buck.rules.Tool;
 import com.facebook.buck.shell.ShellStep;
@@ -24,6 +25,7 @@ import com.facebook.buck.step.ExecutionContext;
 import com.facebook.buck.util.Verbosity;
 import com.google.common.base.Functions;
 import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -40,6 +42,7 @@ public class ScalacStep extends ShellStep {
   private final ImmutableSortedSet<Path> sourceFilePaths;
   private final ImmutableSortedSet<Path> classpathEntries;
   private final ProjectFilesystem filesystem;
+  private final Optional<PersistentCompiler> persistentCompiler;
 
   ScalacStep(
       Tool scalac,
@@ -48,7 +51,8 @@ public class ScalacStep extends ShellStep {
       Path outputDirectory,
       ImmutableSortedSet<Path> sourceFilePaths,
       ImmutableSortedSet<Path> classpathEntries,
-      ProjectFilesystem filesystem) {
+      ProjectFilesystem filesystem,
+      Optional<PersistentCompiler> persistentCompiler) {
     super(filesystem.getRootPath());
 
     this.scalac = scalac;
@@ -58,6 +62,7 @@ public class ScalacStep extends ShellStep {
     this.sourceFilePaths = sourceFilePaths;
     this.classpathEntries = classpathEntries;
     this.filesystem = filesystem;
+    this.persistentCompiler = persistentCompiler;
   }
 
   @Override
@@ -65,6 +70,18 @@ public class ScalacStep extends ShellStep {
     return "scalac";
   }
 
+  @Override
+  public int execute(ExecutionContext context) throws InterruptedException {
+    if (!persistentCompiler.isPresent()) {
+      return super.execute(context);
+    }
+    // The persistent compiler takes the place of the scalac script, so leave that out.
+    ImmutableList<String> command = getShellCommand(context);
+    return persistentCompiler.get().compile(
+        context,
+        filesystem,
+        command.subList(1, command.size()));
+  }
 
   @Override
   protected ImmutableList<String> getShellCommandInternal(ExecutionContext context) {
@@ -19,6 +19,7 @@ package com.facebook.buck.jvm.scala;
 import com.facebook.buck.io.ProjectFilesystem;
 import com.facebook.buck.jvm.core.SuggestBuildRules;
 import com.facebook.buck.jvm.java.BaseCompileToJarStepFactory;
+import com.facebook.buck.jvm.java.PersistentCompiler;
 import com.facebook.buck.model.BuildTarget;
 import com.facebook.buck.rules.BuildContext;
 import com.facebook.buck.rules.BuildableContext;
@@ -36,12 +37,16 @@ class ScalacToJarStepFactory extends BaseCompileToJarStepFactory {
 
   private final Tool scalac;
   private final ImmutableList<String> extraArguments;
+  // Only changes how scalac is run, not what it outputs, so this is left out of the rule key.
+  private final Optional<PersistentCompiler> persistentCompiler;
 
   public ScalacToJarStepFactory(
       Tool scalac,
-      ImmutableList<String> extraArguments) {
+      ImmutableList<String> extraArguments,
+      Optional<PersistentCompiler> persistentCompiler) {
     this.scalac = scalac;
     this.extraArguments = extraArguments;
+    this.persistentCompiler = persistentCompiler;
   }
 
   @Override
@@ -68,7 +73,8 @@ class ScalacToJarStepFactory extends BaseCompileToJarStepFactory {
             outputDirectory,
             sourceFilePaths,
             classpathEntries,
-            filesystem));
+            filesystem,
+            persistentCompiler));
   }
 
   @Override
@@ -33,6 +33,10 @@ public class AppendableLogRecord extends LogRecord {
     this.displayLevel = displayLevel;
   }
 
+  public String getDisplayLevel() {
+    return displayLevel;
+  }
+
   public void appendFormattedMessage(StringBuilder sb) {
     // Unfortunately, there's no public API to reset a Formatter's
     // Appendable. If this proves to be a perf issue, we can do
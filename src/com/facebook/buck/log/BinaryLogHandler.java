@@ -0,0 +1,420 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.log;
+
+import com.facebook.buck.util.BuckConstant;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+import javax.annotation.Nullable;
+
+/**
+ * A log handler which hands records to a background thread to write, rather than formatting them
+ * on the thread which logged them, so that verbose logging doesn't slow the build down.
+ * <p>
+ * Records are queued without locking, as their format strings and arguments.  The writer encodes
+ * them in a compact binary form, in which repeated strings such as format strings and logger names
+ * are only written once, and they are formatted only when the log is read, by
+ * {@link BinaryLogReader}.  Arguments which aren't strings, booleans, characters or Java's own
+ * immutable numbers are turned into strings as they are logged, as they may change by the time
+ * they are written.  Enums are turned into strings too, which formats them just the same.
+ * <p>
+ * When the writer falls behind by more than the queue's capacity, threads which log wait for it
+ * to catch up, so that the queue can't grow without bound.
+ * <p>
+ * Enable it in logging.properties as {@code com.facebook.buck.cli.bootstrapper.BinaryLogHandler};
+ * it writes to {@code buck-out/log/buck-<timestamp>.log.bin}.
+ */
+public class BinaryLogHandler extends Handler {
+
+  static final byte[] MAGIC = {'B', 'U', 'C', 'K', 'L', 'O', 'G', 1};
+
+  // The tags which start each item in the log.
+  static final byte TAG_STRING = 1;
+  static final byte TAG_RECORD = 2;
+
+  // The types of the arguments to a record's format string.
+  static final byte ARG_NULL = 0;
+  static final byte ARG_STRING = 1;
+  static final byte ARG_INT = 2;
+  static final byte ARG_LONG = 3;
+  static final byte ARG_FLOAT = 4;
+  static final byte ARG_DOUBLE = 5;
+  static final byte ARG_BOOLEAN = 6;
+  static final byte ARG_CHAR = 7;
+  static final byte ARG_BYTE = 8;
+  static final byte ARG_SHORT = 9;
+  static final byte ARG_BIG_INTEGER = 10;
+  static final byte ARG_BIG_DECIMAL = 11;
+
+  // Written instead of a string's id for a null string.
+  static final int NULL_STRING_ID = 0;
+
+  private static final int DEFAULT_CAPACITY = 8192;
+  private static final long BACK_PRESSURE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long FLUSH_TIMEOUT_SECONDS = 10;
+  // Formats records which weren't logged through Buck's Logger, as java.util.logging would.
+  private static final Formatter SIMPLE_FORMATTER = new SimpleFormatter();
+
+  private final ConcurrentMap<Long, String> threadIdToCommandId;
+  private final int capacity;
+  private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final Thread writerThread;
+  private volatile boolean closed = false;
+
+  public BinaryLogHandler() throws IOException {
+    this(
+        openLogFile(),
+        getLevelProperty(LogManager.getLogManager()),
+        getCapacityProperty(LogManager.getLogManager()),
+        GlobalState.THREAD_ID_TO_COMMAND_ID);
+  }
+
+  @VisibleForTesting
+  BinaryLogHandler(
+      OutputStream out,
+      Level level,
+      int capacity,
+      ConcurrentMap<Long, String> threadIdToCommandId) {
+    setLevel(level);
+    this.capacity = capacity;
+    this.threadIdToCommandId = threadIdToCommandId;
+    final RecordWriter writer = new RecordWriter(out);
+    writerThread = new Thread(
+        new Runnable() {
+          @Override
+          public void run() {
+            writer.run();
+          }
+        },
+        "binary-log-writer");
+    writerThread.setDaemon(true);
+    writerThread.start();
+  }
+
+  @Override
+  public void publish(LogRecord record) {
+    if (closed || !isLoggable(record) || !writerThread.isAlive()) {
+      return;
+    }
+    PendingRecord pending = new PendingRecord(
+        record,
+        threadIdToCommandId.get((long) record.getThreadID()));
+
+    // Wait for the writer to catch up if it has fallen too far behind.
+    while (queued.get() >= capacity && writerThread.isAlive()) {
+      LockSupport.parkNanos(this, BACK_PRESSURE_WAIT_NANOS);
+    }
+    enqueue(pending);
+  }
+
+  /**
+   * Waits for the records logged so far to be written out.
+   */
+  @Override
+  public void flush() {
+    if (closed || !writerThread.isAlive()) {
+      return;
+    }
+    CountDownLatch flushed = new CountDownLatch(1);
+    enqueue(flushed);
+    try {
+      flushed.await(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    LockSupport.unpark(writerThread);
+    try {
+      writerThread.join(TimeUnit.SECONDS.toMillis(FLUSH_TIMEOUT_SECONDS));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void enqueue(Object item) {
+    queued.incrementAndGet();
+    queue.add(item);
+    LockSupport.unpark(writerThread);
+  }
+
+  private static OutputStream openLogFile() throws IOException {
+    Path logPath = BuckConstant.getLogPath();
+    Files.createDirectories(logPath);
+    return Files.newOutputStream(
+        logPath.resolve(
+            String.format(
+                "buck-%d%s",
+                System.currentTimeMillis(),
+                BinaryLogReader.BINARY_LOG_EXTENSION)));
+  }
+
+  private static Level getLevelProperty(LogManager logManager) {
+    String level = logManager.getProperty(BinaryLogHandler.class.getName() + ".level");
+    return level == null ? Level.ALL : Level.parse(level);
+  }
+
+  private static int getCapacityProperty(LogManager logManager) {
+    String capacity = logManager.getProperty(BinaryLogHandler.class.getName() + ".capacity");
+    return capacity == null ? DEFAULT_CAPACITY : Integer.parseInt(capacity);
+  }
+
+  /**
+   * What the writer needs of a record, taken as it is logged.
+   */
+  private static class PendingRecord {
+    private final int level;
+    @Nullable private final String displayLevel;
+    private final long millis;
+    private final int threadId;
+    @Nullable private final String commandId;
+    @Nullable private final String loggerName;
+    @Nullable private final String message;
+    /** Whether {@link #message} is a format string for {@link #args}. */
+    private final boolean isFormat;
+    private final Object[] args;
+    @Nullable private final Throwable thrown;
+
+    public PendingRecord(LogRecord record, @Nullable String commandId) {
+      this.level = record.getLevel().intValue();
+      this.millis = record.getMillis();
+      this.threadId = record.getThreadID();
+      this.commandId = commandId;
+      this.loggerName = record.getLoggerName();
+      this.thrown = record.getThrown();
+      if (record instanceof AppendableLogRecord) {
+        this.displayLevel = ((AppendableLogRecord) record).getDisplayLevel();
+        this.message = record.getMessage();
+        this.isFormat = true;
+        Object[] parameters = record.getParameters();
+        this.args = new Object[parameters == null ? 0 : parameters.length];
+        for (int i = 0; i < args.length; i++) {
+          args[i] = snapshot(parameters[i]);
+        }
+      } else {
+        // Other records use java.util.logging's own kind of format string, so format them now.
+        this.displayLevel = null;
+        this.message = SIMPLE_FORMATTER.formatMessage(record);
+        this.isFormat = false;
+        this.args = new Object[0];
+      }
+    }
+
+    @Nullable
+    private static Object snapshot(@Nullable Object arg) {
+      if (arg == null ||
+          arg instanceof String ||
+          arg instanceof Integer ||
+          arg instanceof Long ||
+          arg instanceof Float ||
+          arg instanceof Double ||
+          arg instanceof Boolean ||
+          arg instanceof Character ||
+          arg instanceof Byte ||
+          arg instanceof Short ||
+          arg instanceof BigInteger ||
+          arg instanceof BigDecimal) {
+        return arg;
+      }
+      return String.valueOf(arg);
+    }
+  }
+
+  /**
+   * Drains the queue on the writer thread, encoding what it finds.
+   */
+  private class RecordWriter {
+    private final DataOutputStream out;
+    private final Map<String, Integer> stringIds = new HashMap<>();
+
+    public RecordWriter(OutputStream out) {
+      this.out = new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+    public void run() {
+      try {
+        out.write(MAGIC);
+        while (true) {
+          Object item = queue.poll();
+          if (item == null) {
+            // Write out what we have while there's nothing else to do.
+            out.flush();
+            if (closed && queue.isEmpty()) {
+              break;
+            }
+            LockSupport.park(this);
+            continue;
+          }
+          queued.decrementAndGet();
+          if (item instanceof PendingRecord) {
+            writeRecord((PendingRecord) item);
+          } else {
+            out.flush();
+            ((CountDownLatch) item).countDown();
+          }
+        }
+      } catch (IOException | RuntimeException e) {
+        reportError("Failed writing binary log", e, ErrorManager.WRITE_FAILURE);
+      } finally {
+        try {
+          out.close();
+        } catch (IOException e) {
+          reportError("Failed closing binary log", e, ErrorManager.CLOSE_FAILURE);
+        }
+        // Let anything waiting for a flush carry on.
+        for (Object item : queue) {
+          if (item instanceof CountDownLatch) {
+            ((CountDownLatch) item).countDown();
+          }
+        }
+      }
+    }
+
+    private void writeRecord(PendingRecord record) throws IOException {
+      int displayLevelId = getStringId(record.displayLevel);
+      int commandId = getStringId(record.commandId);
+      int loggerNameId = getStringId(record.loggerName);
+      int messageId = record.isFormat ? getStringId(record.message) : NULL_STRING_ID;
+      String stackTrace =
+          record.thrown == null ? null : Throwables.getStackTraceAsString(record.thrown);
+
+      out.writeByte(TAG_RECORD);
+      out.writeInt(record.level);
+      out.writeInt(displayLevelId);
+      out.writeLong(record.millis);
+      out.writeInt(record.threadId);
+      out.writeInt(commandId);
+      out.writeInt(loggerNameId);
+      out.writeBoolean(record.isFormat);
+      if (record.isFormat) {
+        out.writeInt(messageId);
+      } else {
+        writeNullableString(record.message);
+      }
+      out.writeShort(record.args.length);
+      for (Object arg : record.args) {
+        writeArg(arg);
+      }
+      writeNullableString(stackTrace);
+    }
+
+    private void writeArg(@Nullable Object arg) throws IOException {
+      if (arg == null) {
+        out.writeByte(ARG_NULL);
+      } else if (arg instanceof String) {
+        out.writeByte(ARG_STRING);
+        writeString((String) arg);
+      } else if (arg instanceof Integer) {
+        out.writeByte(ARG_INT);
+        out.writeInt((Integer) arg);
+      } else if (arg instanceof Long) {
+        out.writeByte(ARG_LONG);
+        out.writeLong((Long) arg);
+      } else if (arg instanceof Float) {
+        out.writeByte(ARG_FLOAT);
+        out.writeFloat((Float) arg);
+      } else if (arg instanceof Double) {
+        out.writeByte(ARG_DOUBLE);
+        out.writeDouble((Double) arg);
+      } else if (arg instanceof Boolean) {
+        out.writeByte(ARG_BOOLEAN);
+        out.writeBoolean((Boolean) arg);
+      } else if (arg instanceof Character) {
+        out.writeByte(ARG_CHAR);
+        out.writeChar((Character) arg);
+      } else if (arg instanceof Byte) {
+        out.writeByte(ARG_BYTE);
+        out.writeByte((Byte) arg);
+      } else if (arg instanceof Short) {
+        out.writeByte(ARG_SHORT);
+        out.writeShort((Short) arg);
+      } else if (arg instanceof BigInteger) {
+        out.writeByte(ARG_BIG_INTEGER);
+        writeString(arg.toString());
+      } else {
+        out.writeByte(ARG_BIG_DECIMAL);
+        writeString(arg.toString());
+      }
+    }
+
+    /**
+     * @return the id of {@code string}, writing it out first if this is the first time it's used.
+     */
+    private int getStringId(@Nullable String string) throws IOException {
+      if (string == null) {
+        return NULL_STRING_ID;
+      }
+      Integer id = stringIds.get(string);
+      if (id == null) {
+        id = stringIds.size() + 1;
+        stringIds.put(string, id);
+        out.writeByte(TAG_STRING);
+        out.writeInt(id);
+        writeString(string);
+      }
+      return id;
+    }
+
+    private void writeNullableString(@Nullable String string) throws IOException {
+      out.writeBoolean(string != null);
+      if (string != null) {
+        writeString(string);
+      }
+    }
+
+    private void writeString(String string) throws IOException {
+      // Unlike writeUTF, this copes with strings of any length.
+      byte[] bytes = string.getBytes(Charsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.log;
+
+import com.google.common.base.Charsets;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import javax.annotation.Nullable;
+
+/**
+ * Reads the logs written by {@link BinaryLogHandler}, formatting each record just as
+ * {@link LogFormatter} formats the records in Buck's text logs.
+ * <p>
+ * A log which was cut short, e.g. because Buck was killed while writing it, reads as though it
+ * ended with the last complete record.
+ */
+public class BinaryLogReader implements Closeable {
+
+  public static final String BINARY_LOG_EXTENSION = ".log.bin";
+
+  private final DataInputStream in;
+  private final LogFormatter formatter = new LogFormatter();
+  private final List<String> strings = new ArrayList<>();
+
+  public BinaryLogReader(InputStream in) throws IOException {
+    this.in = new DataInputStream(new BufferedInputStream(in));
+    byte[] magic = new byte[BinaryLogHandler.MAGIC.length];
+    this.in.readFully(magic);
+    if (!Arrays.equals(magic, BinaryLogHandler.MAGIC)) {
+      throw new IOException("Not a binary Buck log.");
+    }
+    // Ids start from 1, as 0 stands for null.
+    strings.add(null);
+  }
+
+  public static boolean isBinaryLog(Path path) {
+    return path.getFileName().toString().endsWith(BINARY_LOG_EXTENSION);
+  }
+
+  /**
+   * @return the next record, formatted as it would be in a text log, including its trailing
+   *     newline, or null if there are no more.
+   */
+  @Nullable
+  public String readRecord() throws IOException {
+    try {
+      while (true) {
+        byte tag = in.readByte();
+        if (tag == BinaryLogHandler.TAG_STRING) {
+          int id = in.readInt();
+          if (id != strings.size()) {
+            throw new IOException("String out of order in binary log: " + id);
+          }
+          strings.add(readString());
+        } else if (tag == BinaryLogHandler.TAG_RECORD) {
+          return readRecordAfterTag();
+        } else {
+          throw new IOException("Unknown item in binary log: " + tag);
+        }
+      }
+    } catch (EOFException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Writes out the whole of the log as text.
+   */
+  public void copyTo(Writer out) throws IOException {
+    for (String record = readRecord(); record != null; record = readRecord()) {
+      out.write(record);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  private String readRecordAfterTag() throws IOException {
+    Level level = Level.parse(Integer.toString(in.readInt()));
+    String displayLevel = getString(in.readInt());
+    long millis = in.readLong();
+    int threadId = in.readInt();
+    String commandId = getString(in.readInt());
+    String loggerName = getString(in.readInt());
+    boolean isFormat = in.readBoolean();
+    String message = isFormat ? getString(in.readInt()) : readNullableString();
+    Object[] args = new Object[in.readShort()];
+    for (int i = 0; i < args.length; i++) {
+      args[i] = readArg();
+    }
+    String stackTrace = readNullableString();
+
+    LogRecord record;
+    if (isFormat) {
+      record = new AppendableLogRecord(level, displayLevel, message);
+      record.setParameters(args);
+    } else {
+      record = new LogRecord(level, message);
+    }
+    record.setMillis(millis);
+    record.setThreadID(threadId);
+    record.setLoggerName(loggerName);
+
+    String formatted = formatter.format(record, commandId);
+    return stackTrace == null ? formatted : formatted + stackTrace + "\n";
+  }
+
+  @Nullable
+  private Object readArg() throws IOException {
+    byte type = in.readByte();
+    switch (type) {
+      case BinaryLogHandler.ARG_NULL:
+        return null;
+      case BinaryLogHandler.ARG_STRING:
+        return readString();
+      case BinaryLogHandler.ARG_INT:
+        return in.readInt();
+      case BinaryLogHandler.ARG_LONG:
+        return in.readLong();
+      case BinaryLogHandler.ARG_FLOAT:
+        return in.readFloat();
+      case BinaryLogHandler.ARG_DOUBLE:
+        return in.readDouble();
+      case BinaryLogHandler.ARG_BOOLEAN:
+        return in.readBoolean();
+      case BinaryLogHandler.ARG_CHAR:
+        return in.readChar();
+      case BinaryLogHandler.ARG_BYTE:
+        return in.readByte();
+      case BinaryLogHandler.ARG_SHORT:
+        return in.readShort();
+      case BinaryLogHandler.ARG_BIG_INTEGER:
+        return new BigInteger(readString());
+      case BinaryLogHandler.ARG_BIG_DECIMAL:
+        return new BigDecimal(readString());
+      default:
+        throw new IOException("Unknown argument type in binary log: " + type);
+    }
+  }
+
+  @Nullable
+  private String getString(int id) throws IOException {
+    if (id < 0 || id >= strings.size()) {
+      throw new IOException("Unknown string in binary log: " + id);
+    }
+    return strings.get(id);
+  }
+
+  @Nullable
+  private String readNullableString() throws IOException {
+    return in.readBoolean() ? readString() : null;
+  }
+
+  private String readString() throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, Charsets.UTF_8);
+  }
+}
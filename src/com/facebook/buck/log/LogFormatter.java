@@ -66,12 +66,19 @@ public class LogFormatter extends java.util.logging.Formatter {
 
   @Override
   public String format(LogRecord record) {
+    return format(record, threadIdToCommandId.get((long) record.getThreadID()));
+  }
+
+  /**
+   * Formats {@code record} as logged for {@code command}, rather than for the command its thread
+   * is running now, for records which are formatted long after they were logged.
+   */
+  String format(LogRecord record, @Nullable String command) {
     String timestamp = simpleDateFormat.get().format(new Date(record.getMillis()));
 
     // We explicitly don't use String.format here because this code is very
     // performance-critical: http://stackoverflow.com/a/1281651
     long tid = record.getThreadID();
-    @Nullable String command = threadIdToCommandId.get(tid);
     StringBuilder sb = new StringBuilder(timestamp)
       .append(formatRecordLevel(record.getLevel()))
       .append("[command:")
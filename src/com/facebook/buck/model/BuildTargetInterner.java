@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.facebook.buck.model;
+
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Shares equal build targets, and the flavors and unflavored targets they're made of, so that a
+ * target which is named by many rules is only kept in memory once, and so that comparing the
+ * copies which come out of here is usually a matter of comparing references.
+ * <p>
+ * Targets are only held weakly, so ones which are no longer used, e.g. after the build files
+ * which named them have changed, can still be garbage collected.
+ */
+public class BuildTargetInterner {
+
+  private static final Interner<Flavor> FLAVORS = Interners.newWeakInterner();
+  private static final Interner<UnflavoredBuildTarget> UNFLAVORED_TARGETS =
+      Interners.newWeakInterner();
+  private static final Interner<BuildTarget> TARGETS = Interners.newWeakInterner();
+
+  /** Utility class: do not instantiate. */
+  private BuildTargetInterner() {}
+
+  public static Flavor intern(Flavor flavor) {
+    return FLAVORS.intern(flavor);
+  }
+
+  public static UnflavoredBuildTarget intern(UnflavoredBuildTarget target) {
+    return UNFLAVORED_TARGETS.intern(target);
+  }
+
+  /**
+   * @return the shared copy of {@code target}, whose unflavored target and flavors are themselves
+   *     shared copies.
+   */
+  public static BuildTarget intern(BuildTarget target) {
+    UnflavoredBuildTarget unflavored = intern(target.getUnflavoredBuildTarget());
+    boolean changed = unflavored != target.getUnflavoredBuildTarget();
+    ImmutableSortedSet.Builder<Flavor> flavors = ImmutableSortedSet.naturalOrder();
+    for (Flavor flavor : target.getFlavors()) {
+      Flavor interned = intern(flavor);
+      changed |= interned != flavor;
+      flavors.add(interned);
+    }
+    if (changed) {
+      target = BuildTarget.of(unflavored, flavors.build());
+    }
+    return TARGETS.intern(target);
+  }
+}
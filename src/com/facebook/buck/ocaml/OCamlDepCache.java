@@ -0,0 +1,271 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.ocaml;
+
+import com.facebook.buck.io.ProjectFilesystem;
+import com.facebook.buck.util.BuckConstant;
+import com.facebook.buck.util.concurrent.MoreExecutors;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Keeps what ocamldep reports for each source file under {@code buck-out}, so that building the
+ * action graph only runs ocamldep over sources which changed since it last ran.
+ * <p>
+ * What ocamldep reports for a file depends on its contents, on the command it's run with, and on
+ * which other files it might refer to, so all three make up the file's key.  Files which miss are
+ * split into batches which run through ocamldep in parallel.
+ */
+class OCamlDepCache {
+
+  private static final Path DEFAULT_CACHE_PATH =
+      BuckConstant.getBuckOutputPath().resolve("ocamldep");
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+  /**
+   * Runs ocamldep over some source files.
+   */
+  interface DepTool {
+    /**
+     * @return ocamldep's output for {@code inputs}, one line per target.
+     */
+    String run(ImmutableList<Path> inputs) throws IOException, InterruptedException;
+  }
+
+  private final ProjectFilesystem filesystem;
+  private final Path cacheDir;
+  private final int maxParallelism;
+
+  public OCamlDepCache(ProjectFilesystem filesystem) {
+    this(filesystem, DEFAULT_CACHE_PATH, Runtime.getRuntime().availableProcessors());
+  }
+
+  @VisibleForTesting
+  OCamlDepCache(ProjectFilesystem filesystem, Path cacheDir, int maxParallelism) {
+    this.filesystem = filesystem;
+    this.cacheDir = cacheDir;
+    this.maxParallelism = maxParallelism;
+  }
+
+  /**
+   * @param command the ocamldep command line, less the input files.
+   * @param inputs the absolute paths of the source files.
+   * @return ocamldep's output for {@code inputs}, as if it had been run over all of them at once.
+   */
+  public String getDependencies(
+      ImmutableList<String> command,
+      ImmutableList<Path> inputs,
+      DepTool depTool) throws IOException, InterruptedException {
+    for (Path input : inputs) {
+      // Sources which haven't been generated yet can't be hashed, so leave ocamldep to report them.
+      if (!Files.isRegularFile(input)) {
+        return depTool.run(inputs);
+      }
+    }
+
+    HashCode commonKey = getCommonKey(command, inputs);
+    Map<Path, Path> cacheFiles = new HashMap<>();
+    Map<Path, String> outputs = new HashMap<>();
+    List<Path> misses = Lists.newArrayList();
+    for (Path input : inputs) {
+      Path cacheFile = cacheDir.resolve(getKey(commonKey, input).toString());
+      cacheFiles.put(input, cacheFile);
+      Optional<String> cached = filesystem.readFileIfItExists(cacheFile);
+      if (cached.isPresent()) {
+        outputs.put(input, cached.get());
+      } else {
+        misses.add(input);
+      }
+    }
+
+    StringBuilder uncached = new StringBuilder();
+    if (!misses.isEmpty()) {
+      filesystem.mkdirs(cacheDir);
+      int batchSize = (misses.size() + maxParallelism - 1) / maxParallelism;
+      List<List<Path>> batches = Lists.partition(misses, batchSize);
+      ImmutableList<String> batchOutputs = runInBatches(batches, depTool);
+      for (int i = 0; i < batches.size(); i++) {
+        String output = batchOutputs.get(i);
+        Optional<ImmutableMap<Path, String>> attributed = attributeLines(output, batches.get(i));
+        if (!attributed.isPresent()) {
+          uncached.append(output);
+          continue;
+        }
+        for (Map.Entry<Path, String> entry : attributed.get().entrySet()) {
+          writeToCache(cacheFiles.get(entry.getKey()), entry.getValue());
+        }
+        outputs.putAll(attributed.get());
+      }
+    }
+
+    StringBuilder result = new StringBuilder();
+    for (Path input : inputs) {
+      String output = outputs.get(input);
+      if (output != null) {
+        result.append(output);
+      }
+    }
+    return result.append(uncached).toString();
+  }
+
+  private HashCode getCommonKey(ImmutableList<String> command, ImmutableList<Path> inputs) {
+    Hasher hasher = Hashing.sha1().newHasher();
+    for (String arg : command) {
+      hasher.putString(arg, Charsets.UTF_8).putByte((byte) 0);
+    }
+    hasher.putByte((byte) 0);
+    for (Path input : Ordering.natural().sortedCopy(inputs)) {
+      hasher.putString(input.toString(), Charsets.UTF_8).putByte((byte) 0);
+    }
+    return hasher.hash();
+  }
+
+  private HashCode getKey(HashCode commonKey, Path input) throws IOException {
+    return Hashing.sha1().newHasher()
+        .putBytes(commonKey.asBytes())
+        .putString(input.toString(), Charsets.UTF_8)
+        .putByte((byte) 0)
+        .putBytes(Hashing.sha1().hashBytes(Files.readAllBytes(input)).asBytes())
+        .hash();
+  }
+
+  /**
+   * @return ocamldep's output for each batch, in the same order as the batches.
+   */
+  private static ImmutableList<String> runInBatches(
+      List<List<Path>> batches,
+      final DepTool depTool) throws IOException, InterruptedException {
+    if (batches.size() == 1) {
+      return ImmutableList.of(depTool.run(ImmutableList.copyOf(batches.get(0))));
+    }
+
+    ListeningExecutorService executor = com.google.common.util.concurrent.MoreExecutors
+        .listeningDecorator(MoreExecutors.newMultiThreadExecutor("ocamldep", batches.size()));
+    try {
+      List<ListenableFuture<String>> futures = Lists.newArrayList();
+      for (final List<Path> batch : batches) {
+        futures.add(
+            executor.submit(
+                new Callable<String>() {
+                  @Override
+                  public String call() throws IOException, InterruptedException {
+                    return depTool.run(ImmutableList.copyOf(batch));
+                  }
+                }));
+      }
+      return ImmutableList.copyOf(Futures.allAsList(futures).get());
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      Throwables.propagateIfInstanceOf(e.getCause(), InterruptedException.class);
+      throw Throwables.propagate(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Splits ocamldep's output into the lines for each of {@code inputs}, by the targets they name.
+   *
+   * @return the lines for each input, or absent if some line can't be told apart.
+   */
+  private static Optional<ImmutableMap<Path, String>> attributeLines(
+      String output,
+      List<Path> inputs) {
+    Map<String, Path> inputsByName = new HashMap<>();
+    Map<Path, StringBuilder> lines = new HashMap<>();
+    for (Path input : inputs) {
+      inputsByName.put(input.toString(), input);
+      lines.put(input, new StringBuilder());
+    }
+    for (String line : Splitter.on(LINE_SEPARATOR).omitEmptyStrings().split(output)) {
+      Optional<Path> input = getInputForLine(line, inputsByName);
+      if (!input.isPresent()) {
+        return Optional.absent();
+      }
+      lines.get(input.get()).append(line).append(LINE_SEPARATOR);
+    }
+
+    ImmutableMap.Builder<Path, String> attributed = ImmutableMap.builder();
+    for (Map.Entry<Path, StringBuilder> entry : lines.entrySet()) {
+      attributed.put(entry.getKey(), entry.getValue().toString());
+    }
+    return Optional.of(attributed.build());
+  }
+
+  /**
+   * @return the input which {@code line}, e.g. {@code foo/bar.cmx: foo/baz.cmi}, describes.
+   */
+  private static Optional<Path> getInputForLine(String line, Map<String, Path> inputsByName) {
+    int separator = line.indexOf(':');
+    if (separator == -1) {
+      return Optional.absent();
+    }
+    for (String target :
+        Splitter.on(' ').omitEmptyStrings().split(line.substring(0, separator))) {
+      int extension = target.lastIndexOf('.');
+      if (extension == -1) {
+        continue;
+      }
+      String base = target.substring(0, extension);
+      boolean isInterface = target.endsWith(OCamlCompilables.OCAML_CMI);
+      Path preferred = inputsByName.get(
+          base + (isInterface ? OCamlCompilables.OCAML_MLI : OCamlCompilables.OCAML_ML));
+      Path other = inputsByName.get(
+          base + (isInterface ? OCamlCompilables.OCAML_ML : OCamlCompilables.OCAML_MLI));
+      if (preferred != null) {
+        return Optional.of(preferred);
+      } else if (other != null) {
+        return Optional.of(other);
+      }
+    }
+    return Optional.absent();
+  }
+
+  private void writeToCache(Path cacheFile, String contents) throws IOException {
+    // Write to a temporary file and move it into place, so concurrent builds never see half of it.
+    Path tmp = filesystem.createTempFile(cacheDir, "ocamldep", ".tmp");
+    try {
+      filesystem.writeContentsToPath(contents, tmp);
+      filesystem.move(tmp, cacheFile, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      filesystem.deleteFileAtPathIfExists(tmp);
+    }
+  }
+}
@@ -47,6 +47,7 @@ import com.facebook.buck.util.ProcessExecutor;
 import com.facebook.buck.util.Verbosity;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
+import com.google.common.base.Functions;
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
@@ -498,18 +499,38 @@ public class OCamlRuleBuilder {
   }
 
   private static ImmutableMap<Path, ImmutableList<Path>> getMLInputWithDeps(
-      Path baseDir,
+      final Path baseDir,
       OCamlBuildContext ocamlContext) {
     OCamlDepToolStep depToolStep = new OCamlDepToolStep(
         baseDir,
         ocamlContext.getSourcePathResolver(),
         ocamlContext.getOcamlDepTool().get(),
-        ocamlContext.getMLInput(),
+        /* input */ ImmutableList.<SourcePath>of(),
         ocamlContext.getIncludeFlags(/* isBytecode */ false, /* excludeDeps */ true));
-    ImmutableList<String> cmd = depToolStep.getShellCommandInternal(null);
-    Optional<String> depsString;
+    final ImmutableList<String> cmd = depToolStep.getShellCommandInternal(null);
+    ImmutableList<Path> mlInput =
+        ocamlContext.getSourcePathResolver().getAllAbsolutePaths(ocamlContext.getMLInput());
+    String depsString;
     try {
-      depsString = executeProcessAndGetStdout(baseDir, cmd);
+      depsString = new OCamlDepCache(ocamlContext.getProjectFilesystem()).getDependencies(
+          cmd,
+          mlInput,
+          new OCamlDepCache.DepTool() {
+            @Override
+            public String run(ImmutableList<Path> inputs)
+                throws IOException, InterruptedException {
+              Optional<String> stdout = executeProcessAndGetStdout(
+                  baseDir,
+                  ImmutableList.<String>builder()
+                      .addAll(cmd)
+                      .addAll(FluentIterable.from(inputs).transform(Functions.toStringFunction()))
+                      .build());
+              if (!stdout.isPresent()) {
+                throw new HumanReadableException("ocamldep execution failed");
+              }
+              return stdout.get();
+            }
+          });
     } catch (IOException e) {
       throw new HumanReadableException(
           e,
@@ -520,14 +541,8 @@ public class OCamlRuleBuilder {
           "Unable to calculate dependencies. ocamldep is interrupted: %s",
           Joiner.on(" ").join(cmd));
     }
-    if (depsString.isPresent()) {
-      OCamlDependencyGraphGenerator graphGenerator = new OCamlDependencyGraphGenerator();
-      return filterCurrentRuleInput(
-          ocamlContext.getSourcePathResolver().getAllAbsolutePaths(ocamlContext.getMLInput()),
-          graphGenerator.generateDependencyMap(depsString.get()));
-    } else {
-      throw new HumanReadableException("ocamldep execution failed");
-    }
+    OCamlDependencyGraphGenerator graphGenerator = new OCamlDependencyGraphGenerator();
+    return filterCurrentRuleInput(mlInput, graphGenerator.generateDependencyMap(depsString));
   }
 
   private static ImmutableMap<Path, ImmutableList<Path>> filterCurrentRuleInput(
@@ -17,13 +17,17 @@
 package com.facebook.buck.parser;
 
 import com.facebook.buck.model.BuildTarget;
+import com.facebook.buck.model.BuildTargetInterner;
 import com.facebook.buck.model.FlavorParser;
 import com.facebook.buck.model.ImmutableFlavor;
 import com.facebook.buck.model.UnflavoredBuildTarget;
 import com.google.common.base.Function;
+import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableSet;
 
 import java.nio.file.Path;
@@ -31,10 +35,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 public class BuildTargetParser {
 
   /**
-   * The BuildTargetParser is stateless, so this single instance can be shared.
+   * The BuildTargetParser only remembers targets it has already parsed, so this single instance
+   * can be shared.
    */
   public static final BuildTargetParser INSTANCE = new BuildTargetParser();
 
@@ -43,10 +50,19 @@ public class BuildTargetParser {
   private static final Splitter BUILD_RULE_SEPARATOR_SPLITTER = Splitter.on(BUILD_RULE_SEPARATOR);
   private static final Set<String> INVALID_BASE_NAME_PARTS = ImmutableSet.of("", ".", "..");
 
+  // Enough for the deps of a large graph, without growing without bound in the daemon.
+  private static final int MAX_CACHED_TARGETS = 100000;
+
   private final FlavorParser flavorParser = new FlavorParser();
 
+  // The same dep strings are parsed over and over as build files are coerced, so keep what they
+  // parsed to.  The targets themselves are interned, so that equal ones are shared.
+  private final Cache<ParseKey, BuildTarget> parsedTargets = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_TARGETS)
+      .build();
+
   private BuildTargetParser() {
-    // this is stateless. There's no need to do anything other than grab the instance needed.
+    // There's no need to do anything other than grab the instance needed.
   }
 
   /**
@@ -85,6 +101,34 @@ public class BuildTargetParser {
       throw new BuildTargetParseException("Cell name must not be empty.");
     }
 
+    // Work out the cell path every time, as that also checks that the cell is visible from the
+    // cell owning the build file.
+    Path cellPath = cellNames.apply(givenCellName);
+    String contextBaseName =
+        targetAfterCell.startsWith(BUILD_RULE_SEPARATOR) ?
+            buildTargetPatternParser.getBaseName() :
+            null;
+    ParseKey key = new ParseKey(cellPath, givenCellName, contextBaseName, targetAfterCell);
+    BuildTarget target = parsedTargets.getIfPresent(key);
+    if (target == null) {
+      target = BuildTargetInterner.intern(
+          parse(
+              buildTargetName,
+              targetAfterCell,
+              buildTargetPatternParser,
+              cellPath,
+              givenCellName));
+      parsedTargets.put(key, target);
+    }
+    return target;
+  }
+
+  private BuildTarget parse(
+      String buildTargetName,
+      String targetAfterCell,
+      BuildTargetPatternParser<?> buildTargetPatternParser,
+      Path cellPath,
+      Optional<String> givenCellName) {
     List<String> parts = BUILD_RULE_SEPARATOR_SPLITTER.splitToList(targetAfterCell);
     if (parts.size() != 2) {
       throw new BuildTargetParseException(String.format(
@@ -111,7 +155,7 @@ public class BuildTargetParser {
             // Set the cell path correctly. Because the cellNames comes from the owning cell we can
             // be sure that if this doesn't throw an exception the target cell is visible to the
             // owning cell.
-            .setCellPath(cellNames.apply(givenCellName))
+            .setCellPath(cellPath)
             // We are setting the cell name so we can print it later
             .setCell(givenCellName);
 
@@ -143,4 +187,50 @@ public class BuildTargetParser {
       }
     }
   }
+
+  /**
+   * What a target string parses to depends on: the cell it names, the base name of the build file
+   * it's in if it's relative, and the rest of the string.
+   */
+  private static final class ParseKey {
+    private final Path cellPath;
+    private final Optional<String> cellName;
+    @Nullable
+    private final String contextBaseName;
+    private final String targetAfterCell;
+    private final int hashCode;
+
+    private ParseKey(
+        Path cellPath,
+        Optional<String> cellName,
+        @Nullable String contextBaseName,
+        String targetAfterCell) {
+      this.cellPath = cellPath;
+      this.cellName = cellName;
+      this.contextBaseName = contextBaseName;
+      this.targetAfterCell = targetAfterCell;
+      this.hashCode = Objects.hashCode(cellPath, cellName, contextBaseName, targetAfterCell);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof ParseKey)) {
+        return false;
+      }
+      ParseKey that = (ParseKey) obj;
+      return hashCode == that.hashCode &&
+          targetAfterCell.equals(that.targetAfterCell) &&
+          Objects.equal(contextBaseName, that.contextBaseName) &&
+          cellName.equals(that.cellName) &&
+          cellPath.equals(that.cellPath);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
 }
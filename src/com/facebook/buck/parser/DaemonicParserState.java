@@ -496,6 +496,7 @@ class DaemonicParserState implements ParsePipeline.Cache {
         // We only care about creation and deletion events because modified should result in a rule
         // key change.  For parsing, these are the only events we need to care about.
         if (isPathCreateOrDeleteEvent(event)) {
+          cell.getFilesystem().getDirectorySnapshot().invalidate(path);
           BuildFileTree buildFiles = buildFileTrees.get(cell);
 
           if (path.endsWith(cell.getBuildFileName())) {
@@ -752,6 +753,10 @@ class DaemonicParserState implements ParsePipeline.Cache {
       }
       buildFileConfigs.clear();
 
+      for (Cell cell : knownCells) {
+        cell.getFilesystem().getDirectorySnapshot().invalidateAll();
+      }
+
       if (invalidated) {
         LOG.debug("Cache data invalidated.");
       } else {
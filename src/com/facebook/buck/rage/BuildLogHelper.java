@@ -17,6 +17,7 @@
 package com.facebook.buck.rage;
 
 import com.facebook.buck.io.ProjectFilesystem;
+import com.facebook.buck.log.BinaryLogReader;
 import com.facebook.buck.model.BuildId;
 import com.facebook.buck.util.BuckConstant;
 import com.facebook.buck.util.immutables.BuckStyleImmutable;
@@ -30,6 +31,7 @@ import org.immutables.value.Value;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Date;
@@ -84,7 +86,7 @@ public class BuildLogHelper {
   private Optional<Matcher> extractFirstMatchingLine(
       Path logPath,
       Pattern pattern) throws IOException {
-    try (Reader reader = projectFilesystem.getReaderIfFileExists(logPath).get();
+    try (Reader reader = openLog(logPath);
         BufferedReader bufferedReader = new BufferedReader(reader)) {
       for (int i = 0; i < MAX_LINES_TO_SCAN_FOR_LOG_HEADER; ++i) {
         String line = bufferedReader.readLine();
@@ -100,6 +102,25 @@ public class BuildLogHelper {
     return Optional.absent();
   }
 
+  private Reader openLog(Path logPath) throws IOException {
+    if (!BinaryLogReader.isBinaryLog(logPath)) {
+      return projectFilesystem.getReaderIfFileExists(logPath).get();
+    }
+    // Each record is at least a line, so there's no need to decode more records than that.
+    StringBuilder text = new StringBuilder();
+    try (BinaryLogReader reader =
+             new BinaryLogReader(projectFilesystem.newFileInputStream(logPath))) {
+      for (int i = 0; i < MAX_LINES_TO_SCAN_FOR_LOG_HEADER; ++i) {
+        String record = reader.readRecord();
+        if (record == null) {
+          break;
+        }
+        text.append(record);
+      }
+    }
+    return new StringReader(text.toString());
+  }
+
   private Optional<BuildId> getBuildId(Path logPath) throws IOException {
     return extractFirstMatchingLine(logPath, LOG_LINE_PATTERN)
         .transform(
@@ -19,6 +19,7 @@ package com.facebook.buck.rage;
 import static com.facebook.buck.zip.ZipOutputStreams.HandleDuplicates.OVERWRITE_EXISTING;
 
 import com.facebook.buck.io.ProjectFilesystem;
+import com.facebook.buck.log.BinaryLogReader;
 import com.facebook.buck.model.BuildId;
 import com.facebook.buck.util.BuckConstant;
 import com.facebook.buck.util.HumanReadableException;
@@ -42,6 +43,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.nio.file.Path;
@@ -71,6 +74,10 @@ public class DefectReporter {
       ImmutableSet<Path> paths) throws IOException {
     for (Path logFile : paths) {
       Preconditions.checkArgument(!logFile.isAbsolute(), "Should be a relative Path.", logFile);
+      if (BinaryLogReader.isBinaryLog(logFile)) {
+        addBinaryLogToArchive(out, logFile);
+        continue;
+      }
       out.putNextEntry(new CustomZipEntry(logFile));
       try (InputStream input = filesystem.newFileInputStream(logFile)) {
         ByteStreams.copy(input, out);
@@ -79,6 +86,26 @@ public class DefectReporter {
     }
   }
 
+  /**
+   * Adds a binary log to the report as the text log it stands for, so it can be read as it is.
+   */
+  private void addBinaryLogToArchive(CustomZipOutputStream out, Path logFile) throws IOException {
+    String fileName = logFile.getFileName().toString();
+    out.putNextEntry(
+        new CustomZipEntry(
+            logFile.resolveSibling(
+                fileName.substring(
+                    0,
+                    fileName.length() - BinaryLogReader.BINARY_LOG_EXTENSION.length()) +
+                ".log")));
+    try (BinaryLogReader reader = new BinaryLogReader(filesystem.newFileInputStream(logFile))) {
+      Writer writer = new OutputStreamWriter(out, Charsets.UTF_8);
+      reader.copyTo(writer);
+      writer.flush();
+    }
+    out.closeEntry();
+  }
+
   public DefectSubmitResult submitReport(DefectReport defectReport) throws IOException {
     if (rageConfig.getReportUploadUri().isPresent()) {
       URI uri = rageConfig.getReportUploadUri().get();
@@ -32,10 +32,12 @@ import com.facebook.buck.util.immutables.DeprecatedBuckStyleImmutable;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 import org.immutables.value.Value;
 
@@ -86,6 +88,13 @@ public abstract class BuildContext {
   protected abstract ObjectMapper getObjectMapper();
   protected abstract Map<String, String> getEnvironment();
 
+  /**
+   * @return where to compress rules' outputs when packaging them to store in the cache, if they
+   *     are to be packaged with {@link ProjectFilesystem#createArtifactZip} rather than deflated
+   *     one after another by {@link ProjectFilesystem#createZip}.
+   */
+  public abstract Optional<ListeningExecutorService> getArtifactPackagingExecutor();
+
   @Value.Default
   public boolean isKeepGoing() {
     return false;
@@ -119,7 +128,8 @@ public abstract class BuildContext {
         getClock(),
         getBuildId(),
         getObjectMapper(),
-        ImmutableMap.copyOf(getEnvironment()));
+        ImmutableMap.copyOf(getEnvironment()),
+        getArtifactPackagingExecutor());
   }
 
   public void logBuildInfo(String format, Object... args) {
@@ -52,6 +52,7 @@ import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 import java.io.IOException;
 import java.nio.file.FileVisitResult;
@@ -82,6 +83,9 @@ public class BuildInfoRecorder {
 
   private static final String BUCK_CACHE_DATA_ENV_VAR = "BUCK_CACHE_DATA";
 
+  // How many zip entries may be waiting to be written while others are compressed.
+  private static final int MAX_PENDING_ZIP_ENTRIES = Runtime.getRuntime().availableProcessors();
+
   private final BuildTarget buildTarget;
   private final Path pathToMetadataDirectory;
   private final ProjectFilesystem projectFilesystem;
@@ -92,6 +96,7 @@ public class BuildInfoRecorder {
   private final Map<String, String> metadataToWrite;
   private final Map<String, String> buildMetadata;
   private final AtomicBoolean warnedUserOfCacheStoreFailure;
+  private final Optional<ListeningExecutorService> packagingExecutor;
 
   /**
    * Every value in this set is a path relative to the project root.
@@ -104,6 +109,28 @@ public class BuildInfoRecorder {
       BuildId buildId,
       ObjectMapper objectMapper,
       ImmutableMap<String, String> environment) {
+    this(
+        buildTarget,
+        projectFilesystem,
+        clock,
+        buildId,
+        objectMapper,
+        environment,
+        Optional.<ListeningExecutorService>absent());
+  }
+
+  /**
+   * @param packagingExecutor where to compress the outputs when packaging them for the cache, if
+   *     already compressed outputs are to be stored as they are and the rest deflated in parallel.
+   *     Otherwise, they are all deflated one after another.
+   */
+  BuildInfoRecorder(BuildTarget buildTarget,
+      ProjectFilesystem projectFilesystem,
+      Clock clock,
+      BuildId buildId,
+      ObjectMapper objectMapper,
+      ImmutableMap<String, String> environment,
+      Optional<ListeningExecutorService> packagingExecutor) {
     this.buildTarget = buildTarget;
     this.pathToMetadataDirectory = BuildInfo.getPathToMetadataDirectory(buildTarget);
     this.projectFilesystem = projectFilesystem;
@@ -122,6 +149,7 @@ public class BuildInfoRecorder {
     this.buildMetadata = Maps.newLinkedHashMap();
     this.pathsToOutputs = Sets.newHashSet();
     this.warnedUserOfCacheStoreFailure = new AtomicBoolean(false);
+    this.packagingExecutor = packagingExecutor;
   }
 
   private String toJson(Object value) {
@@ -300,13 +328,26 @@ public class BuildInfoRecorder {
     final Path zip;
     ImmutableSet<Path> pathsToIncludeInZip = ImmutableSet.of();
     ImmutableMap<String, String> buildMetadata;
+    long uncompressedSize = 0;
+    long compressedSize = 0;
+    long storedSize = 0;
     try {
       pathsToIncludeInZip = getRecordedDirsAndFiles();
       zip = Files.createTempFile(
           "buck_artifact_" + MoreFiles.sanitize(buildTarget.getShortName()),
           ".zip");
       buildMetadata = getBuildMetadata();
-      projectFilesystem.createZip(pathsToIncludeInZip, zip, ImmutableMap.<Path, String>of());
+      if (packagingExecutor.isPresent()) {
+        storedSize = projectFilesystem.createArtifactZip(
+            pathsToIncludeInZip,
+            zip,
+            packagingExecutor.get(),
+            MAX_PENDING_ZIP_ENTRIES);
+      } else {
+        projectFilesystem.createZip(pathsToIncludeInZip, zip);
+      }
+      uncompressedSize = getOutputSize();
+      compressedSize = Files.size(zip);
     } catch (IOException e) {
       eventBus.post(ConsoleEvent.info("Failed to create zip for %s containing:\n%s",
           buildTarget,
@@ -314,7 +355,12 @@ public class BuildInfoRecorder {
       e.printStackTrace();
       return;
     } finally {
-      eventBus.post(ArtifactCompressionEvent.finished(started));
+      eventBus.post(
+          ArtifactCompressionEvent.finished(
+              started,
+              uncompressedSize,
+              compressedSize,
+              storedSize));
     }
 
     // Store the artifact, including any additional metadata.
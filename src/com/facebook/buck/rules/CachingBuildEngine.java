@@ -123,6 +123,13 @@ public class CachingBuildEngine implements BuildEngine {
   private final ConcurrentMap<BuildTarget, ListenableFuture<RuleKey>> ruleKeys =
       Maps.newConcurrentMap();
 
+  /**
+   * Results which complete as soon as a rule has published its output for rules pipelined on it
+   * (see {@link SupportsPipelining}), or otherwise when the rule itself has been built.
+   */
+  private final ConcurrentMap<BuildTarget, SettableFuture<BuildResult>> publishedResults =
+      Maps.newConcurrentMap();
+
   private final RuleDepsCache ruleDeps;
   private final Optional<UnskippedRulesTracker> unskippedRulesTracker;
 
@@ -260,6 +267,31 @@ public class CachingBuildEngine implements BuildEngine {
       BuildRule rule,
       BuildContext context,
       ConcurrentLinkedQueue<ListenableFuture<Void>> asyncCallbacks) {
+    return getDepResults(
+        rule,
+        ImmutableSortedSet.<BuildRule>of(),
+        context,
+        asyncCallbacks);
+  }
+
+  // Dispatch and return a future resolving to a list of the results this rule needs before it can
+  // start building: the published results of its pipelined deps, and the results of the rest.
+  private ListenableFuture<List<BuildResult>> getDepResultsNeededToStart(
+      BuildRule rule,
+      BuildContext context,
+      ConcurrentLinkedQueue<ListenableFuture<Void>> asyncCallbacks) {
+    return getDepResults(
+        rule,
+        getPipelinedDeps(rule),
+        context,
+        asyncCallbacks);
+  }
+
+  private ListenableFuture<List<BuildResult>> getDepResults(
+      BuildRule rule,
+      ImmutableSortedSet<BuildRule> pipelinedDeps,
+      BuildContext context,
+      ConcurrentLinkedQueue<ListenableFuture<Void>> asyncCallbacks) {
     List<ListenableFuture<BuildResult>> depResults =
         Lists.newArrayListWithExpectedSize(rule.getDeps().size());
     Iterable<BuildRule> deps = rule.getDeps();
@@ -272,11 +304,51 @@ public class CachingBuildEngine implements BuildEngine {
         break;
     }
     for (BuildRule dep : deps) {
-      depResults.add(getBuildRuleResultWithRuntimeDeps(dep, context, asyncCallbacks));
+      ListenableFuture<BuildResult> depResult =
+          getBuildRuleResultWithRuntimeDeps(dep, context, asyncCallbacks);
+      if (pipelinedDeps.contains(dep)) {
+        SettableFuture<BuildResult> publishedResult = getPublishedResult(dep);
+        publishWhenDone(depResult, publishedResult);
+        depResult = publishedResult;
+      }
+      depResults.add(depResult);
     }
     return Futures.allAsList(depResults);
   }
 
+  private static ImmutableSortedSet<BuildRule> getPipelinedDeps(BuildRule rule) {
+    if (rule instanceof SupportsPipelining) {
+      return ((SupportsPipelining) rule).getPipelinedDeps();
+    }
+    return ImmutableSortedSet.of();
+  }
+
+  private SettableFuture<BuildResult> getPublishedResult(BuildRule rule) {
+    SettableFuture<BuildResult> result = SettableFuture.create();
+    SettableFuture<BuildResult> existing =
+        publishedResults.putIfAbsent(rule.getBuildTarget(), result);
+    return existing != null ? existing : result;
+  }
+
+  // Complete the published result with the given one, unless the rule has already published.
+  private static void publishWhenDone(
+      ListenableFuture<BuildResult> result,
+      final SettableFuture<BuildResult> publishedResult) {
+    Futures.addCallback(
+        result,
+        new FutureCallback<BuildResult>() {
+          @Override
+          public void onSuccess(BuildResult result) {
+            publishedResult.set(result);
+          }
+
+          @Override
+          public void onFailure(Throwable t) {
+            publishedResult.setException(t);
+          }
+        });
+  }
+
   private static List<BuildRule> shuffled(Iterable<BuildRule> rules) {
     ArrayList<BuildRule> rulesList = Lists.newArrayList(rules);
     Collections.shuffle(rulesList);
@@ -341,7 +413,7 @@ public class CachingBuildEngine implements BuildEngine {
     // 3. Build deps.
     ListenableFuture<List<BuildResult>> getDepResults =
         Futures.transformAsync(
-            getDepResults(rule, context, asyncCallbacks),
+            getDepResultsNeededToStart(rule, context, asyncCallbacks),
             new AsyncFunction<List<BuildResult>, List<BuildResult>>() {
               @Override
               public ListenableFuture<List<BuildResult>> apply(List<BuildResult> input) {
@@ -545,7 +617,11 @@ public class CachingBuildEngine implements BuildEngine {
                                  context.getEventBus(),
                                  rule,
                                  ruleKeyFactory.defaultRuleKeyBuilderFactory)) {
-                      executeCommandsNowThatDepsAreBuilt(rule, context, buildableContext);
+                      executeCommandsNowThatDepsAreBuilt(
+                          rule,
+                          context,
+                          buildableContext,
+                          cacheResult);
                       return BuildResult.success(
                           rule,
                           BuildRuleSuccessType.BUILT_LOCALLY,
@@ -588,6 +664,41 @@ public class CachingBuildEngine implements BuildEngine {
               buildableContext,
               asyncCallbacks);
 
+    // Rules pipelined on this one may start once it has built, if it didn't publish earlier.
+    if (rule instanceof SupportsPipelining) {
+      publishWhenDone(buildResult, getPublishedResult(rule));
+    }
+
+    // A rule which started building before its pipelined deps finished isn't built until they
+    // have, and is canceled if any of them fail.
+    if (!getPipelinedDeps(rule).isEmpty()) {
+      final ListenableFuture<List<BuildResult>> fullDepResults =
+          getDepResults(rule, context, asyncCallbacks);
+      buildResult =
+          Futures.transformAsync(
+              buildResult,
+              new AsyncFunction<BuildResult, BuildResult>() {
+                @Override
+                public ListenableFuture<BuildResult> apply(final BuildResult result) {
+                  return Futures.transform(
+                      fullDepResults,
+                      new Function<List<BuildResult>, BuildResult>() {
+                        @Override
+                        public BuildResult apply(List<BuildResult> depResults) {
+                          for (BuildResult depResult : depResults) {
+                            if (depResult.getStatus() != BuildRuleStatus.SUCCESS) {
+                              return BuildResult.canceled(
+                                  rule,
+                                  Preconditions.checkNotNull(depResult.getFailure()));
+                            }
+                          }
+                          return result;
+                        }
+                      });
+                }
+              });
+    }
+
     // If we're performing a deep build, guarantee that all dependencies will *always* get
     // materialized locally by chaining up to our result future.
     if (buildMode == BuildMode.DEEP || buildMode == BuildMode.POPULATE_FROM_REMOTE_CACHE) {
@@ -1176,7 +1287,8 @@ public class CachingBuildEngine implements BuildEngine {
   private void executeCommandsNowThatDepsAreBuilt(
       BuildRule rule,
       BuildContext context,
-      BuildableContext buildableContext)
+      BuildableContext buildableContext,
+      CacheResult cacheResult)
       throws InterruptedException, StepFailedException {
 
     LOG.debug("Building locally: %s", rule);
@@ -1197,6 +1309,12 @@ public class CachingBuildEngine implements BuildEngine {
         Thread.currentThread().interrupt();
         throw new InterruptedException();
       }
+
+      // Let any rules pipelined on this one start building while we run the remaining steps.
+      if (step instanceof PublishingStep) {
+        getPublishedResult(rule).set(
+            BuildResult.success(rule, BuildRuleSuccessType.BUILT_LOCALLY, cacheResult));
+      }
     }
 
     long end = System.nanoTime();
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.rules;
+
+import com.google.common.collect.ImmutableSortedSet;
+
+/**
+ * An interface used by {@link BuildRule}s which can start building before some of their deps have
+ * finished, as soon as those deps have run their {@link PublishingStep}.  The rule is still only
+ * considered built once all of its deps have finished building.
+ */
+public interface SupportsPipelining extends BuildRule {
+
+  /**
+   * @return the subset of this rule's deps which it only needs to have published their output,
+   *     rather than to have finished building, before it can start building.
+   */
+  ImmutableSortedSet<BuildRule> getPipelinedDeps();
+
+}
@@ -49,7 +49,19 @@ public abstract class TestRunEvent extends AbstractBuckEvent implements WorkAdva
   public static Finished finished(
       ImmutableSet<String> targets,
       List<TestResults> completedResults) {
-    return new Finished(targets.hashCode(), completedResults);
+    return finished(targets, completedResults, 0, 0);
+  }
+
+  public static Finished finished(
+      ImmutableSet<String> targets,
+      List<TestResults> completedResults,
+      long predictedWallTimeMillis,
+      long actualWallTimeMillis) {
+    return new Finished(
+        targets.hashCode(),
+        completedResults,
+        predictedWallTimeMillis,
+        actualWallTimeMillis);
   }
 
   public static class Started extends TestRunEvent {
@@ -102,10 +114,18 @@ public abstract class TestRunEvent extends AbstractBuckEvent implements WorkAdva
       implements TestRunFinishedEventInterface<TestResults> {
 
     private final List<TestResults> completedResults;
+    private final long predictedWallTimeMillis;
+    private final long actualWallTimeMillis;
 
-    public Finished(int secret, List<TestResults> completedResults) {
+    public Finished(
+        int secret,
+        List<TestResults> completedResults,
+        long predictedWallTimeMillis,
+        long actualWallTimeMillis) {
       super(secret);
       this.completedResults = completedResults;
+      this.predictedWallTimeMillis = predictedWallTimeMillis;
+      this.actualWallTimeMillis = actualWallTimeMillis;
     }
 
     @Override
@@ -122,5 +142,20 @@ public abstract class TestRunEvent extends AbstractBuckEvent implements WorkAdva
     public List<TestResults> getResults() {
       return completedResults;
     }
+
+    /**
+     * @return how long the tests were expected to take, based on how long they took in previous
+     *     runs, or 0 if none of them have been run before.
+     */
+    public long getPredictedWallTimeMillis() {
+      return predictedWallTimeMillis;
+    }
+
+    /**
+     * @return how long the tests actually took to run.
+     */
+    public long getActualWallTimeMillis() {
+      return actualWallTimeMillis;
+    }
   }
 }
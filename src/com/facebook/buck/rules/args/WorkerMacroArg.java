@@ -92,4 +92,12 @@ public class WorkerMacroArg extends MacroArg {
   public String getJobArgs() {
     return jobArgs;
   }
+
+  public int getMaxWorkers() {
+    return workerTool.getMaxWorkers();
+  }
+
+  public boolean isMultiplexed() {
+    return workerTool.isMultiplexed();
+  }
 }
@@ -45,7 +45,7 @@ public class PathTypeCoercer extends LeafTypeCoercer<Path> {
 
       // Verify that the path exists
       try {
-        filesystem.getPathForRelativeExistingPath(normalizedPath);
+        filesystem.getPathForRelativeExistingSourcePath(normalizedPath);
       } catch (RuntimeException e) {
         throw new CoerceFailedException(
             String.format("no such file or directory '%s'", normalizedPath),
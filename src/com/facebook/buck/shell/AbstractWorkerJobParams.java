@@ -30,4 +30,14 @@ interface AbstractWorkerJobParams {
   String getStartupArgs();
   @Value.Parameter
   String getJobArgs();
+  /**
+   * @return the most processes of the tool to run at once.
+   */
+  @Value.Parameter
+  int getMaxWorkers();
+  /**
+   * @return whether the tool speaks version 1 of the protocol, and so can run several jobs at once.
+   */
+  @Value.Parameter
+  boolean isMultiplexed();
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.shell;
+
+import com.facebook.buck.util.immutables.BuckStyleTuple;
+
+import org.immutables.value.Value;
+
+/**
+ * How much use a worker process in a {@link WorkerProcessPool} has been put to.
+ */
+@Value.Immutable
+@BuckStyleTuple
+abstract class AbstractWorkerProcessUtilization {
+  /**
+   * @return the number of jobs the process has run.
+   */
+  @Value.Parameter
+  public abstract int getJobCount();
+
+  /**
+   * @return how long the process has spent running at least one job.
+   */
+  @Value.Parameter
+  public abstract long getBusyMillis();
+
+  /**
+   * @return how long the process has been in the pool.
+   */
+  @Value.Parameter
+  public abstract long getLifetimeMillis();
+
+  /**
+   * @return the fraction of its lifetime that the process has spent running jobs.
+   */
+  public double getBusyFraction() {
+    return getLifetimeMillis() == 0 ? 0 : (double) getBusyMillis() / getLifetimeMillis();
+  }
+}
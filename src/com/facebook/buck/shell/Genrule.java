@@ -351,7 +351,9 @@ public class Genrule extends AbstractBuildRule
                 return WorkerJobParams.of(
                     workerMacroArg.getStartupCommand(),
                     workerMacroArg.getStartupArgs(),
-                    workerMacroArg.getJobArgs());
+                    workerMacroArg.getJobArgs(),
+                    workerMacroArg.getMaxWorkers(),
+                    workerMacroArg.isMultiplexed());
               }
             });
   }
@@ -45,8 +45,10 @@ public class WorkerProcess {
   private final ProcessExecutorParams processParams;
   private final ProjectFilesystem filesystem;
   private final Path tmpPath;
+  private final boolean multiplexed;
   private final AtomicInteger currentMessageID = new AtomicInteger();
   private boolean handshakePerformed = false;
+  private int jobCount = 0;
   @Nullable
   private WorkerProcessProtocol protocol;
   @Nullable
@@ -57,10 +59,28 @@ public class WorkerProcess {
       ProcessExecutorParams processParams,
       ProjectFilesystem filesystem,
       Path tmpPath) throws IOException {
+    this(executor, processParams, filesystem, tmpPath, /* multiplexed */ false);
+  }
+
+  /**
+   * @param multiplexed whether the process speaks version 1 of the protocol, and so can run
+   *     several jobs at once, rather than version 0, which runs one job at a time.
+   */
+  public WorkerProcess(
+      ProcessExecutor executor,
+      ProcessExecutorParams processParams,
+      ProjectFilesystem filesystem,
+      Path tmpPath,
+      boolean multiplexed) throws IOException {
     this.executor = executor;
     this.processParams = processParams;
     this.filesystem = filesystem;
     this.tmpPath = tmpPath;
+    this.multiplexed = multiplexed;
+  }
+
+  public boolean isMultiplexed() {
+    return multiplexed;
   }
 
   public synchronized void ensureLaunchAndHandshake() throws IOException {
@@ -75,11 +95,17 @@ public class WorkerProcess {
         new BufferedWriter(new OutputStreamWriter(launchedProcess.getOutputStream())));
     JsonReader processStdoutReader = new JsonReader(
         new BufferedReader(new InputStreamReader(launchedProcess.getInputStream())));
-    protocol = new WorkerProcessProtocolZero(
-        executor,
-        launchedProcess,
-        processStdinWriter,
-        processStdoutReader);
+    protocol = multiplexed ?
+        new WorkerProcessProtocolOne(
+            executor,
+            launchedProcess,
+            processStdinWriter,
+            processStdoutReader) :
+        new WorkerProcessProtocolZero(
+            executor,
+            launchedProcess,
+            processStdinWriter,
+            processStdoutReader);
 
     int messageID = currentMessageID.getAndAdd(1);
     LOG.debug("Sending handshake to process %d", this.hashCode());
@@ -89,11 +115,20 @@ public class WorkerProcess {
     handshakePerformed = true;
   }
 
-  public synchronized WorkerJobResult submitAndWaitForJob(String jobArgs) throws IOException {
-    assert protocol != null :
-        "Tried to submit a job to the worker process before the handshake was performed.";
-
-    int messageID = currentMessageID.getAndAdd(1);
+  /**
+   * Runs a job in the process and waits for it to finish.  Unless the process is multiplexed, jobs
+   * submitted from several threads at once run one after the other.
+   */
+  public WorkerJobResult submitAndWaitForJob(String jobArgs) throws IOException {
+    WorkerProcessProtocol protocol;
+    int messageID;
+    synchronized (this) {
+      protocol = this.protocol;
+      assert protocol != null :
+          "Tried to submit a job to the worker process before the handshake was performed.";
+      messageID = currentMessageID.getAndAdd(1);
+      jobCount++;
+    }
     Path argsPath = Paths.get(
         tmpPath.toString(),
         String.format("%d.args", messageID));
@@ -110,11 +145,14 @@ public class WorkerProcess {
         messageID,
         this.hashCode(),
         jobArgs);
-    protocol.sendCommand(messageID, argsPath, stdoutPath, stderrPath);
-    LOG.debug("Receiving response for job %d from process %d",
-        messageID,
-        this.hashCode());
-    int exitCode = protocol.receiveCommandResponse(messageID);
+    int exitCode;
+    if (multiplexed) {
+      exitCode = sendAndReceiveCommand(protocol, messageID, argsPath, stdoutPath, stderrPath);
+    } else {
+      synchronized (this) {
+        exitCode = sendAndReceiveCommand(protocol, messageID, argsPath, stdoutPath, stderrPath);
+      }
+    }
     Optional<String> stdout = filesystem.readFileIfItExists(stdoutPath);
     Optional<String> stderr = filesystem.readFileIfItExists(stderrPath);
     LOG.debug("Job %d for process %d finished \n" +
@@ -130,6 +168,26 @@ public class WorkerProcess {
     return WorkerJobResult.of(exitCode, stdout, stderr);
   }
 
+  private int sendAndReceiveCommand(
+      WorkerProcessProtocol protocol,
+      int messageID,
+      Path argsPath,
+      Path stdoutPath,
+      Path stderrPath) throws IOException {
+    protocol.sendCommand(messageID, argsPath, stdoutPath, stderrPath);
+    LOG.debug("Receiving response for job %d from process %d",
+        messageID,
+        this.hashCode());
+    return protocol.receiveCommandResponse(messageID);
+  }
+
+  /**
+   * @return the number of jobs which have been submitted to this process.
+   */
+  public synchronized int getJobCount() {
+    return jobCount;
+  }
+
   public void close() throws IOException {
     assert protocol != null :
         "Tried to close the worker process before the handshake was performed.";
@@ -138,7 +196,7 @@ public class WorkerProcess {
   }
 
   @VisibleForTesting
-  void setProtocol(WorkerProcessProtocol protocolMock) {
+  synchronized void setProtocol(WorkerProcessProtocol protocolMock) {
     this.protocol = protocolMock;
   }
 
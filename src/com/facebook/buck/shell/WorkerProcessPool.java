@@ -0,0 +1,296 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.shell;
+
+import com.facebook.buck.log.Logger;
+import com.facebook.buck.timing.Clock;
+import com.facebook.buck.util.HumanReadableException;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * The worker processes which run one worker tool, of which there are at most a given number.
+ * <p>
+ * A job borrows a process from the pool and returns it once it's done.  A process which speaks
+ * version 0 of the protocol runs one job at a time, so jobs wait for a process when all of them
+ * are busy and the pool is full.  A multiplexed process can run any number of jobs at once, so when
+ * the pool is full, jobs share the process which is running the fewest.
+ * <p>
+ * Processes which have been idle for longer than the idle timeout are closed, although the pool
+ * always keeps one, so that a tool which is used on and off through a build is only started once.
+ */
+public abstract class WorkerProcessPool implements Closeable {
+
+  private static final Logger LOG = Logger.get(WorkerProcessPool.class);
+
+  private final String name;
+  private final int maxWorkers;
+  private final long idleTimeoutMillis;
+  private final Clock clock;
+
+  // Guarded by this.
+  private final List<PooledWorker> workers = new ArrayList<>();
+  private int launchingWorkers = 0;
+
+  /**
+   * @param name names the pool in logs.
+   * @param maxWorkers the most processes the pool runs at once.
+   * @param idleTimeoutMillis how long a process may be idle before it's closed.
+   */
+  public WorkerProcessPool(String name, int maxWorkers, long idleTimeoutMillis, Clock clock) {
+    Preconditions.checkArgument(maxWorkers > 0, "A worker pool needs at least one worker.");
+    this.name = name;
+    this.maxWorkers = maxWorkers;
+    this.idleTimeoutMillis = idleTimeoutMillis;
+    this.clock = clock;
+  }
+
+  /**
+   * Launches a new process for the pool, ready to run jobs.
+   */
+  protected abstract WorkerProcess startWorkerProcess() throws IOException;
+
+  public int getMaxWorkers() {
+    return maxWorkers;
+  }
+
+  /**
+   * Takes a process to run a job in, starting one if all are busy and the pool isn't full, or
+   * waiting for one to become free otherwise.  The process must be handed back through
+   * {@link #returnWorkerProcess(WorkerProcess)} or {@link #destroyWorkerProcess(WorkerProcess)}.
+   */
+  public WorkerProcess borrowWorkerProcess() throws IOException, InterruptedException {
+    reapIdleWorkers();
+    synchronized (this) {
+      while (true) {
+        PooledWorker worker = findIdleWorker();
+        if (worker == null && workers.size() + launchingWorkers >= maxWorkers) {
+          worker = findLeastBusyMultiplexedWorker();
+        }
+        if (worker != null) {
+          worker.startJob(clock.currentTimeMillis());
+          return worker.process;
+        }
+        if (workers.size() + launchingWorkers < maxWorkers) {
+          launchingWorkers++;
+          break;
+        }
+        wait();
+      }
+    }
+
+    // Start the process without holding the lock, as a handshake may take a while.
+    WorkerProcess process;
+    try {
+      process = startWorkerProcess();
+    } catch (IOException | RuntimeException e) {
+      synchronized (this) {
+        launchingWorkers--;
+        notifyAll();
+      }
+      throw e;
+    }
+    synchronized (this) {
+      launchingWorkers--;
+      PooledWorker worker = new PooledWorker(process, clock.currentTimeMillis());
+      worker.startJob(clock.currentTimeMillis());
+      workers.add(worker);
+      // Jobs waiting to share a multiplexed process can now use this one.
+      notifyAll();
+      LOG.debug("Started worker process %d of %d for %s", workers.size(), maxWorkers, name);
+    }
+    return process;
+  }
+
+  /**
+   * Hands back a process after a job has run in it, so that other jobs can use it.
+   */
+  public void returnWorkerProcess(WorkerProcess process) {
+    synchronized (this) {
+      PooledWorker worker = getPooledWorker(process);
+      // A multiplexed process may have been destroyed by another of the jobs it was running.
+      if (worker != null) {
+        worker.finishJob(clock.currentTimeMillis());
+      }
+      notifyAll();
+    }
+    reapIdleWorkers();
+  }
+
+  /**
+   * Hands back a process which failed to run a job, and so can't be trusted to run another, and
+   * closes it.
+   */
+  public void destroyWorkerProcess(WorkerProcess process) {
+    PooledWorker worker;
+    synchronized (this) {
+      worker = getPooledWorker(process);
+      if (worker == null) {
+        return;
+      }
+      worker.finishJob(clock.currentTimeMillis());
+      workers.remove(worker);
+      notifyAll();
+    }
+    closeWorker(worker, "failed");
+  }
+
+  /**
+   * Closes the processes which have been idle for longer than the idle timeout, other than the
+   * last one left.
+   */
+  public void reapIdleWorkers() {
+    List<PooledWorker> reaped = new ArrayList<>();
+    synchronized (this) {
+      long now = clock.currentTimeMillis();
+      Iterator<PooledWorker> iterator = workers.iterator();
+      while (iterator.hasNext() && workers.size() > 1) {
+        PooledWorker worker = iterator.next();
+        if (worker.activeJobs == 0 && now - worker.idleSinceMillis >= idleTimeoutMillis) {
+          iterator.remove();
+          reaped.add(worker);
+        }
+      }
+    }
+    for (PooledWorker worker : reaped) {
+      closeWorker(worker, "idle");
+    }
+  }
+
+  /**
+   * @return how much use each of the pool's processes has been put to.
+   */
+  public synchronized ImmutableList<WorkerProcessUtilization> getUtilization() {
+    ImmutableList.Builder<WorkerProcessUtilization> utilization = ImmutableList.builder();
+    for (PooledWorker worker : workers) {
+      utilization.add(worker.getUtilization(clock.currentTimeMillis()));
+    }
+    return utilization.build();
+  }
+
+  @Override
+  public void close() {
+    List<PooledWorker> closing;
+    synchronized (this) {
+      closing = new ArrayList<>(workers);
+      workers.clear();
+    }
+    for (PooledWorker worker : closing) {
+      closeWorker(worker, "finished");
+    }
+  }
+
+  @Nullable
+  private PooledWorker findIdleWorker() {
+    // Prefer the most recently used process, so that the others stay idle and can be reaped.
+    PooledWorker idle = null;
+    for (PooledWorker worker : workers) {
+      if (worker.activeJobs == 0 &&
+          (idle == null || worker.idleSinceMillis > idle.idleSinceMillis)) {
+        idle = worker;
+      }
+    }
+    return idle;
+  }
+
+  @Nullable
+  private PooledWorker findLeastBusyMultiplexedWorker() {
+    PooledWorker leastBusy = null;
+    for (PooledWorker worker : workers) {
+      if (worker.process.isMultiplexed() &&
+          (leastBusy == null || worker.activeJobs < leastBusy.activeJobs)) {
+        leastBusy = worker;
+      }
+    }
+    return leastBusy;
+  }
+
+  @Nullable
+  private PooledWorker getPooledWorker(WorkerProcess process) {
+    for (PooledWorker worker : workers) {
+      if (worker.process == process) {
+        return worker;
+      }
+    }
+    return null;
+  }
+
+  private void closeWorker(PooledWorker worker, String reason) {
+    WorkerProcessUtilization utilization = worker.getUtilization(clock.currentTimeMillis());
+    LOG.info(
+        "Closing %s worker process for %s: ran %d jobs, busy for %d of %d ms (%d%%)",
+        reason,
+        name,
+        utilization.getJobCount(),
+        utilization.getBusyMillis(),
+        utilization.getLifetimeMillis(),
+        Math.round(utilization.getBusyFraction() * 100));
+    try {
+      worker.process.close();
+    } catch (IOException | HumanReadableException e) {
+      LOG.debug(e, "Failed to close worker process for %s", name);
+    }
+  }
+
+  /**
+   * A process in the pool, and the jobs it's running and has run.
+   */
+  private static class PooledWorker {
+    private final WorkerProcess process;
+    private final long startedMillis;
+    private int activeJobs = 0;
+    private int jobCount = 0;
+    private long busySinceMillis;
+    private long busyMillis = 0;
+    private long idleSinceMillis;
+
+    public PooledWorker(WorkerProcess process, long startedMillis) {
+      this.process = process;
+      this.startedMillis = startedMillis;
+      this.idleSinceMillis = startedMillis;
+    }
+
+    public void startJob(long now) {
+      if (activeJobs++ == 0) {
+        busySinceMillis = now;
+      }
+      jobCount++;
+    }
+
+    public void finishJob(long now) {
+      if (--activeJobs == 0) {
+        busyMillis += now - busySinceMillis;
+        idleSinceMillis = now;
+      }
+    }
+
+    public WorkerProcessUtilization getUtilization(long now) {
+      return WorkerProcessUtilization.of(
+          jobCount,
+          busyMillis + (activeJobs > 0 ? now - busySinceMillis : 0),
+          now - startedMillis);
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.facebook.buck.shell;
+
+import com.facebook.buck.log.Logger;
+import com.facebook.buck.util.HumanReadableException;
+import com.facebook.buck.util.ProcessExecutor;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.Nullable;
+
+/**
+ * Version 1 of the worker process protocol, which has the same messages as version 0, but lets a
+ * worker run several commands at once: Buck may send further commands before the worker has
+ * answered earlier ones, and the worker may answer them in any order, as the responses are matched
+ * to their commands by their ids.
+ * <p>
+ * Commands may be sent and their responses awaited from any number of threads at once.
+ */
+public class WorkerProcessProtocolOne extends WorkerProcessProtocolZero {
+
+  private static final Logger LOG = Logger.get(WorkerProcessProtocolOne.class);
+
+  private static final String PROTOCOL_VERSION = "1";
+
+  private final ConcurrentMap<Integer, SettableFuture<Integer>> responses =
+      new ConcurrentHashMap<>();
+  @Nullable
+  private volatile Thread responseReader;
+  @Nullable
+  private volatile Exception responseReaderFailure;
+
+  public WorkerProcessProtocolOne(
+      ProcessExecutor executor,
+      ProcessExecutor.LaunchedProcess launchedProcess,
+      JsonWriter processStdinWriter,
+      JsonReader processStdoutReader) {
+    super(executor, launchedProcess, processStdinWriter, processStdoutReader, PROTOCOL_VERSION);
+  }
+
+  @Override
+  public synchronized void sendHandshake(int handshakeID) throws IOException {
+    super.sendHandshake(handshakeID);
+  }
+
+  /**
+   * Receives the handshake and then starts reading the responses to commands in the background.
+   */
+  @Override
+  public void receiveHandshake(int handshakeID) throws IOException {
+    super.receiveHandshake(handshakeID);
+    Thread reader = new Thread(
+        new Runnable() {
+          @Override
+          public void run() {
+            readResponses();
+          }
+        },
+        "worker-process-responses-" + hashCode());
+    reader.setDaemon(true);
+    responseReader = reader;
+    reader.start();
+  }
+
+  @Override
+  public void sendCommand(
+      int messageID,
+      Path argsPath,
+      Path stdoutPath,
+      Path stderrPath) throws IOException {
+    responses.put(messageID, SettableFuture.<Integer>create());
+    // If the worker has already gone away, nothing would ever answer this command.
+    Exception failure = responseReaderFailure;
+    if (failure != null) {
+      responses.remove(messageID);
+      throw new HumanReadableException(
+          failure,
+          "Worker process can no longer run commands: %s",
+          failure.getMessage());
+    }
+    synchronized (this) {
+      super.sendCommand(messageID, argsPath, stdoutPath, stderrPath);
+    }
+  }
+
+  /**
+   * Waits for the worker to answer the given command, which must have been sent through
+   * {@link #sendCommand(int, Path, Path, Path)}.
+   */
+  @Override
+  public int receiveCommandResponse(int messageID) throws IOException {
+    SettableFuture<Integer> response = responses.get(messageID);
+    if (response == null) {
+      throw new IllegalStateException("No command was sent with id " + messageID);
+    }
+    try {
+      return Uninterruptibles.getUninterruptibly(response);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
+    } finally {
+      responses.remove(messageID);
+    }
+  }
+
+  /*
+    Sends the closing bracket for the JSON array and waits for the worker to answer any commands it
+    is still running and its own closing bracket, and then destroys the process.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      synchronized (this) {
+        processStdinWriter.endArray();
+        processStdinWriter.close();
+      }
+      Thread reader = responseReader;
+      if (reader != null) {
+        Uninterruptibles.joinUninterruptibly(reader);
+      }
+    } catch (IOException e) {
+      throw new HumanReadableException(e,
+          "Error while trying to close the process at the end of the build");
+    } finally {
+      executor.destroyLaunchedProcess(launchedProcess);
+    }
+  }
+
+  private void readResponses() {
+    Exception failure;
+    try {
+      while (processStdoutReader.hasNext()) {
+        CommandResponse response = readCommandResponse();
+        SettableFuture<Integer> future = responses.get(response.id);
+        if (future == null) {
+          throw new HumanReadableException(String.format(
+              "Received a response for \"%d\", which is not a command that is running.",
+              response.id));
+        }
+        future.set(response.exitCode);
+      }
+      processStdoutReader.endArray();
+      processStdoutReader.close();
+      failure = new HumanReadableException("Worker process closed its output.");
+    } catch (IOException | RuntimeException e) {
+      LOG.debug(e, "Stopped reading responses from worker process %d", hashCode());
+      failure = e;
+    }
+    // Fail the commands still waiting for an answer, and any sent after this point.
+    responseReaderFailure = failure;
+    for (SettableFuture<Integer> future : responses.values()) {
+      future.setException(failure);
+    }
+  }
+}
@@ -31,20 +31,34 @@ public class WorkerProcessProtocolZero implements WorkerProcessProtocol {
   private static final String TYPE_ERROR = "error";
   private static final String PROTOCOL_VERSION = "0";
 
-  private final ProcessExecutor executor;
-  private final ProcessExecutor.LaunchedProcess launchedProcess;
-  private final JsonWriter processStdinWriter;
-  private final JsonReader processStdoutReader;
+  protected final ProcessExecutor executor;
+  protected final ProcessExecutor.LaunchedProcess launchedProcess;
+  protected final JsonWriter processStdinWriter;
+  protected final JsonReader processStdoutReader;
+  private final String protocolVersion;
 
   public WorkerProcessProtocolZero(
       ProcessExecutor executor,
       ProcessExecutor.LaunchedProcess launchedProcess,
       JsonWriter processStdinWriter,
       JsonReader processStdoutReader) {
+    this(executor, launchedProcess, processStdinWriter, processStdoutReader, PROTOCOL_VERSION);
+  }
+
+  /**
+   * For later versions of the protocol, which share the messages of this one.
+   */
+  protected WorkerProcessProtocolZero(
+      ProcessExecutor executor,
+      ProcessExecutor.LaunchedProcess launchedProcess,
+      JsonWriter processStdinWriter,
+      JsonReader processStdoutReader,
+      String protocolVersion) {
     this.executor = executor;
     this.launchedProcess = launchedProcess;
     this.processStdinWriter = processStdinWriter;
     this.processStdoutReader = processStdoutReader;
+    this.protocolVersion = protocolVersion;
   }
 
   /*
@@ -63,7 +77,7 @@ public class WorkerProcessProtocolZero implements WorkerProcessProtocol {
     processStdinWriter.beginObject();
     processStdinWriter.name("id").value(handshakeID);
     processStdinWriter.name("type").value(TYPE_HANDSHAKE);
-    processStdinWriter.name("protocol_version").value(PROTOCOL_VERSION);
+    processStdinWriter.name("protocol_version").value(protocolVersion);
     processStdinWriter.name("capabilities").beginArray().endArray();
     processStdinWriter.endObject();
     processStdinWriter.flush();
@@ -123,10 +137,10 @@ public class WorkerProcessProtocolZero implements WorkerProcessProtocol {
       throw new HumanReadableException(String.format("Expected handshake response's \"type\" " +
           "to be \"%s\", got \"%s\" instead.", TYPE_HANDSHAKE, type));
     }
-    if (!protocolVersion.equals(PROTOCOL_VERSION)) {
+    if (!protocolVersion.equals(this.protocolVersion)) {
       throw new HumanReadableException(String.format("Expected handshake response's " +
           "\"protocol_version\" to be \"%s\", got \"%s\" instead.",
-          PROTOCOL_VERSION, protocolVersion));
+          this.protocolVersion, protocolVersion));
     }
   }
 
@@ -182,6 +196,18 @@ public class WorkerProcessProtocolZero implements WorkerProcessProtocol {
   */
   @Override
   public int receiveCommandResponse(int messageID) throws IOException {
+    CommandResponse response = readCommandResponse();
+    if (response.id != messageID) {
+      throw new HumanReadableException(String.format("Expected response's \"id\" value to be " +
+          "\"%d\", got \"%d\" instead.", messageID, response.id));
+    }
+    return response.exitCode;
+  }
+
+  /**
+   * Reads the next command response, whichever command it is for.
+   */
+  protected CommandResponse readCommandResponse() throws IOException {
     int id = -1;
     int exitCode = -1;
     String type = "";
@@ -206,15 +232,11 @@ public class WorkerProcessProtocolZero implements WorkerProcessProtocol {
           "Error while parsing JSON response from external process");
     }
 
-    if (id != messageID) {
-      throw new HumanReadableException(String.format("Expected response's \"id\" value to be " +
-          "\"%d\", got \"%d\" instead.", messageID, id));
-    }
     if (!type.equals(TYPE_RESULT) && !type.equals(TYPE_ERROR)) {
       throw new HumanReadableException(String.format("Expected response's \"type\" " +
           "to be one of [\"%s\",\"%s\"], got \"%s\" instead.", TYPE_RESULT, TYPE_ERROR, type));
     }
-    return exitCode;
+    return new CommandResponse(id, exitCode);
   }
 
   /*
@@ -235,4 +257,14 @@ public class WorkerProcessProtocolZero implements WorkerProcessProtocol {
       executor.destroyLaunchedProcess(launchedProcess);
     }
   }
+
+  protected static class CommandResponse {
+    protected final int id;
+    protected final int exitCode;
+
+    public CommandResponse(int id, int exitCode) {
+      this.id = id;
+      this.exitCode = exitCode;
+    }
+  }
 }
@@ -20,6 +20,7 @@ import com.facebook.buck.event.ConsoleEvent;
 import com.facebook.buck.io.ProjectFilesystem;
 import com.facebook.buck.step.ExecutionContext;
 import com.facebook.buck.step.Step;
+import com.facebook.buck.timing.DefaultClock;
 import com.facebook.buck.util.Escaper;
 import com.facebook.buck.util.HumanReadableException;
 import com.facebook.buck.util.ProcessExecutorParams;
@@ -38,9 +39,16 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class WorkerShellStep implements Step {
 
+  /**
+   * How long a worker process may be idle before it's closed, if its pool has others.
+   */
+  private static final long WORKER_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
   private ProjectFilesystem filesystem;
   private Path tmpPath;
   private Path workingDir;
@@ -68,11 +76,14 @@ public class WorkerShellStep implements Step {
     try {
       // Use the process's startup command as the key.
       String key = Joiner.on(' ').join(getCommand(context.getPlatform()));
-      WorkerProcess process = getWorkerProcessForKey(key, context);
+      reapIdleWorkerProcesses(context);
+      WorkerProcessPool pool = getWorkerProcessPoolForKey(key, context);
+      WorkerProcess process = pool.borrowWorkerProcess();
       Verbosity verbosity = context.getVerbosity();
+      boolean succeeded = false;
       try {
-        process.ensureLaunchAndHandshake();
         WorkerJobResult result = process.submitAndWaitForJob(getExpandedJobArgs(context));
+        succeeded = true;
         if (result.getStdout().isPresent() && !result.getStdout().get().isEmpty() &&
             verbosity.shouldPrintOutput()) {
           context.postEvent(ConsoleEvent.info("%s", result.getStdout().get()));
@@ -88,6 +99,12 @@ public class WorkerShellStep implements Step {
           context.postEvent(
               ConsoleEvent.warning("Stderr from external process:\n%s", errorMessage));
         }
+        // A process which broke the protocol can't be trusted with another job.
+        if (succeeded) {
+          pool.returnWorkerProcess(process);
+        } else {
+          pool.destroyWorkerProcess(process);
+        }
       }
     } catch (IOException e) {
       e.printStackTrace(context.getStdErr());
@@ -96,33 +113,61 @@ public class WorkerShellStep implements Step {
   }
 
   /**
-   * Returns an existing WorkerProcess for the given key if one exists, else creates a new one.
+   * Returns the existing pool of worker processes for the given key if one exists, else creates a
+   * new one.
    */
-  private WorkerProcess getWorkerProcessForKey(
+  private WorkerProcessPool getWorkerProcessPoolForKey(
       String key,
-      ExecutionContext context) throws IOException {
-    ConcurrentMap<String, WorkerProcess> processMap = context.getWorkerProcesses();
-    WorkerProcess process = processMap.get(key);
-    if (process != null) {
-      return process;
+      final ExecutionContext context) {
+    ConcurrentMap<String, WorkerProcessPool> poolMap = context.getWorkerProcessPools();
+    WorkerProcessPool pool = poolMap.get(key);
+    if (pool != null) {
+      return pool;
     }
 
-    ProcessExecutorParams processParams = ProcessExecutorParams.builder()
+    final ProcessExecutorParams processParams = ProcessExecutorParams.builder()
         .setCommand(getCommand(context.getPlatform()))
         .setEnvironment(getEnvironmentForProcess(context))
         .setDirectory(workingDir.toFile())
         .build();
-    WorkerProcess newProcess = new WorkerProcess(
-        context.getProcessExecutor(),
-        processParams,
-        filesystem,
-        tmpPath);
+    final WorkerJobParams paramsToUse = getWorkerJobParamsToUse(context.getPlatform());
+    final AtomicInteger nextWorkerID = new AtomicInteger();
+    WorkerProcessPool newPool = new WorkerProcessPool(
+        key,
+        paramsToUse.getMaxWorkers(),
+        WORKER_IDLE_TIMEOUT_MILLIS,
+        new DefaultClock()) {
+      @Override
+      protected WorkerProcess startWorkerProcess() throws IOException {
+        // Each process numbers its messages from 0, so give each its own directory for them.
+        Path workerTmpPath = tmpPath.resolve("worker-" + nextWorkerID.getAndIncrement());
+        filesystem.mkdirs(workerTmpPath);
+        WorkerProcess process = new WorkerProcess(
+            context.getProcessExecutor(),
+            processParams,
+            filesystem,
+            workerTmpPath,
+            paramsToUse.isMultiplexed());
+        process.ensureLaunchAndHandshake();
+        return process;
+      }
+    };
 
-    WorkerProcess previousValue = processMap.putIfAbsent(key, newProcess);
+    WorkerProcessPool previousValue = poolMap.putIfAbsent(key, newPool);
     // If putIfAbsent does not return null, then that means another thread beat this thread
-    // into putting an WorkerProcess in the map for this key. If that's the case, then we should
-    // ignore newProcess and return the existing one.
-    return previousValue == null ? newProcess : previousValue;
+    // into putting a WorkerProcessPool in the map for this key. If that's the case, then we should
+    // ignore newPool and return the existing one.
+    return previousValue == null ? newPool : previousValue;
+  }
+
+  /**
+   * Closes idle processes in every pool, not just this step's, so that the tools which are no
+   * longer being used release their processes without waiting for another job.
+   */
+  private static void reapIdleWorkerProcesses(ExecutionContext context) {
+    for (WorkerProcessPool pool : context.getWorkerProcessPools().values()) {
+      pool.reapIdleWorkers();
+    }
   }
 
   @VisibleForTesting
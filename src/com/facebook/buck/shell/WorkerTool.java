@@ -28,15 +28,21 @@ public class WorkerTool extends NoopBuildRule implements HasRuntimeDeps {
 
   private final BinaryBuildRule exe;
   private final String args;
+  private final int maxWorkers;
+  private final boolean multiplexed;
 
   protected WorkerTool(
       BuildRuleParams ruleParams,
       SourcePathResolver resolver,
       BinaryBuildRule exe,
-      String args) {
+      String args,
+      int maxWorkers,
+      boolean multiplexed) {
     super(ruleParams, resolver);
     this.exe = exe;
     this.args = args;
+    this.maxWorkers = maxWorkers;
+    this.multiplexed = multiplexed;
   }
 
   public BinaryBuildRule getBinaryBuildRule() {
@@ -47,6 +53,14 @@ public class WorkerTool extends NoopBuildRule implements HasRuntimeDeps {
     return this.args;
   }
 
+  public int getMaxWorkers() {
+    return maxWorkers;
+  }
+
+  public boolean isMultiplexed() {
+    return multiplexed;
+  }
+
   @Override
   public ImmutableSortedSet<BuildRule> getRuntimeDeps() {
     return ImmutableSortedSet.<BuildRule>naturalOrder()
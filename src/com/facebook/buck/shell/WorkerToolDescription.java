@@ -87,11 +87,21 @@ public class WorkerToolDescription implements Description<WorkerToolDescription.
       throw new HumanReadableException(e, "%s: %s", params.getBuildTarget(), e.getMessage());
     }
 
+    int maxWorkers = args.maxWorkers.or(1);
+    if (maxWorkers < 1) {
+      throw new HumanReadableException(
+          "%s: max_workers must be at least 1, got %d.",
+          params.getBuildTarget(),
+          maxWorkers);
+    }
+
     return new WorkerTool(
         params,
         new SourcePathResolver(resolver),
         (BinaryBuildRule) rule,
-        startupArgs);
+        startupArgs,
+        maxWorkers,
+        args.multiplexed.or(false));
   }
 
   @Override
@@ -116,5 +126,7 @@ public class WorkerToolDescription implements Description<WorkerToolDescription.
   public static class Arg extends AbstractDescriptionArg {
     public Optional<String> args;
     public BuildTarget exe;
+    public Optional<Integer> maxWorkers;
+    public Optional<Boolean> multiplexed;
   }
 }
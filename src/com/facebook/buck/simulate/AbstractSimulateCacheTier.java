@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.facebook.buck.simulate;
+
+import com.facebook.buck.util.HumanReadableException;
+import com.facebook.buck.util.immutables.BuckStyleImmutable;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+
+import org.immutables.value.Value;
+
+import java.util.List;
+
+/**
+ * A level of the artifact cache, such as a local dir cache in front of a remote http one, which a
+ * simulated build looks up every rule in before building it.
+ */
+@Value.Immutable
+@BuckStyleImmutable
+abstract class AbstractSimulateCacheTier {
+
+  @Value.Check
+  protected void check() {
+    Preconditions.checkArgument(
+        getHitRate() >= 0 && getHitRate() <= 1,
+        "The hit rate of cache tier %s must be between 0 and 1 but was %s.",
+        getName(),
+        getHitRate());
+    Preconditions.checkArgument(
+        getFetchMillis() >= 0 && getLookupMillis() >= 0,
+        "The latencies of cache tier %s cannot be negative.",
+        getName());
+  }
+
+  @Value.Parameter
+  public abstract String getName();
+
+  /**
+   * The fraction of the rules which this tier has an artifact for.
+   */
+  @Value.Parameter
+  public abstract double getHitRate();
+
+  /**
+   * How long it takes to fetch and unpack an artifact on a hit.
+   */
+  @Value.Parameter
+  public abstract long getFetchMillis();
+
+  /**
+   * How long it takes to find out that the tier doesn't have an artifact.
+   */
+  @Value.Parameter
+  public abstract long getLookupMillis();
+
+  /**
+   * Parses a tier given as {@code name:hit_rate:fetch_millis[:lookup_millis]}, e.g.
+   * {@code dir:0.6:20:1}.  The lookup time defaults to none.
+   */
+  public static SimulateCacheTier parse(String spec) {
+    List<String> parts = Splitter.on(':').trimResults().splitToList(spec);
+    if (parts.size() < 3 || parts.size() > 4 || parts.get(0).isEmpty()) {
+      throw new HumanReadableException(
+          "Cache tier [%s] should be given as name:hit_rate:fetch_millis[:lookup_millis].",
+          spec);
+    }
+    try {
+      return SimulateCacheTier.of(
+          parts.get(0),
+          Double.parseDouble(parts.get(1)),
+          Long.parseLong(parts.get(2)),
+          parts.size() == 4 ? Long.parseLong(parts.get(3)) : 0);
+    } catch (IllegalArgumentException e) {
+      throw new HumanReadableException(e, "Invalid cache tier [%s]: %s", spec, e.getMessage());
+    }
+  }
+}
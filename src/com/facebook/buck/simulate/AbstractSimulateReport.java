@@ -26,4 +26,5 @@ import java.util.List;
 @BuckStyleImmutable
 abstract class AbstractSimulateReport {
   public abstract List<SingleRunReport> getRunReports();
+  public abstract List<WallTimeCurve> getWallTimeCurves();
 }
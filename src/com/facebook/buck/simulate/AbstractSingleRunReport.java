@@ -18,6 +18,7 @@ package com.facebook.buck.simulate;
 
 import com.facebook.buck.util.immutables.BuckStyleImmutable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import org.immutables.value.Value;
 
@@ -35,4 +36,15 @@ abstract class AbstractSingleRunReport {
   public abstract String getSimulateTimesFile();
   public abstract String getTimeAggregate();
   public abstract long getRuleFallbackTimeMillis();
+  public abstract SchedulingPolicy getSchedulingPolicy();
+
+  /**
+   * The longest chain of rules, which no number of threads can build faster than.
+   */
+  public abstract long getCriticalPathMillis();
+
+  /**
+   * How many rules were fetched from each cache tier rather than built.
+   */
+  public abstract ImmutableMap<String, Integer> getCacheHits();
 }
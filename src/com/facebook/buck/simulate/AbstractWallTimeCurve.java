@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.facebook.buck.simulate;
+
+import com.facebook.buck.util.immutables.BuckStyleImmutable;
+import com.google.common.collect.ImmutableSortedMap;
+
+import org.immutables.value.Value;
+
+/**
+ * How long a build is predicted to take with each of the simulated numbers of threads, for one
+ * set of rule times and one scheduling policy.
+ */
+@Value.Immutable
+@BuckStyleImmutable
+abstract class AbstractWallTimeCurve {
+  public abstract String getTimeAggregate();
+  public abstract SchedulingPolicy getSchedulingPolicy();
+  public abstract ImmutableSortedMap<Integer, Long> getBuildDurationMillisByThreads();
+}
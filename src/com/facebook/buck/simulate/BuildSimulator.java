@@ -22,26 +22,54 @@ import com.facebook.buck.rules.ActionGraph;
 import com.facebook.buck.rules.BuildRule;
 import com.facebook.buck.rules.BuildRuleResolver;
 import com.facebook.buck.rules.HasRuntimeDeps;
+import com.facebook.buck.rules.OverrideScheduleRule;
 import com.facebook.buck.util.HumanReadableException;
+import com.facebook.buck.util.concurrent.MoreFutures;
+import com.google.common.base.Charsets;
 import com.google.common.base.Functions;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Queue;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Replays a build of an {@link ActionGraph} with the rule times in {@link SimulateTimes}, without
+ * running any steps, to predict how long it would take.
+ * <p>
+ * A build is simulated once for every time aggregate, number of threads and
+ * {@link SchedulingPolicy}, so that the report shows how the wall time changes with each.  Rules
+ * which ask for several jobs through their {@link com.facebook.buck.rules.RuleScheduleInfo} take
+ * as many threads, and rules may be fetched from a series of {@link SimulateCacheTier}s instead of
+ * being built.  The simulations are independent, so they run in parallel on the given executor.
+ */
 public class BuildSimulator {
   private final SimulateTimes times;
   private final ActionGraph actionGraph;
   private final BuildRuleResolver resolver;
-  private final int numberOfThreads;
+  private final ImmutableList<Integer> threadCounts;
+  private final ImmutableList<SchedulingPolicy> schedulingPolicies;
+  private final ImmutableList<SimulateCacheTier> cacheTiers;
   private final BuckEventBus eventBus;
+  private final ListeningExecutorService executor;
 
   public BuildSimulator(
       BuckEventBus eventBus,
@@ -49,93 +77,184 @@ public class BuildSimulator {
       ActionGraph actionGraph,
       BuildRuleResolver resolver,
       int numberOfThreads) {
+    this(
+        eventBus,
+        times,
+        actionGraph,
+        resolver,
+        ImmutableList.of(numberOfThreads),
+        ImmutableList.of(SchedulingPolicy.FIFO),
+        ImmutableList.<SimulateCacheTier>of(),
+        MoreExecutors.newDirectExecutorService());
+  }
+
+  /**
+   * @param threadCounts the numbers of threads to simulate the build with.  The build with the
+   *     first of them and the first of {@code schedulingPolicies} is the one posted to
+   *     {@code eventBus}, so that it shows up in the trace.
+   * @param cacheTiers the cache tiers every rule is looked up in, in order, before being built.
+   * @param executor runs the simulations.
+   */
+  public BuildSimulator(
+      BuckEventBus eventBus,
+      SimulateTimes times,
+      ActionGraph actionGraph,
+      BuildRuleResolver resolver,
+      ImmutableList<Integer> threadCounts,
+      ImmutableList<SchedulingPolicy> schedulingPolicies,
+      ImmutableList<SimulateCacheTier> cacheTiers,
+      ListeningExecutorService executor) {
+    Preconditions.checkArgument(!threadCounts.isEmpty(), "No thread counts to simulate.");
+    for (int threadCount : threadCounts) {
+      Preconditions.checkArgument(threadCount > 0, "Cannot simulate %s threads.", threadCount);
+    }
+    Preconditions.checkArgument(!schedulingPolicies.isEmpty(), "No scheduling policies given.");
     this.eventBus = eventBus;
     this.times = times;
     this.actionGraph = actionGraph;
     this.resolver = resolver;
-    this.numberOfThreads = numberOfThreads;
+    this.threadCounts = threadCounts;
+    this.schedulingPolicies = schedulingPolicies;
+    this.cacheTiers = cacheTiers;
+    this.executor = executor;
   }
 
   public SimulateReport simulateBuild(
-      long currentTimeMillis,
-      ImmutableList<BuildTarget> buildTargets) {
+      final long currentTimeMillis,
+      final ImmutableList<BuildTarget> buildTargets) throws InterruptedException {
     Preconditions.checkArgument(buildTargets.size() > 0, "No targets provided for the simulation.");
-    SimulateReport.Builder simulateReport = SimulateReport.builder();
 
-    for (String timeAggregate : times.getTimeAggregates()) {
-      // Setup the build order.
-      Map<BuildTarget, NodeState> reverseDependencies = Maps.newHashMap();
-      Queue<BuildTarget> leafNodes = Queues.newArrayDeque();
-      int totalDagEdges = 0;
-      for (BuildTarget target : buildTargets) {
-        BuildRule rule;
-        try {
-          rule = resolver.requireRule(target);
-        } catch (NoSuchBuildTargetException e) {
-          throw new HumanReadableException(e.getHumanReadableErrorMessage());
+    // Setup the build order, which is the same for every run.
+    final SimulationGraph graph = createSimulationGraph(buildTargets);
+
+    List<Callable<SingleRunReport>> runs = Lists.newArrayList();
+    for (final String timeAggregate : times.getTimeAggregates()) {
+      final RuleCosts costs = computeRuleCosts(graph, timeAggregate);
+      for (int i = 0; i < threadCounts.size(); ++i) {
+        for (int j = 0; j < schedulingPolicies.size(); ++j) {
+          final int numberOfThreads = threadCounts.get(i);
+          final SchedulingPolicy policy = schedulingPolicies.get(j);
+          final boolean postEvents = i == 0 && j == 0;
+          runs.add(
+              new Callable<SingleRunReport>() {
+                @Override
+                public SingleRunReport call() {
+                  SingleRunReport.Builder report = SingleRunReport.builder()
+                      .setTimestampMillis(currentTimeMillis)
+                      .setBuildTargets(FluentIterable.from(buildTargets)
+                          .transform(Functions.toStringFunction()))
+                      .setSimulateTimesFile(times.getFile())
+                      .setRuleFallbackTimeMillis(times.getRuleFallbackTimeMillis())
+                      .setTotalActionGraphNodes(Iterables.size(actionGraph.getNodes()))
+                      .setTotalDependencyDagEdges(graph.totalDagEdges)
+                      .setTimeAggregate(timeAggregate)
+                      .setNumberOfThreads(numberOfThreads)
+                      .setSchedulingPolicy(policy)
+                      .setCriticalPathMillis(costs.criticalPathMillis);
+
+                  // Run the simulation.
+                  return runSimulation(
+                      currentTimeMillis,
+                      report,
+                      graph,
+                      costs,
+                      numberOfThreads,
+                      policy,
+                      postEvents);
+                }
+              });
         }
-
-        totalDagEdges += recursiveTraversal(rule, reverseDependencies, leafNodes);
       }
+    }
 
-      SingleRunReport.Builder report = SingleRunReport.builder()
-          .setTimestampMillis(currentTimeMillis)
-          .setBuildTargets(FluentIterable.from(buildTargets)
-              .transform(Functions.toStringFunction()))
-          .setSimulateTimesFile(times.getFile())
-          .setRuleFallbackTimeMillis(times.getRuleFallbackTimeMillis())
-          .setTotalActionGraphNodes(Iterables.size(actionGraph.getNodes()))
-          .setTimeAggregate(timeAggregate)
-          .setNumberOfThreads(numberOfThreads);
-
-      report.setTotalDependencyDagEdges(totalDagEdges);
-
-      // Run the simulation.
-      simulateReport.addRunReports(
-          runSimulation(currentTimeMillis, report, reverseDependencies, leafNodes, timeAggregate));
+    List<SingleRunReport> runReports;
+    try {
+      runReports = MoreFutures.getAll(executor, runs);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
     }
 
+    SimulateReport.Builder simulateReport = SimulateReport.builder().addAllRunReports(runReports);
+    for (String timeAggregate : times.getTimeAggregates()) {
+      for (SchedulingPolicy policy : schedulingPolicies) {
+        Map<Integer, Long> durations = Maps.newHashMap();
+        for (SingleRunReport runReport : runReports) {
+          if (runReport.getTimeAggregate().equals(timeAggregate) &&
+              runReport.getSchedulingPolicy() == policy) {
+            durations.put(runReport.getNumberOfThreads(), runReport.getBuildDurationMillis());
+          }
+        }
+        simulateReport.addWallTimeCurves(
+            WallTimeCurve.builder()
+                .setTimeAggregate(timeAggregate)
+                .setSchedulingPolicy(policy)
+                .setBuildDurationMillisByThreads(ImmutableSortedMap.copyOf(durations))
+                .build());
+      }
+    }
     return simulateReport.build();
   }
 
   private SingleRunReport runSimulation(
-      long currentMillis,
+      long startMillis,
       SingleRunReport.Builder report,
-      Map<BuildTarget, NodeState> reverseDependencies,
-      Queue<BuildTarget> buildableNodes,
-      String timeAggregate) {
+      SimulationGraph graph,
+      RuleCosts costs,
+      int numberOfThreads,
+      SchedulingPolicy policy,
+      boolean postEvents) {
+    int[] pendingDependencies = graph.dependencyCounts.clone();
+    Queue<Integer> buildableNodes = createBuildableNodesQueue(policy, costs);
+    for (int leaf : graph.leafNodes) {
+      buildableNodes.add(leaf);
+    }
 
     // Start simulation.
+    long currentMillis = startMillis;
     int nodesBuilt = 0;
     int targetsThatUsedTheFallbackTimeMillis = 0;
+    int[] cacheHits = new int[cacheTiers.size()];
     FakeThreadPool threadPool = new FakeThreadPool(numberOfThreads);
-    while (nodesBuilt < reverseDependencies.size()) {
+    while (nodesBuilt < graph.targets.size()) {
 
       // 1. Remove BuildTargets that are finished.
       for (SimulationNode node : threadPool.popFinishedNodes(currentMillis)) {
-        SimulateEvent.Finished finished = new SimulateEvent.Finished(node, currentMillis);
-        eventBus.post(finished);
+        if (postEvents) {
+          eventBus.post(new SimulateEvent.Finished(node, currentMillis));
+        }
         ++nodesBuilt;
-        NodeState nodeState = Preconditions.checkNotNull(reverseDependencies.get(node.getTarget()));
-        for (BuildTarget dependant : nodeState.getDependantNodes()) {
-          NodeState dependantState = Preconditions.checkNotNull(reverseDependencies.get(dependant));
-          dependantState.decrementRefCount();
-          if (dependantState.canBuildNow()) {
+        for (int dependant : graph.dependants[node.index]) {
+          Preconditions.checkState(
+              pendingDependencies[dependant] > 0,
+              "Cannot decrement the referenceCount to a negative value.");
+          if (--pendingDependencies[dependant] == 0) {
             buildableNodes.add(dependant);
           }
         }
       }
 
-      // 2. Re-enqueue BuildTargets that can now be ran.
-      while (threadPool.hasAvailableThreads() && buildableNodes.size() > 0) {
-        BuildTarget target = buildableNodes.remove();
-        long expectedFinishMillis = currentMillis +
-            times.getMillisForTarget(target.toString(), timeAggregate);
-        SimulationNode node = threadPool.runTarget(expectedFinishMillis, target);
-        SimulateEvent.Started started = new SimulateEvent.Started(node, currentMillis);
-        eventBus.post(started);
+      // 2. Re-enqueue BuildTargets that can now be ran.  Like the build's own semaphore, a rule
+      // which needs more threads than are free holds up the rest of the queue until they are, and
+      // one which needs more threads than there are runs on its own.
+      while (!buildableNodes.isEmpty()) {
+        int index = buildableNodes.peek();
+        int weight = Math.min(graph.weights[index], numberOfThreads);
+        if (!threadPool.hasAvailableThreads(weight)) {
+          break;
+        }
+        buildableNodes.remove();
+        SimulationNode node = threadPool.runTarget(
+            currentMillis + costs.millis[index],
+            graph.targets.get(index),
+            index,
+            weight);
+        if (postEvents) {
+          eventBus.post(new SimulateEvent.Started(node, currentMillis));
+        }
 
-        if (!times.hasMillisForTarget(target.toString(), timeAggregate)) {
+        if (costs.cacheTier[index] >= 0) {
+          ++cacheHits[costs.cacheTier[index]];
+        } else if (costs.usedFallback[index]) {
           ++targetsThatUsedTheFallbackTimeMillis;
         }
       }
@@ -146,23 +265,114 @@ public class BuildSimulator {
       }
     }
 
+    ImmutableMap.Builder<String, Integer> cacheHitsByTier = ImmutableMap.builder();
+    for (int i = 0; i < cacheTiers.size(); ++i) {
+      cacheHitsByTier.put(cacheTiers.get(i).getName(), cacheHits[i]);
+    }
     report.setUsedActionGraphNodes(nodesBuilt)
-        .setBuildDurationMillis(currentMillis)
-        .setActionGraphNodesWithoutSimulateTime(targetsThatUsedTheFallbackTimeMillis);
+        .setBuildDurationMillis(currentMillis - startMillis)
+        .setActionGraphNodesWithoutSimulateTime(targetsThatUsedTheFallbackTimeMillis)
+        .setCacheHits(cacheHitsByTier.build());
     return report.build();
   }
 
+  private static Queue<Integer> createBuildableNodesQueue(
+      SchedulingPolicy policy,
+      final RuleCosts costs) {
+    switch (policy) {
+      case FIFO:
+        return Queues.newArrayDeque();
+      case LIFO:
+        return Collections.asLifoQueue(new ArrayDeque<Integer>());
+      case CRITICAL_PATH:
+        return new PriorityQueue<>(
+            16,
+            new Comparator<Integer>() {
+              @Override
+              public int compare(Integer a, Integer b) {
+                int result = Long.compare(
+                    costs.remainingPathMillis[b],
+                    costs.remainingPathMillis[a]);
+                return result != 0 ? result : Integer.compare(a, b);
+              }
+            });
+    }
+    throw new IllegalStateException("Unknown scheduling policy: " + policy);
+  }
+
+  /**
+   * Works out how long every rule takes in the given time aggregate, once it has been looked up
+   * in the cache tiers, and how much work follows it.
+   */
+  private RuleCosts computeRuleCosts(SimulationGraph graph, String timeAggregate) {
+    int size = graph.targets.size();
+    RuleCosts costs = new RuleCosts(size);
+    for (int i = 0; i < size; ++i) {
+      String target = graph.targets.get(i).toString();
+      long lookupMillis = 0;
+      costs.cacheTier[i] = -1;
+      for (int tier = 0; tier < cacheTiers.size(); ++tier) {
+        SimulateCacheTier cacheTier = cacheTiers.get(tier);
+        if (isCacheHit(target, cacheTier)) {
+          costs.cacheTier[i] = tier;
+          costs.millis[i] = lookupMillis + cacheTier.getFetchMillis();
+          break;
+        }
+        lookupMillis += cacheTier.getLookupMillis();
+      }
+      if (costs.cacheTier[i] < 0) {
+        costs.millis[i] = lookupMillis + times.getMillisForTarget(target, timeAggregate);
+        costs.usedFallback[i] = !times.hasMillisForTarget(target, timeAggregate);
+      }
+    }
+
+    // Dependants always come after their dependencies in the graph's order.
+    for (int i = size - 1; i >= 0; --i) {
+      long longestDependant = 0;
+      for (int dependant : graph.dependants[i]) {
+        longestDependant = Math.max(longestDependant, costs.remainingPathMillis[dependant]);
+      }
+      costs.remainingPathMillis[i] = costs.millis[i] + longestDependant;
+      costs.criticalPathMillis = Math.max(costs.criticalPathMillis, costs.remainingPathMillis[i]);
+    }
+    return costs;
+  }
+
+  /**
+   * Whether a rule is in a cache tier.  This is decided by hashing the rule's name, rather than at
+   * random, so that every run of the simulation sees the same hits.
+   */
+  private static boolean isCacheHit(String target, SimulateCacheTier tier) {
+    long hash = Hashing.murmur3_32()
+        .hashString(tier.getName() + "|" + target, Charsets.UTF_8)
+        .asInt() & 0xffffffffL;
+    return hash < tier.getHitRate() * (1L << 32);
+  }
+
+  private SimulationGraph createSimulationGraph(ImmutableList<BuildTarget> buildTargets) {
+    Map<BuildTarget, NodeState> reverseDependencies = Maps.newHashMap();
+    List<BuildTarget> buildOrder = Lists.newArrayList();
+    int totalDagEdges = 0;
+    for (BuildTarget target : buildTargets) {
+      BuildRule rule;
+      try {
+        rule = resolver.requireRule(target);
+      } catch (NoSuchBuildTargetException e) {
+        throw new HumanReadableException(e.getHumanReadableErrorMessage());
+      }
+
+      totalDagEdges += recursiveTraversal(rule, reverseDependencies, buildOrder);
+    }
+    return new SimulationGraph(buildOrder, reverseDependencies, totalDagEdges);
+  }
+
   /**
-   *
-   * @param rule
-   * @param reverseDependencies
-   * @param leafNodes
    * @return The number of DAG edges traversed.
    */
   private int recursiveTraversal(
       BuildRule rule,
       Map<BuildTarget, NodeState> reverseDependencies,
-      Queue<BuildTarget> leafNodes) {
+      List<BuildTarget> buildOrder) {
     int totalDagEdges = 0;
     BuildTarget target = rule.getBuildTarget();
     if (reverseDependencies.containsKey(target)) {
@@ -178,38 +388,33 @@ public class BuildSimulator {
 
     // Now recursively build the reverse dependencies.
     totalDagEdges = rule.getDeps().size();
-    NodeState state = new NodeState();
+    NodeState state = new NodeState(
+        rule instanceof OverrideScheduleRule ?
+            ((OverrideScheduleRule) rule).getRuleScheduleInfo().getJobsMultiplier() :
+            1);
     reverseDependencies.put(target, state);
     for (BuildRule dep : deps) {
-      totalDagEdges += recursiveTraversal(dep, reverseDependencies, leafNodes);
+      totalDagEdges += recursiveTraversal(dep, reverseDependencies, buildOrder);
       NodeState nodeState = Preconditions.checkNotNull(
           reverseDependencies.get(dep.getBuildTarget()));
       nodeState.addDependant(target);
       state.incrementRefCount();
     }
 
-    // And now we are done with the current BuildRule, mark it for build if there's no dependencies.
-    if (state.canBuildNow()) {
-      leafNodes.add(target);
-    }
+    // And now we are done with the current BuildRule, so it comes after all its dependencies.
+    buildOrder.add(target);
 
     return totalDagEdges;
   }
 
   private static class NodeState {
     private final List<BuildTarget> dependantNodes;
+    private final int weight;
     private int referenceCount;
 
-    public List<BuildTarget> getDependantNodes() {
-      return dependantNodes;
-    }
-
-    public boolean canBuildNow() {
-      return 0 == referenceCount;
-    }
-
-    public NodeState() {
+    public NodeState(int weight) {
       this.dependantNodes = Lists.newArrayList();
+      this.weight = Math.max(1, weight);
       this.referenceCount = 0;
     }
 
@@ -217,27 +422,100 @@ public class BuildSimulator {
       ++referenceCount;
     }
 
-    public void decrementRefCount() {
-      Preconditions.checkState(
-          referenceCount > 0,
-          "Cannot decrement the referenceCount to a negative value.");
-      --referenceCount;
-    }
-
     public void addDependant(BuildTarget target) {
       dependantNodes.add(target);
     }
   }
 
+  /**
+   * The rules to build, numbered so that every rule comes after its dependencies, which every
+   * simulation walks with its own counts of the dependencies still to be built.
+   */
+  private static class SimulationGraph {
+    private final ImmutableList<BuildTarget> targets;
+    private final int[][] dependants;
+    private final int[] dependencyCounts;
+    private final int[] weights;
+    private final int[] leafNodes;
+    private final int totalDagEdges;
+
+    public SimulationGraph(
+        List<BuildTarget> buildOrder,
+        Map<BuildTarget, NodeState> reverseDependencies,
+        int totalDagEdges) {
+      this.targets = ImmutableList.copyOf(buildOrder);
+      this.totalDagEdges = totalDagEdges;
+      Map<BuildTarget, Integer> indices = Maps.newHashMap();
+      for (int i = 0; i < targets.size(); ++i) {
+        indices.put(targets.get(i), i);
+      }
+
+      dependants = new int[targets.size()][];
+      dependencyCounts = new int[targets.size()];
+      weights = new int[targets.size()];
+      List<Integer> leaves = Lists.newArrayList();
+      for (int i = 0; i < targets.size(); ++i) {
+        NodeState state = Preconditions.checkNotNull(reverseDependencies.get(targets.get(i)));
+        dependants[i] = new int[state.dependantNodes.size()];
+        for (int j = 0; j < dependants[i].length; ++j) {
+          dependants[i][j] = indices.get(state.dependantNodes.get(j));
+        }
+        dependencyCounts[i] = state.referenceCount;
+        weights[i] = state.weight;
+        if (state.referenceCount == 0) {
+          leaves.add(i);
+        }
+      }
+      leafNodes = new int[leaves.size()];
+      for (int i = 0; i < leafNodes.length; ++i) {
+        leafNodes[i] = leaves.get(i);
+      }
+    }
+  }
+
+  /**
+   * What each rule of a {@link SimulationGraph} costs in one time aggregate.
+   */
+  private static class RuleCosts {
+    private final long[] millis;
+    /** The cache tier the rule is fetched from, or -1 if it's built. */
+    private final int[] cacheTier;
+    private final boolean[] usedFallback;
+    /** The rule's own time plus that of the longest chain of rules depending on it. */
+    private final long[] remainingPathMillis;
+    private long criticalPathMillis;
+
+    public RuleCosts(int size) {
+      this.millis = new long[size];
+      this.cacheTier = new int[size];
+      this.usedFallback = new boolean[size];
+      this.remainingPathMillis = new long[size];
+      this.criticalPathMillis = 0;
+    }
+  }
+
   public static class SimulationNode implements Comparable<SimulationNode> {
     private final long expectedFinishMillis;
     private final BuildTarget target;
     private final int threadId;
+    private final int index;
+    private final int weight;
 
     public SimulationNode(long expectedFinishMillis, BuildTarget target, int threadId) {
+      this(expectedFinishMillis, target, threadId, -1, 1);
+    }
+
+    private SimulationNode(
+        long expectedFinishMillis,
+        BuildTarget target,
+        int threadId,
+        int index,
+        int weight) {
       this.expectedFinishMillis = expectedFinishMillis;
       this.target = target;
       this.threadId = threadId;
+      this.index = index;
+      this.weight = weight;
     }
 
     public long getExpectedFinishMillis() {
@@ -254,7 +532,7 @@ public class BuildSimulator {
         return 0;
       }
 
-      return (int) (this.expectedFinishMillis - o.expectedFinishMillis);
+      return Long.compare(this.expectedFinishMillis, o.expectedFinishMillis);
     }
 
     public int getThreadId() {
@@ -262,13 +540,19 @@ public class BuildSimulator {
     }
   }
 
+  /**
+   * Threads which rules run on.  A rule takes up as many threads as its weight, but is only shown
+   * as running on the first of them.
+   */
   private static class FakeThreadPool {
     private final SimulationNode[] runningNodes;
     private int runningNodesCount;
+    private int usedThreads;
 
     public FakeThreadPool(int numberOfThreads) {
       this.runningNodes = new SimulationNode[numberOfThreads];
       this.runningNodesCount = 0;
+      this.usedThreads = 0;
     }
 
     public List<SimulationNode> popFinishedNodes(long simulationCurrentMillis) {
@@ -282,6 +566,7 @@ public class BuildSimulator {
         if (node.getExpectedFinishMillis() <= simulationCurrentMillis) {
           runningNodes[i] = null;
           --runningNodesCount;
+          usedThreads -= node.weight;
           finishedNodes.add(node);
         }
       }
@@ -289,16 +574,24 @@ public class BuildSimulator {
       return finishedNodes;
     }
 
-    public boolean hasAvailableThreads() {
-      return runningNodesCount < runningNodes.length;
+    public boolean hasAvailableThreads(int weight) {
+      return usedThreads + weight <= runningNodes.length;
     }
 
-    public SimulationNode runTarget(long expectedFinishMillis, BuildTarget target) {
+    public SimulationNode runTarget(
+        long expectedFinishMillis,
+        BuildTarget target,
+        int index,
+        int weight) {
+      Preconditions.checkState(
+          hasAvailableThreads(weight),
+          "Tried to schedule a task without enough available threads.");
       for (int i = 0; i < runningNodes.length; ++i) {
         if (runningNodes[i] == null) {
-          SimulationNode node = new SimulationNode(expectedFinishMillis, target, i);
+          SimulationNode node = new SimulationNode(expectedFinishMillis, target, i, index, weight);
           runningNodes[i] = node;
           ++runningNodesCount;
+          usedThreads += weight;
           return node;
         }
       }
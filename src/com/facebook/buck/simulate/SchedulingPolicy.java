@@ -0,0 +1,29 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.facebook.buck.simulate;
+
+/**
+ * The order in which a simulated build picks the next rule to run among those whose dependencies
+ * have all been built.
+ */
+public enum SchedulingPolicy {
+  /** The rule which became ready first, as with {@code work_queue_execution_order = fifo}. */
+  FIFO,
+  /** The rule which became ready last, as with {@code work_queue_execution_order = lifo}. */
+  LIFO,
+  /** The rule with the longest chain of work still to come after it, itself included. */
+  CRITICAL_PATH,
+}
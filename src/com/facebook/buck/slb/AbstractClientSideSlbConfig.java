@@ -44,6 +44,8 @@ abstract class AbstractClientSideSlbConfig {
   public static final int LATENCY_CHECK_TIME_RANGE_MILLIS =
       ERROR_CHECK_TIME_RANGE_MILLIS;
   public static final int MAX_ACCEPTABLE_LATENCY_MILLIS = (int) TimeUnit.SECONDS.toMillis(1);;
+  public static final int HEALTH_SNAPSHOT_REFRESH_INTERVAL_MILLIS =
+      ServerHealthManager.DEFAULT_SNAPSHOT_REFRESH_INTERVAL_MILLIS;
 
   public abstract Clock getClock();
   public abstract ScheduledExecutorService getSchedulerService();
@@ -76,6 +78,11 @@ abstract class AbstractClientSideSlbConfig {
     return HEALTH_CHECK_INTERVAL_MILLIS;
   }
 
+  @Value.Default
+  public int getHealthSnapshotRefreshIntervalMillis() {
+    return HEALTH_SNAPSHOT_REFRESH_INTERVAL_MILLIS;
+  }
+
   @Value.Default
   public String getPingEndpoint() {
     return PING_ENDPOINT;
@@ -58,6 +58,7 @@ public class ClientSideSlb implements HttpLoadBalancer {
         config.getMaxErrorPercentage(),
         config.getLatencyCheckTimeRangeMillis(),
         config.getMaxAcceptableLatencyMillis(),
+        config.getHealthSnapshotRefreshIntervalMillis(),
         config.getEventBus());
     this.pingClient = config.getPingHttpClient();
     this.pingClient.setConnectTimeout(config.getConnectionTimeoutMillis(), TimeUnit.MILLISECONDS);
@@ -85,16 +86,25 @@ public class ClientSideSlb implements HttpLoadBalancer {
   @Override
   public void reportRequestSuccess(URI server) {
     healthManager.reportRequestSuccess(server, clock.currentTimeMillis());
+    healthManager.reportRequestFinished(server);
   }
 
   @Override
   public void reportRequestException(URI server) {
     healthManager.reportRequestError(server, clock.currentTimeMillis());
+    healthManager.reportRequestFinished(server);
+  }
+
+  @Override
+  public void reportRequestCancelled(URI server) {
+    healthManager.reportRequestFinished(server);
   }
 
   @Override
   public void close() {
     backgroundHealthChecker.cancel(true);
+    // Posts what was picked since the last refresh.
+    healthManager.refreshHealthSnapshot(clock.currentTimeMillis());
   }
 
   // TODO(ruibm): Register for BuildStart events in the EventBus and force a health check then.
@@ -138,5 +148,7 @@ public class ClientSideSlb implements HttpLoadBalancer {
     }
 
     eventBus.post(new LoadBalancerPingEvent(data.build()));
+    // Requests should see the new latencies straight away, rather than at the next refresh.
+    healthManager.refreshHealthSnapshot(clock.currentTimeMillis());
   }
 }
@@ -24,6 +24,12 @@ public interface HttpLoadBalancer extends AutoCloseable {
   void reportRequestSuccess(URI server);
   void reportRequestException(URI server);
 
+  /**
+   * Reports that no request will be sent to a server returned by {@link #getBestServer()}, so
+   * that it stops counting as in flight without affecting the server's health.
+   */
+  void reportRequestCancelled(URI server);
+
   @Override
   void close();
 }
@@ -20,6 +20,7 @@ import com.facebook.buck.event.BuckEventBus;
 import com.squareup.okhttp.Call;
 import com.squareup.okhttp.OkHttpClient;
 import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
 
 import java.io.IOException;
 import java.net.URI;
@@ -48,9 +49,28 @@ public class LoadBalancedService implements HttpService {
     }
     Call call = client.newCall(request);
     try {
-      HttpResponse response = new LoadBalancedHttpResponse(server, slb, call.execute());
-      if (response.contentLength() != -1) {
-        data.setResponseSizeBytes(response.contentLength());
+      Response rawResponse;
+      try {
+        rawResponse = call.execute();
+      } catch (IOException e) {
+        // Once wrapped, the response reports its own failures, so only report it here.
+        slb.reportRequestException(server);
+        throw e;
+      }
+      HttpResponse response = new LoadBalancedHttpResponse(server, slb, rawResponse);
+      try {
+        long contentLength = response.contentLength();
+        if (contentLength != -1) {
+          data.setResponseSizeBytes(contentLength);
+        }
+      } catch (IOException e) {
+        // The response has already reported the failure, so closing it reports nothing more.
+        try {
+          response.close();
+        } catch (IOException closeException) {
+          e.addSuppressed(closeException);
+        }
+        throw e;
       }
       return response;
     } catch (IOException e) {
@@ -17,57 +17,95 @@
 package com.facebook.buck.slb;
 
 import com.facebook.buck.event.BuckEventBus;
-import com.facebook.buck.model.Pair;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Functions;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 
 import java.net.URI;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Keeps track of the health of a pool of servers and picks the one each request should go to.
+ * <p>
+ * Working out which servers are healthy means going through all their samples, so it's done at
+ * most once every refresh interval, into a snapshot which requests then read without taking any
+ * locks.  Among the healthy servers, a request goes to the one with the fewest requests in flight,
+ * weighted by its ping latency, so that the fastest server gets the most load without being sent
+ * every request.  What was picked is added up and posted as a {@link ServerHealthManagerEvent}
+ * each time the snapshot is refreshed, rather than once per request.
+ */
 public class ServerHealthManager {
 
-  private static final Comparator<Pair<URI, Long>> LATENCY_COMPARATOR =
-      new Comparator<Pair<URI, Long>>() {
-        @Override
-        public int compare(
-            Pair<URI, Long> o1, Pair<URI, Long> o2) {
-          return (int) (o1.getSecond() - o2.getSecond());
-        }
-      };
+  public static final int DEFAULT_SNAPSHOT_REFRESH_INTERVAL_MILLIS = 1000;
 
   // TODO(ruibm): It could be useful to preserve this state across runs in the local fs.
   private final ConcurrentHashMap<URI, ServerHealthState> servers;
+  private final ImmutableList<ServerHealthState> serverList;
   private final int maxAcceptableLatencyMillis;
   private final int latencyCheckTimeRangeMillis;
   private final float maxErrorPercentage;
   private final int errorCheckTimeRangeMillis;
+  private final int snapshotRefreshIntervalMillis;
   private final BuckEventBus eventBus;
 
+  private volatile HealthSnapshot snapshot;
+  private final AtomicBoolean isRefreshingSnapshot = new AtomicBoolean(false);
+  // Rotates where ties between equally good servers are broken, so they share the load.
+  private final AtomicInteger nextTieBreaker = new AtomicInteger();
+  private final AtomicInteger noHealthyServersCount = new AtomicInteger();
+
+  public ServerHealthManager(
+      ImmutableList<URI> servers,
+      int errorCheckTimeRangeMillis,
+      float maxErrorPercentage,
+      int latencyCheckTimeRangeMillis,
+      int maxAcceptableLatencyMillis,
+      BuckEventBus eventBus) {
+    this(
+        servers,
+        errorCheckTimeRangeMillis,
+        maxErrorPercentage,
+        latencyCheckTimeRangeMillis,
+        maxAcceptableLatencyMillis,
+        DEFAULT_SNAPSHOT_REFRESH_INTERVAL_MILLIS,
+        eventBus);
+  }
+
   public ServerHealthManager(
       ImmutableList<URI> servers,
       int errorCheckTimeRangeMillis,
       float maxErrorPercentage,
       int latencyCheckTimeRangeMillis,
       int maxAcceptableLatencyMillis,
+      int snapshotRefreshIntervalMillis,
       BuckEventBus eventBus) {
     this.errorCheckTimeRangeMillis = errorCheckTimeRangeMillis;
     this.maxErrorPercentage = maxErrorPercentage;
     this.latencyCheckTimeRangeMillis = latencyCheckTimeRangeMillis;
     this.maxAcceptableLatencyMillis = maxAcceptableLatencyMillis;
+    this.snapshotRefreshIntervalMillis = snapshotRefreshIntervalMillis;
     this.servers = new ConcurrentHashMap<>();
+    ImmutableList.Builder<ServerHealthState> serverList = ImmutableList.builder();
     for (URI server : servers) {
-      this.servers.put(server, new ServerHealthState(server));
+      ServerHealthState state = new ServerHealthState(server);
+      this.servers.put(server, state);
+      serverList.add(state);
     }
+    this.serverList = serverList.build();
     this.eventBus = eventBus;
+
+    // Until there is any information, every server is as good as any other, and the snapshot is
+    // refreshed as soon as a server is asked for.
+    ImmutableList.Builder<HealthyServer> healthyServers = ImmutableList.builder();
+    for (ServerHealthState state : this.serverList) {
+      healthyServers.add(new HealthyServer(state, -1));
+    }
+    this.snapshot = new HealthSnapshot(healthyServers.build(), Long.MIN_VALUE);
   }
 
   public void reportPingLatency(URI server, long epochMillis, long latencyMillis) {
@@ -85,48 +123,98 @@ public class ServerHealthManager {
     servers.get(server).reportRequestSuccess(epochMillis);
   }
 
+  /**
+   * Reports that a request which was sent to a server picked by {@link #getBestServer(long)} has
+   * finished, whether it succeeded or not.
+   */
+  public void reportRequestFinished(URI server) {
+    Preconditions.checkState(servers.containsKey(server), "Unknown server [%s]", server);
+    servers.get(server).finishRequest();
+  }
+
+  /**
+   * Picks the server the next request should go to, and counts the request as in flight on it
+   * until {@link #reportRequestFinished(URI)} is called.
+   */
   public URI getBestServer(long epochMillis) throws NoHealthyServersException {
-    ServerHealthManagerEventData.Builder data = ServerHealthManagerEventData.builder();
-    Map<URI, PerServerData.Builder> allPerServerData = Maps.newHashMap();
-    try {
-      // TODO(ruibm): Computations in this method could be cached and only refreshed
-      // every 10 seconds to avoid call bursts causing unnecessary CPU consumption.
+    HealthSnapshot current = snapshot;
+    if (epochMillis >= current.nextRefreshMillis) {
+      refreshHealthSnapshot(epochMillis);
+      current = snapshot;
+    }
 
-      List<Pair<URI, Long>> serverLatencies = Lists.newArrayList();
-      for (ServerHealthState state : servers.values()) {
-        URI server = state.getServer();
-        PerServerData.Builder perServerData = PerServerData.builder().setServer(server);
-        allPerServerData.put(server, perServerData);
+    ImmutableList<HealthyServer> healthyServers = current.healthyServers;
+    if (healthyServers.isEmpty()) {
+      noHealthyServersCount.incrementAndGet();
+      throw new NoHealthyServersException(String.format(
+          "No servers available. Too many errors reported by all servers in the pool: [%s]",
+          Joiner.on(", ").join(FluentIterable.from(servers.keySet()).transform(
+              Functions.toStringFunction()))));
+    }
+
+    int size = healthyServers.size();
+    int offset = (nextTieBreaker.getAndIncrement() & Integer.MAX_VALUE) % size;
+    HealthyServer best = null;
+    long bestCost = Long.MAX_VALUE;
+    for (int i = 0; i < size; ++i) {
+      HealthyServer candidate = healthyServers.get((offset + i) % size);
+      long cost = candidate.getCost();
+      if (cost < bestCost) {
+        best = candidate;
+        bestCost = cost;
+      }
+    }
+    best = Preconditions.checkNotNull(best);
+    best.state.startRequest();
+    return best.state.getServer();
+  }
+
+  /**
+   * Works out which servers are healthy again and posts what was picked since the last refresh.
+   * If another thread is already doing so, this returns straight away, and the requests which
+   * come in meanwhile use the previous snapshot.
+   */
+  public void refreshHealthSnapshot(long epochMillis) {
+    if (!isRefreshingSnapshot.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      ServerHealthManagerEventData.Builder data = ServerHealthManagerEventData.builder();
+      ImmutableList.Builder<HealthyServer> healthyServers = ImmutableList.builder();
+      boolean anyHealthy = false;
+      for (ServerHealthState state : serverList) {
+        PerServerData.Builder perServerData = PerServerData.builder()
+            .setServer(state.getServer())
+            .setBestServerCount(state.takeRequestsStartedCount());
 
         float errorPercentage = state.getErrorPercentage(epochMillis, errorCheckTimeRangeMillis);
         long latencyMillis = state.getPingLatencyMillis(epochMillis, latencyCheckTimeRangeMillis);
         if (errorPercentage <= maxErrorPercentage && latencyMillis <= maxAcceptableLatencyMillis) {
-          serverLatencies.add(new Pair<>(state.getServer(), latencyMillis));
+          healthyServers.add(new HealthyServer(state, latencyMillis));
+          anyHealthy = true;
         } else {
           perServerData.setServerUnhealthy(true);
         }
+        data.addPerServerData(perServerData.build());
       }
 
-      if (serverLatencies.size() == 0) {
-        data.setNoHealthyServersAvailable(true);
-        throw new NoHealthyServersException(String.format(
-            "No servers available. Too many errors reported by all servers in the pool: [%s]",
-            Joiner.on(", ").join(FluentIterable.from(servers.keySet()).transform(
-                Functions.toStringFunction()))));
-      }
-
-      Collections.sort(serverLatencies, LATENCY_COMPARATOR);
-      URI bestServer = serverLatencies.get(0).getFirst();
-      Preconditions.checkNotNull(allPerServerData.get(bestServer)).setBestServer(true);
-      return bestServer;
-    } finally {
-      for (PerServerData.Builder builder : allPerServerData.values()) {
-        data.addPerServerData(builder.build());
-      }
+      snapshot = new HealthSnapshot(
+          healthyServers.build(),
+          epochMillis + snapshotRefreshIntervalMillis);
+      data.setNoHealthyServersAvailable(!anyHealthy)
+          .setNoHealthyServersCount(noHealthyServersCount.getAndSet(0));
       eventBus.post(new ServerHealthManagerEvent(data.build()));
+    } finally {
+      isRefreshingSnapshot.set(false);
     }
   }
 
+  @VisibleForTesting
+  int getRequestsInFlight(URI server) {
+    return servers.get(server).getRequestsInFlight();
+  }
+
   public String toString(long epochMillis) {
     StringBuilder builder = new StringBuilder("ServerHealthManager{\n");
     for (ServerHealthState server : servers.values()) {
@@ -138,4 +226,35 @@ public class ServerHealthManager {
     builder.append("}");
     return builder.toString();
   }
+
+  /**
+   * The servers which were healthy when the snapshot was taken.
+   */
+  private static final class HealthSnapshot {
+    private final ImmutableList<HealthyServer> healthyServers;
+    private final long nextRefreshMillis;
+
+    private HealthSnapshot(ImmutableList<HealthyServer> healthyServers, long nextRefreshMillis) {
+      this.healthyServers = healthyServers;
+      this.nextRefreshMillis = nextRefreshMillis;
+    }
+  }
+
+  private static final class HealthyServer {
+    private final ServerHealthState state;
+    private final long latencyMillis;
+
+    private HealthyServer(ServerHealthState state, long latencyMillis) {
+      this.state = state;
+      this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * How long a new request would wait, roughly: the requests ahead of it, including itself,
+     * each taking as long as a ping.  A server whose latency is unknown counts as the fastest.
+     */
+    private long getCost() {
+      return (state.getRequestsInFlight() + 1L) * (Math.max(latencyMillis, 0) + 1L);
+    }
+  }
 }
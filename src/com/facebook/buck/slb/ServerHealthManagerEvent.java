@@ -57,9 +57,12 @@ public class ServerHealthManagerEvent extends AbstractBuckEvent {
       return false;
     }
 
+    /**
+     * How many requests were sent to the server since the previous event.
+     */
     @Value.Default
-    public boolean isBestServer() {
-      return false;
+    public int getBestServerCount() {
+      return 0;
     }
   }
 
@@ -72,6 +75,14 @@ public class ServerHealthManagerEvent extends AbstractBuckEvent {
       return false;
     }
 
+    /**
+     * How many requests found no healthy server since the previous event.
+     */
+    @Value.Default
+    public int getNoHealthyServersCount() {
+      return 0;
+    }
+
     public abstract ImmutableList<PerServerData> getPerServerData();
   }
 }
@@ -22,6 +22,7 @@ import com.google.common.collect.Lists;
 import java.net.URI;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ServerHealthState {
   private static final int MAX_STORED_SAMPLES = 100;
@@ -30,6 +31,8 @@ public class ServerHealthState {
   private final URI server;
   private final List<LatencySample> pingLatencies;
   private final List<RequestSample> requests;
+  private final AtomicInteger requestsInFlight;
+  private final AtomicInteger requestsStarted;
 
   public ServerHealthState(URI server) {
     this(server, MAX_STORED_SAMPLES);
@@ -44,6 +47,37 @@ public class ServerHealthState {
     this.server = server;
     this.pingLatencies = Lists.newLinkedList();
     this.requests = Lists.newLinkedList();
+    this.requestsInFlight = new AtomicInteger();
+    this.requestsStarted = new AtomicInteger();
+  }
+
+  /**
+   * Counts a request which has been sent to this server and not yet answered.
+   */
+  public void startRequest() {
+    requestsInFlight.incrementAndGet();
+    requestsStarted.incrementAndGet();
+  }
+
+  public void finishRequest() {
+    // A response may be reported more than once, so never go below zero.
+    while (true) {
+      int inFlight = requestsInFlight.get();
+      if (inFlight == 0 || requestsInFlight.compareAndSet(inFlight, inFlight - 1)) {
+        return;
+      }
+    }
+  }
+
+  public int getRequestsInFlight() {
+    return requestsInFlight.get();
+  }
+
+  /**
+   * @return how many requests have been started since the last call.
+   */
+  public int takeRequestsStartedCount() {
+    return requestsStarted.getAndSet(0);
   }
 
   /**
@@ -24,6 +24,7 @@ import com.facebook.buck.event.ThrowableConsoleEvent;
 import com.facebook.buck.jvm.core.JavaPackageFinder;
 import com.facebook.buck.model.BuildId;
 import com.facebook.buck.shell.WorkerProcess;
+import com.facebook.buck.shell.WorkerProcessPool;
 import com.facebook.buck.util.Ansi;
 import com.facebook.buck.util.ClassLoaderCache;
 import com.facebook.buck.util.Console;
@@ -133,6 +134,26 @@ public abstract class ExecutionContext implements Closeable {
   @Value.Parameter
   public abstract ConcurrentMap<String, WorkerProcess> getWorkerProcesses();
 
+  /**
+   * Pools of worker processes for worker tools, keyed by the command which starts them.
+   */
+  @Value.Parameter
+  public abstract ConcurrentMap<String, WorkerProcessPool> getWorkerProcessPools();
+
+  /**
+   * Worker processes which outlive this context, e.g. because buckd keeps them between builds.
+   * Unlike {@link #getWorkerProcesses()}, these are not closed along with this context.
+   */
+  @Value.Parameter
+  public abstract Optional<ConcurrentMap<String, WorkerProcess>> getPersistentWorkerProcesses();
+
+  /**
+   * Whether steps writing zips should deflate their entries on the CPU executor pool, rather than
+   * one at a time on the thread running the step.
+   */
+  @Value.Parameter
+  public abstract boolean isParallelZipEnabled();
+
   /**
    * @return A clone of this {@link ExecutionContext} with {@code stdout} and {@code stderr}
    *    redirected to the provided {@link PrintStream}s.
@@ -149,9 +170,10 @@ public abstract class ExecutionContext implements Closeable {
 
     return ImmutableExecutionContext.copyOf(this)
         .withConsole(console)
-        .withProcessExecutor(new ProcessExecutor(console))
+        .withProcessExecutor(getProcessExecutor().withConsole(console))
         .withClassLoaderCache(getClassLoaderCache().addRef())
-        .withWorkerProcesses(new ConcurrentHashMap<String, WorkerProcess>());
+        .withWorkerProcesses(new ConcurrentHashMap<String, WorkerProcess>())
+        .withWorkerProcessPools(new ConcurrentHashMap<String, WorkerProcessPool>());
   }
 
   public void logError(Throwable error, String msg, Object... formatArgs) {
@@ -205,6 +227,10 @@ public abstract class ExecutionContext implements Closeable {
       }
     } finally {
       getWorkerProcesses().clear();
+      for (WorkerProcessPool pool : getWorkerProcessPools().values()) {
+        pool.close();
+      }
+      getWorkerProcessPools().clear();
     }
   }
 
@@ -237,6 +263,11 @@ public abstract class ExecutionContext implements Closeable {
     private Optional<TargetDeviceOptions> targetDeviceOptions = Optional.absent();
     private Map<ExecutorPool, ListeningExecutorService> executors;
     private ConcurrentMap<String, WorkerProcess> workerProcesses = new ConcurrentHashMap<>();
+    private ConcurrentMap<String, WorkerProcessPool> workerProcessPools =
+        new ConcurrentHashMap<>();
+    private Optional<ConcurrentMap<String, WorkerProcess>> persistentWorkerProcesses =
+        Optional.absent();
+    private boolean isParallelZipEnabled = false;
 
     private Builder() {}
 
@@ -260,7 +291,10 @@ public abstract class ExecutionContext implements Closeable {
           adbOptions,
           targetDeviceOptions,
           executors,
-          workerProcesses);
+          workerProcesses,
+          workerProcessPools,
+          persistentWorkerProcesses,
+          isParallelZipEnabled);
     }
 
     public Builder setExecutionContext(ExecutionContext executionContext) {
@@ -279,6 +313,8 @@ public abstract class ExecutionContext implements Closeable {
       setConcurrencyLimit(executionContext.getConcurrencyLimit());
       setAdbOptions(executionContext.getAdbOptions());
       setTargetDeviceOptions(executionContext.getTargetDeviceOptions());
+      setPersistentWorkerProcesses(executionContext.getPersistentWorkerProcesses());
+      setParallelZipEnabled(executionContext.isParallelZipEnabled());
       return this;
     }
 
@@ -386,5 +422,22 @@ public abstract class ExecutionContext implements Closeable {
       this.workerProcesses = workerProcesses;
       return this;
     }
+
+    public Builder setWorkerProcessPools(
+        ConcurrentMap<String, WorkerProcessPool> workerProcessPools) {
+      this.workerProcessPools = workerProcessPools;
+      return this;
+    }
+
+    public Builder setPersistentWorkerProcesses(
+        Optional<ConcurrentMap<String, WorkerProcess>> persistentWorkerProcesses) {
+      this.persistentWorkerProcesses = persistentWorkerProcesses;
+      return this;
+    }
+
+    public Builder setParallelZipEnabled(boolean isParallelZipEnabled) {
+      this.isParallelZipEnabled = isParallelZipEnabled;
+      return this;
+    }
   }
 }
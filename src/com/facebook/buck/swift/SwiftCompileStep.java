@@ -67,7 +67,8 @@ public class SwiftCompileStep implements Step {
 
   @Override
   public int execute(ExecutionContext context) throws InterruptedException {
-    ListeningProcessExecutor executor = new ListeningProcessExecutor();
+    ListeningProcessExecutor executor =
+        context.getProcessExecutor().getListeningProcessExecutor();
     ProcessExecutorParams params = makeProcessExecutorParams();
     SimpleProcessListener listener = new SimpleProcessListener();
 
@@ -70,6 +70,12 @@ abstract class AbstractTestRunningOptions {
 
   public abstract Optional<String> getPathToJavaAgent();
 
+  /**
+   * @return the number of {@code java_test} rules a persistent JUnit runner may run before it is
+   *     replaced by a fresh one, or absent to launch a new JVM for every rule.
+   */
+  public abstract Optional<Integer> getPersistentJUnitRunnerMaxTests();
+
   @Value.Default
   public CoverageReportFormat getCoverageReportFormat() {
     return CoverageReportFormat.HTML;
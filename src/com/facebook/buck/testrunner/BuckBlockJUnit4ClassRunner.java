@@ -21,6 +21,7 @@ import com.facebook.buck.util.concurrent.MoreExecutors;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
+import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.BlockJUnit4ClassRunner;
 import org.junit.runners.model.FrameworkField;
 import org.junit.runners.model.FrameworkMethod;
@@ -83,6 +84,18 @@ public class BuckBlockJUnit4ClassRunner extends BlockJUnit4ClassRunner {
     return createdTest.get();
   }
 
+  @Override
+  public void run(RunNotifier notifier) {
+    try {
+      super.run(notifier);
+    } finally {
+      // Don't rely on the JVM exiting to get rid of the executor's thread, as a persistent test
+      // runner (see JUnitWorkerMain) would otherwise keep one around for every test class.
+      executor.get().shutdown();
+      executor.remove();
+    }
+  }
+
   private boolean isNeedingCustomTimeout() {
     return defaultTestTimeoutMillis <= 0 || hasTimeoutRule(getTestClass());
   }
@@ -161,4 +161,13 @@ class DelegateRunnerWithTimeout extends Runner {
     executor.get().shutdownNow();
   }
 
+  /**
+   * Lets the thread of the current thread's executor die once it's done, so that a JVM which keeps
+   * running after the tests (see {@link JUnitWorkerMain}) doesn't accumulate idle threads.
+   */
+  static void shutdownExecutor() {
+    executor.get().shutdown();
+    executor.remove();
+  }
+
 }
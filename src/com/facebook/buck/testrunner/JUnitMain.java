@@ -38,12 +38,29 @@ public class JUnitMain {
   }
 
   public static void main(String[] args) throws Throwable {
+    createRunner(args).runAndExit();
+  }
+
+  /**
+   * Runs the tests without exiting the JVM afterwards.  This is the entry point used by
+   * {@link JUnitWorkerMain}, which loads this class in a fresh class loader for every batch of
+   * tests it is asked to run.
+   */
+  public static void runInProcess(String[] args) throws Throwable {
+    try {
+      createRunner(args).run();
+    } finally {
+      DelegateRunnerWithTimeout.shutdownExecutor();
+    }
+  }
+
+  private static JUnitRunner createRunner(String[] args) throws Throwable {
     // Ensure that both junit and hamcrest are on the classpath
     CheckDependency.isPresent("junit", "org.junit.Test");
     CheckDependency.isPresent("hamcrest", "org.hamcrest.Description");
 
     JUnitRunner runner = new JUnitRunner();
     runner.parseArgs(args);
-    runner.runAndExit();
+    return runner;
   }
 }
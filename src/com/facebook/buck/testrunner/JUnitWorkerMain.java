@@ -0,0 +1,239 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.testrunner;
+
+import com.facebook.buck.jvm.java.runner.AbstractWorkerMain;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Launcher for a persistent JUnit runner, which runs many batches of tests in the same JVM so that
+ * only the first batch pays for JVM startup and for loading the third-party classpath.
+ * <p>
+ * The worker speaks version 0 of Buck's worker process protocol (see
+ * {@link AbstractWorkerMain}). The arguments file of each command holds:
+ * <ul>
+ *   <li>(string...) {@code -Dname=value} system properties to set while the tests run
+ *   <li>{@code --shared-classpath} (string) classpath entries which don't change during a build.
+ *       Class loaders for these are cached and shared by the commands which use them.
+ *   <li>{@code --classpath} (string) the rest of the classpath, which is loaded afresh for every
+ *       command, and which takes precedence over the shared entries
+ *   <li>{@code --}, followed by the arguments expected by {@link JUnitMain}
+ * </ul>
+ * <p>
+ * The worker answers with {@link #EXIT_CODE_RETIRE} instead of 0 when the tests it just ran left
+ * live non-daemon threads behind, asking Buck to replace it rather than send it more tests.
+ * <p>
+ * IMPORTANT! This class limits itself to types that are available in both the JDK and Android
+ * Java API. The objective is to limit the set of files added to the ClassLoader that runs the test,
+ * as not to interfere with the results of the test.
+ */
+public class JUnitWorkerMain extends AbstractWorkerMain {
+
+  // Keep in sync with JUnitStep.
+  static final int EXIT_CODE_RETIRE = 75;
+
+  private static final int MAX_SHARED_CLASS_LOADERS = 4;
+  private static final long LEAKED_THREAD_GRACE_PERIOD_MILLIS = 1000;
+
+  // The most recently used shared class loaders, keyed by their classpath.
+  private final Map<String, URLClassLoader> sharedClassLoaders =
+      new LinkedHashMap<String, URLClassLoader>(16, 0.75f, /* accessOrder */ true);
+
+  JUnitWorkerMain(Reader in, Writer out) {
+    super(in, out);
+  }
+
+  public static void main(String[] args) throws Throwable {
+    serve(
+        new WorkerFactory() {
+          @Override
+          public AbstractWorkerMain create(Reader in, Writer out) {
+            return new JUnitWorkerMain(in, out);
+          }
+        });
+  }
+
+  @Override
+  protected int runCommand(List<String> args) {
+    Properties originalProperties = System.getProperties();
+    Set<Thread> originalThreads = getLiveNonDaemonThreads();
+
+    Properties properties = new Properties();
+    properties.putAll(originalProperties);
+    System.setProperties(properties);
+    try {
+      runTests(args);
+    } catch (Throwable e) {
+      // Like JUnitMain, report a failure to run the tests but still succeed: it is up to Buck to
+      // report the missing results.
+      e.printStackTrace();
+    } finally {
+      System.setProperties(originalProperties);
+    }
+
+    return haveThreadsLeaked(originalThreads) ? EXIT_CODE_RETIRE : 0;
+  }
+
+  private void runTests(List<String> args) throws Throwable {
+    String sharedClasspath = "";
+    String classpath = "";
+    int i = 0;
+    for (; i < args.size() && !args.get(i).equals("--"); i++) {
+      String arg = args.get(i);
+      if (arg.equals("--shared-classpath")) {
+        sharedClasspath = args.get(++i);
+      } else if (arg.equals("--classpath")) {
+        classpath = args.get(++i);
+      } else if (arg.startsWith("-D")) {
+        int separator = arg.indexOf('=');
+        if (separator == -1) {
+          System.setProperty(arg.substring(2), "");
+        } else {
+          System.setProperty(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+      } else {
+        throw new IllegalArgumentException("Unexpected argument: " + arg);
+      }
+    }
+    final List<String> runnerArgs = args.subList(Math.min(i + 1, args.size()), args.size());
+
+    try (final URLClassLoader classLoader =
+             new ChildFirstClassLoader(toUrls(classpath), getSharedClassLoader(sharedClasspath))) {
+      // Run the tests on a thread of their own, so that any thread locals they set go away with it
+      // rather than keeping their class loader alive.
+      final Throwable[] failure = new Throwable[1];
+      Thread thread = new Thread(
+          new Runnable() {
+            @Override
+            public void run() {
+              try {
+                classLoader.loadClass(JUnitMain.class.getName())
+                    .getMethod("runInProcess", String[].class)
+                    .invoke(null, (Object) runnerArgs.toArray(new String[runnerArgs.size()]));
+              } catch (InvocationTargetException e) {
+                failure[0] = e.getCause();
+              } catch (Throwable e) {
+                failure[0] = e;
+              }
+            }
+          },
+          JUnitWorkerMain.class.getSimpleName());
+      thread.setContextClassLoader(classLoader);
+      thread.start();
+      thread.join();
+      if (failure[0] != null) {
+        throw failure[0];
+      }
+    }
+  }
+
+  private ClassLoader getSharedClassLoader(String sharedClasspath) throws IOException {
+    URLClassLoader classLoader = sharedClassLoaders.get(sharedClasspath);
+    if (classLoader == null) {
+      // Parent the shared class loader to the extension class loader, so that neither it nor
+      // anything loaded by the tests can see the classes of this worker.
+      classLoader = new URLClassLoader(
+          toUrls(sharedClasspath),
+          ClassLoader.getSystemClassLoader().getParent());
+      sharedClassLoaders.put(sharedClasspath, classLoader);
+      if (sharedClassLoaders.size() > MAX_SHARED_CLASS_LOADERS) {
+        String eldest = sharedClassLoaders.keySet().iterator().next();
+        sharedClassLoaders.remove(eldest).close();
+      }
+    }
+    return classLoader;
+  }
+
+  /**
+   * Looks for classes and resources on its own classpath before its parent's, so that a rule's own
+   * copy of a class shadows the one on the shared classpath, rather than the other way round.
+   */
+  private static class ChildFirstClassLoader extends URLClassLoader {
+
+    public ChildFirstClassLoader(URL[] urls, ClassLoader parent) {
+      super(urls, parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> loaded = findLoadedClass(name);
+        if (loaded == null && !name.startsWith("java.")) {
+          try {
+            loaded = findClass(name);
+          } catch (ClassNotFoundException e) {
+            // Not on this class loader's own classpath, so fall back to the parent's.
+          }
+        }
+        if (loaded == null) {
+          loaded = getParent().loadClass(name);
+        }
+        if (resolve) {
+          resolveClass(loaded);
+        }
+        return loaded;
+      }
+    }
+
+    @Override
+    public URL getResource(String name) {
+      URL resource = findResource(name);
+      return resource != null ? resource : super.getResource(name);
+    }
+  }
+
+  private static Set<Thread> getLiveNonDaemonThreads() {
+    Set<Thread> threads = new HashSet<>();
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.isAlive() && !thread.isDaemon()) {
+        threads.add(thread);
+      }
+    }
+    return threads;
+  }
+
+  private static boolean haveThreadsLeaked(Set<Thread> originalThreads) {
+    long deadline = System.currentTimeMillis() + LEAKED_THREAD_GRACE_PERIOD_MILLIS;
+    for (Thread thread : getLiveNonDaemonThreads()) {
+      if (originalThreads.contains(thread)) {
+        continue;
+      }
+      try {
+        thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return true;
+      }
+      if (thread.isAlive()) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
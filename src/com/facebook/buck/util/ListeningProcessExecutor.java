@@ -40,6 +40,19 @@ public class ListeningProcessExecutor {
 
   private static final Logger LOG = Logger.get(ListeningProcessExecutor.class);
 
+  private final ProcessSpawnListener spawnListener;
+
+  public ListeningProcessExecutor() {
+    this(ProcessSpawnListener.NO_OP);
+  }
+
+  /**
+   * @param spawnListener told how long each process took to spawn.
+   */
+  public ListeningProcessExecutor(ProcessSpawnListener spawnListener) {
+    this.spawnListener = spawnListener;
+  }
+
   /**
    * Callback API to notify the caller on a background thread when a process
    * starts, exits, has stdout or stderr bytes to read, or is ready to receive
@@ -254,10 +267,12 @@ public class ListeningProcessExecutor {
       processBuilder.setCwd(params.getDirectory().get().toPath());
     }
 
+    long spawnStartNanos = System.nanoTime();
     NuProcess process = BgProcessKiller.startProcess(processBuilder);
     if (process == null) {
       throw new IOException(String.format("Could not start process with params %s", params));
     }
+    spawnListener.onProcessSpawned(System.nanoTime() - spawnStartNanos);
     LOG.debug("Successfully launched process %s", process);
 
     // This should be set by onPreStart().
@@ -32,13 +32,26 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CoderResult;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Executes a {@link Process} and blocks until it is finished.
+ * <p>
+ * Processes launched through
+ * {@link #launchAndExecute(ProcessExecutorParams, Set, Optional, Optional, Optional)} without a
+ * timeout handler or any redirects are run through NuProcess, so their output is read, highlighted
+ * and captured on its small pool of shared I/O threads, rather than on two threads started for each
+ * process.  Only processes which need a {@link Process}, e.g. to hand to a timeout handler, are
+ * still run on threads of their own.
  */
 public class ProcessExecutor {
 
@@ -104,15 +117,41 @@ public class ProcessExecutor {
   private final PrintStream stdOutStream;
   private final PrintStream stdErrStream;
   private final Ansi ansi;
+  private final ProcessSpawnListener spawnListener;
+  private final ListeningProcessExecutor listeningProcessExecutor;
 
   /**
    * Creates a new {@link ProcessExecutor} with the specified parameters used for writing the output
    * of the process.
    */
   public ProcessExecutor(Console console) {
+    this(console, ProcessSpawnListener.NO_OP);
+  }
+
+  /**
+   * @param spawnListener told how long each process this executor launches took to spawn.
+   */
+  public ProcessExecutor(Console console, ProcessSpawnListener spawnListener) {
     this.stdOutStream = console.getStdOut();
     this.stdErrStream = console.getStdErr();
     this.ansi = console.getAnsi();
+    this.spawnListener = spawnListener;
+    this.listeningProcessExecutor = new ListeningProcessExecutor(spawnListener);
+  }
+
+  /**
+   * @return an executor like this one which writes the output of processes to {@code console}.
+   */
+  public ProcessExecutor withConsole(Console console) {
+    return new ProcessExecutor(console, spawnListener);
+  }
+
+  /**
+   * @return an executor for processes whose I/O the caller handles itself, which reports how long
+   *     they take to spawn in the same way as this one.
+   */
+  public ListeningProcessExecutor getListeningProcessExecutor() {
+    return listeningProcessExecutor;
   }
 
   /**
@@ -148,6 +187,9 @@ public class ProcessExecutor {
       Optional<Long> timeOutMs,
       Optional<Function<Process, Void>> timeOutHandler)
       throws InterruptedException, IOException {
+    if (canExecuteListening(params, timeOutHandler)) {
+      return executeListening(params, options, stdin, timeOutMs);
+    }
     return execute(launchProcessInternal(params), options, stdin, timeOutMs, timeOutHandler);
   }
 
@@ -189,7 +231,25 @@ public class ProcessExecutor {
     if (params.getRedirectErrorStream().isPresent()) {
       pb.redirectErrorStream(params.getRedirectErrorStream().get());
     }
-    return BgProcessKiller.startProcess(pb);
+    long spawnStartNanos = System.nanoTime();
+    Process process = BgProcessKiller.startProcess(pb);
+    spawnListener.onProcessSpawned(System.nanoTime() - spawnStartNanos);
+    return process;
+  }
+
+  /**
+   * @return whether a process can be run through NuProcess, which can't redirect its I/O, and
+   *     doesn't provide a {@link Process} to hand to a timeout handler.
+   */
+  @VisibleForTesting
+  boolean canExecuteListening(
+      ProcessExecutorParams params,
+      Optional<Function<Process, Void>> timeOutHandler) {
+    return !timeOutHandler.isPresent() &&
+        !params.getRedirectInput().isPresent() &&
+        !params.getRedirectOutput().isPresent() &&
+        !params.getRedirectError().isPresent() &&
+        !params.getRedirectErrorStream().isPresent();
   }
 
   /**
@@ -389,6 +449,176 @@ public class ProcessExecutor {
     return new Result(exitCode, timedOut, stdoutText, stderrText);
   }
 
+  /**
+   * Launches and executes a process through NuProcess, with the same options and results as
+   * {@link #execute(Process, Set, Optional, Optional, Optional)}, but without starting any threads:
+   * the process's output is handled as it arrives on NuProcess's shared I/O threads, and the
+   * calling thread waits for the process to exit, up to the timeout.
+   */
+  private Result executeListening(
+      ProcessExecutorParams params,
+      Set<Option> options,
+      Optional<String> stdin,
+      Optional<Long> timeOutMs) throws InterruptedException, IOException {
+    boolean shouldPrintStdOut = options.contains(Option.PRINT_STD_OUT);
+    boolean expectingStdOut = options.contains(Option.EXPECTING_STD_OUT);
+    PrintStream stdOutToWriteTo = shouldPrintStdOut ?
+        stdOutStream : new CapturingPrintStream();
+
+    boolean shouldPrintStdErr = options.contains(Option.PRINT_STD_ERR);
+    boolean expectingStdErr = options.contains(Option.EXPECTING_STD_ERR);
+    PrintStream stdErrToWriteTo = shouldPrintStdErr ?
+        stdErrStream : new CapturingPrintStream();
+
+    LineForwardingListener listener = new LineForwardingListener(
+        stdin,
+        InputStreamConsumer.createAnsiHighlightingHandler(
+            /* flagOutputWrittenToStream */ !shouldPrintStdOut && !expectingStdOut,
+            stdOutToWriteTo,
+            ansi),
+        InputStreamConsumer.createAnsiHighlightingHandler(
+            /* flagOutputWrittenToStream */ !shouldPrintStdErr && !expectingStdErr,
+            stdErrToWriteTo,
+            ansi));
+    ListeningProcessExecutor.LaunchedProcess process =
+        listeningProcessExecutor.launchProcess(params, listener);
+
+    boolean timedOut = false;
+    int exitCode;
+    try {
+      // A timeout of zero waits for as long as the process runs, as with Thread.join().
+      exitCode = listeningProcessExecutor.waitForProcess(
+          process,
+          timeOutMs.or(0L),
+          TimeUnit.MILLISECONDS);
+      if (exitCode == Integer.MIN_VALUE) {
+        timedOut = true;
+        listeningProcessExecutor.destroyProcess(process, /* force */ false);
+        exitCode = listeningProcessExecutor.waitForProcess(process, 0, TimeUnit.MILLISECONDS);
+      }
+      // The process may exit before all of its output has been handled.
+      listener.awaitOutputClosed();
+    } finally {
+      if (process.isRunning()) {
+        listeningProcessExecutor.destroyProcess(process, /* force */ false);
+      }
+    }
+    // NuProcess reports a process which it couldn't spawn as one which exited, but
+    // ProcessBuilder throws, so do the same.
+    if (!listener.isStarted()) {
+      throw new IOException(
+          String.format("Could not start process with params %s", params));
+    }
+
+    Optional<String> stdoutText = getDataIfNotPrinted(stdOutToWriteTo, shouldPrintStdOut);
+    Optional<String> stderrText = getDataIfNotPrinted(stdErrToWriteTo, shouldPrintStdErr);
+
+    if (exitCode != 0 && !options.contains(Option.IS_SILENT)) {
+      if (!shouldPrintStdOut && !stdoutText.get().isEmpty()) {
+        LOG.verbose("Writing captured stdout text to stream: [%s]", stdoutText.get());
+        stdOutStream.print(stdoutText.get());
+      }
+      if (!shouldPrintStdErr && !stderrText.get().isEmpty()) {
+        LOG.verbose("Writing captured stderr text to stream: [%s]", stderrText.get());
+        stdErrStream.print(stderrText.get());
+      }
+    }
+
+    return new Result(exitCode, timedOut, stdoutText, stderrText);
+  }
+
+  /**
+   * Writes any stdin to a process launched through NuProcess, and splits its stdout and stderr
+   * into lines for {@link InputStreamConsumer.Handler}s in the same way as
+   * {@link InputStreamConsumer} does.
+   */
+  private static class LineForwardingListener extends AbstractCharsetProcessListener {
+    private final Optional<String> stdin;
+    private final LineSplitter stdout;
+    private final LineSplitter stderr;
+    private final CountDownLatch outputClosed = new CountDownLatch(2);
+    private volatile boolean started = false;
+
+    public LineForwardingListener(
+        Optional<String> stdin,
+        InputStreamConsumer.Handler stdoutHandler,
+        InputStreamConsumer.Handler stderrHandler) {
+      // Decode the output in the same charset as an InputStreamReader would.
+      super(Charset.defaultCharset());
+      this.stdin = stdin;
+      this.stdout = new LineSplitter(stdoutHandler);
+      this.stderr = new LineSplitter(stderrHandler);
+    }
+
+    @Override
+    public void onStart(ListeningProcessExecutor.LaunchedProcess process) {
+      started = true;
+      if (stdin.isPresent()) {
+        process.writeStdin(ByteBuffer.wrap(stdin.get().getBytes(Charset.defaultCharset())));
+      }
+      process.closeStdin(/* force */ false);
+    }
+
+    @Override
+    protected void onStdoutChars(CharBuffer buffer, boolean closed, CoderResult coderResult) {
+      stdout.split(buffer, closed);
+      if (closed) {
+        outputClosed.countDown();
+      }
+    }
+
+    @Override
+    protected void onStderrChars(CharBuffer buffer, boolean closed, CoderResult coderResult) {
+      stderr.split(buffer, closed);
+      if (closed) {
+        outputClosed.countDown();
+      }
+    }
+
+    public void awaitOutputClosed() throws InterruptedException {
+      outputClosed.await();
+    }
+
+    public boolean isStarted() {
+      return started;
+    }
+  }
+
+  /**
+   * Splits characters into lines on {@code \r}, {@code \n} or {@code \r\n}, as
+   * {@link LineFetcher} does, even when a line is split across several buffers.
+   */
+  private static class LineSplitter {
+    private final InputStreamConsumer.Handler handler;
+    private final StringBuilder line = new StringBuilder();
+    private boolean afterCarriageReturn = false;
+
+    public LineSplitter(InputStreamConsumer.Handler handler) {
+      this.handler = handler;
+    }
+
+    public void split(CharBuffer buffer, boolean closed) {
+      while (buffer.hasRemaining()) {
+        char c = buffer.get();
+        if (c == '\n' && afterCarriageReturn) {
+          afterCarriageReturn = false;
+          continue;
+        }
+        afterCarriageReturn = c == '\r';
+        if (c == '\r' || c == '\n') {
+          handler.handleLine(line.toString());
+          line.setLength(0);
+        } else {
+          line.append(c);
+        }
+      }
+      if (closed && line.length() > 0) {
+        handler.handleLine(line.toString());
+        line.setLength(0);
+      }
+    }
+  }
+
   private static Optional<String> getDataIfNotPrinted(
       PrintStream printStream,
       boolean shouldPrint) {
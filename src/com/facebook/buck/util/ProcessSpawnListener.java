@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.util;
+
+/**
+ * Told how long each process launched by a {@link ProcessExecutor} or
+ * {@link ListeningProcessExecutor} took to spawn, i.e. how long the launching thread spent
+ * blocked in fork and exec.
+ */
+public interface ProcessSpawnListener {
+
+  ProcessSpawnListener NO_OP = new ProcessSpawnListener() {
+    @Override
+    public void onProcessSpawned(long spawnLatencyNanos) {
+    }
+  };
+
+  void onProcessSpawned(long spawnLatencyNanos);
+}
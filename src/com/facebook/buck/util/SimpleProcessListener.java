@@ -66,6 +66,14 @@ public class SimpleProcessListener extends AbstractCharsetProcessListener {
     this.stderr = new StringBuilder();
   }
 
+  /**
+   * Returns whether the process started, which it won't have if, for example, its binary
+   * doesn't exist.
+   */
+  public boolean isStarted() {
+    return process != null;
+  }
+
   /**
    * Gets the entire contents of stdout sent by the process. Only call this after the
    * process has exited.
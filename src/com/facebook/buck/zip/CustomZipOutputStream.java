@@ -17,8 +17,10 @@
 package com.facebook.buck.zip;
 
 import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
@@ -56,6 +58,20 @@ public abstract class CustomZipOutputStream extends OutputStream {
    */
   protected abstract void actuallyPutNextEntry(ZipEntry entry) throws IOException;
 
+  /**
+   * Adds an entry whose data has already been deflated, such as one read from another zip with
+   * {@link RawZipFile}, copying {@code compressedData} into this zip verbatim.  This avoids
+   * inflating and deflating the same bytes again when merging zips.
+   *
+   * @param entry A {@link ZipEntry#DEFLATED} entry with its CRC, size and compressed size set.
+   * @param compressedData Exactly {@code entry.getCompressedSize()} bytes of deflated data.
+   */
+  public final void putRawEntry(ZipEntry entry, InputStream compressedData) throws IOException {
+    putNextEntry(entry instanceof RawZipEntry ? entry : new RawZipEntry(entry));
+    ByteStreams.copy(compressedData, this);
+    closeEntry();
+  }
+
   public final void closeEntry() throws IOException {
     Preconditions.checkState(state != State.CLOSED, "Stream has been closed");
     if (!entryOpen) {
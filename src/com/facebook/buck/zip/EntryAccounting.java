@@ -30,6 +30,7 @@ import java.util.Calendar;
 import java.util.Locale;
 import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 
 /**
  * A wrapper containing the {@link ZipEntry} and additional book keeping information required to
@@ -52,6 +53,9 @@ class EntryAccounting {
 
   private final ZipEntry entry;
   private final Method method;
+  // Whether the data written for this entry is already deflated.
+  private final boolean raw;
+  private long rawBytesWritten = 0;
   private Hasher crc = Hashing.crc32().newHasher();
   private long offset;
   private long externalAttributes = 0;
@@ -81,6 +85,7 @@ class EntryAccounting {
   public EntryAccounting(Clock clock, ZipEntry entry, long currentOffset) {
     this.entry = entry;
     this.method = Method.detect(entry.getMethod());
+    this.raw = entry instanceof RawZipEntry;
     this.offset = currentOffset;
 
     if (entry.getTime() == -1) {
@@ -203,6 +208,10 @@ class EntryAccounting {
             break;
         }
       }
+      if (raw) {
+        // Data copied from another zip was compressed there, so keep the level that zip recorded.
+        flags |= ((RawZipEntry) entry).getCompressionLevelFlags();
+      }
     }
 
     try (ByteArrayOutputStream stream = new ByteArrayOutputStream()) {
@@ -259,6 +268,12 @@ class EntryAccounting {
   }
 
   public long write(OutputStream out, byte[] b, int off, int len) throws IOException {
+    if (raw) {
+      out.write(b, off, len);
+      rawBytesWritten += len;
+      return 0; // As with deflated entries, we count the bytes when closing the entry.
+    }
+
     updateCrc(b, off, len);
 
     if (!isDeflated()) {
@@ -287,6 +302,21 @@ class EntryAccounting {
       return 0;
     }
 
+    if (raw) {
+      deflater.end();
+      if (rawBytesWritten != entry.getCompressedSize()) {
+        throw new ZipException(
+            String.format(
+                "Expected %d compressed bytes for %s but got %d",
+                entry.getCompressedSize(),
+                entry.getName(),
+                rawBytesWritten));
+      }
+      byte[] closeBytes = close();
+      out.write(closeBytes);
+      return entry.getCompressedSize() + closeBytes.length;
+    }
+
     deflater.finish();
     while (!deflater.finished()) {
       deflate(out);
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.zip;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link CustomZipOutputStream} which deflates entries on an executor while later entries are
+ * still being added, handing the results to another {@link CustomZipOutputStream} in the order the
+ * entries were added.
+ * <p>
+ * Each entry is deflated in one piece with a deflater configured just as {@link EntryAccounting}
+ * configures its own, so the zip written is byte-for-byte the one the wrapped stream would have
+ * written by itself.  Entries are buffered in memory until they have been written, so only a
+ * bounded number are in flight at once, and entries too large to buffer are streamed straight
+ * through once everything added before them has been written.
+ */
+class ParallelZipOutputStream extends CustomZipOutputStream {
+
+  private static final int MAX_BUFFERED_ENTRY_SIZE = 4 * 1024 * 1024;
+  private static final int ARBITRARY_SIZE = 1024;
+
+  private final CustomZipOutputStream zip;
+  private final ListeningExecutorService executor;
+  private final int maxPendingEntries;
+  private final Deque<ListenableFuture<BufferedEntry>> pending = new ArrayDeque<>();
+
+  @Nullable private ZipEntry currentEntry;
+  @Nullable private ExposedByteArrayOutputStream currentData;
+  /** Whether the current entry is too large to buffer, and is being written straight through. */
+  private boolean streaming;
+
+  public ParallelZipOutputStream(
+      CustomZipOutputStream zip,
+      ListeningExecutorService executor,
+      int maxPendingEntries) {
+    super(zip);
+    Preconditions.checkArgument(maxPendingEntries > 0);
+    this.zip = zip;
+    this.executor = executor;
+    this.maxPendingEntries = maxPendingEntries;
+  }
+
+  @Override
+  protected void actuallyPutNextEntry(ZipEntry entry) throws IOException {
+    currentEntry = entry;
+    currentData = new ExposedByteArrayOutputStream();
+    streaming = false;
+  }
+
+  @Override
+  protected void actuallyWrite(byte[] b, int off, int len) throws IOException {
+    if (streaming) {
+      zip.write(b, off, len);
+      return;
+    }
+
+    Preconditions.checkNotNull(currentEntry);
+    Preconditions.checkNotNull(currentData);
+    currentData.write(b, off, len);
+    if (currentData.size() > MAX_BUFFERED_ENTRY_SIZE) {
+      writePendingEntries(0);
+      zip.putNextEntry(currentEntry);
+      zip.write(currentData.getBuffer(), 0, currentData.size());
+      currentData = null;
+      streaming = true;
+    }
+  }
+
+  @Override
+  protected void actuallyCloseEntry() throws IOException {
+    if (streaming) {
+      zip.closeEntry();
+    } else {
+      final ZipEntry entry = Preconditions.checkNotNull(currentEntry);
+      final ExposedByteArrayOutputStream data = Preconditions.checkNotNull(currentData);
+      if (isDeflated(entry)) {
+        pending.add(
+            executor.submit(
+                new Callable<BufferedEntry>() {
+                  @Override
+                  public BufferedEntry call() {
+                    return deflate(entry, data);
+                  }
+                }));
+      } else {
+        pending.add(Futures.immediateFuture(new BufferedEntry(entry, data)));
+      }
+    }
+    currentEntry = null;
+    currentData = null;
+    streaming = false;
+
+    writePendingEntries(maxPendingEntries);
+  }
+
+  @Override
+  protected void actuallyClose() throws IOException {
+    try {
+      writePendingEntries(0);
+    } finally {
+      zip.close();
+    }
+  }
+
+  /**
+   * Writes out entries from the head of the queue, waiting for them to be deflated while more
+   * than {@code maxRemaining} are still pending.
+   */
+  private void writePendingEntries(int maxRemaining) throws IOException {
+    while (!pending.isEmpty() &&
+        (pending.size() > maxRemaining || pending.peek().isDone())) {
+      BufferedEntry entry;
+      try {
+        entry = pending.remove().get();
+      } catch (ExecutionException e) {
+        Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+        throw Throwables.propagate(e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while deflating zip entries");
+      }
+      entry.writeTo(zip);
+    }
+  }
+
+  private static boolean isDeflated(ZipEntry entry) {
+    return !(entry instanceof RawZipEntry) &&
+        (entry.getMethod() == ZipEntry.DEFLATED || entry.getMethod() == -1);
+  }
+
+  private static BufferedEntry deflate(ZipEntry entry, ExposedByteArrayOutputStream data) {
+    // Configure the deflater exactly as EntryAccounting does, so the output is the same.
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    if (entry instanceof CustomZipEntry) {
+      deflater.setLevel(((CustomZipEntry) entry).getCompressionLevel());
+    }
+    ExposedByteArrayOutputStream compressed = new ExposedByteArrayOutputStream();
+    try {
+      byte[] buffer = new byte[ARBITRARY_SIZE];
+      deflater.setInput(data.getBuffer(), 0, data.size());
+      deflater.finish();
+      while (!deflater.finished()) {
+        int written = deflater.deflate(buffer, 0, buffer.length);
+        compressed.write(buffer, 0, written);
+      }
+    } finally {
+      deflater.end();
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(data.getBuffer(), 0, data.size());
+    entry.setMethod(ZipEntry.DEFLATED);
+    entry.setCrc(crc.getValue());
+    entry.setSize(data.size());
+    entry.setCompressedSize(compressed.size());
+    return new BufferedEntry(new RawZipEntry(entry), compressed);
+  }
+
+  /** An entry whose data, deflated or not, is ready to be written to the wrapped stream. */
+  private static class BufferedEntry {
+    private final ZipEntry entry;
+    private final ExposedByteArrayOutputStream data;
+
+    public BufferedEntry(ZipEntry entry, ExposedByteArrayOutputStream data) {
+      this.entry = entry;
+      this.data = data;
+    }
+
+    public void writeTo(CustomZipOutputStream zip) throws IOException {
+      if (entry instanceof RawZipEntry) {
+        zip.putRawEntry(entry, new ByteArrayInputStream(data.getBuffer(), 0, data.size()));
+      } else {
+        zip.putNextEntry(entry);
+        zip.write(data.getBuffer(), 0, data.size());
+        zip.closeEntry();
+      }
+    }
+  }
+
+  /** Gives access to the buffer, so that entries aren't copied each time they're handed on. */
+  private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+    public byte[] getBuffer() {
+      return buf;
+    }
+  }
+}
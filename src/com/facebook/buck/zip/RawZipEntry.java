@@ -0,0 +1,63 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.zip;
+
+import com.google.common.base.Preconditions;
+
+import java.util.zip.ZipEntry;
+
+/**
+ * A deflated {@link ZipEntry} whose data is written to a {@link CustomZipOutputStream} already
+ * compressed, so that it is copied into the zip verbatim rather than being deflated again.  The
+ * compression level and attributes of a {@link CustomZipEntry} are kept, so that the headers
+ * written for it match those of the entry it was copied from.
+ */
+class RawZipEntry extends CustomZipEntry {
+
+  /**
+   * Mask for the general purpose flag bits which record the level a deflated entry was
+   * compressed with.
+   */
+  static final int COMPRESSION_LEVEL_FLAGS = (1 << 1) | (1 << 2);
+
+  private final int compressionLevelFlags;
+
+  public RawZipEntry(ZipEntry other) {
+    this(other, 0);
+  }
+
+  /**
+   * @param compressionLevelFlags The general purpose flags of the zip the entry's data was read
+   *     from, whose compression level bits are written for this entry too.
+   */
+  public RawZipEntry(ZipEntry other, int compressionLevelFlags) {
+    super(other);
+    Preconditions.checkArgument(
+        getMethod() == DEFLATED,
+        "Only deflated entries can be copied raw: %s",
+        getName());
+    Preconditions.checkArgument(
+        getCrc() != -1 && getSize() != -1 && getCompressedSize() != -1,
+        "The CRC and sizes of a raw entry must be known: %s",
+        getName());
+    this.compressionLevelFlags = compressionLevelFlags & COMPRESSION_LEVEL_FLAGS;
+  }
+
+  public int getCompressionLevelFlags() {
+    return compressionLevelFlags;
+  }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.zip;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Gives access to the still-compressed data of the entries in a zip file, so that they can be
+ * copied into another zip with {@link CustomZipOutputStream#putRawEntry(ZipEntry, InputStream)}
+ * rather than being inflated and deflated again.
+ * <p>
+ * Only the central directory is read up front.  Entries which can't be copied this way (encrypted
+ * or zip64 entries, or names which appear more than once) are simply not available, and callers
+ * should fall back to {@link java.util.zip.ZipFile} for them.
+ */
+public class RawZipFile implements Closeable {
+
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int CENTRAL_HEADER_SIZE = 46;
+  private static final int END_HEADER_SIZE = 22;
+  private static final int MAX_COMMENT_SIZE = 0xffff;
+  private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+  private static final long ZIP64_MAGIC = 0xffffffffL;
+  private static final int ENCRYPTED_FLAG = 1;
+
+  private final FileChannel channel;
+  private final ImmutableMap<String, Entry> entries;
+
+  private RawZipFile(FileChannel channel, ImmutableMap<String, Entry> entries) {
+    this.channel = channel;
+    this.entries = entries;
+  }
+
+  /**
+   * @return the zip at {@code path}, or absent if its layout isn't one we can copy from (e.g. a
+   *     zip64 archive).  Corrupt zips are also absent, leaving {@link java.util.zip.ZipFile} to
+   *     report the problem.
+   */
+  public static Optional<RawZipFile> open(Path path) throws IOException {
+    FileChannel channel = FileChannel.open(path);
+    boolean success = false;
+    try {
+      Optional<ImmutableMap<String, Entry>> entries = readCentralDirectory(channel);
+      if (!entries.isPresent()) {
+        return Optional.absent();
+      }
+      success = true;
+      return Optional.of(new RawZipFile(channel, entries.get()));
+    } finally {
+      if (!success) {
+        channel.close();
+      }
+    }
+  }
+
+  /**
+   * @return a stream of exactly {@code entry.getCompressedSize()} bytes of deflated data for the
+   *     given entry, or absent if it can't be copied raw.
+   */
+  public Optional<InputStream> getRawInputStream(ZipEntry entry) throws IOException {
+    Entry rawEntry = entries.get(entry.getName());
+    if (rawEntry == null ||
+        entry.getMethod() != ZipEntry.DEFLATED ||
+        rawEntry.method != ZipEntry.DEFLATED ||
+        rawEntry.compressedSize != entry.getCompressedSize() ||
+        rawEntry.crc != entry.getCrc()) {
+      return Optional.absent();
+    }
+
+    ByteBuffer localHeader = read(channel, rawEntry.localHeaderOffset, LOCAL_HEADER_SIZE);
+    if (localHeader.getInt(0) != ZipEntry.LOCSIG) {
+      throw new ZipException("Bad local header for " + entry.getName());
+    }
+    long dataOffset = rawEntry.localHeaderOffset +
+        LOCAL_HEADER_SIZE +
+        getUnsignedShort(localHeader, 26) +
+        getUnsignedShort(localHeader, 28);
+    return Optional.<InputStream>of(
+        new ChannelRegionInputStream(channel, dataOffset, rawEntry.compressedSize));
+  }
+
+  /**
+   * Copies the deflated data of {@code entry} into {@code out} verbatim, keeping the compression
+   * level recorded in the source zip's general purpose flags.
+   *
+   * @return whether the entry was copied.  If it can't be copied raw, {@code out} is untouched.
+   */
+  public boolean copyRawEntry(ZipEntry entry, CustomZipOutputStream out) throws IOException {
+    Optional<InputStream> rawStream = getRawInputStream(entry);
+    if (!rawStream.isPresent()) {
+      return false;
+    }
+    try (InputStream inputStream = rawStream.get()) {
+      out.putRawEntry(
+          new RawZipEntry(entry, entries.get(entry.getName()).flags),
+          inputStream);
+    }
+    return true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private static Optional<ImmutableMap<String, Entry>> readCentralDirectory(FileChannel channel)
+      throws IOException {
+    long size = channel.size();
+    if (size < END_HEADER_SIZE) {
+      return Optional.absent();
+    }
+
+    // The end of central directory record sits at the very end of the file, followed only by a
+    // variable length comment, so search backwards for its signature.
+    int tailSize = (int) Math.min(size, END_HEADER_SIZE + MAX_COMMENT_SIZE);
+    ByteBuffer tail = read(channel, size - tailSize, tailSize);
+    int endHeader = -1;
+    for (int i = tailSize - END_HEADER_SIZE; i >= 0; i--) {
+      if (tail.getInt(i) == ZipEntry.ENDSIG) {
+        endHeader = i;
+        break;
+      }
+    }
+    if (endHeader == -1) {
+      return Optional.absent();
+    }
+    if (endHeader >= 20 && tail.getInt(endHeader - 20) == ZIP64_LOCATOR_SIGNATURE) {
+      return Optional.absent();
+    }
+
+    int entryCount = getUnsignedShort(tail, endHeader + 10);
+    long centralDirectorySize = getUnsignedInt(tail, endHeader + 12);
+    long centralDirectoryOffset = getUnsignedInt(tail, endHeader + 16);
+    long endHeaderPosition = size - tailSize + endHeader;
+    // Anything prepended to the zip (e.g. a launcher script) shifts all the recorded offsets.
+    long prefix = endHeaderPosition - centralDirectorySize - centralDirectoryOffset;
+    if (entryCount == 0xffff || centralDirectoryOffset == ZIP64_MAGIC || prefix < 0) {
+      return Optional.absent();
+    }
+
+    ByteBuffer centralDirectory = read(
+        channel,
+        prefix + centralDirectoryOffset,
+        (int) centralDirectorySize);
+    Map<String, Entry> entries = new HashMap<>();
+    Set<String> seenNames = new HashSet<>();
+    int position = 0;
+    for (int i = 0; i < entryCount; i++) {
+      if (position + CENTRAL_HEADER_SIZE > centralDirectorySize ||
+          centralDirectory.getInt(position) != ZipEntry.CENSIG) {
+        return Optional.absent();
+      }
+      int flags = getUnsignedShort(centralDirectory, position + 8);
+      int method = getUnsignedShort(centralDirectory, position + 10);
+      long crc = getUnsignedInt(centralDirectory, position + 16);
+      long compressedSize = getUnsignedInt(centralDirectory, position + 20);
+      long uncompressedSize = getUnsignedInt(centralDirectory, position + 24);
+      int nameLength = getUnsignedShort(centralDirectory, position + 28);
+      int extraLength = getUnsignedShort(centralDirectory, position + 30);
+      int commentLength = getUnsignedShort(centralDirectory, position + 32);
+      long localHeaderOffset = getUnsignedInt(centralDirectory, position + 42);
+
+      if (position + CENTRAL_HEADER_SIZE + nameLength > centralDirectorySize) {
+        return Optional.absent();
+      }
+      byte[] nameBytes = new byte[nameLength];
+      centralDirectory.position(position + CENTRAL_HEADER_SIZE);
+      centralDirectory.get(nameBytes);
+      String name = new String(nameBytes, Charsets.UTF_8);
+      position += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+
+      if (!seenNames.add(name)) {
+        entries.remove(name);
+        continue;
+      }
+      if ((flags & ENCRYPTED_FLAG) != 0 ||
+          compressedSize == ZIP64_MAGIC ||
+          uncompressedSize == ZIP64_MAGIC ||
+          localHeaderOffset == ZIP64_MAGIC) {
+        continue;
+      }
+      entries.put(
+          name,
+          new Entry(flags, method, crc, compressedSize, prefix + localHeaderOffset));
+    }
+    return Optional.of(ImmutableMap.copyOf(entries));
+  }
+
+  private static ByteBuffer read(FileChannel channel, long position, int length)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) == -1) {
+        throw new ZipException("Unexpected end of zip file");
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private static int getUnsignedShort(ByteBuffer buffer, int index) {
+    return buffer.getShort(index) & 0xffff;
+  }
+
+  private static long getUnsignedInt(ByteBuffer buffer, int index) {
+    return buffer.getInt(index) & 0xffffffffL;
+  }
+
+  /**
+   * Reads a region of a channel using positional reads, so that it neither depends on nor moves
+   * the channel's own position, and leaves the channel open when closed.
+   */
+  private static class ChannelRegionInputStream extends InputStream {
+    private final FileChannel channel;
+    private long position;
+    private long remaining;
+
+    public ChannelRegionInputStream(FileChannel channel, long position, long length) {
+      this.channel = channel;
+      this.position = position;
+      this.remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : (b[0] & 0xff);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (remaining == 0) {
+        return -1;
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(b, off, (int) Math.min(len, remaining));
+      int read = channel.read(buffer, position);
+      if (read == -1) {
+        throw new ZipException("Unexpected end of zip file");
+      }
+      position += read;
+      remaining -= read;
+      return read;
+    }
+  }
+
+  private static class Entry {
+    private final int flags;
+    private final int method;
+    private final long crc;
+    private final long compressedSize;
+    private final long localHeaderOffset;
+
+    public Entry(int flags, int method, long crc, long compressedSize, long localHeaderOffset) {
+      this.flags = flags;
+      this.method = method;
+      this.crc = crc;
+      this.compressedSize = compressedSize;
+      this.localHeaderOffset = localHeaderOffset;
+    }
+  }
+}
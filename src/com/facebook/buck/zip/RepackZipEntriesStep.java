@@ -94,7 +94,13 @@ public class RepackZipEntriesStep implements Step {
     try (
         ZipInputStream in =
             new ZipInputStream(new BufferedInputStream(Files.newInputStream(inputFile)));
-        CustomZipOutputStream out = ZipOutputStreams.newOutputStream(outputFile)) {
+        CustomZipOutputStream zipOut = ZipOutputStreams.newOutputStream(outputFile);
+        CustomZipOutputStream out = context.isParallelZipEnabled() ?
+            ZipOutputStreams.newParallelOutputStream(
+                zipOut,
+                context.getExecutorService(ExecutionContext.ExecutorPool.CPU),
+                context.getConcurrencyLimit().threadLimit) :
+            zipOut) {
       for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
         CustomZipEntry customEntry = new CustomZipEntry(entry);
         if (entries.contains(customEntry.getName())) {
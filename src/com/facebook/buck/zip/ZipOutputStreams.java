@@ -19,6 +19,7 @@ package com.facebook.buck.zip;
 import com.facebook.buck.timing.Clock;
 import com.facebook.buck.timing.DefaultClock;
 import com.facebook.buck.util.HumanReadableException;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 import java.io.BufferedOutputStream;
 import java.io.IOException;
@@ -97,6 +98,23 @@ public class ZipOutputStreams {
     }
   }
 
+  /**
+   * Wrap {@code out} so that entries are deflated on {@code executor}, with up to
+   * {@code maxPendingEntries} of them in flight at once. Entries are still written to {@code out}
+   * in the order they are added, and the resulting zip is byte-for-byte the one {@code out} would
+   * have written by itself. Closing the returned stream closes {@code out}.
+   *
+   * @param out The stream to write the deflated entries to.
+   * @param executor Where to deflate entries.
+   * @param maxPendingEntries How many entries may be buffered waiting to be written.
+   */
+  public static CustomZipOutputStream newParallelOutputStream(
+      CustomZipOutputStream out,
+      ListeningExecutorService executor,
+      int maxPendingEntries) {
+    return new ParallelZipOutputStream(out, executor, maxPendingEntries);
+  }
+
   public enum HandleDuplicates {
     /** Duplicate entries are simply appended to the zip. */
     APPEND_TO_ZIP,
@@ -173,8 +173,14 @@ public class ZipStep implements Step {
     try (
       BufferedOutputStream baseOut =
           new BufferedOutputStream(filesystem.newFileOutputStream(pathToZipFile));
-      CustomZipOutputStream out =
-          ZipOutputStreams.newOutputStream(baseOut, OVERWRITE_EXISTING)) {
+      CustomZipOutputStream zipOut =
+          ZipOutputStreams.newOutputStream(baseOut, OVERWRITE_EXISTING);
+      CustomZipOutputStream out = context.isParallelZipEnabled() ?
+          ZipOutputStreams.newParallelOutputStream(
+              zipOut,
+              context.getExecutorService(ExecutionContext.ExecutorPool.CPU),
+              context.getConcurrencyLimit().threadLimit) :
+          zipOut) {
 
       filesystem.walkRelativeFileTree(baseDir, pathFileVisitor);
 
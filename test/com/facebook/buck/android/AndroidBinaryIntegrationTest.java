@@ -27,24 +27,14 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import com.facebook.buck.android.relinker.Symbols;
-import com.facebook.buck.rules.DefaultTargetNodeToBuildRuleTransformer;
-import com.facebook.buck.io.ProjectFilesystem;
 import com.facebook.buck.model.BuildTargetFactory;
 import com.facebook.buck.model.BuildTargets;
-import com.facebook.buck.rules.BuildRuleResolver;
-import com.facebook.buck.rules.SourcePathResolver;
-import com.facebook.buck.rules.TargetGraph;
 import com.facebook.buck.testutil.integration.BuckBuildLog;
 import com.facebook.buck.testutil.integration.ProjectWorkspace;
 import com.facebook.buck.testutil.integration.TemporaryPaths;
 import com.facebook.buck.testutil.integration.TestDataHelper;
 import com.facebook.buck.testutil.integration.ZipInspector;
-import com.facebook.buck.util.DefaultPropertyFinder;
-import com.facebook.buck.util.environment.Platform;
 import com.facebook.buck.zip.ZipConstants;
-import com.google.common.base.Optional;
-import com.google.common.collect.ImmutableCollection;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.hash.Hashing;
 
 import org.apache.commons.compress.archivers.zip.ZipUtil;
@@ -292,36 +282,6 @@ public class AndroidBinaryIntegrationTest {
 
   @Test
   public void testNativeRelinker() throws IOException, InterruptedException {
-    // TODO(cjhopman): is this really the simplest way to get the objdump tool?
-    AndroidDirectoryResolver androidResolver = new DefaultAndroidDirectoryResolver(
-        workspace.asCell().getFilesystem(),
-        Optional.<String>absent(),
-        Optional.<String>absent(),
-        new DefaultPropertyFinder(
-            workspace.asCell().getFilesystem(),
-            ImmutableMap.copyOf(System.getenv())));
-
-    Optional<Path> ndkPath = androidResolver.findAndroidNdkDir();
-    assertTrue(ndkPath.isPresent());
-
-    ImmutableCollection<NdkCxxPlatform> platforms = NdkCxxPlatforms.getPlatforms(
-        new ProjectFilesystem(ndkPath.get()),
-        NdkCxxPlatformCompiler.builder()
-            .setType(NdkCxxPlatforms.DEFAULT_COMPILER_TYPE)
-            .setVersion(NdkCxxPlatforms.DEFAULT_GCC_VERSION)
-            .setGccVersion(NdkCxxPlatforms.DEFAULT_GCC_VERSION)
-            .build(),
-        NdkCxxPlatforms.DEFAULT_CXX_RUNTIME,
-        NdkCxxPlatforms.DEFAULT_TARGET_APP_PLATFORM,
-        NdkCxxPlatforms.DEFAULT_CPU_ABIS,
-        Platform.detect()).values();
-    assertFalse(platforms.isEmpty());
-    NdkCxxPlatform platform = platforms.iterator().next();
-
-    SourcePathResolver pathResolver = new SourcePathResolver(
-        new BuildRuleResolver(TargetGraph.EMPTY, new DefaultTargetNodeToBuildRuleTransformer())
-    );
-
     Path apkPath = workspace.buildAndReturnOutput("//apps/sample:app_xdso_dce");
 
     ZipInspector zipInspector = new ZipInspector(apkPath);
@@ -332,7 +292,7 @@ public class AndroidBinaryIntegrationTest {
     Path tmpDir = tmpFolder.newFolder("xdso");
     Path lib = unzip(
         tmpDir, apkPath, "lib/x86/libnative_xdsodce_top.so");
-    Symbols sym = Symbols.getSymbols(platform.getObjdump(), pathResolver, lib);
+    Symbols sym = Symbols.getSymbols(lib);
 
     assertTrue(sym.global.contains("_Z10JNI_OnLoadii"));
     assertTrue(sym.undefined.contains("_Z10midFromTopi"));
@@ -340,14 +300,14 @@ public class AndroidBinaryIntegrationTest {
     assertFalse(sym.all.contains("_Z6unusedi"));
 
     lib = unzip(tmpDir, apkPath, "lib/x86/libnative_xdsodce_mid.so");
-    sym = Symbols.getSymbols(platform.getObjdump(), pathResolver, lib);
+    sym = Symbols.getSymbols(lib);
 
     assertTrue(sym.global.contains("_Z10midFromTopi"));
     assertTrue(sym.undefined.contains("_Z10botFromMidi"));
     assertFalse(sym.all.contains("_Z6unusedi"));
 
     lib = unzip(tmpDir, apkPath, "lib/x86/libnative_xdsodce_bot.so");
-    sym = Symbols.getSymbols(platform.getObjdump(), pathResolver, lib);
+    sym = Symbols.getSymbols(lib);
 
     assertTrue(sym.global.contains("_Z10botFromTopi"));
     assertTrue(sym.global.contains("_Z10botFromMidi"));
@@ -362,17 +322,17 @@ public class AndroidBinaryIntegrationTest {
 
     lib = unzip(
         tmpDir, apkPath, "lib/x86/libnative_xdsodce_top.so");
-    sym = Symbols.getSymbols(platform.getObjdump(), pathResolver, lib);
+    sym = Symbols.getSymbols(lib);
 
     assertTrue(sym.all.contains("_Z6unusedi"));
 
     lib = unzip(tmpDir, apkPath, "lib/x86/libnative_xdsodce_mid.so");
-    sym = Symbols.getSymbols(platform.getObjdump(), pathResolver, lib);
+    sym = Symbols.getSymbols(lib);
 
     assertTrue(sym.all.contains("_Z6unusedi"));
 
     lib = unzip(tmpDir, apkPath, "lib/x86/libnative_xdsodce_bot.so");
-    sym = Symbols.getSymbols(platform.getObjdump(), pathResolver, lib);
+    sym = Symbols.getSymbols(lib);
 
     assertTrue(sym.all.contains("_Z6unusedi"));
   }
@@ -22,6 +22,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import com.facebook.buck.android.SmartDexingStep.DxPseudoRule;
+import com.facebook.buck.android.SmartDexingStep.InputDexPiece;
 import com.facebook.buck.io.ProjectFilesystem;
 import com.facebook.buck.rules.Sha1HashCode;
 import com.facebook.buck.step.CompositeStep;
@@ -37,6 +38,7 @@ import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.io.Files;
 
 import org.easymock.EasyMockSupport;
@@ -50,8 +52,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -97,6 +101,116 @@ public class SmartDexingStepTest extends EasyMockSupport {
     assertTrue("Matching input hash should be considered cached", rule.checkIsCached());
   }
 
+  @Test
+  public void testDxPseudoRuleMergesTheCachedDexesOfEachPackage() throws IOException {
+    ProjectFilesystem filesystem = new ProjectFilesystem(tmpDir.getRoot().toPath());
+    Path input = Paths.get("secondary-1.jar");
+    writeJar(
+        filesystem.resolve(input).toFile(),
+        ImmutableMap.of(
+            "com/example/a/A.class", "A",
+            "com/example/a/B.class", "B",
+            "com/example/b/C.class", "C",
+            "META-INF/MANIFEST.MF", "Manifest"));
+    Path cacheDir = Paths.get("cache");
+
+    // Even a single input is merged from the dexes of its packages.
+    ImmutableList<InputDexPiece> pieces =
+        newCachingRule(filesystem, input, DxStep.Option.NO_OPTIMIZE, cacheDir)
+            .getInputDexPieces("1.10");
+    assertEquals(2, pieces.size());
+    assertEquals(
+        ImmutableSortedSet.of("com/example/a/A.class", "com/example/a/B.class"),
+        pieces.get(0).getClasses());
+    assertEquals(ImmutableSortedSet.of("com/example/b/C.class"), pieces.get(1).getClasses());
+    for (InputDexPiece piece : pieces) {
+      assertEquals(input, piece.getInput());
+      assertEquals(cacheDir, piece.getDex().getParent());
+      assertTrue(piece.getDex().toString().endsWith(".dex.jar"));
+    }
+
+    // Changing a class only changes the dex of its own package.
+    writeJar(
+        filesystem.resolve(input).toFile(),
+        ImmutableMap.of(
+            "com/example/a/A.class", "A",
+            "com/example/a/B.class", "Changed B",
+            "com/example/b/C.class", "C"));
+    ImmutableList<InputDexPiece> changed =
+        newCachingRule(filesystem, input, DxStep.Option.NO_OPTIMIZE, cacheDir)
+            .getInputDexPieces("1.10");
+    assertFalse(pieces.get(0).getDex().equals(changed.get(0).getDex()));
+    assertEquals(pieces.get(1).getDex(), changed.get(1).getDex());
+
+    // The same classes dexed with other options or another version of dx are kept apart.
+    assertFalse(
+        changed.get(1).getDex().equals(
+            newCachingRule(filesystem, input, DxStep.Option.FORCE_JUMBO, cacheDir)
+                .getInputDexPieces("1.10").get(1).getDex()));
+    assertFalse(
+        changed.get(1).getDex().equals(
+            newCachingRule(filesystem, input, DxStep.Option.NO_OPTIMIZE, cacheDir)
+                .getInputDexPieces("1.11").get(1).getDex()));
+
+    // An input of a single package is dexed directly.
+    writeJar(
+        filesystem.resolve(input).toFile(),
+        ImmutableMap.of("com/example/a/A.class", "A"));
+    assertTrue(
+        newCachingRule(filesystem, input, DxStep.Option.NO_OPTIMIZE, cacheDir)
+            .getInputDexPieces("1.10")
+            .isEmpty());
+  }
+
+  private static DxPseudoRule newCachingRule(
+      ProjectFilesystem filesystem,
+      Path input,
+      DxStep.Option option,
+      Path cacheDir) {
+    return new DxPseudoRule(
+        filesystem,
+        ImmutableMap.of(input, Sha1HashCode.of(Strings.repeat("a", 40))),
+        ImmutableSet.of(input),
+        Paths.get("classes.dex"),
+        Paths.get("classes.dex.hash"),
+        EnumSet.of(option),
+        Optional.<Integer>absent(),
+        Optional.of(cacheDir));
+  }
+
+  private static void writeJar(File jar, ImmutableMap<String, String> entries)
+      throws IOException {
+    try (ZipOutputStream zipOut = new ZipOutputStream(
+        new BufferedOutputStream(new FileOutputStream(jar)))) {
+      for (Map.Entry<String, String> entry : entries.entrySet()) {
+        zipOut.putNextEntry(new ZipEntry(entry.getKey()));
+        zipOut.write(entry.getValue().getBytes(Charsets.UTF_8));
+      }
+    }
+  }
+
+  @Test
+  public void testEvictInputDexesDropsTheLeastRecentlyUsedDexes() throws IOException {
+    ProjectFilesystem filesystem = new ProjectFilesystem(tmpDir.getRoot().toPath());
+    Path cacheDir = Paths.get("cache");
+    filesystem.mkdirs(cacheDir);
+    Path oldest = cacheDir.resolve("oldest.dex.jar");
+    Path leftover = cacheDir.resolve("leftover.dex.jar123.tmp.jar");
+    Path newest = cacheDir.resolve("newest.dex.jar");
+    long time = 1000000000000L;
+    for (Path path : ImmutableList.of(oldest, leftover, newest)) {
+      filesystem.writeBytesToPath(new byte[100], path);
+      filesystem.setLastModifiedTime(path, FileTime.fromMillis(time));
+      time += 1000;
+    }
+
+    SmartDexingStep.evictInputDexes(filesystem, cacheDir, 150);
+
+    assertFalse(filesystem.exists(oldest));
+    assertFalse(filesystem.exists(leftover));
+    assertTrue(filesystem.exists(newest));
+  }
+
   @Test
   public void testCreateDxStepForDxPseudoRuleWithXzOutput() throws IOException {
     ProjectFilesystem filesystem = FakeProjectFilesystem.createJavaOnlyFilesystem();
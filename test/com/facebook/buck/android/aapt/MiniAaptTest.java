@@ -27,6 +27,7 @@ import com.facebook.buck.android.aapt.RDotTxtEntry.IdType;
 import com.facebook.buck.android.aapt.RDotTxtEntry.RType;
 import com.facebook.buck.rules.DefaultTargetNodeToBuildRuleTransformer;
 import com.facebook.buck.event.BuckEventBus;
+import com.facebook.buck.io.ProjectFilesystem;
 import com.facebook.buck.model.BuildId;
 import com.facebook.buck.rules.BuildRuleResolver;
 import com.facebook.buck.rules.FakeSourcePath;
@@ -35,17 +36,22 @@ import com.facebook.buck.rules.TargetGraph;
 import com.facebook.buck.testutil.FakeProjectFilesystem;
 import com.facebook.buck.timing.FakeClock;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.hamcrest.core.IsEqual;
 import org.hamcrest.junit.ExpectedException;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Set;
+import java.util.concurrent.Executors;
 
 import javax.xml.xpath.XPathExpressionException;
 
@@ -72,6 +78,9 @@ public class MiniAaptTest {
   @Rule
   public ExpectedException thrown = ExpectedException.none();
 
+  @Rule
+  public TemporaryFolder tmpFolder = new TemporaryFolder();
+
   @Test
   public void testFindingResourceIdsInXml()
       throws IOException, XPathExpressionException, ResourceParseException {
@@ -533,6 +542,69 @@ public class MiniAaptTest {
             new FakeRDotTxtEntry(IdType.INT, RType.STRING, "com_buckbuild_taskname")));
   }
 
+  @Test
+  public void testParallelIdScanningAssignsIdsInFileOrder()
+      throws IOException, InterruptedException, ResourceParseException {
+    ProjectFilesystem filesystem = new ProjectFilesystem(tmpFolder.getRoot().toPath());
+    filesystem.mkdirs(Paths.get("res/layout"));
+    filesystem.writeLinesToPath(
+        ImmutableList.of(
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+            "<RelativeLayout>",
+            "<Button android:layout_below=\"@+id/second\" android:id=\"@+id/first\" />",
+            "</RelativeLayout>"),
+        Paths.get("res/layout/a.xml"));
+    filesystem.writeLinesToPath(
+        ImmutableList.of(
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+            "<LinearLayout>",
+            "<Button android:id=\"@+id/third\" android:text=\"@string/text\" />",
+            "</LinearLayout>"),
+        Paths.get("res/layout/b.xml"));
+
+    // Ids are numbered in the order the files are walked, which depends on the file system, and
+    // within a file in document order, with an element's attributes sorted by name, so
+    // "android:id" comes before "android:layout_below".
+    ImmutableMap<String, ImmutableList<String>> idsByFile = ImmutableMap.of(
+        "a.xml", ImmutableList.of("first", "second"),
+        "b.xml", ImmutableList.of("third"));
+    ImmutableMap.Builder<String, String> expectedIdValues = ImmutableMap.builder();
+    int nextId = 0x7f010001;
+    for (Path path : filesystem.getFilesUnderPath(Paths.get("res"))) {
+      for (String id : idsByFile.get(path.getFileName().toString())) {
+        expectedIdValues.put(id, String.format("0x%08x", nextId++));
+      }
+    }
+
+    MiniAapt aapt = new MiniAapt(
+        resolver,
+        filesystem,
+        new FakeSourcePath(filesystem, "res"),
+        Paths.get("R.txt"),
+        ImmutableSet.<Path>of());
+    ListeningExecutorService executorService =
+        MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(4));
+    ImmutableSet.Builder<RDotTxtEntry> references = ImmutableSet.builder();
+    try {
+      aapt.processXmlFilesForIds(filesystem, executorService, references);
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    assertEquals(expectedIdValues.build(), getIdValues(aapt.getResourceCollector()));
+    assertEquals(
+        ImmutableSet.<RDotTxtEntry>of(new FakeRDotTxtEntry(IdType.INT, RType.STRING, "text")),
+        references.build());
+  }
+
+  private static ImmutableMap<String, String> getIdValues(AaptResourceCollector collector) {
+    ImmutableMap.Builder<String, String> idValues = ImmutableMap.builder();
+    for (RDotTxtEntry entry : collector.getResources()) {
+      idValues.put(entry.name, entry.idValue);
+    }
+    return idValues.build();
+  }
+
   @Test
   public void testUnionResources() throws
       IOException, XPathExpressionException, ResourceParseException {
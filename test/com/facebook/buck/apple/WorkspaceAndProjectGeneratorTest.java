@@ -78,6 +78,8 @@ import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.hamcrest.FeatureMatcher;
 import org.hamcrest.Matcher;
@@ -94,6 +96,7 @@ import java.nio.file.Paths;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 public class WorkspaceAndProjectGeneratorTest {
@@ -233,7 +236,8 @@ public class WorkspaceAndProjectGeneratorTest {
   }
 
   @Test
-  public void workspaceAndProjectsShouldDiscoverDependenciesAndTests() throws IOException {
+  public void workspaceAndProjectsShouldDiscoverDependenciesAndTests()
+      throws IOException, InterruptedException {
     WorkspaceAndProjectGenerator generator = new WorkspaceAndProjectGenerator(
         rootCell,
         targetGraph,
@@ -305,7 +309,60 @@ public class WorkspaceAndProjectGeneratorTest {
   }
 
   @Test
-  public void combinedProjectShouldDiscoverDependenciesAndTests() throws IOException {
+  public void projectsGeneratedConcurrentlyMatchSerialGeneration()
+      throws IOException, InterruptedException {
+    Map<Path, ProjectGenerator> serialProjectGenerators = new HashMap<>();
+    createWorkspaceAndProjectGenerator()
+        .generateWorkspaceAndDependentProjects(serialProjectGenerators);
+
+    Map<Path, ProjectGenerator> parallelProjectGenerators = new HashMap<>();
+    ListeningExecutorService executor =
+        MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(4));
+    try {
+      createWorkspaceAndProjectGenerator()
+          .generateWorkspaceAndDependentProjects(parallelProjectGenerators, executor);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(serialProjectGenerators.keySet(), parallelProjectGenerators.keySet());
+    for (Path projectDirectory : serialProjectGenerators.keySet()) {
+      assertEquals(
+          serialProjectGenerators.get(projectDirectory).getBuildTargetToGeneratedTargetMap()
+              .keySet(),
+          parallelProjectGenerators.get(projectDirectory).getBuildTargetToGeneratedTargetMap()
+              .keySet());
+    }
+  }
+
+  private WorkspaceAndProjectGenerator createWorkspaceAndProjectGenerator() {
+    return new WorkspaceAndProjectGenerator(
+        rootCell,
+        targetGraph,
+        workspaceNode.getConstructorArg(),
+        workspaceNode.getBuildTarget(),
+        ImmutableSet.of(ProjectGenerator.Option.INCLUDE_TESTS,
+            ProjectGenerator.Option.INCLUDE_DEPENDENCIES_TESTS),
+        false /* combinedProject */,
+        false /* buildWithBuck */,
+        ImmutableList.<String>of(),
+        ImmutableList.<BuildTarget>of(),
+        false /* parallelizeBuild */,
+        false /* attemptToDetermineBestCxxPlatform */,
+        new AlwaysFoundExecutableFinder(),
+        ImmutableMap.<String, String>of(),
+        PLATFORMS,
+        DEFAULT_PLATFORM,
+        "BUCK",
+        getSourcePathResolverForNodeFunction(targetGraph),
+        getFakeBuckEventBus(),
+        halideBuckConfig,
+        cxxBuckConfig);
+  }
+
+  @Test
+  public void combinedProjectShouldDiscoverDependenciesAndTests()
+      throws IOException, InterruptedException {
     WorkspaceAndProjectGenerator generator = new WorkspaceAndProjectGenerator(
         rootCell,
         targetGraph,
@@ -362,7 +419,7 @@ public class WorkspaceAndProjectGeneratorTest {
   }
 
   @Test
-  public void workspaceAndProjectsWithoutTests() throws IOException {
+  public void workspaceAndProjectsWithoutTests() throws IOException, InterruptedException {
     WorkspaceAndProjectGenerator generator = new WorkspaceAndProjectGenerator(
         rootCell,
         targetGraph,
@@ -424,7 +481,7 @@ public class WorkspaceAndProjectGeneratorTest {
   }
 
   @Test
-  public void requiredBuildTargets() throws IOException {
+  public void requiredBuildTargets() throws IOException, InterruptedException {
     BuildTarget genruleTarget = BuildTarget.builder(rootCell.getRoot(), "//foo", "gen").build();
     TargetNode<GenruleDescription.Arg> genrule  = GenruleBuilder
         .newGenruleBuilder(genruleTarget)
@@ -478,7 +535,7 @@ public class WorkspaceAndProjectGeneratorTest {
   }
 
   @Test
-  public void requiredBuildTargetsForCombinedProject() throws IOException {
+  public void requiredBuildTargetsForCombinedProject() throws IOException, InterruptedException {
     BuildTarget genruleTarget = BuildTarget.builder(rootCell.getRoot(), "//foo", "gen").build();
     TargetNode<GenruleDescription.Arg> genrule  = GenruleBuilder
         .newGenruleBuilder(genruleTarget)
@@ -532,7 +589,7 @@ public class WorkspaceAndProjectGeneratorTest {
   }
 
   @Test
-  public void buildWithBuck() throws IOException {
+  public void buildWithBuck() throws IOException, InterruptedException {
     Optional<Path> buck = new ExecutableFinder().getOptionalExecutable(
         Paths.get("buck"),
         ImmutableMap.<String, String>of());
@@ -597,7 +654,7 @@ public class WorkspaceAndProjectGeneratorTest {
   }
 
   @Test
-  public void buildWithBuckFocused() throws IOException {
+  public void buildWithBuckFocused() throws IOException, InterruptedException {
     final String fooLib = "//foo:lib";
     Optional<Path> buck = new ExecutableFinder().getOptionalExecutable(
         Paths.get("buck"),
@@ -643,7 +700,8 @@ public class WorkspaceAndProjectGeneratorTest {
   }
 
   @Test
-  public void buildWithBuckFocusedFailsIfTargetDoesNotExist() throws IOException {
+  public void buildWithBuckFocusedFailsIfTargetDoesNotExist()
+      throws IOException, InterruptedException {
     final String fooLib = "//NOT:EXISTING_TARGET";
     Optional<Path> buck = new ExecutableFinder().getOptionalExecutable(
         Paths.get("buck"),
@@ -685,7 +743,7 @@ public class WorkspaceAndProjectGeneratorTest {
   }
 
   @Test
-  public void buildWithBuckWithCxxPlatformDetection() throws IOException {
+  public void buildWithBuckWithCxxPlatformDetection() throws IOException, InterruptedException {
     Optional<Path> buck = new ExecutableFinder().getOptionalExecutable(
         Paths.get("buck"),
         ImmutableMap.<String, String>of());
@@ -738,7 +796,7 @@ public class WorkspaceAndProjectGeneratorTest {
   }
 
   @Test
-  public void combinedTestBundle() throws IOException {
+  public void combinedTestBundle() throws IOException, InterruptedException {
     TargetNode<AppleTestDescription.Arg> combinableTest1 = AppleTestBuilder
         .createBuilder(BuildTarget.builder(rootCell.getRoot(), "//foo", "combinableTest1").build())
         .setExtension(Either.<AppleBundleExtension, String>ofLeft(AppleBundleExtension.XCTEST))
@@ -1209,7 +1267,7 @@ public class WorkspaceAndProjectGeneratorTest {
   }
 
   @Test
-  public void targetsForWorkspaceWithExtraSchemes() throws IOException {
+  public void targetsForWorkspaceWithExtraSchemes() throws IOException, InterruptedException {
     setUpWorkspaceWithSchemeAndProjects();
 
     WorkspaceAndProjectGenerator generator = new WorkspaceAndProjectGenerator(
@@ -1340,7 +1398,7 @@ public class WorkspaceAndProjectGeneratorTest {
   }
 
   @Test
-  public void targetsForWorkspaceWithExtraTargets() throws IOException {
+  public void targetsForWorkspaceWithExtraTargets() throws IOException, InterruptedException {
     BuildTarget fooLibTarget = BuildTarget.builder(rootCell.getRoot(), "//foo", "FooLib").build();
     TargetNode<AppleLibraryDescription.Arg> fooLib = AppleLibraryBuilder
         .createBuilder(fooLibTarget)
@@ -1446,7 +1504,7 @@ public class WorkspaceAndProjectGeneratorTest {
   }
 
   @Test
-  public void enablingParallelizeBuild() throws IOException {
+  public void enablingParallelizeBuild() throws IOException, InterruptedException {
     BuildTarget fooLibTarget = BuildTarget.builder(rootCell.getRoot(), "//foo", "FooLib").build();
     TargetNode<AppleLibraryDescription.Arg> fooLib = AppleLibraryBuilder
         .createBuilder(fooLibTarget)
@@ -1503,7 +1561,7 @@ public class WorkspaceAndProjectGeneratorTest {
   }
 
   @Test
-  public void customRunnableSettings() throws IOException {
+  public void customRunnableSettings() throws IOException, InterruptedException {
     BuildTarget fooLibTarget = BuildTarget.builder(rootCell.getRoot(), "//foo", "FooLib").build();
     TargetNode<AppleLibraryDescription.Arg> fooLib = AppleLibraryBuilder
         .createBuilder(fooLibTarget)
@@ -338,6 +338,34 @@ public class BuckConfigTest {
     assertEquals(54321L, config.getDefaultTestTimeoutMillis());
   }
 
+  @Test
+  public void testGetTestWorkQueueExecutionOrder() throws IOException {
+    assertEquals(
+        WorkQueueExecutionOrder.FIFO,
+        FakeBuckConfig.builder().build().getTestWorkQueueExecutionOrder());
+
+    Reader reader = new StringReader(Joiner.on('\n').join(
+        "[build]",
+        "work_queue_execution_order = LIFO"));
+    BuckConfig config = BuckConfigTestUtils.createWithDefaultFilesystem(
+        temporaryFolder,
+        reader);
+    assertEquals(WorkQueueExecutionOrder.LIFO, config.getTestWorkQueueExecutionOrder());
+  }
+
+  @Test
+  public void testIsParallelZipEnabled() throws IOException {
+    assertFalse(FakeBuckConfig.builder().build().isParallelZipEnabled());
+
+    Reader reader = new StringReader(Joiner.on('\n').join(
+        "[build]",
+        "parallel_zip = true"));
+    BuckConfig config = BuckConfigTestUtils.createWithDefaultFilesystem(
+        temporaryFolder,
+        reader);
+    assertTrue(config.isParallelZipEnabled());
+  }
+
   @Test
   public void testGetMaxTraces() throws IOException {
     assertEquals(25, FakeBuckConfig.builder().build().getMaxTraces());
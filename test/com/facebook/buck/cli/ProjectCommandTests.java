@@ -37,6 +37,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -126,7 +127,8 @@ public class ProjectCommandTests {
         projectGenerators,
         isBuildWithBuck,
         isCombinedProjects,
-        isCombinesTestBundles);
+        isCombinesTestBundles,
+        MoreExecutors.newDirectExecutorService());
     return projectGenerators;
   }
 
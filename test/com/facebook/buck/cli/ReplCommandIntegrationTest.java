@@ -25,6 +25,7 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assume.assumeTrue;
 
 import com.facebook.buck.rules.ActionGraphCache;
+import com.facebook.buck.shell.WorkerProcess;
 import com.facebook.buck.testutil.integration.DebuggableTemporaryFolder;
 
 import org.junit.Rule;
@@ -61,6 +62,7 @@ import org.easymock.EasyMock;
 import java.io.InputStream;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Unit test for {@link ReplCommand}.
@@ -133,6 +135,7 @@ public class ReplCommandIntegrationTest {
         new NullFileHashCache(),
         new HashMap<ExecutionContext.ExecutorPool, ListeningExecutorService>(),
         CommandRunnerParamsForTesting.BUILD_ENVIRONMENT_DESCRIPTION,
-        new ActionGraphCache());
+        new ActionGraphCache(),
+        Optional.<ConcurrentMap<String, WorkerProcess>>absent());
   }
 }
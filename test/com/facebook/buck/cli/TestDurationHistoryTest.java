@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.cli;
+
+import static org.junit.Assert.assertEquals;
+
+import com.facebook.buck.model.BuildTarget;
+import com.facebook.buck.model.BuildTargetFactory;
+import com.facebook.buck.test.FakeTestResults;
+import com.facebook.buck.test.TestCaseSummary;
+import com.facebook.buck.test.TestResultSummary;
+import com.facebook.buck.test.result.type.ResultType;
+import com.facebook.buck.testutil.FakeProjectFilesystem;
+import com.facebook.buck.util.ObjectMappers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Test;
+
+public class TestDurationHistoryTest {
+
+  private static final ObjectMapper MAPPER = ObjectMappers.newDefaultInstance();
+
+  @Test
+  public void roundTripsRuleAndTestCaseDurations() throws Exception {
+    FakeProjectFilesystem filesystem = new FakeProjectFilesystem();
+    BuildTarget target = BuildTargetFactory.newInstance("//foo:test");
+    TestDurationHistory history = TestDurationHistory.load(filesystem, MAPPER);
+    history.recordRuleDuration(target, 1234);
+    history.recordTestCaseDurations(
+        FakeTestResults.of(
+            ImmutableList.of(
+                new TestCaseSummary(
+                    "com.example.FooTest",
+                    ImmutableList.of(
+                        new TestResultSummary(
+                            "com.example.FooTest",
+                            "testFoo",
+                            ResultType.SUCCESS,
+                            500,
+                            null,
+                            null,
+                            null,
+                            null))))));
+    history.save(filesystem, MAPPER);
+
+    TestDurationHistory loaded = TestDurationHistory.load(filesystem, MAPPER);
+    assertEquals(Optional.of(1234L), loaded.getRuleDuration(target));
+    assertEquals(Optional.of(500L), loaded.getTestCaseDuration("com.example.FooTest"));
+  }
+
+  @Test
+  public void ignoresUnreadableHistory() throws Exception {
+    FakeProjectFilesystem filesystem = new FakeProjectFilesystem();
+    filesystem.writeContentsToPath("{not json", TestDurationHistory.PATH);
+    TestDurationHistory history = TestDurationHistory.load(filesystem, MAPPER);
+    assertEquals(
+        Optional.<Long>absent(),
+        history.estimateRuleDuration(BuildTargetFactory.newInstance("//foo:test")));
+  }
+
+  @Test
+  public void unknownRulesAreEstimatedFromTheAverage() {
+    TestDurationHistory history = new TestDurationHistory(
+        ImmutableMap.of("//foo:a", 100L, "//foo:b", 300L),
+        ImmutableMap.<String, Long>of());
+    assertEquals(
+        Optional.of(100L),
+        history.estimateRuleDuration(BuildTargetFactory.newInstance("//foo:a")));
+    assertEquals(
+        Optional.of(200L),
+        history.estimateRuleDuration(BuildTargetFactory.newInstance("//foo:c")));
+  }
+
+  @Test
+  public void predictsWallTimeOfGreedySchedule() {
+    assertEquals(0, TestDurationHistory.predictWallTime(ImmutableList.<Long>of(), 4));
+    assertEquals(
+        60,
+        TestDurationHistory.predictWallTime(ImmutableList.of(10L, 20L, 30L), 1));
+    // Longest first: [50] and [40, 10] finish together.
+    assertEquals(
+        50,
+        TestDurationHistory.predictWallTime(ImmutableList.of(50L, 40L, 10L), 2));
+    // Shortest first leaves the longest job running alone at the end.
+    assertEquals(
+        60,
+        TestDurationHistory.predictWallTime(ImmutableList.of(10L, 40L, 50L), 2));
+  }
+}
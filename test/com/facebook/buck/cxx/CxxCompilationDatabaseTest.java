@@ -113,6 +113,7 @@ public class CxxCompilationDatabaseTest {
     BuildRuleParams compileBuildRuleParams;
     switch (strategy) {
       case SEPARATE:
+      case SEPARATE_NORMALIZED:
         CxxPreprocessAndCompile preprocessRule =
             CxxPreprocessAndCompile.preprocess(
                 new FakeBuildRuleParamsBuilder(preprocessTarget)
@@ -315,4 +316,18 @@ public class CxxCompilationDatabaseTest {
             "test.o",
             "/Users/user/src/test.cpp"));
   }
+
+  @Test
+  public void testCompilationDatabaseWithSeparatedNormalizedPreprocessAndCompileStrategy() {
+    runCombinedTest(CxxPreprocessMode.SEPARATE_NORMALIZED,
+        ImmutableList.of(
+            "compiler",
+            "-isystem", "foo/bar",
+            "-isystem", "test",
+            "-x", "c++",
+            "-c",
+            "-o",
+            "test.o",
+            "/Users/user/src/test.cpp"));
+  }
 }
@@ -263,6 +263,47 @@ public class CxxPreprocessAndCompileTest {
     assertNotEquals(defaultRuleKey, inputChange);
   }
 
+  @Test
+  public void compilesKeyedOnNormalizedInputIgnoreTheInputItself() {
+    final SourcePathResolver pathResolver = new SourcePathResolver(
+        new BuildRuleResolver(TargetGraph.EMPTY, new DefaultTargetNodeToBuildRuleTransformer())
+    );
+    BuildTarget target = BuildTargetFactory.newInstance("//foo:bar");
+    final BuildRuleParams params = new FakeBuildRuleParamsBuilder(target).build();
+    final FakeFileHashCache hashCache = FakeFileHashCache.createFromStrings(
+        ImmutableMap.<String, String>builder()
+            .put("compiler", Strings.repeat("a", 40))
+            .put("test.ii", Strings.repeat("b", 40))
+            .put("different.ii", Strings.repeat("c", 40))
+            .put("test.ii.normalized.sha1", Strings.repeat("d", 40))
+            .put("different.ii.normalized.sha1", Strings.repeat("e", 40))
+            .build());
+
+    class TestData {
+      public RuleKey generate(String input, String normalizedInputHash) {
+        return new DefaultRuleKeyBuilderFactory(hashCache, pathResolver).build(
+            CxxPreprocessAndCompile.compileKeyedOnNormalizedInput(
+                params,
+                pathResolver,
+                new CompilerDelegate(
+                    pathResolver,
+                    DEFAULT_SANITIZER,
+                    DEFAULT_COMPILER,
+                    DEFAULT_TOOL_FLAGS),
+                DEFAULT_OUTPUT,
+                new FakeSourcePath(input),
+                new FakeSourcePath(normalizedInputHash),
+                CxxSource.Type.CXX_CPP_OUTPUT,
+                DEFAULT_SANITIZER));
+      }
+    }
+    TestData testData = new TestData();
+
+    RuleKey defaultRuleKey = testData.generate("test.ii", "test.ii.normalized.sha1");
+    assertEquals(defaultRuleKey, testData.generate("different.ii", "test.ii.normalized.sha1"));
+    assertNotEquals(defaultRuleKey, testData.generate("test.ii", "different.ii.normalized.sha1"));
+  }
+
   @Test
   public void preprocessorFlagsRuleKeyChangesCauseRuleKeyChangesForPreprocessing() {
     final SourcePathResolver pathResolver = new SourcePathResolver(
@@ -500,9 +500,11 @@ public class CxxSourceRuleFactoryTest {
               {"Preprocessable type", CxxPreprocessMode.COMBINED},
               {"Preprocessable type", CxxPreprocessMode.PIPED},
               {"Preprocessable type", CxxPreprocessMode.SEPARATE},
+              {"Preprocessable type", CxxPreprocessMode.SEPARATE_NORMALIZED},
               {"Compilable type", CxxPreprocessMode.COMBINED},
               {"Compilable type", CxxPreprocessMode.PIPED},
               {"Compilable type", CxxPreprocessMode.SEPARATE},
+              {"Compilable type", CxxPreprocessMode.SEPARATE_NORMALIZED},
               {"Same file in different directories", CxxPreprocessMode.COMBINED},
               {"Various ASCII chars", CxxPreprocessMode.COMBINED},
               {"Non-ASCII chars", CxxPreprocessMode.COMBINED},
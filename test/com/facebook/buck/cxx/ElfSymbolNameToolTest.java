@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.facebook.buck.cxx;
+
+import static org.junit.Assert.assertEquals;
+
+import com.facebook.buck.testutil.integration.DebuggableTemporaryFolder;
+import com.facebook.buck.testutil.integration.ProjectWorkspace;
+import com.facebook.buck.testutil.integration.TestDataHelper;
+import com.facebook.buck.util.HumanReadableException;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class ElfSymbolNameToolTest {
+
+  @Rule
+  public DebuggableTemporaryFolder tmp = new DebuggableTemporaryFolder();
+
+  @Test
+  public void undefinedSymbolsAreTheGlobalAndWeakOnesWhichAreNotDefined() throws IOException {
+    ProjectWorkspace workspace = TestDataHelper.createProjectWorkspaceForScenario(
+        this, "elf_symbols", tmp);
+    workspace.setUp();
+
+    // Compiled from a source which defines defined_function and the static local_function, and
+    // calls undefined_function and the weak weak_function.  They're listed in symbol table order.
+    assertEquals(
+        ImmutableList.of("weak_function", "undefined_function"),
+        ElfSymbolNameTool.getUndefinedSymbols(workspace.resolve(Paths.get("undefined.o"))));
+  }
+
+  @Test(expected = HumanReadableException.class)
+  public void nonElfFilesAreRejected() throws IOException {
+    Path notElf = tmp.newFile("not_elf.o").toPath();
+    Files.write(notElf, "not an object file".getBytes(Charsets.UTF_8));
+    ElfSymbolNameTool.getUndefinedSymbols(notElf);
+  }
+}
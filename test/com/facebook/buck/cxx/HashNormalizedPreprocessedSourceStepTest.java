@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.facebook.buck.cxx;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import com.google.common.base.Joiner;
+import com.google.common.hash.HashCode;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+public class HashNormalizedPreprocessedSourceStepTest {
+
+  @Test
+  public void lineMarkersAndBlankLinesDoNotChangeTheHash() throws IOException {
+    HashCode hash = hash(
+        "# 1 \"foo.cpp\"",
+        "# 1 \"foo.h\" 1",
+        "int foo();",
+        "# 2 \"foo.cpp\" 2",
+        "int main() { return foo(); }");
+    HashCode moved = hash(
+        "# 1 \"foo.cpp\"",
+        "# 1 \"foo.h\" 1",
+        "",
+        "",
+        "int foo();",
+        "# 2 \"foo.cpp\" 2",
+        "#line 7 \"foo.cpp\"",
+        "int main() { return foo(); }");
+    assertEquals(hash, moved);
+  }
+
+  @Test
+  public void changedCodeChangesTheHash() throws IOException {
+    assertNotEquals(
+        hash("# 1 \"foo.cpp\"", "int foo();"),
+        hash("# 1 \"foo.cpp\"", "int bar();"));
+  }
+
+  @Test
+  public void whitespaceInRawStringsChangesTheHash() throws IOException {
+    assertNotEquals(
+        hash("const char* s = R\"(", "  indented", ")\";"),
+        hash("const char* s = R\"(", "indented  ", ")\";"));
+  }
+
+  @Test
+  public void otherDirectivesChangeTheHash() throws IOException {
+    assertNotEquals(
+        hash("int foo();"),
+        hash("#pragma once", "int foo();"));
+  }
+
+  private static HashCode hash(String... lines) throws IOException {
+    return HashNormalizedPreprocessedSourceStep.hashNormalizedLines(
+        new BufferedReader(new StringReader(Joiner.on('\n').join(lines))));
+  }
+}
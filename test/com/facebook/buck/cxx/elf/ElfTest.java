@@ -17,6 +17,7 @@
 package com.facebook.buck.cxx.elf;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -140,4 +141,60 @@ public class ElfTest {
 
   }
 
+  @Test
+  public void symbolTable() throws IOException {
+    ProjectWorkspace workspace = TestDataHelper.createProjectWorkspaceForScenario(
+        this, "samples", tmp);
+    workspace.setUp();
+
+    Path elfPath = workspace.resolve(Paths.get("le64.o"));
+    try (FileChannel channel = FileChannel.open(elfPath)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      Elf elf = new Elf(buffer);
+      ElfSection section = elf.getSectionByName(".symtab").get();
+      ElfSymbolTable symbolTable = ElfSymbolTable.parse(elf.header.ei_class, section);
+      assertEquals(9, symbolTable.entries.size());
+
+      ElfSymbolTable.Entry main = symbolTable.entries.get(8);
+      assertEquals("main", elf.getSymbolName(section, main));
+      assertEquals(ElfSymbolTable.Entry.Info.Bind.STB_GLOBAL, main.st_info.bind);
+      assertEquals(ElfSymbolTable.Entry.Info.Type.STT_FUNC, main.st_info.type);
+      assertEquals(6, main.st_size);
+      assertFalse(main.isUndefined());
+
+      ElfSymbolTable.Entry file = symbolTable.entries.get(1);
+      assertEquals("test.c", elf.getSymbolName(section, file));
+      assertEquals(ElfSymbolTable.Entry.Info.Bind.STB_LOCAL, file.st_info.bind);
+      assertEquals(ElfSymbolTable.Entry.Info.Type.STT_FILE, file.st_info.type);
+    }
+
+  }
+
+  @Test
+  public void symbolTableBigEndian() throws IOException {
+    ProjectWorkspace workspace = TestDataHelper.createProjectWorkspaceForScenario(
+        this, "samples", tmp);
+    workspace.setUp();
+
+    Path elfPath = workspace.resolve(Paths.get("be32.o"));
+    try (FileChannel channel = FileChannel.open(elfPath)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      Elf elf = new Elf(buffer);
+      ElfSection section = elf.getSectionByName(".symtab").get();
+      ElfSymbolTable symbolTable = ElfSymbolTable.parse(elf.header.ei_class, section);
+      assertEquals(15, symbolTable.entries.size());
+
+      ElfSymbolTable.Entry main = symbolTable.entries.get(13);
+      assertEquals("main", elf.getSymbolName(section, main));
+      assertEquals(4, main.st_size);
+      assertFalse(main.isUndefined());
+
+      ElfSymbolTable.Entry unwind = symbolTable.entries.get(14);
+      assertEquals("__aeabi_unwind_cpp_pr0", elf.getSymbolName(section, unwind));
+      assertEquals(ElfSymbolTable.Entry.Info.Bind.STB_GLOBAL, unwind.st_info.bind);
+      assertTrue(unwind.isUndefined());
+    }
+
+  }
+
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.facebook.buck.dalvik;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.facebook.buck.io.ProjectFilesystem;
+import com.facebook.buck.jvm.java.classes.AbstractFileLike;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+
+public class DalvikStatsCacheTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void statsAreSharedBetweenCachesByClassContents() throws IOException {
+    byte[] contents = readOwnClass();
+    Path classesDir = tmp.newFolder("classes").toPath();
+    Files.createDirectories(classesDir.resolve("com/example"));
+    Files.write(classesDir.resolve("com/example/First.class"), contents);
+    Files.write(classesDir.resolve("com/example/Second.class"), contents);
+    Files.write(classesDir.resolve("com/example/README"), new byte[] {1, 2, 3});
+
+    Cache<HashCode, DalvikStatsTool.Stats> sharedStats = CacheBuilder.newBuilder().build();
+    DalvikStatsCache cache = new DalvikStatsCache(sharedStats);
+    ListeningExecutorService executor =
+        MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(2));
+    try {
+      cache.computeMissingStats(
+          ImmutableSet.of(classesDir),
+          new ProjectFilesystem(tmp.getRoot().toPath()),
+          executor,
+          1);
+    } finally {
+      executor.shutdownNow();
+    }
+    // Both classes have the same contents, so they were only analyzed once.
+    assertEquals(1, sharedStats.size());
+
+    // A class which was analyzed up front isn't read again when it is looked up.
+    final Path first = classesDir.resolve("com/example/First.class");
+    DalvikStatsTool.Stats firstStats = cache.getStats(
+        new BytesFileLike("com/example/First.class", contents) {
+          @Override
+          public Path getContainer() {
+            return first;
+          }
+
+          @Override
+          public InputStream getInput() throws IOException {
+            throw new IOException("Should not be read again");
+          }
+        });
+    assertSame(sharedStats.asMap().values().iterator().next(), firstStats);
+
+    DalvikStatsTool.Stats stats =
+        new DalvikStatsCache(sharedStats).getStats(new BytesFileLike("Other.class", contents));
+    assertSame(sharedStats.asMap().values().iterator().next(), stats);
+    assertEquals(
+        DalvikStatsTool.getEstimate(new ByteArrayInputStream(contents)).estimatedLinearAllocSize,
+        stats.estimatedLinearAllocSize);
+  }
+
+  private static byte[] readOwnClass() throws IOException {
+    try (InputStream is =
+             DalvikStatsCacheTest.class.getResourceAsStream("DalvikStatsCacheTest.class")) {
+      return ByteStreams.toByteArray(is);
+    }
+  }
+
+  private static class BytesFileLike extends AbstractFileLike {
+    private final String relativePath;
+    private final byte[] contents;
+
+    public BytesFileLike(String relativePath, byte[] contents) {
+      this.relativePath = relativePath;
+      this.contents = contents;
+    }
+
+    @Override
+    public Path getContainer() {
+      return Paths.get("classes.jar");
+    }
+
+    @Override
+    public String getRelativePath() {
+      return relativePath;
+    }
+
+    @Override
+    public long getSize() {
+      return contents.length;
+    }
+
+    @Override
+    public InputStream getInput() throws IOException {
+      return new ByteArrayInputStream(contents);
+    }
+  }
+}
@@ -235,7 +235,8 @@ public class EventSerializationTest {
         "\"dependenciesPassTheirTests\":true,\"sequenceNumber\":0,\"totalNumberOfTests\":0," +
         "\"buildTarget\":{\"shortName\":\"baz\",\"baseName\":\"//foo/bar\"," +
         "\"cell\":{\"present\":false},\"flavor\":\"\"}," +
-        "\"success\":false}],\"type\":\"RunComplete\", \"eventKey\":" +
+        "\"success\":false}],\"predictedWallTimeMillis\":0,\"actualWallTimeMillis\":0," +
+        "\"type\":\"RunComplete\", \"eventKey\":" +
         "{\"value\":-624576559}}",
         message);
   }
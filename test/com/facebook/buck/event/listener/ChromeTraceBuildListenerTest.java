@@ -35,6 +35,7 @@ import com.facebook.buck.event.ArtifactCompressionEvent;
 import com.facebook.buck.event.BuckEventBus;
 import com.facebook.buck.event.BuckEventBusFactory;
 import com.facebook.buck.event.ChromeTraceEvent;
+import com.facebook.buck.event.ChromeTraceIndex;
 import com.facebook.buck.event.CompilerPluginDurationEvent;
 import com.facebook.buck.event.TraceEvent;
 import com.facebook.buck.event.TraceEventLogger;
@@ -84,7 +85,9 @@ import org.junit.rules.TemporaryFolder;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -216,7 +219,8 @@ public class ChromeTraceBuildListenerTest {
         ArtifactCompressionEvent.started(
             ArtifactCompressionEvent.Operation.COMPRESS, ImmutableSet.of(ruleKey));
     eventBus.post(artifactCompressionStartedEvent);
-    eventBus.post(ArtifactCompressionEvent.finished(artifactCompressionStartedEvent));
+    eventBus.post(
+        ArtifactCompressionEvent.finished(artifactCompressionStartedEvent, 3000, 1500, 1000));
 
     eventBus.post(BuildRuleEvent.started(rule));
     eventBus.post(StepEvent.started(stepShortName, stepDescription, stepUuid));
@@ -359,7 +363,11 @@ public class ChromeTraceBuildListenerTest {
         resultListCopy,
         "artifact_compress",
         ChromeTraceEvent.Phase.END,
-        ImmutableMap.of("rule_key", "abc123"));
+        ImmutableMap.of(
+            "rule_key", "abc123",
+            "uncompressed_size", "3000",
+            "compressed_size", "1500",
+            "stored_size", "1000"));
 
     // BuildRuleEvent.Started
     assertNextResult(
@@ -496,6 +504,72 @@ public class ChromeTraceBuildListenerTest {
     resultList.remove(0);
   }
 
+  @Test
+  public void writesAnIndexBesideTheTrace() throws IOException {
+    ProjectFilesystem projectFilesystem = new ProjectFilesystem(tmpDir.getRoot().toPath());
+    ObjectMapper mapper = ObjectMappers.newDefaultInstance();
+    BuildId buildId = new BuildId("BUILD_ID");
+    ChromeTraceBuildListener listener = new ChromeTraceBuildListener(
+        projectFilesystem,
+        buildId,
+        new FakeClock(1409702151000000000L),
+        mapper,
+        Locale.US,
+        TimeZone.getTimeZone("America/Los_Angeles"),
+        /* tracesToKeep */ 1,
+        false);
+
+    FakeBuildRule rule = new FakeBuildRule(
+        BuildTargetFactory.newInstance("//fake:rule"),
+        new SourcePathResolver(
+            new BuildRuleResolver(
+                TargetGraph.EMPTY,
+                new DefaultTargetNodeToBuildRuleTransformer())),
+        ImmutableSortedSet.<BuildRule>of());
+    BuckEventBus eventBus = BuckEventBusFactory.newInstance(
+        new IncrementingFakeClock(TimeUnit.MILLISECONDS.toNanos(1)),
+        buildId);
+    eventBus.register(listener);
+
+    CommandEvent.Started commandEventStarted = CommandEvent.started(
+        "build",
+        ImmutableList.of("//fake:rule"),
+        /* isDaemon */ false);
+    eventBus.post(commandEventStarted);
+    eventBus.post(BuildRuleEvent.started(rule));
+    eventBus.post(
+        BuildRuleEvent.finished(
+            rule,
+            BuildRuleKeys.of(new RuleKey("abc123")),
+            BuildRuleStatus.SUCCESS,
+            CacheResult.miss(),
+            Optional.of(BuildRuleSuccessType.BUILT_LOCALLY),
+            Optional.<HashCode>absent(),
+            Optional.<Long>absent()));
+    eventBus.post(CommandEvent.finished(commandEventStarted, /* exitCode */ 0));
+    listener.outputTrace(buildId);
+
+    ChromeTraceIndex index;
+    try (InputStream input = projectFilesystem.newFileInputStream(
+        ChromeTraceIndex.getIndexPath(listener.getTracePath()))) {
+      index = mapper.readValue(input, ChromeTraceIndex.class);
+    }
+    assertEquals("BUILD_ID", index.getBuildId());
+    assertEquals(Optional.of("buck build //fake:rule"), index.getCommand());
+    assertTrue(index.getStartMicros() < index.getEndMicros());
+    assertEquals(1, index.getRuleCount());
+    assertEquals(ImmutableMap.of("miss", 1), index.getCacheResults());
+    assertEquals("//fake:rule", index.getSlowestRules().get(0).getName());
+
+    // The only chunk covers everything but the closing bracket.
+    byte[] trace = Files.readAllBytes(projectFilesystem.resolve(listener.getTracePath()));
+    ChromeTraceIndex.Chunk chunk = Iterables.getOnlyElement(index.getChunks());
+    assertEquals(0, chunk.getOffset());
+    assertEquals(trace.length - 1, chunk.getLength());
+    assertEquals(0, chunk.getMinMicros());
+    assertEquals(index.getEndMicros(), chunk.getMaxMicros());
+  }
+
   @Test
   public void testOutputFailed() throws IOException {
     ProjectFilesystem projectFilesystem = new ProjectFilesystem(tmpDir.getRoot().toPath());
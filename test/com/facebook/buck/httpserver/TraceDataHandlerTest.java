@@ -62,6 +62,8 @@ public class TraceDataHandlerTest extends EasyMockSupport {
     expect(baseRequest.getMethod()).andReturn("GET");
     expect(baseRequest.getPathInfo()).andReturn("/abcdef");
     expect(baseRequest.getParameter("callback")).andReturn(null);
+    expect(baseRequest.getParameter("start")).andReturn(null);
+    expect(baseRequest.getParameter("end")).andReturn(null);
     baseRequest.setHandled(true);
     HttpServletRequest request = createMock(HttpServletRequest.class);
 
@@ -90,12 +92,49 @@ public class TraceDataHandlerTest extends EasyMockSupport {
     assertEquals("[{\"foo\":\"bar\"}]", stringWriter.toString());
   }
 
+  @Test
+  public void testHandleGetWithTimeWindow() throws IOException, ServletException {
+    Request baseRequest = createMock(Request.class);
+    expect(baseRequest.getMethod()).andReturn("GET");
+    expect(baseRequest.getPathInfo()).andReturn("/abcdef");
+    expect(baseRequest.getParameter("callback")).andReturn(null);
+    expect(baseRequest.getParameter("start")).andReturn("100");
+    expect(baseRequest.getParameter("end")).andReturn(null);
+    baseRequest.setHandled(true);
+    HttpServletRequest request = createMock(HttpServletRequest.class);
+
+    HttpServletResponse response = createMock(HttpServletResponse.class);
+    response.setStatus(200);
+    response.setContentType("application/javascript; charset=utf-8");
+    StringWriter stringWriter = new StringWriter();
+    PrintWriter printWriter = new PrintWriter(stringWriter);
+    expect(response.getWriter()).andReturn(printWriter);
+    response.flushBuffer();
+
+    TracesHelper tracesHelper = createMock(TracesHelper.class);
+    Iterable<InputStream> traces = Arrays.<InputStream>asList(
+        new ByteArrayInputStream("[{\"ts\":100}]".getBytes(Charsets.UTF_8)));
+    expect(tracesHelper.getInputsForTraces("abcdef", 100, Long.MAX_VALUE)).andReturn(traces);
+    TraceDataHandler traceDataHandler = new TraceDataHandler(tracesHelper);
+
+    replayAll();
+    traceDataHandler.handle("/trace/abcdef",
+        baseRequest,
+        request,
+        response);
+    verifyAll();
+
+    assertEquals("[[{\"ts\":100}]]", stringWriter.toString());
+  }
+
   @Test
   public void testHandleGetWithMultipleTrace() throws IOException, ServletException {
     Request baseRequest = createMock(Request.class);
     expect(baseRequest.getMethod()).andReturn("GET");
     expect(baseRequest.getPathInfo()).andReturn("/abcdef");
     expect(baseRequest.getParameter("callback")).andReturn(null);
+    expect(baseRequest.getParameter("start")).andReturn(null);
+    expect(baseRequest.getParameter("end")).andReturn(null);
     baseRequest.setHandled(true);
     HttpServletRequest request = createMock(HttpServletRequest.class);
 
@@ -133,6 +172,8 @@ public class TraceDataHandlerTest extends EasyMockSupport {
     expect(baseRequest.getMethod()).andReturn("GET");
     expect(baseRequest.getPathInfo()).andReturn("/abcdef");
     expect(baseRequest.getParameter("callback")).andReturn("my.callback");
+    expect(baseRequest.getParameter("start")).andReturn(null);
+    expect(baseRequest.getParameter("end")).andReturn(null);
     baseRequest.setHandled(true);
     HttpServletRequest request = createMock(HttpServletRequest.class);
 
@@ -167,6 +208,8 @@ public class TraceDataHandlerTest extends EasyMockSupport {
     expect(baseRequest.getMethod()).andReturn("GET");
     expect(baseRequest.getPathInfo()).andReturn("/abcdef");
     expect(baseRequest.getParameter("callback")).andReturn("my.callback");
+    expect(baseRequest.getParameter("start")).andReturn(null);
+    expect(baseRequest.getParameter("end")).andReturn(null);
     baseRequest.setHandled(true);
     HttpServletRequest request = createMock(HttpServletRequest.class);
 
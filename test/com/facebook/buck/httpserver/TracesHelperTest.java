@@ -19,19 +19,27 @@ package com.facebook.buck.httpserver;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import com.facebook.buck.event.ChromeTraceIndex;
 import com.facebook.buck.httpserver.TracesHelper.TraceAttributes;
 import com.facebook.buck.testutil.FakeProjectFilesystem;
 import com.facebook.buck.timing.FakeClock;
 import com.facebook.buck.timing.SettableFakeClock;
 import com.facebook.buck.util.BuckConstant;
 import com.facebook.buck.util.HumanReadableException;
+import com.facebook.buck.util.ObjectMappers;
+import com.google.common.base.Charsets;
 import com.google.common.base.Optional;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.io.ByteStreams;
 
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.concurrent.TimeUnit;
 
 public class TracesHelperTest {
@@ -131,6 +139,75 @@ public class TracesHelperTest {
     assertEquals(2000L, traceAttributes.getLastModifiedTime());
   }
 
+  @Test
+  public void testGetTraceAttributesReadsTheCommandFromTheIndex() throws IOException {
+    FakeProjectFilesystem projectFilesystem = new FakeProjectFilesystem(
+        new FakeClock(TimeUnit.MILLISECONDS.toNanos(2000L)));
+    Path tracePath = BuckConstant.getBuckTraceDir().resolve("build.d.trace");
+    projectFilesystem.writeContentsToPath("[]", tracePath);
+    writeIndex(
+        projectFilesystem,
+        tracePath,
+        new ChromeTraceIndex(
+            "d",
+            "buck build //:d",
+            0,
+            0,
+            0,
+            null,
+            null,
+            null));
+
+    TracesHelper helper = new TracesHelper(projectFilesystem);
+    TraceAttributes traceAttributes = helper.getTraceAttributesFor("d");
+    assertEquals(Optional.of("buck build //:d"), traceAttributes.getCommand());
+    assertEquals(2000L, traceAttributes.getLastModifiedTime());
+  }
+
+  @Test
+  public void testInputsForTracesBetweenTimesOnlyReadOverlappingChunks() throws IOException {
+    FakeProjectFilesystem projectFilesystem = new FakeProjectFilesystem();
+    String first = "[{\"name\":\"a\",\"ts\":1}";
+    String second = ",{\"name\":\"b\",\"ts\":5}";
+    String third = ",{\"name\":\"c\",\"ts\":9}";
+    Path tracePath = BuckConstant.getBuckTraceDir().resolve("build.e.trace");
+    projectFilesystem.writeContentsToPath(first + second + third + "]", tracePath);
+    writeIndex(
+        projectFilesystem,
+        tracePath,
+        new ChromeTraceIndex(
+            "e",
+            null,
+            1,
+            9,
+            0,
+            null,
+            null,
+            ImmutableList.of(
+                new ChromeTraceIndex.Chunk(0, first.length(), 1, 1),
+                new ChromeTraceIndex.Chunk(first.length(), second.length(), 5, 5),
+                new ChromeTraceIndex.Chunk(
+                    first.length() + second.length(),
+                    third.length(),
+                    9,
+                    9))));
+
+    TracesHelper helper = new TracesHelper(projectFilesystem);
+    InputStream input = Iterables.getOnlyElement(helper.getInputsForTraces("e", 4, 10));
+    assertEquals(
+        "[{\"name\":\"b\",\"ts\":5},{\"name\":\"c\",\"ts\":9}]",
+        new String(ByteStreams.toByteArray(input), Charsets.UTF_8));
+  }
+
+  private static void writeIndex(
+      FakeProjectFilesystem projectFilesystem,
+      Path tracePath,
+      ChromeTraceIndex index) throws IOException {
+    projectFilesystem.writeContentsToPath(
+        ObjectMappers.newDefaultInstance().writeValueAsString(index),
+        ChromeTraceIndex.getIndexPath(tracePath));
+  }
+
   @Test
   public void testSortByLastModified() throws IOException {
     SettableFakeClock clock = new SettableFakeClock(0L, 0L);
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.facebook.buck.io;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.buck.testutil.integration.TemporaryPaths;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class DirectorySnapshotTest {
+
+  @Rule
+  public TemporaryPaths tmp = new TemporaryPaths();
+
+  private DirectorySnapshot snapshot;
+
+  @Before
+  public void setUp() throws IOException {
+    Files.createDirectories(tmp.getRoot().resolve("foo/bar"));
+    Files.createFile(tmp.getRoot().resolve("foo/bar/Baz.java"));
+    Files.createFile(tmp.getRoot().resolve("BUCK"));
+    snapshot = new DirectorySnapshot(tmp.getRoot());
+  }
+
+  @Test
+  public void findsEntriesOfListedDirectories() {
+    assertTrue(snapshot.exists(Paths.get("BUCK")));
+    assertTrue(snapshot.exists(Paths.get("foo")));
+    assertTrue(snapshot.exists(Paths.get("foo/bar/Baz.java")));
+    assertFalse(snapshot.exists(Paths.get("foo/bar/Qux.java")));
+    assertFalse(snapshot.exists(Paths.get("no/such/dir")));
+  }
+
+  @Test
+  public void neverFindsPathsOutsideTheRoot() {
+    assertFalse(snapshot.exists(Paths.get("")));
+    assertFalse(snapshot.exists(Paths.get("foo/../BUCK")));
+    assertFalse(snapshot.exists(tmp.getRoot().resolve("BUCK")));
+  }
+
+  @Test
+  public void keepsListingsUntilInvalidated() throws IOException {
+    Path added = Paths.get("foo/bar/Added.java");
+    assertFalse(snapshot.exists(added));
+    Files.createFile(tmp.getRoot().resolve(added));
+    assertFalse(snapshot.exists(added));
+
+    snapshot.invalidate(added);
+    assertTrue(snapshot.exists(added));
+  }
+
+  @Test
+  public void invalidatingADirectoryDropsWhatIsUnderIt() throws IOException {
+    assertTrue(snapshot.exists(Paths.get("foo/bar/Baz.java")));
+    Files.delete(tmp.getRoot().resolve("foo/bar/Baz.java"));
+    Files.delete(tmp.getRoot().resolve("foo/bar"));
+
+    snapshot.invalidate(Paths.get("foo/bar"));
+    assertFalse(snapshot.exists(Paths.get("foo/bar")));
+    assertFalse(snapshot.exists(Paths.get("foo/bar/Baz.java")));
+
+    Files.createDirectories(tmp.getRoot().resolve("foo/bar"));
+    Files.createFile(tmp.getRoot().resolve("foo/bar/Baz.java"));
+    snapshot.invalidateAll();
+    assertTrue(snapshot.exists(Paths.get("foo/bar/Baz.java")));
+  }
+}
@@ -19,6 +19,7 @@ package com.facebook.buck.io;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
@@ -33,13 +34,16 @@ import com.facebook.buck.util.BuckConstant;
 import com.facebook.buck.zip.ZipConstants;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicates;
+import com.google.common.base.Strings;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Ordering;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.CharStreams;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipFile;
@@ -68,7 +72,10 @@ import java.nio.file.attribute.PosixFilePermissions;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.Enumeration;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -95,6 +102,26 @@ public class ProjectFilesystemTest {
         filesystem.isFile(Paths.get("foo")));
   }
 
+  @Test
+  public void testGetPathForRelativeExistingSourcePathSeesFilesAddedAfterTheSnapshot()
+      throws IOException {
+    tmp.newFolder("foo");
+    tmp.newFile("foo/bar.txt");
+    assertEquals(
+        tmp.getRoot().resolve("foo/bar.txt"),
+        filesystem.getPathForRelativeExistingSourcePath(Paths.get("foo/bar.txt")));
+
+    tmp.newFile("foo/baz.txt");
+    assertEquals(
+        tmp.getRoot().resolve("foo/baz.txt"),
+        filesystem.getPathForRelativeExistingSourcePath(Paths.get("foo/baz.txt")));
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testGetPathForRelativeExistingSourcePathThrowsForMissingFiles() {
+    filesystem.getPathForRelativeExistingSourcePath(Paths.get("i_do_not_exist"));
+  }
+
   @Test
   public void testSetLastModifiedTime() throws IOException {
     Path path = tmp.newFile("somefile");
@@ -459,6 +486,53 @@ public class ProjectFilesystemTest {
     }
   }
 
+  @Test
+  public void testCreateArtifactZipStoresCompressedFilesAndDeflatesTheRest() throws Exception {
+    filesystem.mkdirs(Paths.get("out"));
+    filesystem.writeContentsToPath(Strings.repeat("class ", 1000), Paths.get("out/lib.jar"));
+    filesystem.writeContentsToPath(Strings.repeat("text ", 1000), Paths.get("out/notes.txt"));
+    // Too large to be read into memory, so it is read once for its CRC and again to copy it.
+    byte[] large = new byte[5 * 1024 * 1024];
+    new Random(0).nextBytes(large);
+    filesystem.writeBytesToPath(large, Paths.get("out/large.apk"));
+    ImmutableList<Path> paths = ImmutableList.of(
+        Paths.get("out"),
+        Paths.get("out/lib.jar"),
+        Paths.get("out/notes.txt"),
+        Paths.get("out/large.apk"));
+
+    Path first = tmp.getRoot().resolve("first.zip");
+    Path second = tmp.getRoot().resolve("second.zip");
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      long stored = filesystem.createArtifactZip(
+          paths,
+          first,
+          MoreExecutors.listeningDecorator(executor),
+          2);
+      assertEquals(6000 + large.length, stored);
+      filesystem.createArtifactZip(paths, second, MoreExecutors.newDirectExecutorService(), 1);
+    } finally {
+      executor.shutdown();
+    }
+
+    assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+    try (ZipFile zip = new ZipFile(first.toFile())) {
+      ZipArchiveEntry jar = zip.getEntry("out/lib.jar");
+      assertEquals(ZipEntry.STORED, jar.getMethod());
+      assertEquals(6000, jar.getCompressedSize());
+      ZipArchiveEntry notes = zip.getEntry("out/notes.txt");
+      assertEquals(ZipEntry.DEFLATED, notes.getMethod());
+      assertThat(notes.getCompressedSize(), Matchers.lessThan(5000L));
+      assertEquals(
+          Strings.repeat("class ", 1000),
+          new String(ByteStreams.toByteArray(zip.getInputStream(jar)), UTF_8));
+      ZipArchiveEntry apk = zip.getEntry("out/large.apk");
+      assertEquals(ZipEntry.STORED, apk.getMethod());
+      assertArrayEquals(large, ByteStreams.toByteArray(zip.getInputStream(apk)));
+    }
+  }
+
   @Test
   public void testCreateReadOnlyFileSetsPermissions() throws IOException {
     Path path = Paths.get("hello.txt");
@@ -17,6 +17,8 @@ package com.facebook.buck.jvm.groovy;
 
 import static org.hamcrest.CoreMatchers.allOf;
 import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assume.assumeTrue;
 
 import com.facebook.buck.cli.BuckConfig;
@@ -26,12 +28,17 @@ import com.facebook.buck.io.ProjectFilesystem;
 import com.facebook.buck.testutil.integration.DebuggableTemporaryFolder;
 import com.facebook.buck.util.environment.Architecture;
 import com.facebook.buck.util.environment.Platform;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 public class GroovyBuckConfigTest {
   @Rule
   public ExpectedException thrown = ExpectedException.none();
@@ -98,6 +105,40 @@ public class GroovyBuckConfigTest {
     groovyBuckConfig.getGroovyCompiler();
   }
 
+  @Test
+  public void persistentCompilerRunsFromTheJarsOfTheGroovyDistribution() throws IOException {
+    Path groovyHome = temporaryFolder.newFolder("groovy").toPath();
+    Path groovyc = groovyHome.resolve("bin/groovyc");
+    Files.createDirectories(groovyc.getParent());
+    Files.createFile(groovyc);
+    assumeTrue(groovyc.toFile().setExecutable(true));
+    Path lib = Files.createDirectories(groovyHome.resolve("lib"));
+    Path groovyJar = Files.createFile(lib.resolve("groovy.jar"));
+    Path antJar = Files.createFile(lib.resolve("ant.jar"));
+    Files.createFile(lib.resolve("README"));
+
+    ImmutableMap<String, ImmutableMap<String, String>> rawConfig = ImmutableMap.of(
+        "groovy",
+        ImmutableMap.of(
+            "groovy_home", groovyHome.toString(),
+            "persistent_compiler", "true"));
+    GroovyBuckConfig groovyBuckConfig =
+        createGroovyConfig(ImmutableMap.<String, String>of(), rawConfig);
+
+    assertEquals(
+        ImmutableList.of(antJar.toRealPath(), groovyJar.toRealPath()),
+        groovyBuckConfig.getPersistentCompiler().get().getCompilerClasspath());
+  }
+
+  @Test
+  public void persistentCompilerIsOffByDefault() {
+    GroovyBuckConfig groovyBuckConfig = createGroovyConfig(
+        ImmutableMap.<String, String>of(),
+        ImmutableMap.<String, ImmutableMap<String, String>>of());
+
+    assertFalse(groovyBuckConfig.getPersistentCompiler().isPresent());
+  }
+
   private GroovyBuckConfig createGroovyConfig(
       ImmutableMap<String, String> environment,
       ImmutableMap<String, ImmutableMap<String, String>> rawConfig) {
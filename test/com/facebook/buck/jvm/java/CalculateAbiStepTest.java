@@ -27,6 +27,7 @@ import com.facebook.buck.step.TestExecutionContext;
 import com.facebook.buck.testutil.Zip;
 import com.facebook.buck.testutil.integration.DebuggableTemporaryFolder;
 import com.facebook.buck.testutil.integration.TestDataHelper;
+import com.facebook.buck.testutil.integration.ZipInspector;
 import com.google.common.collect.ImmutableMap;
 
 import org.junit.Rule;
@@ -74,6 +75,49 @@ public class CalculateAbiStepTest {
     assertEquals("8678c53b9ba104fac9626416959ff50e6fafc269", seenHash);
   }
 
+  @Test
+  public void calculatingTheAbiOfAnAbiJarGivesTheSameJar() throws IOException {
+    Path outDir = temp.newFolder().toPath().toAbsolutePath();
+    ProjectFilesystem filesystem = new ProjectFilesystem(outDir);
+
+    Path directory = TestDataHelper.getTestDataDirectory(this);
+    Path binJar = Paths.get("source.jar");
+    Files.copy(directory.resolve("prebuilt/junit.jar"), outDir.resolve(binJar));
+
+    ExecutionContext executionContext = TestExecutionContext.newInstance();
+    FakeBuildableContext abiContext = new FakeBuildableContext();
+    Path abiJar = Paths.get("abi.jar");
+    new CalculateAbiStep(abiContext, filesystem, binJar, abiJar).execute(executionContext);
+    FakeBuildableContext abiOfAbiContext = new FakeBuildableContext();
+    Path abiOfAbiJar = Paths.get("abi-of-abi.jar");
+    new CalculateAbiStep(abiOfAbiContext, filesystem, abiJar, abiOfAbiJar)
+        .execute(executionContext);
+
+    assertEquals(
+        abiContext.getRecordedMetadata().get(AbiRule.ABI_KEY_ON_DISK_METADATA),
+        abiOfAbiContext.getRecordedMetadata().get(AbiRule.ABI_KEY_ON_DISK_METADATA));
+  }
+
+  @Test
+  public void fallsBackToJarringTheClassesIfAClassInADirectoryIsMalformed() throws IOException {
+    Path outDir = temp.newFolder().toPath().toAbsolutePath();
+    ProjectFilesystem filesystem = new ProjectFilesystem(outDir);
+
+    Path classes = Paths.get("classes");
+    filesystem.mkdirs(classes);
+    filesystem.writeContentsToPath("cafebabe bacon and cheese", classes.resolve("Broken.class"));
+
+    Path abiJar = Paths.get("abi.jar");
+    FakeBuildableContext context = new FakeBuildableContext();
+    new CalculateAbiStep(context, filesystem, classes, abiJar)
+        .execute(TestExecutionContext.newInstance());
+
+    assertEquals(
+        filesystem.computeSha1(abiJar),
+        context.getRecordedMetadata().get(AbiRule.ABI_KEY_ON_DISK_METADATA));
+    new ZipInspector(outDir.resolve(abiJar)).assertFileExists("Broken.class");
+  }
+
   @Test
   public void fallsBackToCalculatingAbiFromInputJarIfClassFileIsMalformed() throws IOException {
     Path outDir = temp.newFolder().toPath().toAbsolutePath();
@@ -56,6 +56,7 @@ import com.facebook.buck.rules.RuleKeyBuilderFactory;
 import com.facebook.buck.rules.SourcePath;
 import com.facebook.buck.rules.SourcePathResolver;
 import com.facebook.buck.rules.SourcePaths;
+import com.facebook.buck.rules.SupportsPipelining;
 import com.facebook.buck.rules.TargetGraph;
 import com.facebook.buck.rules.keys.DefaultRuleKeyBuilderFactory;
 import com.facebook.buck.rules.keys.InputBasedRuleKeyBuilderFactory;
@@ -79,6 +80,7 @@ import com.facebook.buck.util.cache.DefaultFileHashCache;
 import com.google.common.base.Charsets;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 import com.google.common.base.Splitter;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.FluentIterable;
@@ -428,6 +430,52 @@ public class DefaultJavaLibraryTest {
         javacStep.getClasspathEntries());
   }
 
+  @Test
+  public void pipelinedLibrariesCompileAgainstTheAbiJarsTheirDepsPublish() throws Exception {
+    JavacOptions javacOptions = JavacOptions.builder(DEFAULT_JAVAC_OPTIONS)
+        .setPipeliningEnabled(true)
+        .build();
+    BuildRuleResolver ruleResolver = new BuildRuleResolver(
+        TargetGraph.EMPTY,
+        new DefaultTargetNodeToBuildRuleTransformer());
+
+    BuildTarget libraryOneTarget = BuildTargetFactory.newInstance("//:libone");
+    DefaultJavaLibrary libraryOne = (DefaultJavaLibrary) JavaLibraryBuilder
+        .createBuilder(libraryOneTarget, javacOptions)
+        .addSrc(Paths.get("java/src/com/libone/Bar.java"))
+        .build(ruleResolver);
+    BuildRule libraryOneAbi =
+        ruleResolver.getRule(libraryOneTarget.withAppendedFlavor(CalculateAbi.FLAVOR));
+
+    BuildTarget libraryTwoTarget = BuildTargetFactory.newInstance("//:libtwo");
+    DefaultJavaLibrary libraryTwo = (DefaultJavaLibrary) JavaLibraryBuilder
+        .createBuilder(libraryTwoTarget, javacOptions)
+        .addSrc(Paths.get("java/src/com/libtwo/Foo.java"))
+        .addDep(libraryOneTarget)
+        .build(ruleResolver);
+
+    assertEquals(
+        ImmutableSortedSet.of(libraryOne),
+        ((SupportsPipelining) libraryOneAbi).getPipelinedDeps());
+    assertEquals(
+        ImmutableSortedSet.of(libraryOne, libraryOneAbi),
+        libraryTwo.getPipelinedDeps());
+
+    List<Step> steps =
+        libraryTwo.getBuildSteps(FakeBuildContext.NOOP_CONTEXT, new FakeBuildableContext());
+    JavacStep javacStep = FluentIterable.from(steps).filter(JavacStep.class).first().get();
+    assertEquals(
+        ImmutableSet.of(
+            libraryOne.getProjectFilesystem().resolve(
+                DefaultJavaLibrary.getOutputAbiJarPath(libraryOneTarget))),
+        ImmutableSet.copyOf(javacStep.getClasspathEntries()));
+
+    // The ABI jar is written, and published to dependents, before the classes are jarred.
+    assertThat(
+        Iterables.indexOf(steps, Predicates.instanceOf(CalculateAbiStep.class)),
+        Matchers.lessThan(Iterables.indexOf(steps, Predicates.instanceOf(JarDirectoryStep.class))));
+  }
+
   /**
    * Verify adding an annotation processor java binary with options.
    */
@@ -85,7 +85,8 @@ public class JUnitStepTest {
         /* nativeLibsEnvironment */ ImmutableMap.<String, String>of(),
         /* testRuleTimeoutMs*/ Optional.<Long>absent(),
         new ExternalJavaRuntimeLauncher("/foo/bar/custom/java"),
-        args);
+        args,
+        /* persistentRunnerMaxTests */ Optional.<Integer>absent());
 
     ExecutionContext executionContext = EasyMock.createMock(ExecutionContext.class);
     EasyMock.expect(executionContext.getVerbosity()).andReturn(Verbosity.ALL);
@@ -161,7 +162,8 @@ public class JUnitStepTest {
         ImmutableMap.<String, String>of(),
         /* testRuleTimeoutMs*/ Optional.<Long>absent(),
         new ExternalJavaRuntimeLauncher("/foo/bar/custom/java"),
-        args);
+        args,
+        /* persistentRunnerMaxTests */ Optional.<Integer>absent());
 
     TestConsole console = new TestConsole(Verbosity.ALL);
     ExecutionContext executionContext = TestExecutionContext.newBuilder()
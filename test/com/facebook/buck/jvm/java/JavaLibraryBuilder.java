@@ -35,13 +35,21 @@ import java.nio.file.Path;
 public class JavaLibraryBuilder extends AbstractNodeBuilder<JavaLibraryDescription.Arg> {
 
   protected JavaLibraryBuilder(BuildTarget target, HashCode hashCode) {
-    super(new JavaLibraryDescription(DEFAULT_JAVAC_OPTIONS), target, hashCode);
+    this(target, DEFAULT_JAVAC_OPTIONS, hashCode);
+  }
+
+  protected JavaLibraryBuilder(BuildTarget target, JavacOptions javacOptions, HashCode hashCode) {
+    super(new JavaLibraryDescription(javacOptions), target, hashCode);
   }
 
   public static JavaLibraryBuilder createBuilder(BuildTarget target) {
     return new JavaLibraryBuilder(target, null);
   }
 
+  public static JavaLibraryBuilder createBuilder(BuildTarget target, JavacOptions javacOptions) {
+    return new JavaLibraryBuilder(target, javacOptions, null);
+  }
+
 
   public static JavaLibraryBuilder createBuilder(BuildTarget target, HashCode hashCode) {
     return new JavaLibraryBuilder(target, hashCode);
@@ -22,6 +22,7 @@ import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -95,6 +96,22 @@ public class JavacOptionsTest {
     assertOptionFlags(options, hasItem("proc:only"));
   }
 
+  @Test
+  public void rulesUsingAnnotationProcessorsAreNotPipelined() {
+    JavacOptions options = createStandardBuilder()
+        .setPipeliningEnabled(true)
+        .build();
+    assertTrue(options.isPipelined());
+
+    AnnotationProcessingParams params = new AnnotationProcessingParams.Builder()
+        .addAllProcessors(Collections.singleton("processor"))
+        .build();
+    options = JavacOptions.builder(options)
+        .setAnnotationProcessingParams(params)
+        .build();
+    assertFalse(options.isPipelined());
+  }
+
   @Test
   public void shouldAddAllAddedAnnotationProcessors() {
     AnnotationProcessingParams params = new AnnotationProcessingParams.Builder()
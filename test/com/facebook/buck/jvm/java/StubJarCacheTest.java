@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.jvm.java;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.facebook.buck.io.ProjectFilesystem;
+import com.facebook.buck.testutil.integration.DebuggableTemporaryFolder;
+import com.facebook.buck.testutil.integration.TestDataHelper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class StubJarCacheTest {
+
+  @Rule
+  public DebuggableTemporaryFolder temp = new DebuggableTemporaryFolder();
+
+  private ProjectFilesystem filesystem;
+  private Path cacheDir;
+  private StubJarCache cache;
+  private ListeningExecutorService executor;
+
+  @Before
+  public void setUp() throws IOException {
+    filesystem = new ProjectFilesystem(temp.newFolder().toPath().toAbsolutePath());
+    cacheDir = Paths.get("stub_jars");
+    cache = new StubJarCache(filesystem, cacheDir);
+    executor = MoreExecutors.newDirectExecutorService();
+
+    Path source = TestDataHelper.getTestDataDirectory(this).resolve("prebuilt/junit.jar");
+    Files.copy(source, filesystem.resolve("junit.jar"));
+    Files.copy(source, filesystem.resolve("junit-copy.jar"));
+  }
+
+  @Test
+  public void cachedStubJarsMatchFreshlyStubbedOnes() throws IOException {
+    cache.writeStubJar(filesystem.resolve("junit.jar"), Paths.get("abi.jar"), executor, 1);
+    cache.writeStubJar(filesystem.resolve("junit.jar"), Paths.get("cached-abi.jar"), executor, 1);
+
+    // The same hash as CalculateAbiStepTest expects of the stubbed junit jar.
+    assertEquals(
+        "8678c53b9ba104fac9626416959ff50e6fafc269",
+        filesystem.computeSha1(Paths.get("abi.jar")));
+    assertEquals(
+        "8678c53b9ba104fac9626416959ff50e6fafc269",
+        filesystem.computeSha1(Paths.get("cached-abi.jar")));
+  }
+
+  @Test
+  public void identicalJarsAreOnlyStubbedOnce() throws IOException {
+    cache.writeStubJar(filesystem.resolve("junit.jar"), Paths.get("abi.jar"), executor, 1);
+    ImmutableList<Path> cached = ImmutableList.copyOf(filesystem.getDirectoryContents(cacheDir));
+    assertEquals(1, cached.size());
+
+    // Tamper with the cached jar, to show that it's what is used for the identical jar.
+    filesystem.writeContentsToPath("cached", cached.get(0));
+    cache.writeStubJar(
+        filesystem.resolve("junit-copy.jar"),
+        Paths.get("copy-abi.jar"),
+        executor,
+        1);
+
+    assertArrayEquals(
+        "cached".getBytes(UTF_8),
+        Files.readAllBytes(filesystem.resolve("copy-abi.jar")));
+    assertEquals(1, filesystem.getDirectoryContents(cacheDir).size());
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.facebook.buck.jvm.java.abi;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -24,6 +25,8 @@ import com.facebook.buck.testutil.integration.TestDataHelper;
 import com.google.common.hash.Hashing;
 import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -32,9 +35,11 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Enumeration;
+import java.util.concurrent.Executors;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
@@ -99,6 +104,28 @@ public class StubJarIntegrationTest {
     assertTrue(filesystem.getFileSize(out) < filesystem.getFileSize(source));
   }
 
+  @Test
+  public void stubbingInParallelGivesTheSameJarAsStubbingSerially() throws IOException {
+    Path source = testDataDir.resolve("junit.jar");
+    Path serial = Paths.get("junit-serial-abi.jar");
+    new StubJar(source).writeTo(filesystem, serial);
+
+    ListeningExecutorService executor =
+        MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(4));
+    try {
+      for (int maxPendingClasses : new int[] {1, 3, 1000}) {
+        Path parallel = Paths.get("junit-parallel-" + maxPendingClasses + "-abi.jar");
+        new StubJar(source).writeTo(filesystem, parallel, executor, maxPendingClasses);
+        assertArrayEquals(
+            String.valueOf(maxPendingClasses),
+            Files.readAllBytes(filesystem.resolve(serial)),
+            Files.readAllBytes(filesystem.resolve(parallel)));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   @Test
   public void abiJarManifestShouldContainHashesOfItsFiles() throws IOException {
     Path out = Paths.get("junit-abi.jar");
@@ -50,8 +50,10 @@ import com.facebook.buck.util.cache.FileHashCache;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.hash.HashCode;
 
 import org.easymock.EasyMock;
 import org.easymock.IAnswer;
@@ -92,7 +94,8 @@ public class JavaLibrarySymbolsFinderTest {
     JavaLibrarySymbolsFinder finder = new JavaLibrarySymbolsFinder(
         srcs,
         javaFileParser,
-        /* shouldRecordRequiredSymbols */ true);
+        /* shouldRecordRequiredSymbols */ true,
+        JavaSymbolsIndex.createEmpty());
     Symbols symbols = finder.extractSymbols();
     assertEquals(
         ImmutableSet.of("com.example.Example1", "com.example.Example2"),
@@ -102,6 +105,41 @@ public class JavaLibrarySymbolsFinderTest {
         ImmutableSet.copyOf(symbols.required));
   }
 
+  @Test
+  public void filesWhoseContentsAreIndexedAreNotParsedAgain() throws IOException {
+    TestDataHelper.createProjectWorkspaceForScenario(
+        this,
+        "java_library_symbols_finder",
+        tmp)
+        .setUp();
+    ProjectFilesystem projectFilesystem = new ProjectFilesystem(tmp.getRootPath());
+    Path example1 = MorePaths.TO_PATH.apply("Example1.java");
+    Path example2 = MorePaths.TO_PATH.apply("Example2.java");
+
+    JavaSymbolsIndex index = JavaSymbolsIndex.createEmpty();
+    index.put(
+        HashCode.fromString(projectFilesystem.computeSha1(example1)),
+        new Symbols(
+            ImmutableList.of("com.example.FromTheIndex"),
+            ImmutableList.of("com.example.other.Indexed"),
+            ImmutableList.<String>of()));
+    JavaLibrarySymbolsFinder finder = new JavaLibrarySymbolsFinder(
+        ImmutableSortedSet.of(
+            SourcePaths.toSourcePath(projectFilesystem).apply(example1),
+            SourcePaths.toSourcePath(projectFilesystem).apply(example2)),
+        javaFileParser,
+        /* shouldRecordRequiredSymbols */ true,
+        index);
+    Symbols symbols = finder.extractSymbols();
+    assertEquals(
+        ImmutableSet.of("com.example.FromTheIndex", "com.example.Example2"),
+        ImmutableSet.copyOf(symbols.provided));
+    assertTrue(ImmutableSet.copyOf(symbols.required).contains("com.example.other.Indexed"));
+
+    // The file which had to be parsed is now in the index too.
+    assertEquals(2, index.size());
+  }
+
   @Test
   public void onlyNonGeneratedSrcsShouldAffectRuleKey() throws IOException {
     TestDataHelper.createProjectWorkspaceForScenario(
@@ -126,15 +164,18 @@ public class JavaLibrarySymbolsFinderTest {
     JavaLibrarySymbolsFinder example1Finder = new JavaLibrarySymbolsFinder(
         ImmutableSortedSet.of(example1),
         javaFileParser,
-        shouldRecordRequiredSymbols);
+        shouldRecordRequiredSymbols,
+        JavaSymbolsIndex.createEmpty());
     JavaLibrarySymbolsFinder example2Finder = new JavaLibrarySymbolsFinder(
         ImmutableSortedSet.of(example2),
         javaFileParser,
-        shouldRecordRequiredSymbols);
+        shouldRecordRequiredSymbols,
+        JavaSymbolsIndex.createEmpty());
     JavaLibrarySymbolsFinder example1AndGeneratedSrcFinder = new JavaLibrarySymbolsFinder(
         ImmutableSortedSet.of(example1, generated),
         javaFileParser,
-        shouldRecordRequiredSymbols);
+        shouldRecordRequiredSymbols,
+        JavaSymbolsIndex.createEmpty());
 
     // Mock out calls to a SourcePathResolver so we can create a legitimate
     // DefaultRuleKeyBuilderFactory.
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.facebook.buck.jvm.java.autodeps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.facebook.buck.io.ProjectFilesystem;
+import com.facebook.buck.testutil.integration.DebuggableTemporaryFolder;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class JavaSymbolsIndexTest {
+  @Rule
+  public DebuggableTemporaryFolder tmp = new DebuggableTemporaryFolder();
+
+  private static final Path INDEX_PATH = Paths.get("buck-out/autodeps/java_symbols.idx");
+
+  private ProjectFilesystem filesystem;
+
+  @Before
+  public void setUp() {
+    filesystem = new ProjectFilesystem(tmp.getRootPath());
+  }
+
+  @Test
+  public void savedEntriesAreLoadedAgain() throws IOException {
+    JavaSymbolsIndex index = JavaSymbolsIndex.createEmpty();
+    index.put(
+        hash("A.java"),
+        new Symbols(
+            ImmutableList.of("com.example.A"),
+            ImmutableList.of("com.example.B", "com.example.C"),
+            ImmutableList.of("com.example.B")));
+    index.put(
+        hash("lib.jar"),
+        new Symbols(
+            ImmutableList.of("com.example.B", "com.example.C"),
+            ImmutableList.<String>of(),
+            ImmutableList.<String>of()));
+    index.save(filesystem, INDEX_PATH);
+
+    JavaSymbolsIndex loaded = JavaSymbolsIndex.load(filesystem, INDEX_PATH);
+    assertEquals(2, loaded.size());
+    Symbols symbols = loaded.get(hash("A.java"));
+    assertNotNull(symbols);
+    assertEquals(ImmutableList.of("com.example.A"), symbols.provided);
+    assertEquals(ImmutableList.of("com.example.B", "com.example.C"), symbols.required);
+    assertEquals(ImmutableList.of("com.example.B"), symbols.exported);
+    assertNull(loaded.get(hash("B.java")));
+  }
+
+  @Test
+  public void entriesWhichWereNotLookedUpAreSavedAgain() throws IOException {
+    JavaSymbolsIndex index = JavaSymbolsIndex.createEmpty();
+    index.put(hash("A.java"), symbols("com.example.A"));
+    index.put(hash("B.java"), symbols("com.example.B"));
+    index.save(filesystem, INDEX_PATH);
+
+    // A run in which every rule was cached looks nothing up.
+    JavaSymbolsIndex.load(filesystem, INDEX_PATH).save(filesystem, INDEX_PATH);
+
+    JavaSymbolsIndex reloaded = JavaSymbolsIndex.load(filesystem, INDEX_PATH);
+    assertEquals(2, reloaded.size());
+    assertNotNull(reloaded.get(hash("A.java")));
+    assertNotNull(reloaded.get(hash("B.java")));
+  }
+
+  @Test
+  public void leastRecentlyUsedEntriesAreDroppedWhenTheIndexIsFull() throws IOException {
+    JavaSymbolsIndex index = JavaSymbolsIndex.createEmpty();
+    index.put(hash("old"), symbols("com.example.Old"));
+    index.put(hash("kept"), symbols("com.example.Kept"));
+    index.save(filesystem, INDEX_PATH);
+
+    JavaSymbolsIndex loaded = JavaSymbolsIndex.load(filesystem, INDEX_PATH);
+    assertNotNull(loaded.get(hash("kept")));
+    loaded.put(hash("new"), symbols("com.example.New"));
+    loaded.save(filesystem, INDEX_PATH, 2);
+
+    JavaSymbolsIndex reloaded = JavaSymbolsIndex.load(filesystem, INDEX_PATH);
+    assertEquals(2, reloaded.size());
+    assertNull(reloaded.get(hash("old")));
+    assertNotNull(reloaded.get(hash("kept")));
+    assertNotNull(reloaded.get(hash("new")));
+  }
+
+  @Test
+  public void unreadableIndexIsIgnored() throws IOException {
+    filesystem.createParentDirs(INDEX_PATH);
+    filesystem.writeContentsToPath("not an index", INDEX_PATH);
+    assertEquals(0, JavaSymbolsIndex.load(filesystem, INDEX_PATH).size());
+    assertEquals(0, JavaSymbolsIndex.load(filesystem, Paths.get("missing.idx")).size());
+  }
+
+  private static HashCode hash(String contents) {
+    return Hashing.sha1().hashString(contents, Charsets.UTF_8);
+  }
+
+  private static Symbols symbols(String provided) {
+    return new Symbols(
+        ImmutableList.of(provided),
+        ImmutableList.<String>of(),
+        ImmutableList.<String>of());
+  }
+}
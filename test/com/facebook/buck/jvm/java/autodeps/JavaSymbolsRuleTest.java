@@ -90,7 +90,8 @@ public class JavaSymbolsRuleTest {
     JavaLibrarySymbolsFinder symbolsFinder = new JavaLibrarySymbolsFinder(
         srcs,
         javaFileParser,
-        /* shouldRecordRequiredSymbols */ true);
+        /* shouldRecordRequiredSymbols */ true,
+        JavaSymbolsIndex.createEmpty());
 
     BuildTarget buildTarget = BuildTargetFactory.newInstance("//:examples");
     JavaSymbolsRule javaSymbolsRule = new JavaSymbolsRule(
@@ -243,12 +243,12 @@ public class PrebuiltJarSymbolsFinderTest {
 
     ProjectFilesystem filesystem = new ProjectFilesystem(tmp.getRootPath());
     SourcePath sourcePath = new PathSourcePath(filesystem, Paths.get(jarFileName));
-    return new PrebuiltJarSymbolsFinder(sourcePath);
+    return new PrebuiltJarSymbolsFinder(sourcePath, JavaSymbolsIndex.createEmpty());
   }
 
   private PrebuiltJarSymbolsFinder createFinderForGeneratedJar(String target) {
     BuildTarget buildTarget = BuildTargetFactory.newInstance(target);
     SourcePath sourcePath = new BuildTargetSourcePath(buildTarget);
-    return new PrebuiltJarSymbolsFinder(sourcePath);
+    return new PrebuiltJarSymbolsFinder(sourcePath, JavaSymbolsIndex.createEmpty());
   }
 }
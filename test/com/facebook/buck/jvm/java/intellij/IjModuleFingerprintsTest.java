@@ -0,0 +1,165 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.jvm.java.intellij;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.buck.cli.FakeBuckConfig;
+import com.facebook.buck.jvm.java.JavaLibraryBuilder;
+import com.facebook.buck.model.BuildTarget;
+import com.facebook.buck.model.BuildTargetFactory;
+import com.facebook.buck.rules.TargetNode;
+import com.facebook.buck.testutil.FakeProjectFilesystem;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class IjModuleFingerprintsTest {
+
+  private static final HashCode HASH_ONE = HashCode.fromString("1111111111");
+  private static final HashCode HASH_TWO = HashCode.fromString("2222222222");
+
+  private FakeProjectFilesystem filesystem;
+  private IjModule fooModule;
+  private IjModule barModule;
+
+  @Before
+  public void setUp() throws IOException {
+    filesystem = new FakeProjectFilesystem();
+    fooModule = createModule("//java/com/example/foo:foo");
+    barModule = createModule("//java/com/example/bar:bar");
+    filesystem.touch(fooModule.getModuleImlFilePath());
+    filesystem.touch(barModule.getModuleImlFilePath());
+  }
+
+  @Test
+  public void modulesHaveChangedWhenNothingWasSaved() throws IOException {
+    IjModuleFingerprints fingerprints = compute(HASH_ONE, HASH_ONE);
+    assertFalse(fingerprints.isUnchanged(fooModule));
+    assertFalse(fingerprints.isUnchanged(barModule));
+  }
+
+  @Test
+  public void onlyModulesWhoseTargetsChangedHaveChanged() throws IOException {
+    compute(HASH_ONE, HASH_ONE).save();
+
+    IjModuleFingerprints fingerprints = compute(HASH_ONE, HASH_TWO);
+    assertTrue(fingerprints.isUnchanged(fooModule));
+    assertFalse(fingerprints.isUnchanged(barModule));
+  }
+
+  @Test
+  public void modulesWhoseFilesWereDeletedHaveChanged() throws IOException {
+    compute(HASH_ONE, HASH_ONE).save();
+    filesystem.deleteFileAtPath(barModule.getModuleImlFilePath());
+
+    IjModuleFingerprints fingerprints = compute(HASH_ONE, HASH_ONE);
+    assertTrue(fingerprints.isUnchanged(fooModule));
+    assertFalse(fingerprints.isUnchanged(barModule));
+  }
+
+  @Test
+  public void everyModuleChangesWhenTheProjectGainsAModule() throws IOException {
+    compute(HASH_ONE, HASH_ONE).save();
+
+    IjModule bazModule = createModule("//java/com/example/baz:baz");
+    IjModuleFingerprints fingerprints = IjModuleFingerprints.compute(
+        filesystem,
+        ImmutableList.of(fooModule, barModule, bazModule),
+        ImmutableMap.of(
+            getTarget(fooModule), HASH_ONE,
+            getTarget(barModule), HASH_ONE,
+            getTarget(bazModule), HASH_ONE),
+        "auto");
+    assertFalse(fingerprints.isUnchanged(fooModule));
+    assertFalse(fingerprints.isUnchanged(barModule));
+  }
+
+  @Test
+  public void modulesHaveChangedOnceTheFingerprintsAreCleared() throws IOException {
+    compute(HASH_ONE, HASH_ONE).save();
+    IjModuleFingerprints.clear(filesystem);
+
+    IjModuleFingerprints fingerprints = compute(HASH_ONE, HASH_ONE);
+    assertFalse(fingerprints.isUnchanged(fooModule));
+    assertFalse(fingerprints.isUnchanged(barModule));
+  }
+
+  @Test
+  public void projectSaltCoversIntellijAndAndroidSettings() {
+    String salt = IjModuleFingerprints.getProjectSalt(
+        IjModuleGraph.AggregationMode.AUTO,
+        FakeBuckConfig.builder().build());
+    assertEquals(
+        salt,
+        IjModuleFingerprints.getProjectSalt(
+            IjModuleGraph.AggregationMode.AUTO,
+            FakeBuckConfig.builder()
+                .setSections("[cache]", "mode = dir")
+                .build()));
+    assertNotEquals(
+        salt,
+        IjModuleFingerprints.getProjectSalt(
+            IjModuleGraph.AggregationMode.NONE,
+            FakeBuckConfig.builder().build()));
+    assertNotEquals(
+        salt,
+        IjModuleFingerprints.getProjectSalt(
+            IjModuleGraph.AggregationMode.AUTO,
+            FakeBuckConfig.builder()
+                .setSections("[intellij]", "jdk_name = 1.8")
+                .build()));
+    assertNotEquals(
+        salt,
+        IjModuleFingerprints.getProjectSalt(
+            IjModuleGraph.AggregationMode.AUTO,
+            FakeBuckConfig.builder()
+                .setSections("[android]", "target = Google Inc.:Google APIs:21")
+                .build()));
+  }
+
+  private IjModuleFingerprints compute(HashCode fooHash, HashCode barHash) throws IOException {
+    return IjModuleFingerprints.compute(
+        filesystem,
+        ImmutableList.of(fooModule, barModule),
+        ImmutableMap.of(getTarget(fooModule), fooHash, getTarget(barModule), barHash),
+        "auto");
+  }
+
+  private static BuildTarget getTarget(IjModule module) {
+    return module.getTargets().iterator().next().getBuildTarget();
+  }
+
+  private static IjModule createModule(String target) {
+    TargetNode<?> targetNode = JavaLibraryBuilder
+        .createBuilder(BuildTargetFactory.newInstance(target))
+        .build();
+    return IjModule.builder()
+        .setTargets(ImmutableSet.<TargetNode<?>>of(targetNode))
+        .setModuleBasePath(targetNode.getBuildTarget().getBasePath())
+        .build();
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.jvm.java.intellij;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.buck.cli.FakeBuckConfig;
+import com.facebook.buck.jvm.java.DefaultJavaPackageFinder;
+import com.facebook.buck.jvm.java.JavaLibraryBuilder;
+import com.facebook.buck.model.BuildTargetFactory;
+import com.facebook.buck.rules.TargetNode;
+import com.facebook.buck.testutil.FakeProjectFilesystem;
+import com.facebook.buck.timing.SettableFakeClock;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class IjProjectWriterTest {
+
+  private SettableFakeClock clock;
+  private FakeProjectFilesystem filesystem;
+  private IjProjectTemplateDataPreparer dataPreparer;
+  private IjModule guavaModule;
+  private IjModule baseModule;
+
+  @Before
+  public void setUp() {
+    clock = new SettableFakeClock(0, 0);
+    filesystem = new FakeProjectFilesystem(clock);
+
+    TargetNode<?> guavaTargetNode = JavaLibraryBuilder
+        .createBuilder(BuildTargetFactory.newInstance("//third_party/guava:guava"))
+        .addSrc(Paths.get("third_party/guava/src/Collections.java"))
+        .build();
+    TargetNode<?> baseTargetNode = JavaLibraryBuilder
+        .createBuilder(BuildTargetFactory.newInstance("//java/com/example/base:base"))
+        .addDep(guavaTargetNode.getBuildTarget())
+        .addSrc(Paths.get("java/com/example/base/Base.java"))
+        .build();
+    IjModuleGraph moduleGraph =
+        IjModuleGraphTest.createModuleGraph(ImmutableSet.of(guavaTargetNode, baseTargetNode));
+    guavaModule = IjModuleGraphTest.getModuleForTarget(moduleGraph, guavaTargetNode);
+    baseModule = IjModuleGraphTest.getModuleForTarget(moduleGraph, baseTargetNode);
+    dataPreparer = new IjProjectTemplateDataPreparer(
+        DefaultJavaPackageFinder.createDefaultJavaPackageFinder(ImmutableSet.of("/java/")),
+        moduleGraph,
+        filesystem);
+  }
+
+  @Test
+  public void filesWhoseContentsAreUnchangedAreNotRewritten() throws Exception {
+    clock.setCurrentTimeMillis(1000);
+    new IjProjectWriter(dataPreparer, filesystem)
+        .write(FakeBuckConfig.builder().build(), /* runPostGenerationCleaner */ false);
+    Path moduleFile = baseModule.getModuleImlFilePath();
+    assertTrue(filesystem.exists(moduleFile));
+
+    clock.setCurrentTimeMillis(2000);
+    new IjProjectWriter(dataPreparer, filesystem)
+        .write(FakeBuckConfig.builder().build(), /* runPostGenerationCleaner */ false);
+    assertEquals(1000, filesystem.getLastModifiedTime(moduleFile));
+  }
+
+  @Test
+  public void unchangedModulesAreLeftAlone() throws Exception {
+    IjProjectWriter writer = new IjProjectWriter(
+        dataPreparer,
+        filesystem,
+        MoreExecutors.newDirectExecutorService(),
+        new Predicate<IjModule>() {
+          @Override
+          public boolean apply(IjModule module) {
+            return module.equals(baseModule);
+          }
+        });
+    writer.write(FakeBuckConfig.builder().build(), /* runPostGenerationCleaner */ false);
+
+    assertTrue(filesystem.exists(guavaModule.getModuleImlFilePath()));
+    assertFalse(filesystem.exists(baseModule.getModuleImlFilePath()));
+    assertTrue(filesystem.exists(IjProjectWriter.IDEA_CONFIG_DIR_PREFIX.resolve("modules.xml")));
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.jvm.java.runner;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CompilerWorkerMainTest {
+
+  private static final String HANDSHAKE =
+      "{\"id\":0,\"type\":\"handshake\",\"protocol_version\":\"0\",\"capabilities\":[]}";
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void commandsWriteToTheirOwnFilesThroughTheSameStreams() throws IOException {
+    final List<PrintStream> streams = new ArrayList<>();
+    String input = "[" + HANDSHAKE + "," + command(1, "one") + "," + command(2, "two") + "]";
+    AbstractWorkerMain worker =
+        new AbstractWorkerMain(new StringReader(input), new StringWriter()) {
+          @Override
+          protected int runCommand(List<String> args) {
+            streams.add(System.out);
+            System.out.print(Joiner.on(' ').join(args));
+            System.err.print("warning");
+            return 0;
+          }
+        };
+    worker.run();
+
+    assertEquals(2, streams.size());
+    assertSame(streams.get(0), streams.get(1));
+    assertEquals("compile one", read("1.out"));
+    assertEquals("compile two", read("2.out"));
+    assertEquals("warning", read("2.err"));
+  }
+
+  @Test
+  public void reportsACompilerWhichCannotBeLoaded() throws IOException {
+    StringWriter output = new StringWriter();
+    ClassLoader emptyClassLoader =
+        CompilerWorkerMain.createCompilerClassLoader("scalac", /* classpath */ "");
+    new CompilerWorkerMain(
+        new StringReader("[" + HANDSHAKE + "," + command(1, "Foo.scala") + "]"),
+        output,
+        "scalac",
+        emptyClassLoader).run();
+
+    assertThat(
+        output.toString(),
+        containsString(",{\"id\":1,\"type\":\"result\",\"exit_code\":1}"));
+    assertThat(read("1.err"), containsString("scala.tools.nsc.Main"));
+  }
+
+  private String command(int id, String arg) throws IOException {
+    Path args = tmp.getRoot().toPath().resolve(id + ".args");
+    Files.write(
+        args,
+        Joiner.on('\0').join(ImmutableList.of("compile", arg)).getBytes(Charsets.UTF_8));
+    return String.format(
+        "{\"id\":%d,\"type\":\"command\",\"args_path\":\"%s\",\"stdout_path\":\"%s\"," +
+        "\"stderr_path\":\"%s\"}",
+        id,
+        args,
+        tmp.getRoot().toPath().resolve(id + ".out"),
+        tmp.getRoot().toPath().resolve(id + ".err"));
+  }
+
+  private String read(String name) throws IOException {
+    return new String(Files.readAllBytes(tmp.getRoot().toPath().resolve(name)), Charsets.UTF_8);
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.base.Charsets;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class BinaryLogHandlerTest {
+
+  private final ConcurrentHashMap<Long, String> threadIdToCommandId = new ConcurrentHashMap<>();
+
+  @Test
+  public void readsBackWhatTheTextLogWouldHaveSaid() throws IOException {
+    threadIdToCommandId.put(12L, "1234-abcd");
+    List<LogRecord> records = new ArrayList<>();
+    records.add(record(Level.INFO, "INFO", "Built %s in %d ms (%.1f%%)", "//foo:bar", 42L, 99.5));
+    records.add(record(Level.FINE, "DEBUG", "Built %s in %d ms (%.1f%%)", "//foo:baz", 7, 0.5f));
+    records.add(record(Level.WARNING, "WARN", "%s %c %b", null, 'x', true));
+    records.add(record(Level.SEVERE, "ERROR", "Object %s", Arrays.asList(1, 2)));
+    records.add(record(
+        Level.INFO,
+        "INFO",
+        "%d %x %d %.2f %s",
+        (byte) -3,
+        (short) 255,
+        new BigInteger("123456789012345678901234567890"),
+        new BigDecimal("3.14159"),
+        TimeUnit.SECONDS));
+    LogRecord plain = new LogRecord(Level.INFO, "Third party {0} 100%");
+    plain.setParameters(new Object[] {"library"});
+    records.add(plain);
+    LogRecord thrown = record(Level.SEVERE, "ERROR", "Failed");
+    thrown.setThrown(new IOException("Boom"));
+    records.add(thrown);
+    for (int i = 0; i < records.size(); i++) {
+      records.get(i).setThreadID(i % 2 == 0 ? 12 : 13);
+      records.get(i).setMillis(1409072580000L + i);
+    }
+
+    ByteArrayOutputStream binary = new ByteArrayOutputStream();
+    BinaryLogHandler handler = new BinaryLogHandler(binary, Level.ALL, 2, threadIdToCommandId);
+    for (LogRecord record : records) {
+      handler.publish(record);
+    }
+    handler.close();
+
+    LogFormatter formatter = new LogFormatter();
+    StringBuilder expected = new StringBuilder();
+    for (LogRecord record : records) {
+      expected.append(formatter.format(record, threadIdToCommandId.get(
+          (long) record.getThreadID())));
+    }
+    StringWriter decoded = new StringWriter();
+    try (BinaryLogReader reader = new BinaryLogReader(new ByteArrayInputStream(
+        binary.toByteArray()))) {
+      reader.copyTo(decoded);
+    }
+    assertEquals(expected.toString(), decoded.toString());
+    assertThat(decoded.toString(), Matchers.containsString("java.io.IOException: Boom"));
+  }
+
+  @Test
+  public void repeatedFormatStringsAreOnlyWrittenOnce() throws IOException {
+    String format = "A rather long format string which is logged over and over again: %d";
+    ByteArrayOutputStream binary = new ByteArrayOutputStream();
+    BinaryLogHandler handler = new BinaryLogHandler(binary, Level.ALL, 100, threadIdToCommandId);
+    for (int i = 0; i < 100; i++) {
+      handler.publish(record(Level.INFO, "INFO", format, i));
+    }
+    handler.close();
+
+    String bytes = new String(binary.toByteArray(), Charsets.ISO_8859_1);
+    assertEquals(bytes.indexOf(format), bytes.lastIndexOf(format));
+  }
+
+  @Test
+  public void aTruncatedLogEndsWithTheLastCompleteRecord() throws IOException {
+    ByteArrayOutputStream binary = new ByteArrayOutputStream();
+    BinaryLogHandler handler = new BinaryLogHandler(binary, Level.ALL, 100, threadIdToCommandId);
+    handler.publish(record(Level.INFO, "INFO", "first"));
+    handler.publish(record(Level.INFO, "INFO", "second"));
+    handler.close();
+    byte[] bytes = binary.toByteArray();
+
+    try (BinaryLogReader reader = new BinaryLogReader(
+        new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 3)))) {
+      assertThat(reader.readRecord(), Matchers.endsWith("first\n"));
+      assertNull(reader.readRecord());
+    }
+  }
+
+  @Test
+  public void flushWritesOutWhatHasBeenLogged() throws IOException {
+    ByteArrayOutputStream binary = new ByteArrayOutputStream();
+    BinaryLogHandler handler = new BinaryLogHandler(binary, Level.ALL, 100, threadIdToCommandId);
+    handler.publish(record(Level.INFO, "INFO", "flushed"));
+    handler.flush();
+
+    try (BinaryLogReader reader = new BinaryLogReader(
+        new ByteArrayInputStream(binary.toByteArray()))) {
+      assertThat(reader.readRecord(), Matchers.endsWith("flushed\n"));
+    }
+    handler.close();
+  }
+
+  private static LogRecord record(Level level, String displayLevel, String format, Object... args) {
+    AppendableLogRecord record = new AppendableLogRecord(level, displayLevel, format);
+    record.setParameters(args);
+    record.setLoggerName("test");
+    return record;
+  }
+}
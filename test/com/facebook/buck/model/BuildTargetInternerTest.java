@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.facebook.buck.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import com.google.common.collect.Iterables;
+
+import org.junit.Test;
+
+import java.nio.file.Paths;
+
+public class BuildTargetInternerTest {
+
+  @Test
+  public void equalTargetsAreShared() {
+    BuildTarget first = BuildTargetInterner.intern(
+        BuildTarget.builder(Paths.get("/root"), "//interner", "first").build());
+    BuildTarget copy = BuildTarget.builder(Paths.get("/root"), "//interner", "first").build();
+    assertNotSame(first, copy);
+    assertSame(first, BuildTargetInterner.intern(copy));
+  }
+
+  @Test
+  public void partsOfTargetsAreShared() {
+    UnflavoredBuildTarget unflavored = BuildTargetInterner.intern(
+        UnflavoredBuildTarget.builder("//interner", "second").setCellPath(Paths.get("/root"))
+            .build());
+    Flavor flavor = BuildTargetInterner.intern(ImmutableFlavor.of("interned"));
+
+    BuildTarget target = BuildTargetInterner.intern(
+        BuildTarget.builder(Paths.get("/root"), "//interner", "second")
+            .addFlavors(ImmutableFlavor.of("interned"))
+            .build());
+    assertSame(unflavored, target.getUnflavoredBuildTarget());
+    assertSame(flavor, Iterables.getOnlyElement(target.getFlavors()));
+    assertEquals("//interner:second#interned", target.getFullyQualifiedName());
+  }
+}
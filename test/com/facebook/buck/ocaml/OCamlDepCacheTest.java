@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.ocaml;
+
+import static org.junit.Assert.assertEquals;
+
+import com.facebook.buck.io.ProjectFilesystem;
+import com.facebook.buck.testutil.integration.DebuggableTemporaryFolder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class OCamlDepCacheTest {
+
+  private static final ImmutableList<String> COMMAND =
+      ImmutableList.of("ocamldep.opt", "-one-line", "-native");
+
+  @Rule
+  public DebuggableTemporaryFolder tmp = new DebuggableTemporaryFolder();
+
+  private ProjectFilesystem filesystem;
+  private ImmutableList<Path> inputs;
+
+  @Before
+  public void setUp() throws IOException {
+    filesystem = new ProjectFilesystem(tmp.getRootPath());
+    ImmutableList.Builder<Path> inputsBuilder = ImmutableList.builder();
+    for (String name : ImmutableList.of("a.mli", "a.ml", "b.ml", "c.ml")) {
+      Path input = tmp.getRootPath().resolve(name);
+      Files.write(input, ("(* " + name + " *)").getBytes(StandardCharsets.UTF_8));
+      inputsBuilder.add(input);
+    }
+    inputs = inputsBuilder.build();
+  }
+
+  @Test
+  public void unchangedSourcesDoNotRunOcamldepAgain() throws Exception {
+    FakeDepTool depTool = new FakeDepTool();
+    String first = newCache(1).getDependencies(COMMAND, inputs, depTool);
+    String second = newCache(1).getDependencies(COMMAND, inputs, depTool);
+
+    assertEquals(ImmutableList.of(inputs), depTool.runs);
+    assertEquals(depTool.getOutput(inputs), first);
+    assertEquals(first, second);
+  }
+
+  @Test
+  public void onlyChangedSourcesRunOcamldepAgain() throws Exception {
+    FakeDepTool depTool = new FakeDepTool();
+    newCache(1).getDependencies(COMMAND, inputs, depTool);
+
+    Path changed = inputs.get(2);
+    Files.write(changed, "let x = C.y".getBytes(StandardCharsets.UTF_8));
+    String output = newCache(1).getDependencies(COMMAND, inputs, depTool);
+
+    assertEquals(ImmutableList.of(inputs, ImmutableList.of(changed)), depTool.runs);
+    assertEquals(depTool.getOutput(inputs), output);
+  }
+
+  @Test
+  public void changingTheCommandOrTheSetOfSourcesRunsOcamldepAgain() throws Exception {
+    FakeDepTool depTool = new FakeDepTool();
+    newCache(1).getDependencies(COMMAND, inputs, depTool);
+    ImmutableList<String> otherCommand = ImmutableList.<String>builder()
+        .addAll(COMMAND)
+        .add("-I", "somewhere")
+        .build();
+    newCache(1).getDependencies(otherCommand, inputs, depTool);
+    ImmutableList<Path> fewerInputs = inputs.subList(0, 3);
+    newCache(1).getDependencies(COMMAND, fewerInputs, depTool);
+
+    assertEquals(ImmutableList.of(inputs, inputs, fewerInputs), depTool.runs);
+  }
+
+  @Test
+  public void missesRunInParallelBatchesButKeepTheirOrder() throws Exception {
+    FakeDepTool depTool = new FakeDepTool();
+    String output = newCache(2).getDependencies(COMMAND, inputs, depTool);
+
+    assertEquals(
+        ImmutableSet.of(inputs.subList(0, 2), inputs.subList(2, 4)),
+        ImmutableSet.copyOf(depTool.runs));
+    assertEquals(depTool.getOutput(inputs), output);
+  }
+
+  private OCamlDepCache newCache(int maxParallelism) {
+    return new OCamlDepCache(filesystem, Paths.get("ocamldep-cache"), maxParallelism);
+  }
+
+  /**
+   * Reports that each source depends on the sources after it.
+   */
+  private class FakeDepTool implements OCamlDepCache.DepTool {
+    private final List<ImmutableList<Path>> runs =
+        Collections.synchronizedList(new ArrayList<ImmutableList<Path>>());
+
+    @Override
+    public String run(ImmutableList<Path> batch) {
+      runs.add(batch);
+      return getOutput(batch);
+    }
+
+    public String getOutput(ImmutableList<Path> inputsToReport) {
+      StringBuilder output = new StringBuilder();
+      for (Path input : inputsToReport) {
+        String name = input.toString();
+        String target = name.endsWith(".mli") ?
+            name.replaceFirst("\\.mli$", ".cmi") :
+            name.replaceFirst("\\.ml$", ".cmx");
+        output.append(target).append(" :");
+        for (Path other : inputs) {
+          if (inputs.indexOf(other) > inputs.indexOf(input)) {
+            output.append(' ').append(other.toString().replaceFirst("\\.ml$", ".cmx"));
+          }
+        }
+        output.append(System.getProperty("line.separator"));
+      }
+      return output.toString();
+    }
+  }
+}
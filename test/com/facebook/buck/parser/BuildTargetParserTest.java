@@ -19,6 +19,8 @@ package com.facebook.buck.parser;
 import static com.facebook.buck.rules.TestCellBuilder.createCellRoots;
 import static org.hamcrest.Matchers.hasItems;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -216,4 +218,28 @@ public class BuildTargetParserTest {
     assertEquals("//com/microsoft/windows", buildTarget.getBaseName());
   }
 
+  @Test
+  public void testParsingTheSameTargetTwiceSharesIt() {
+    BuildTarget first =
+        parser.parse("//foo:lib#bar", fullyQualifiedParser, createCellRoots(null));
+    BuildTarget second =
+        parser.parse("//foo:lib#bar", fullyQualifiedParser, createCellRoots(null));
+    BuildTarget relative =
+        parser.parse(":lib#bar", BuildTargetPatternParser.forBaseName("//foo"),
+            createCellRoots(null));
+    assertSame(first, second);
+    assertSame(first, relative);
+  }
+
+  @Test
+  public void testRelativeTargetsAreParsedInTheContextOfTheirBuildFile() {
+    BuildTarget foo =
+        parser.parse(":lib", BuildTargetPatternParser.forBaseName("//foo"), createCellRoots(null));
+    BuildTarget bar =
+        parser.parse(":lib", BuildTargetPatternParser.forBaseName("//bar"), createCellRoots(null));
+    assertEquals("//foo:lib", foo.getFullyQualifiedName());
+    assertEquals("//bar:lib", bar.getFullyQualifiedName());
+    assertNotEquals(foo, bar);
+  }
+
 }
@@ -25,6 +25,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -122,6 +123,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
@@ -2475,6 +2477,121 @@ public class CachingBuildEngineTest {
 
   }
 
+  public static class PipeliningTests extends CommonFixture {
+
+    private final CountDownLatch published = new CountDownLatch(1);
+    private final CountDownLatch pipelinedRuleStarted = new CountDownLatch(1);
+    private final CountDownLatch depMayFinish = new CountDownLatch(1);
+
+    @Test
+    public void pipelinedRuleStartsOnceItsDepHasPublished() throws Exception {
+      BuildRule dep = createDep(new AwaitStep(depMayFinish));
+      BuildRule rule = createPipelinedRule(dep);
+      CachingBuildEngine cachingBuildEngine = createEngine();
+
+      ListenableFuture<BuildResult> result = cachingBuildEngine.build(buildContext, rule);
+      assertTrue(pipelinedRuleStarted.await(5, TimeUnit.SECONDS));
+      assertFalse("rule can't be built before its dep", result.isDone());
+
+      depMayFinish.countDown();
+      assertEquals(BuildRuleSuccessType.BUILT_LOCALLY, getSuccess(result.get()));
+      assertTrue(cachingBuildEngine.isRuleBuilt(dep.getBuildTarget()));
+    }
+
+    @Test
+    public void pipelinedRuleIsCanceledWhenItsDepFailsAfterPublishing() throws Exception {
+      BuildRule dep = createDep(new FailingStep());
+      BuildRule rule = createPipelinedRule(dep);
+      CachingBuildEngine cachingBuildEngine = createEngine();
+
+      BuildResult result = cachingBuildEngine.build(buildContext, rule).get();
+      assertThat(result.getStatus(), equalTo(BuildRuleStatus.CANCELED));
+    }
+
+    private BuildRule createDep(Step lastStep) {
+      return new RuleWithSteps(
+          new FakeBuildRuleParamsBuilder("//:dep")
+              .setProjectFilesystem(filesystem)
+              .build(),
+          pathResolver,
+          ImmutableList.of(new CountDownStep(published), lastStep),
+          /* output */ null);
+    }
+
+    private BuildRule createPipelinedRule(final BuildRule dep) {
+      return new PipelinedRule(
+          new FakeBuildRuleParamsBuilder("//:rule")
+              .setProjectFilesystem(filesystem)
+              .setDeclaredDeps(ImmutableSortedSet.of(dep))
+              .build(),
+          pathResolver,
+          ImmutableList.<Step>of(new CountDownStep(pipelinedRuleStarted)),
+          /* output */ null);
+    }
+
+    private CachingBuildEngine createEngine() {
+      return new CachingBuildEngine(
+          toWeighted(listeningDecorator(Executors.newCachedThreadPool())),
+          fileHashCache,
+          CachingBuildEngine.BuildMode.SHALLOW,
+          CachingBuildEngine.DependencySchedulingOrder.RANDOM,
+          CachingBuildEngine.DepFiles.ENABLED,
+          256L,
+          Optional.<Long>absent(),
+          pathResolver,
+          Functions.constant(
+              new CachingBuildEngine.RuleKeyFactories(
+                  NOOP_RULE_KEY_FACTORY,
+                  NOOP_RULE_KEY_FACTORY,
+                  NOOP_RULE_KEY_FACTORY,
+                  NOOP_DEP_FILE_RULE_KEY_FACTORY)));
+    }
+
+    private static class PipelinedRule extends RuleWithSteps implements SupportsPipelining {
+      public PipelinedRule(
+          BuildRuleParams buildRuleParams,
+          SourcePathResolver resolver,
+          ImmutableList<Step> steps,
+          @Nullable Path output) {
+        super(buildRuleParams, resolver, steps, output);
+      }
+
+      @Override
+      public ImmutableSortedSet<BuildRule> getPipelinedDeps() {
+        return getDeps();
+      }
+    }
+
+    private static class CountDownStep extends AbstractExecutionStep implements PublishingStep {
+      private final CountDownLatch latch;
+
+      public CountDownStep(CountDownLatch latch) {
+        super("count down");
+        this.latch = latch;
+      }
+
+      @Override
+      public int execute(ExecutionContext context) {
+        latch.countDown();
+        return 0;
+      }
+    }
+
+    private static class AwaitStep extends AbstractExecutionStep {
+      private final CountDownLatch latch;
+
+      public AwaitStep(CountDownLatch latch) {
+        super("await");
+        this.latch = latch;
+      }
+
+      @Override
+      public int execute(ExecutionContext context) throws InterruptedException {
+        return latch.await(5, TimeUnit.SECONDS) ? 0 : 1;
+      }
+    }
+  }
+
   public static class BuildRuleEventTests extends CommonFixture {
 
     // Use a executor service which uses a new thread for every task to help expose case where
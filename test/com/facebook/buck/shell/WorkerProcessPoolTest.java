@@ -0,0 +1,175 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.shell;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import com.facebook.buck.timing.SettableFakeClock;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class WorkerProcessPoolTest {
+
+  private static final long IDLE_TIMEOUT_MILLIS = 5000;
+
+  private final SettableFakeClock clock = new SettableFakeClock(0, 0);
+  private final List<RecordingWorkerProcess> started = new ArrayList<>();
+
+  @Test
+  public void startsWorkersUpToTheMaximumAndThenWaitsForOneToBeReturned() throws Exception {
+    final WorkerProcessPool pool = createPool(2, /* multiplexed */ false);
+    WorkerProcess first = pool.borrowWorkerProcess();
+    WorkerProcess second = pool.borrowWorkerProcess();
+    assertNotSame(first, second);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<WorkerProcess> third = executor.submit(
+          new Callable<WorkerProcess>() {
+            @Override
+            public WorkerProcess call() throws Exception {
+              return pool.borrowWorkerProcess();
+            }
+          });
+      Thread.sleep(100);
+      assertFalse(third.isDone());
+
+      pool.returnWorkerProcess(second);
+      assertSame(second, third.get(10, TimeUnit.SECONDS));
+      assertEquals(2, started.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void multiplexedWorkersAreSharedOnceThePoolIsFull() throws Exception {
+    WorkerProcessPool pool = createPool(2, /* multiplexed */ true);
+    WorkerProcess first = pool.borrowWorkerProcess();
+    WorkerProcess second = pool.borrowWorkerProcess();
+    WorkerProcess third = pool.borrowWorkerProcess();
+    WorkerProcess fourth = pool.borrowWorkerProcess();
+
+    assertNotSame(first, second);
+    assertSame(first, third);
+    // The first process is running two jobs by now, so the second one is less busy.
+    assertSame(second, fourth);
+    assertEquals(2, started.size());
+  }
+
+  @Test
+  public void idleWorkersAreClosedAfterTheTimeoutExceptTheLastOne() throws Exception {
+    WorkerProcessPool pool = createPool(3, /* multiplexed */ false);
+    WorkerProcess first = pool.borrowWorkerProcess();
+    WorkerProcess second = pool.borrowWorkerProcess();
+    WorkerProcess third = pool.borrowWorkerProcess();
+    clock.setCurrentTimeMillis(1000);
+    pool.returnWorkerProcess(first);
+    pool.returnWorkerProcess(second);
+    clock.setCurrentTimeMillis(2000);
+    pool.returnWorkerProcess(third);
+
+    clock.setCurrentTimeMillis(1000 + IDLE_TIMEOUT_MILLIS);
+    pool.reapIdleWorkers();
+    assertEquals(ImmutableList.of(true, true, false), getClosed());
+
+    clock.setCurrentTimeMillis(10 * IDLE_TIMEOUT_MILLIS);
+    pool.reapIdleWorkers();
+    assertEquals(ImmutableList.of(true, true, false), getClosed());
+  }
+
+  @Test
+  public void failedWorkersAreClosedAndReplaced() throws Exception {
+    WorkerProcessPool pool = createPool(1, /* multiplexed */ false);
+    WorkerProcess first = pool.borrowWorkerProcess();
+    pool.destroyWorkerProcess(first);
+    WorkerProcess second = pool.borrowWorkerProcess();
+
+    assertNotSame(first, second);
+    assertEquals(ImmutableList.of(true, false), getClosed());
+  }
+
+  @Test
+  public void utilizationCountsJobsAndBusyTime() throws Exception {
+    WorkerProcessPool pool = createPool(1, /* multiplexed */ false);
+    WorkerProcess process = pool.borrowWorkerProcess();
+    clock.setCurrentTimeMillis(300);
+    pool.returnWorkerProcess(process);
+    clock.setCurrentTimeMillis(900);
+    pool.returnWorkerProcess(pool.borrowWorkerProcess());
+    clock.setCurrentTimeMillis(1000);
+
+    WorkerProcessUtilization utilization = pool.getUtilization().get(0);
+    assertEquals(WorkerProcessUtilization.of(2, 300, 1000), utilization);
+    assertEquals(0.3, utilization.getBusyFraction(), 0.001);
+  }
+
+  private WorkerProcessPool createPool(int maxWorkers, final boolean multiplexed) {
+    return new WorkerProcessPool("pool", maxWorkers, IDLE_TIMEOUT_MILLIS, clock) {
+      @Override
+      protected WorkerProcess startWorkerProcess() throws IOException {
+        RecordingWorkerProcess process = new RecordingWorkerProcess(multiplexed);
+        synchronized (started) {
+          started.add(process);
+        }
+        return process;
+      }
+    };
+  }
+
+  private ImmutableList<Boolean> getClosed() {
+    ImmutableList.Builder<Boolean> closed = ImmutableList.builder();
+    for (RecordingWorkerProcess process : started) {
+      closed.add(process.closed);
+    }
+    return closed.build();
+  }
+
+  private static class RecordingWorkerProcess extends FakeWorkerProcess {
+    private final boolean multiplexed;
+    private volatile boolean closed = false;
+
+    public RecordingWorkerProcess(boolean multiplexed) throws IOException {
+      super(ImmutableMap.<String, WorkerJobResult>of());
+      this.multiplexed = multiplexed;
+    }
+
+    @Override
+    public boolean isMultiplexed() {
+      return multiplexed;
+    }
+
+    @Override
+    public void close() throws IOException {
+      closed = true;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.shell;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.facebook.buck.util.FakeProcess;
+import com.facebook.buck.util.FakeProcessExecutor;
+import com.facebook.buck.util.HumanReadableException;
+import com.facebook.buck.util.ProcessExecutor;
+import com.facebook.buck.util.ProcessExecutorParams;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Paths;
+
+public class WorkerProcessProtocolOneTest {
+
+  private static final String HANDSHAKE =
+      "[{\"id\":0,\"type\":\"handshake\",\"protocol_version\":\"1\",\"capabilities\":[]}";
+
+  private ProcessExecutor fakeProcessExecutor;
+  private ProcessExecutor.LaunchedProcess fakeLaunchedProcess;
+
+  @Before
+  public void setUp() throws IOException {
+    ProcessExecutorParams fakeParams = ProcessExecutorParams.ofCommand("");
+    fakeProcessExecutor =
+        new FakeProcessExecutor(ImmutableMap.of(fakeParams, new FakeProcess(0)));
+    fakeLaunchedProcess = fakeProcessExecutor.launchProcess(fakeParams);
+  }
+
+  @Test
+  public void testResponsesAreMatchedToCommandsByID() throws IOException {
+    StringWriter jsonSentToWorkerProcess = new StringWriter();
+    // The worker only answers the commands once they have been sent.
+    PipedWriter worker = new PipedWriter();
+    WorkerProcessProtocol protocol = new WorkerProcessProtocolOne(
+        fakeProcessExecutor,
+        fakeLaunchedProcess,
+        new JsonWriter(jsonSentToWorkerProcess),
+        new JsonReader(new PipedReader(worker)));
+
+    worker.write(HANDSHAKE);
+    protocol.sendHandshake(0);
+    protocol.receiveHandshake(0);
+    protocol.sendCommand(1, Paths.get("1.args"), Paths.get("1.out"), Paths.get("1.err"));
+    protocol.sendCommand(2, Paths.get("2.args"), Paths.get("2.out"), Paths.get("2.err"));
+    worker.write(
+        ",{\"id\":2,\"type\":\"result\",\"exit_code\":3}" +
+        ",{\"id\":1,\"type\":\"result\",\"exit_code\":0}]");
+    worker.close();
+
+    assertEquals(0, protocol.receiveCommandResponse(1));
+    assertEquals(3, protocol.receiveCommandResponse(2));
+    protocol.close();
+    assertThat(
+        jsonSentToWorkerProcess.toString(),
+        Matchers.containsString("\"protocol_version\":\"1\""));
+    assertThat(jsonSentToWorkerProcess.toString(), Matchers.endsWith("]"));
+  }
+
+  @Test
+  public void testCommandsFailWhenTheWorkerGoesAway() throws IOException {
+    WorkerProcessProtocol protocol = new WorkerProcessProtocolOne(
+        fakeProcessExecutor,
+        fakeLaunchedProcess,
+        new JsonWriter(new StringWriter()),
+        new JsonReader(new StringReader(HANDSHAKE)));
+
+    protocol.sendHandshake(0);
+    protocol.receiveHandshake(0);
+    try {
+      protocol.sendCommand(1, Paths.get("1.args"), Paths.get("1.out"), Paths.get("1.err"));
+      protocol.receiveCommandResponse(1);
+      fail("Expected the command to fail.");
+    } catch (IOException | HumanReadableException e) {
+      // Depending on whether the worker's output ends before or after the command is sent.
+      assertFalse(Strings.isNullOrEmpty(e.getMessage()));
+    }
+  }
+}
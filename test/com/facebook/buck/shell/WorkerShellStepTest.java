@@ -28,6 +28,7 @@ import com.facebook.buck.step.ExecutionContext;
 import com.facebook.buck.step.TestExecutionContext;
 import com.facebook.buck.testutil.FakeProjectFilesystem;
 import com.facebook.buck.testutil.TestConsole;
+import com.facebook.buck.timing.IncrementingFakeClock;
 import com.facebook.buck.util.Console;
 import com.facebook.buck.util.HumanReadableException;
 import com.facebook.buck.util.Verbosity;
@@ -72,7 +73,12 @@ public class WorkerShellStepTest {
       ImmutableList<String> startupCommand,
       String startupArgs,
       String jobArgs) {
-    return WorkerJobParams.of(startupCommand, startupArgs, jobArgs);
+    return WorkerJobParams.of(
+        startupCommand,
+        startupArgs,
+        jobArgs,
+        /* maxWorkers */ 1,
+        /* multiplexed */ false);
   }
 
   @Test
@@ -195,10 +201,21 @@ public class WorkerShellStepTest {
         0,
         Optional.of("my stdout"),
         Optional.of("my stderr"));
-    WorkerProcess workerProcess = new FakeWorkerProcess(ImmutableMap.of("myJobArgs", jobResult));
+    final WorkerProcess workerProcess =
+        new FakeWorkerProcess(ImmutableMap.of("myJobArgs", jobResult));
 
-    ConcurrentHashMap<String, WorkerProcess> workerProcessMap = new ConcurrentHashMap<>();
-    workerProcessMap.put("/bin/bash -e -c startupCommand startupArgs", workerProcess);
+    ConcurrentHashMap<String, WorkerProcessPool> workerProcessPoolMap = new ConcurrentHashMap<>();
+    WorkerProcessPool workerProcessPool = new WorkerProcessPool(
+        "pool",
+        /* maxWorkers */ 1,
+        /* idleTimeoutMillis */ 0,
+        new IncrementingFakeClock()) {
+      @Override
+      protected WorkerProcess startWorkerProcess() throws IOException {
+        return workerProcess;
+      }
+    };
+    workerProcessPoolMap.put("/bin/bash -e -c startupCommand startupArgs", workerProcessPool);
 
     BuckEventBus eventBus = BuckEventBusFactory.newInstance();
     FakeBuckEventListener listener = new FakeBuckEventListener();
@@ -208,7 +225,7 @@ public class WorkerShellStepTest {
     ExecutionContext context = TestExecutionContext
         .newBuilder()
         .setPlatform(Platform.LINUX)
-        .setWorkerProcesses(workerProcessMap)
+        .setWorkerProcessPools(workerProcessPoolMap)
         .setConsole(console)
         .setEventBus(eventBus)
         .build();
@@ -16,7 +16,10 @@
 
 package com.facebook.buck.shell;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 import com.facebook.buck.model.BuildTargetFactory;
 import com.facebook.buck.rules.BuildRule;
@@ -62,4 +65,30 @@ public class WorkerToolDescriptionTest {
             pathResolver.getAbsolutePath(
                 new BuildTargetSourcePath(exportFileRule.getBuildTarget())).toString()));
   }
+
+  @Test
+  public void testMaxWorkersAndMultiplexing() throws Exception {
+    BuildRuleResolver resolver =
+        new BuildRuleResolver(TargetGraph.EMPTY, new DefaultTargetNodeToBuildRuleTransformer());
+    BuildRule shBinaryRule = new ShBinaryBuilder(
+        BuildTargetFactory.newInstance("//:my_exe"))
+        .setMain(new FakeSourcePath("bin/exe"))
+        .build(resolver);
+
+    WorkerTool defaultWorkerTool = (WorkerTool) WorkerToolBuilder
+        .newWorkerToolBuilder(BuildTargetFactory.newInstance("//:default_worker_rule"))
+        .setExe(shBinaryRule.getBuildTarget())
+        .build(resolver);
+    assertEquals(1, defaultWorkerTool.getMaxWorkers());
+    assertFalse(defaultWorkerTool.isMultiplexed());
+
+    WorkerTool workerTool = (WorkerTool) WorkerToolBuilder
+        .newWorkerToolBuilder(BuildTargetFactory.newInstance("//:worker_rule"))
+        .setExe(shBinaryRule.getBuildTarget())
+        .setMaxWorkers(4)
+        .setMultiplexed(true)
+        .build(resolver);
+    assertEquals(4, workerTool.getMaxWorkers());
+    assertTrue(workerTool.isMultiplexed());
+  }
 }
@@ -21,21 +21,32 @@ import com.facebook.buck.event.BuckEventBusFactory;
 import com.facebook.buck.jvm.java.JavaLibraryBuilder;
 import com.facebook.buck.model.BuildTarget;
 import com.facebook.buck.model.BuildTargetFactory;
+import com.facebook.buck.rules.ActionGraph;
 import com.facebook.buck.rules.ActionGraphAndResolver;
 import com.facebook.buck.rules.ActionGraphCache;
+import com.facebook.buck.rules.BuildRule;
+import com.facebook.buck.rules.BuildRuleResolver;
+import com.facebook.buck.rules.DefaultTargetNodeToBuildRuleTransformer;
+import com.facebook.buck.rules.FakeBuildRule;
+import com.facebook.buck.rules.OverrideScheduleRule;
+import com.facebook.buck.rules.RuleScheduleInfo;
+import com.facebook.buck.rules.SourcePathResolver;
 import com.facebook.buck.rules.TargetGraph;
 import com.facebook.buck.rules.TargetNode;
 import com.facebook.buck.testutil.TargetGraphFactory;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.easymock.EasyMock;
 import org.junit.Assert;
 import org.junit.Test;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
 
 public class BuildSimulatorTest {
   private static final BuildTarget ROOT_NODE =
@@ -47,7 +58,7 @@ public class BuildSimulatorTest {
 
 
   @Test
-  public void testOneNodeActionGraph() throws IOException {
+  public void testOneNodeActionGraph() throws Exception {
     SimulateTimes times = SimulateTimes.createEmpty(DEFAULT_MILLIS);
     TargetGraph oneNodeGraph = createOneNodeGraph();
     ActionGraphAndResolver result = Preconditions.checkNotNull(
@@ -63,7 +74,7 @@ public class BuildSimulatorTest {
   }
 
   @Test
-  public void testMultipleTimeAggregates() throws IOException {
+  public void testMultipleTimeAggregates() throws Exception {
     SimulateTimes times = SimulateTimesTest.createDefaultTestInstance();
     TargetGraph oneNodeGraph = createOneNodeGraph();
 
@@ -91,13 +102,31 @@ public class BuildSimulatorTest {
         numberThreads);
   }
 
+  private static BuildSimulator newBuildSimulator(
+      SimulateTimes times,
+      ActionGraphAndResolver result,
+      ImmutableList<Integer> threadCounts,
+      ImmutableList<SchedulingPolicy> schedulingPolicies,
+      ImmutableList<SimulateCacheTier> cacheTiers) {
+    BuckEventBus mockBus = EasyMock.createNiceMock(BuckEventBus.class);
+    return new BuildSimulator(
+        mockBus,
+        times,
+        result.getActionGraph(),
+        result.getResolver(),
+        threadCounts,
+        schedulingPolicies,
+        cacheTiers,
+        MoreExecutors.newDirectExecutorService());
+  }
+
   private static BuildSimulator newBuildSimulator(
       SimulateTimes times, ActionGraphAndResolver result) {
     return newBuildSimulator(times, result, NUMBER_OF_THREADS);
   }
 
   @Test
-  public void testWideActionGraphSingledThreaded() throws IOException {
+  public void testWideActionGraphSingledThreaded() throws Exception {
     testTargetGraphWith(
         createWideGraph(),
         1,
@@ -105,7 +134,7 @@ public class BuildSimulatorTest {
   }
 
   @Test
-  public void testWideActionGraphSingle2Threads() throws IOException {
+  public void testWideActionGraphSingle2Threads() throws Exception {
     testTargetGraphWith(
         createWideGraph(),
         2,
@@ -113,7 +142,7 @@ public class BuildSimulatorTest {
   }
 
   @Test
-  public void testWideActionGraphSingle1000Threads() throws IOException {
+  public void testWideActionGraphSingle1000Threads() throws Exception {
     testTargetGraphWith(
         createWideGraph(),
         1000,
@@ -121,7 +150,7 @@ public class BuildSimulatorTest {
   }
 
   @Test
-  public void testDiamondActionGraphSingledThreaded() throws IOException {
+  public void testDiamondActionGraphSingledThreaded() throws Exception {
     testTargetGraphWith(
         createDiamondGraph(),
         1,
@@ -129,7 +158,7 @@ public class BuildSimulatorTest {
   }
 
   @Test
-  public void testDiamondActionGraphSingle2Threads() throws IOException {
+  public void testDiamondActionGraphSingle2Threads() throws Exception {
     testTargetGraphWith(
         createDiamondGraph(),
         2,
@@ -137,7 +166,7 @@ public class BuildSimulatorTest {
   }
 
   @Test
-  public void testDiamondActionGraphSingle1000Threads() throws IOException {
+  public void testDiamondActionGraphSingle1000Threads() throws Exception {
     testTargetGraphWith(
         createDiamondGraph(),
         1000,
@@ -145,7 +174,7 @@ public class BuildSimulatorTest {
   }
 
   @Test
-  public void testTriangularActionGraphSingledThreaded() throws IOException {
+  public void testTriangularActionGraphSingledThreaded() throws Exception {
     testTargetGraphWith(
         createTriangularGraph(),
         1,
@@ -153,7 +182,7 @@ public class BuildSimulatorTest {
   }
 
   @Test
-  public void testTriangularActionGraphSingle2Threads() throws IOException {
+  public void testTriangularActionGraphSingle2Threads() throws Exception {
     testTargetGraphWith(
         createTriangularGraph(),
         2,
@@ -161,17 +190,130 @@ public class BuildSimulatorTest {
   }
 
   @Test
-  public void testTriangularActionGraphSingle1000Threads() throws IOException {
+  public void testTriangularActionGraphSingle1000Threads() throws Exception {
     testTargetGraphWith(
         createTriangularGraph(),
         1000,
         DEFAULT_MILLIS * 2);
   }
 
+  @Test
+  public void testCriticalPathPolicyStartsTheLongestChainFirst() throws Exception {
+    ActionGraphAndResolver result = createChainAndLeavesGraph();
+    SimulateReport report = newBuildSimulator(
+        SimulateTimes.createEmpty(100),
+        result,
+        ImmutableList.of(2),
+        ImmutableList.of(
+            SchedulingPolicy.FIFO,
+            SchedulingPolicy.LIFO,
+            SchedulingPolicy.CRITICAL_PATH),
+        ImmutableList.<SimulateCacheTier>of())
+        .simulateBuild(0, ImmutableList.of(ROOT_NODE));
+
+    Assert.assertEquals(3, report.getRunReports().size());
+    Assert.assertEquals(600, report.getRunReports().get(0).getBuildDurationMillis());
+    Assert.assertEquals(500, report.getRunReports().get(1).getBuildDurationMillis());
+    Assert.assertEquals(500, report.getRunReports().get(2).getBuildDurationMillis());
+    for (SingleRunReport runReport : report.getRunReports()) {
+      Assert.assertEquals(400, runReport.getCriticalPathMillis());
+    }
+  }
+
+  @Test
+  public void testWeightedRulesTakeSeveralThreads() throws Exception {
+    SourcePathResolver pathResolver = new SourcePathResolver(newBuildRuleResolver());
+    BuildRule heavy = new WeightedBuildRule("//a:heavy", pathResolver, 2);
+    BuildRule light1 = new FakeBuildRule("//b:light1", pathResolver);
+    BuildRule light2 = new FakeBuildRule("//b:light2", pathResolver);
+    BuildRule root = new FakeBuildRule(ROOT_NODE.toString(), pathResolver, heavy, light1, light2);
+    ActionGraphAndResolver result = createActionGraph(heavy, light1, light2, root);
+
+    SimulateReport report = newBuildSimulator(
+        SimulateTimes.createEmpty(DEFAULT_MILLIS),
+        result,
+        ImmutableList.of(2, 1),
+        ImmutableList.of(SchedulingPolicy.FIFO),
+        ImmutableList.<SimulateCacheTier>of())
+        .simulateBuild(0, ImmutableList.of(ROOT_NODE));
+
+    // The heavy rule runs on its own, and with just one thread it runs with that one.
+    Assert.assertEquals(
+        ImmutableSortedMap.of(1, DEFAULT_MILLIS * 4, 2, DEFAULT_MILLIS * 3),
+        report.getWallTimeCurves().get(0).getBuildDurationMillisByThreads());
+  }
+
+  @Test
+  public void testRulesAreFetchedFromTheFirstCacheTierWhichHasThem() throws Exception {
+    ActionGraphAndResolver result = Preconditions.checkNotNull(
+        ActionGraphCache.getFreshActionGraph(eventBus, createWideGraph()));
+    SimulateReport report = newBuildSimulator(
+        SimulateTimes.createEmpty(DEFAULT_MILLIS),
+        result,
+        ImmutableList.of(1000),
+        ImmutableList.of(SchedulingPolicy.FIFO),
+        ImmutableList.of(
+            SimulateCacheTier.of("dir", 0, 5, 2),
+            SimulateCacheTier.of("http", 1, 7, 3)))
+        .simulateBuild(0, ImmutableList.of(ROOT_NODE));
+
+    SingleRunReport runReport = report.getRunReports().get(0);
+    Assert.assertEquals(2 * (2 + 7), runReport.getBuildDurationMillis());
+    Assert.assertEquals(
+        ImmutableMap.of("dir", 0, "http", WIDE_GRAPH_LEAF_NODES_COUNT + 1),
+        runReport.getCacheHits());
+    Assert.assertEquals(0, runReport.getActionGraphNodesWithoutSimulateTime());
+  }
+
+  @Test
+  public void testRulesMissingEveryCacheTierAreBuilt() throws Exception {
+    ActionGraphAndResolver result = Preconditions.checkNotNull(
+        ActionGraphCache.getFreshActionGraph(eventBus, createDiamondGraph()));
+    SimulateReport report = newBuildSimulator(
+        SimulateTimes.createEmpty(DEFAULT_MILLIS),
+        result,
+        ImmutableList.of(1000),
+        ImmutableList.of(SchedulingPolicy.FIFO),
+        ImmutableList.of(SimulateCacheTier.of("dir", 0, 5, 2)))
+        .simulateBuild(0, ImmutableList.of(ROOT_NODE));
+
+    SingleRunReport runReport = report.getRunReports().get(0);
+    Assert.assertEquals((2 + DEFAULT_MILLIS) * 3, runReport.getBuildDurationMillis());
+    Assert.assertEquals(ImmutableMap.of("dir", 0), runReport.getCacheHits());
+  }
+
+  @Test
+  public void testThreadCountsAreSweptInParallel() throws Exception {
+    ActionGraphAndResolver result = Preconditions.checkNotNull(
+        ActionGraphCache.getFreshActionGraph(eventBus, createWideGraph()));
+    BuckEventBus mockBus = EasyMock.createNiceMock(BuckEventBus.class);
+    SimulateReport report = new BuildSimulator(
+        mockBus,
+        SimulateTimes.createEmpty(DEFAULT_MILLIS),
+        result.getActionGraph(),
+        result.getResolver(),
+        ImmutableList.of(1, 2, 1000),
+        ImmutableList.of(SchedulingPolicy.FIFO, SchedulingPolicy.CRITICAL_PATH),
+        ImmutableList.<SimulateCacheTier>of(),
+        MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(4)))
+        .simulateBuild(0, ImmutableList.of(ROOT_NODE));
+
+    Assert.assertEquals(6, report.getRunReports().size());
+    Assert.assertEquals(2, report.getWallTimeCurves().size());
+    for (WallTimeCurve curve : report.getWallTimeCurves()) {
+      Assert.assertEquals(
+          ImmutableSortedMap.of(
+              1, DEFAULT_MILLIS * (1 + WIDE_GRAPH_LEAF_NODES_COUNT),
+              2, DEFAULT_MILLIS + DEFAULT_MILLIS * WIDE_GRAPH_LEAF_NODES_COUNT / 2,
+              1000, DEFAULT_MILLIS * 2),
+          curve.getBuildDurationMillisByThreads());
+    }
+  }
+
   private void testTargetGraphWith(
       TargetGraph targetGraph,
       int numberThreads,
-      long expectedDurationMillis) throws IOException {
+      long expectedDurationMillis) throws Exception {
     SimulateTimes times = SimulateTimes.createEmpty(DEFAULT_MILLIS);
     ActionGraphAndResolver result = Preconditions.checkNotNull(
         ActionGraphCache.getFreshActionGraph(eventBus, targetGraph));
@@ -244,4 +386,60 @@ public class BuildSimulatorTest {
     return TargetGraphFactory.newInstance(targetNode);
   }
 
+  /**
+   * A chain of three rules and four independent ones, which all come before the root.
+   */
+  private static ActionGraphAndResolver createChainAndLeavesGraph() {
+    SourcePathResolver pathResolver = new SourcePathResolver(newBuildRuleResolver());
+    List<BuildRule> rules = new ArrayList<>();
+    BuildRule chain = null;
+    for (int i = 1; i <= 3; ++i) {
+      chain = chain == null ?
+          new FakeBuildRule("//z:chain" + i, pathResolver) :
+          new FakeBuildRule("//z:chain" + i, pathResolver, chain);
+      rules.add(chain);
+    }
+    List<BuildRule> rootDeps = new ArrayList<>();
+    rootDeps.add(chain);
+    for (int i = 1; i <= 4; ++i) {
+      BuildRule leaf = new FakeBuildRule("//a:short" + i, pathResolver);
+      rules.add(leaf);
+      rootDeps.add(leaf);
+    }
+    rules.add(
+        new FakeBuildRule(
+            ROOT_NODE.toString(),
+            pathResolver,
+            rootDeps.toArray(new BuildRule[rootDeps.size()])));
+    return createActionGraph(rules.toArray(new BuildRule[rules.size()]));
+  }
+
+  private static ActionGraphAndResolver createActionGraph(BuildRule... rules) {
+    BuildRuleResolver resolver = newBuildRuleResolver();
+    for (BuildRule rule : rules) {
+      resolver.addToIndex(rule);
+    }
+    return ActionGraphAndResolver.builder()
+        .setActionGraph(new ActionGraph(ImmutableList.copyOf(rules)))
+        .setResolver(resolver)
+        .build();
+  }
+
+  private static BuildRuleResolver newBuildRuleResolver() {
+    return new BuildRuleResolver(TargetGraph.EMPTY, new DefaultTargetNodeToBuildRuleTransformer());
+  }
+
+  private static class WeightedBuildRule extends FakeBuildRule implements OverrideScheduleRule {
+    private final int jobsMultiplier;
+
+    public WeightedBuildRule(String target, SourcePathResolver resolver, int jobsMultiplier) {
+      super(target, resolver);
+      this.jobsMultiplier = jobsMultiplier;
+    }
+
+    @Override
+    public RuleScheduleInfo getRuleScheduleInfo() {
+      return RuleScheduleInfo.builder().setJobsMultiplier(jobsMultiplier).build();
+    }
+  }
 }
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.facebook.buck.simulate;
+
+import com.facebook.buck.util.HumanReadableException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SimulateCacheTierTest {
+
+  @Test
+  public void testParsingATierWithALookupTime() {
+    Assert.assertEquals(
+        SimulateCacheTier.of("http", 0.25, 120, 15),
+        SimulateCacheTier.parse("http:0.25:120:15"));
+  }
+
+  @Test
+  public void testLookupTimeDefaultsToNothing() {
+    Assert.assertEquals(
+        SimulateCacheTier.of("dir", 0.5, 10, 0),
+        SimulateCacheTier.parse("dir:0.5:10"));
+  }
+
+  @Test(expected = HumanReadableException.class)
+  public void testMissingFieldsAreRejected() {
+    SimulateCacheTier.parse("dir:0.5");
+  }
+
+  @Test(expected = HumanReadableException.class)
+  public void testHitRatesAboveOneAreRejected() {
+    SimulateCacheTier.parse("dir:50:10");
+  }
+}
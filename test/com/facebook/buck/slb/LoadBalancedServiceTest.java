@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.slb;
+
+import com.facebook.buck.event.BuckEventBusFactory;
+import com.squareup.okhttp.Call;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Protocol;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
+
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+
+import okio.Buffer;
+import okio.BufferedSource;
+
+public class LoadBalancedServiceTest extends EasyMockSupport {
+  private static final URI SERVER = URI.create("http://localhost:4242/");
+  private static final String PATH = "my/super/path";
+
+  private HttpLoadBalancer mockLoadBalancer;
+  private OkHttpClient mockClient;
+  private Call mockCall;
+
+  @Before
+  public void setUp() throws IOException {
+    mockLoadBalancer = createMock(HttpLoadBalancer.class);
+    mockClient = createMock(OkHttpClient.class);
+    mockCall = createMock(Call.class);
+    EasyMock.expect(mockLoadBalancer.getBestServer()).andReturn(SERVER);
+    EasyMock.expect(mockClient.newCall(EasyMock.anyObject(Request.class))).andReturn(mockCall);
+  }
+
+  @Test
+  public void testFailedCallIsReportedOnce() throws IOException {
+    EasyMock.expect(mockCall.execute()).andThrow(new IOException("Connection refused."));
+    mockLoadBalancer.reportRequestException(SERVER);
+    EasyMock.expectLastCall().once();
+    replayAll();
+
+    try {
+      newService().makeRequest(PATH, new Request.Builder().get());
+      Assert.fail("The failed call should have thrown.");
+    } catch (IOException expected) {
+      // The failure is rethrown once it has been reported.
+    }
+
+    verifyAll();
+  }
+
+  @Test
+  public void testFailedContentLengthIsReportedOnceAndClosesTheResponse() throws IOException {
+    FailingContentLengthBody body = new FailingContentLengthBody();
+    EasyMock.expect(mockCall.execute()).andReturn(newResponse(body));
+    mockLoadBalancer.reportRequestException(SERVER);
+    EasyMock.expectLastCall().once();
+    replayAll();
+
+    try {
+      newService().makeRequest(PATH, new Request.Builder().get());
+      Assert.fail("The failed content length should have thrown.");
+    } catch (IOException expected) {
+      // The failure is rethrown once it has been reported.
+    }
+
+    verifyAll();
+    Assert.assertTrue(body.isClosed());
+  }
+
+  private LoadBalancedService newService() {
+    return new LoadBalancedService(
+        mockLoadBalancer,
+        mockClient,
+        BuckEventBusFactory.newInstance());
+  }
+
+  private static Response newResponse(ResponseBody body) {
+    return new Response.Builder()
+        .body(body)
+        .code(200)
+        .protocol(Protocol.HTTP_1_1)
+        .request(new Request.Builder().url(SERVER.toString()).build())
+        .build();
+  }
+
+  private static class FailingContentLengthBody extends ResponseBody {
+    private final Buffer source = new Buffer();
+    private boolean closed = false;
+
+    @Override
+    public MediaType contentType() {
+      return MediaType.parse("text/plain");
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+      throw new IOException("Connection reset.");
+    }
+
+    @Override
+    public BufferedSource source() {
+      return source;
+    }
+
+    @Override
+    public void close() throws IOException {
+      closed = true;
+      super.close();
+    }
+
+    public boolean isClosed() {
+      return closed;
+    }
+  }
+}
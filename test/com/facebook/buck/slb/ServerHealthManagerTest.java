@@ -16,9 +16,14 @@
 
 package com.facebook.buck.slb;
 
+import com.facebook.buck.event.BuckEvent;
 import com.facebook.buck.event.BuckEventBus;
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multiset;
 
+import org.easymock.Capture;
+import org.easymock.CaptureType;
 import org.easymock.EasyMock;
 import org.junit.Assert;
 import org.junit.Before;
@@ -38,6 +43,7 @@ public class ServerHealthManagerTest {
   private static final int RANGE_MILLIS = 42;
   private static final float MAX_ERROR_PERCENTAGE = 0.1f;
   private static final int MAX_ACCEPTABLE_LATENCY_MILLIS = 42;
+  private static final int REFRESH_INTERVAL_MILLIS = 10;
 
   private BuckEventBus eventBus;
 
@@ -80,6 +86,73 @@ public class ServerHealthManagerTest {
     Assert.assertEquals(SERVERS.get(0), server);
   }
 
+  @Test
+  public void testLoadIsSpreadByRequestsInFlight() throws IOException {
+    ServerHealthManager manager = newServerHealthManager();
+    reportLatencyToAll(manager, 1);
+
+    Multiset<URI> picked = HashMultiset.create();
+    for (int i = 0; i < SERVERS.size() * 2; ++i) {
+      picked.add(manager.getBestServer(NOW_MILLIS));
+    }
+    for (URI server : SERVERS) {
+      Assert.assertEquals(2, picked.count(server));
+      Assert.assertEquals(2, manager.getRequestsInFlight(server));
+    }
+
+    manager.reportRequestFinished(SERVERS.get(1));
+    manager.reportRequestFinished(SERVERS.get(1));
+    Assert.assertEquals(SERVERS.get(1), manager.getBestServer(NOW_MILLIS));
+  }
+
+  @Test
+  public void testFinishingMoreRequestsThanStartedDoesNotGoBelowZero() throws IOException {
+    ServerHealthManager manager = newServerHealthManager();
+    manager.reportRequestFinished(SERVERS.get(0));
+    Assert.assertEquals(0, manager.getRequestsInFlight(SERVERS.get(0)));
+  }
+
+  @Test
+  public void testHealthIsOnlyRecomputedOnceTheSnapshotIsStale() throws IOException {
+    ServerHealthManager manager = newServerHealthManager();
+    Assert.assertNotNull(manager.getBestServer(NOW_MILLIS));
+
+    reportErrorToAll(manager, 1);
+    Assert.assertNotNull(manager.getBestServer(NOW_MILLIS + REFRESH_INTERVAL_MILLIS - 1));
+    try {
+      manager.getBestServer(NOW_MILLIS + REFRESH_INTERVAL_MILLIS);
+      Assert.fail("All servers have errors so an exception was expected.");
+    } catch (NoHealthyServersException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testEventsAggregateTheServersPickedBetweenRefreshes() throws IOException {
+    Capture<BuckEvent> events = Capture.newInstance(CaptureType.ALL);
+    eventBus = EasyMock.createMock(BuckEventBus.class);
+    eventBus.post(EasyMock.capture(events));
+    EasyMock.expectLastCall().anyTimes();
+    EasyMock.replay(eventBus);
+
+    ServerHealthManager manager = newServerHealthManager();
+    for (int i = 0; i < 5; ++i) {
+      manager.getBestServer(NOW_MILLIS);
+    }
+    manager.refreshHealthSnapshot(NOW_MILLIS);
+
+    Assert.assertEquals(2, events.getValues().size());
+    ServerHealthManagerEventData data =
+        ((ServerHealthManagerEvent) events.getValues().get(1)).getData();
+    Assert.assertFalse(data.noHealthyServersAvailable());
+    int bestServerCount = 0;
+    for (PerServerData perServerData : data.getPerServerData()) {
+      Assert.assertFalse(perServerData.isServerUnhealthy());
+      bestServerCount += perServerData.getBestServerCount();
+    }
+    Assert.assertEquals(5, bestServerCount);
+  }
+
   private void reportLatencyToAll(ServerHealthManager manager, int latencyMillis) {
     for (URI server : SERVERS) {
       manager.reportPingLatency(server, NOW_MILLIS, latencyMillis);
@@ -93,6 +166,7 @@ public class ServerHealthManagerTest {
         MAX_ERROR_PERCENTAGE,
         RANGE_MILLIS,
         MAX_ACCEPTABLE_LATENCY_MILLIS,
+        REFRESH_INTERVAL_MILLIS,
         eventBus);
   }
 
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.testrunner;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+
+import org.hamcrest.Matcher;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class JUnitWorkerMainTest {
+
+  private static final String PROPERTY = "com.facebook.buck.testrunner.JUnitWorkerMainTest";
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void answersHandshakeAndRejectsUnknownCommands() throws IOException {
+    String output = runWorker(
+        "[{\"id\":0,\"type\":\"handshake\",\"protocol_version\":\"0\",\"capabilities\":[]}," +
+        "{\"id\":1,\"type\":\"bogus\"}," +
+        "{\"id\":2,\"type\":\"command\",\"args_path\":\"foo\"}]");
+
+    assertEquals(
+        "[{\"id\":0,\"type\":\"handshake\",\"protocol_version\":\"0\",\"capabilities\":[]}" +
+        ",{\"id\":1,\"type\":\"error\",\"exit_code\":1}" +
+        ",{\"id\":2,\"type\":\"error\",\"exit_code\":2}]",
+        output);
+  }
+
+  @Test
+  public void runsTestsInAFreshClassLoaderForEachCommand() throws IOException {
+    Path results = tmp.newFolder("results").toPath();
+    String sharedClasspath = Joiner.on(File.pathSeparator).join(
+        getCodeSource(Test.class),
+        getCodeSource(Matcher.class));
+    String command = writeCommand(
+        sharedClasspath,
+        System.getProperty("java.class.path"),
+        results,
+        SampleTest.class);
+
+    String output = runWorker(
+        "[{\"id\":0,\"type\":\"handshake\",\"protocol_version\":\"0\",\"capabilities\":[]}," +
+        command + "," + command.replace("\"id\":1", "\"id\":2") + "]");
+
+    assertThat(output, containsString(",{\"id\":1,\"type\":\"result\",\"exit_code\":0}"));
+    assertThat(output, containsString(",{\"id\":2,\"type\":\"result\",\"exit_code\":0}"));
+    String result = new String(
+        Files.readAllBytes(results.resolve(SampleTest.class.getName() + ".xml")),
+        Charsets.UTF_8);
+    assertThat(result, containsString("success=\"true\""));
+    // The test sees the property it was given, and a class loader of its own.
+    assertThat(result, containsString("a value in a fresh class loader"));
+    assertNull(System.getProperty(PROPERTY));
+  }
+
+  @Test
+  public void classpathTakesPrecedenceOverSharedClasspath() throws IOException {
+    Path results = tmp.newFolder("results").toPath();
+    // Every class is on both classpaths, so each is loaded by whichever is searched first.
+    String command = writeCommand(
+        System.getProperty("java.class.path"),
+        System.getProperty("java.class.path"),
+        results,
+        ClassLoaderTest.class);
+
+    String output = runWorker(
+        "[{\"id\":0,\"type\":\"handshake\",\"protocol_version\":\"0\",\"capabilities\":[]}," +
+        command + "]");
+
+    assertThat(output, containsString(",{\"id\":1,\"type\":\"result\",\"exit_code\":0}"));
+    String result = new String(
+        Files.readAllBytes(results.resolve(ClassLoaderTest.class.getName() + ".xml")),
+        Charsets.UTF_8);
+    assertThat(result, containsString("success=\"true\""));
+    assertThat(result, containsString("loaded by ChildFirstClassLoader"));
+  }
+
+  private String writeCommand(
+      String sharedClasspath,
+      String classpath,
+      Path results,
+      Class<?> testClass) throws IOException {
+    Path argsFile = tmp.newFile("args").toPath();
+    Files.write(
+        argsFile,
+        Joiner.on('\0').join(
+            ImmutableList.of(
+                "-D" + PROPERTY + "=a value",
+                "--shared-classpath", sharedClasspath,
+                "--classpath", classpath,
+                "--",
+                "--output", results.toString(),
+                "--default-test-timeout", "60000",
+                testClass.getName())).getBytes(Charsets.UTF_8));
+    return String.format(
+        "{\"id\":%d,\"type\":\"command\",\"args_path\":\"%s\",\"stdout_path\":\"%s\"," +
+        "\"stderr_path\":\"%s\"}",
+        1,
+        argsFile,
+        tmp.getRoot().toPath().resolve("1.out"),
+        tmp.getRoot().toPath().resolve("1.err"));
+  }
+
+  private String runWorker(String input) throws IOException {
+    StringWriter output = new StringWriter();
+    new JUnitWorkerMain(new StringReader(input), output).run();
+    return output.toString();
+  }
+
+  private static String getCodeSource(Class<?> clazz) {
+    try {
+      return Paths.get(clazz.getProtectionDomain().getCodeSource().getLocation().toURI())
+          .toString();
+    } catch (URISyntaxException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  public static class SampleTest {
+
+    private static int runs = 0;
+
+    @Test
+    public void printsPropertyAndRunCount() {
+      runs++;
+      System.out.print(
+          System.getProperty(PROPERTY) + (runs == 1 ? " in a fresh class loader" : " reused"));
+    }
+  }
+
+  public static class ClassLoaderTest {
+
+    @Test
+    public void printsItsClassLoader() {
+      System.out.print("loaded by " + getClass().getClassLoader().getClass().getSimpleName());
+    }
+  }
+}
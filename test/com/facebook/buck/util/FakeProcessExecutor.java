@@ -18,6 +18,7 @@ package com.facebook.buck.util;
 
 import com.google.common.base.Function;
 import com.google.common.base.Functions;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 
@@ -99,6 +100,14 @@ public class FakeProcessExecutor extends ProcessExecutor {
     }
   }
 
+  @Override
+  boolean canExecuteListening(
+      ProcessExecutorParams params,
+      Optional<Function<Process, Void>> timeOutHandler) {
+    // Fake processes can only be run as a Process.
+    return false;
+  }
+
   public boolean isProcessLaunched(ProcessExecutorParams params) {
     return launchedProcesses.contains(params);
   }
@@ -18,7 +18,9 @@ package com.facebook.buck.util;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
 
 import com.facebook.buck.util.environment.Platform;
 import com.google.common.base.Function;
@@ -28,7 +30,9 @@ import com.google.common.collect.ImmutableSet;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ProcessExecutorTest {
@@ -138,4 +142,86 @@ public class ProcessExecutorTest {
         "process was reported as timed out",
         result.isTimedOut());
   }
+
+  @Test
+  public void launchedProcessOutputIsCapturedAndHighlighted() throws Exception {
+    assumeFalse(Platform.detect() == Platform.WINDOWS);
+    Ansi ansi = Ansi.forceTty();
+    Console console = new Console(
+        Verbosity.ALL, new CapturingPrintStream(), new CapturingPrintStream(), ansi);
+    ProcessExecutor executor = new ProcessExecutor(console);
+    ProcessExecutor.Result result = executor.launchAndExecute(
+        ProcessExecutorParams.ofCommand("sh", "-c", "printf 'one\\r\\ntwo'; echo three >&2"),
+        EnumSet.of(ProcessExecutor.Option.EXPECTING_STD_OUT),
+        /* stdin */ Optional.<String>absent(),
+        /* timeOutMs */ Optional.<Long>absent(),
+        /* timeOutHandler */ Optional.<Function<Process, Void>>absent());
+    assertEquals(0, result.getExitCode());
+    assertEquals(String.format("one%ntwo%n"), result.getStdout().get());
+    assertEquals(ansi.asHighlightedFailureText(String.format("three%n")), result.getStderr().get());
+  }
+
+  @Test
+  public void launchedProcessReadsStdin() throws Exception {
+    assumeFalse(Platform.detect() == Platform.WINDOWS);
+    Console console = new Console(
+        Verbosity.ALL, new CapturingPrintStream(), new CapturingPrintStream(), Ansi.withoutTty());
+    ProcessExecutor executor = new ProcessExecutor(console);
+    ProcessExecutor.Result result = executor.launchAndExecute(
+        ProcessExecutorParams.ofCommand("cat"),
+        ImmutableSet.<ProcessExecutor.Option>of(),
+        /* stdin */ Optional.of("Hello\n"),
+        /* timeOutMs */ Optional.<Long>absent(),
+        /* timeOutHandler */ Optional.<Function<Process, Void>>absent());
+    assertEquals(0, result.getExitCode());
+    assertEquals(String.format("Hello%n"), result.getStdout().get());
+  }
+
+  @Test
+  public void launchedProcessIsKilledAfterTimeout() throws Exception {
+    assumeFalse(Platform.detect() == Platform.WINDOWS);
+    Console console = new Console(
+        Verbosity.ALL, new CapturingPrintStream(), new CapturingPrintStream(), Ansi.withoutTty());
+    ProcessExecutor executor = new ProcessExecutor(console);
+    ProcessExecutor.Result result = executor.launchAndExecute(
+        ProcessExecutorParams.ofCommand("sleep", "50"),
+        ImmutableSet.<ProcessExecutor.Option>of(),
+        /* stdin */ Optional.<String>absent(),
+        /* timeOutMs */ Optional.of((long) 100),
+        /* timeOutHandler */ Optional.<Function<Process, Void>>absent());
+    assertTrue("process was reported as timed out", result.isTimedOut());
+    assertNotEquals(0, result.getExitCode());
+  }
+
+  @Test(expected = IOException.class)
+  public void launchingAMissingBinaryThrows() throws Exception {
+    Console console = new Console(
+        Verbosity.ALL, new CapturingPrintStream(), new CapturingPrintStream(), Ansi.withoutTty());
+    new ProcessExecutor(console).launchAndExecute(
+        ProcessExecutorParams.ofCommand("this-better-not-be-a-process-on-your-system-for-real"));
+  }
+
+  @Test
+  public void spawnLatencyIsReportedForEveryProcess() throws Exception {
+    assumeFalse(Platform.detect() == Platform.WINDOWS);
+    Console console = new Console(
+        Verbosity.ALL, new CapturingPrintStream(), new CapturingPrintStream(), Ansi.withoutTty());
+    final List<Long> latencies = new ArrayList<>();
+    ProcessExecutor executor = new ProcessExecutor(
+        console,
+        new ProcessSpawnListener() {
+          @Override
+          public synchronized void onProcessSpawned(long spawnLatencyNanos) {
+            latencies.add(spawnLatencyNanos);
+          }
+        });
+    executor.launchAndExecute(ProcessExecutorParams.ofCommand("true"));
+    executor.withConsole(console).launchAndExecute(
+        ProcessExecutorParams.builder()
+            .addCommand("true")
+            .setRedirectErrorStream(true)
+            .build());
+    assertEquals(2, latencies.size());
+    assertTrue(latencies.get(0) > 0);
+  }
 }
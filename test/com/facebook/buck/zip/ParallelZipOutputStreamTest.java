@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.zip;
+
+import static com.facebook.buck.zip.ZipOutputStreams.HandleDuplicates.APPEND_TO_ZIP;
+import static com.facebook.buck.zip.ZipOutputStreams.HandleDuplicates.OVERWRITE_EXISTING;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.facebook.buck.timing.IncrementingFakeClock;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Resources;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+public class ParallelZipOutputStreamTest {
+
+  private ListeningExecutorService executor;
+  private byte[] macbeth;
+
+  @Before
+  public void setUp() throws IOException {
+    executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(4));
+    macbeth = Resources.toByteArray(getClass().getResource("macbeth.properties"));
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void outputIsIdenticalToSequentialOutput() throws IOException {
+    for (ZipOutputStreams.HandleDuplicates mode :
+        EnumSet.of(APPEND_TO_ZIP, OVERWRITE_EXISTING)) {
+      for (int maxPendingEntries : new int[] {1, 3, 100}) {
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        try (CustomZipOutputStream out = newSequentialStream(sequential, mode)) {
+          writeEntries(out, 999);
+        }
+
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        try (CustomZipOutputStream out = ZipOutputStreams.newParallelOutputStream(
+            newSequentialStream(parallel, mode),
+            executor,
+            maxPendingEntries)) {
+          writeEntries(out, Integer.MAX_VALUE);
+        }
+
+        assertArrayEquals(
+            mode + " with " + maxPendingEntries,
+            sequential.toByteArray(),
+            parallel.toByteArray());
+      }
+    }
+  }
+
+  @Test
+  public void entriesTooLargeToBufferAreStillWrittenInOrder() throws IOException {
+    byte[] large = new byte[5 * 1024 * 1024];
+    new Random(42).nextBytes(large);
+
+    ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+    try (CustomZipOutputStream out =
+             newSequentialStream(sequential, APPEND_TO_ZIP)) {
+      writeLargeEntries(out, large);
+    }
+
+    ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+    try (CustomZipOutputStream out = ZipOutputStreams.newParallelOutputStream(
+        newSequentialStream(parallel, APPEND_TO_ZIP),
+        executor,
+        4)) {
+      writeLargeEntries(out, large);
+    }
+
+    assertArrayEquals(sequential.toByteArray(), parallel.toByteArray());
+    try (ZipInputStream in =
+             new ZipInputStream(new ByteArrayInputStream(parallel.toByteArray()))) {
+      assertEquals("before", in.getNextEntry().getName());
+      assertEquals("large", in.getNextEntry().getName());
+      assertArrayEquals(large, ByteStreams.toByteArray(in));
+      assertEquals("after", in.getNextEntry().getName());
+    }
+  }
+
+  @Test(expected = ZipException.class)
+  public void errorsFromTheWrappedStreamAreReported() throws IOException {
+    try (CustomZipOutputStream out = ZipOutputStreams.newParallelOutputStream(
+        ZipOutputStreams.newOutputStream(new ByteArrayOutputStream()),
+        executor,
+        4)) {
+      for (int i = 0; i < 2; i++) {
+        out.putNextEntry(new CustomZipEntry("duplicate"));
+        out.write(macbeth);
+        out.closeEntry();
+      }
+    }
+  }
+
+  private CustomZipOutputStream newSequentialStream(
+      ByteArrayOutputStream out,
+      ZipOutputStreams.HandleDuplicates mode) {
+    return ZipOutputStreams.newOutputStream(out, mode, new IncrementingFakeClock());
+  }
+
+  /**
+   * Writes a mix of entries, handing over their data {@code chunkSize} bytes at a time.
+   */
+  private void writeEntries(CustomZipOutputStream out, int chunkSize) throws IOException {
+    CustomZipEntry dir = new CustomZipEntry("dir/");
+    out.putNextEntry(dir);
+    out.closeEntry();
+
+    for (int level = Deflater.BEST_SPEED; level <= Deflater.BEST_COMPRESSION; level++) {
+      CustomZipEntry entry = new CustomZipEntry("dir/macbeth-" + level + ".txt");
+      entry.setCompressionLevel(level);
+      entry.setExternalAttributes(0755 << 16);
+      writeEntry(out, entry, macbeth, chunkSize);
+    }
+
+    CustomZipEntry empty = new CustomZipEntry("empty");
+    writeEntry(out, empty, new byte[0], chunkSize);
+
+    byte[] text = "Double, double toil and trouble".getBytes(UTF_8);
+    CustomZipEntry stored = new CustomZipEntry("stored");
+    stored.setCompressionLevel(Deflater.NO_COMPRESSION);
+    stored.setCrc(Hashing.crc32().hashBytes(text).padToLong());
+    stored.setSize(text.length);
+    stored.setCompressedSize(text.length);
+    writeEntry(out, stored, text, chunkSize);
+
+    ZipEntry plain = new ZipEntry("plain");
+    plain.setTime(ZipConstants.getFakeTime());
+    writeEntry(out, plain, macbeth, chunkSize);
+
+    // The same name again, which is kept or dropped depending on the wrapped stream's mode.
+    CustomZipEntry again = new CustomZipEntry("dir/macbeth-1.txt");
+    writeEntry(out, again, text, chunkSize);
+  }
+
+  private void writeLargeEntries(CustomZipOutputStream out, byte[] large) throws IOException {
+    writeEntry(out, new CustomZipEntry("before"), macbeth, Integer.MAX_VALUE);
+    writeEntry(out, new CustomZipEntry("large"), large, 64 * 1024);
+    writeEntry(out, new CustomZipEntry("after"), macbeth, Integer.MAX_VALUE);
+  }
+
+  private void writeEntry(
+      CustomZipOutputStream out,
+      ZipEntry entry,
+      byte[] data,
+      int chunkSize) throws IOException {
+    out.putNextEntry(entry);
+    for (int offset = 0; offset < data.length; offset += chunkSize) {
+      out.write(data, offset, Math.min(chunkSize, data.length - offset));
+    }
+    out.closeEntry();
+  }
+}
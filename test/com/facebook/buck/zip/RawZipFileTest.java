@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.zip;
+
+import static com.facebook.buck.zip.ZipOutputStreams.HandleDuplicates.APPEND_TO_ZIP;
+import static com.facebook.buck.zip.ZipOutputStreams.HandleDuplicates.OVERWRITE_EXISTING;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+public class RawZipFileTest {
+
+  private static final byte[] TEXT = Strings.repeat("All the world's a stage. ", 100)
+      .getBytes(UTF_8);
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void rawCopiesOfDeflatedEntriesMatchTheirSource() throws IOException {
+    Path source = writeSourceZip(new byte[0]);
+
+    for (ZipOutputStreams.HandleDuplicates mode : ZipOutputStreams.HandleDuplicates.values()) {
+      Path output = tmp.newFile().toPath();
+      try (
+          ZipFile zip = new ZipFile(source.toFile());
+          RawZipFile rawZip = RawZipFile.open(source).get();
+          CustomZipOutputStream out = ZipOutputStreams.newOutputStream(output, mode)) {
+        ZipEntry entry = zip.getEntry("deflated.txt");
+        try (InputStream rawStream = rawZip.getRawInputStream(entry).get()) {
+          out.putRawEntry(new ZipEntry(entry), rawStream);
+        }
+      }
+
+      try (ZipFile source1 = new ZipFile(source.toFile());
+           ZipFile copy = new ZipFile(output.toFile())) {
+        ZipEntry original = source1.getEntry("deflated.txt");
+        ZipEntry copied = copy.getEntry("deflated.txt");
+        assertEquals(mode.toString(), original.getCompressedSize(), copied.getCompressedSize());
+        assertEquals(mode.toString(), original.getCrc(), copied.getCrc());
+        assertArrayEquals(
+            mode.toString(),
+            TEXT,
+            ByteStreams.toByteArray(copy.getInputStream(copied)));
+      }
+    }
+  }
+
+  @Test
+  public void rawCopiesKeepTheCompressionLevelOfTheirSource() throws IOException {
+    Path source = tmp.newFile().toPath();
+    try (CustomZipOutputStream out =
+             ZipOutputStreams.newOutputStream(source, OVERWRITE_EXISTING)) {
+      CustomZipEntry entry = new CustomZipEntry("best.txt");
+      entry.setCompressionLevel(Deflater.BEST_COMPRESSION);
+      out.putNextEntry(entry);
+      out.write(TEXT);
+      out.closeEntry();
+    }
+
+    Path output = tmp.newFile().toPath();
+    try (ZipFile zip = new ZipFile(source.toFile());
+         RawZipFile rawZip = RawZipFile.open(source).get();
+         CustomZipOutputStream out =
+             ZipOutputStreams.newOutputStream(output, OVERWRITE_EXISTING)) {
+      assertTrue(rawZip.copyRawEntry(zip.getEntry("best.txt"), out));
+    }
+
+    // The level bits of the general purpose flags sit in the local header of the only entry.
+    assertEquals(getLocalHeaderFlags(source), getLocalHeaderFlags(output));
+    assertEquals(1 << 1, getLocalHeaderFlags(output) & ((1 << 1) | (1 << 2)));
+  }
+
+  @Test
+  public void onlyDeflatedEntriesAreAvailableRaw() throws IOException {
+    Path source = writeSourceZip(new byte[0]);
+    try (ZipFile zip = new ZipFile(source.toFile());
+         RawZipFile rawZip = RawZipFile.open(source).get()) {
+      assertTrue(rawZip.getRawInputStream(zip.getEntry("deflated.txt")).isPresent());
+      assertFalse(rawZip.getRawInputStream(zip.getEntry("stored.txt")).isPresent());
+    }
+  }
+
+  @Test
+  public void dataPrependedToTheZipIsAccountedFor() throws IOException {
+    Path source = writeSourceZip("#!/bin/sh\nexec java -jar \"$0\"\n".getBytes(UTF_8));
+    try (ZipFile zip = new ZipFile(source.toFile());
+         RawZipFile rawZip = RawZipFile.open(source).get()) {
+      ZipEntry entry = zip.getEntry("deflated.txt");
+      byte[] raw = ByteStreams.toByteArray(rawZip.getRawInputStream(entry).get());
+      assertEquals(entry.getCompressedSize(), raw.length);
+    }
+  }
+
+  @Test
+  public void filesWhichAreNotZipsAreAbsent() throws IOException {
+    Path notAZip = tmp.newFile().toPath();
+    Files.write(notAZip, TEXT);
+    assertEquals(Optional.<RawZipFile>absent(), RawZipFile.open(notAZip));
+  }
+
+  @Test(expected = ZipException.class)
+  public void rawDataOfTheWrongSizeIsRejected() throws IOException {
+    ZipEntry entry = new ZipEntry("truncated.txt");
+    entry.setMethod(ZipEntry.DEFLATED);
+    entry.setCrc(0);
+    entry.setSize(100);
+    entry.setCompressedSize(10);
+    try (CustomZipOutputStream out =
+             ZipOutputStreams.newOutputStream(tmp.newFile().toPath(), APPEND_TO_ZIP)) {
+      out.putRawEntry(entry, new ByteArrayInputStream(new byte[5]));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void storedEntriesCannotBePutRaw() throws IOException {
+    ZipEntry entry = new ZipEntry("stored.txt");
+    entry.setMethod(ZipEntry.STORED);
+    try (CustomZipOutputStream out =
+             ZipOutputStreams.newOutputStream(tmp.newFile().toPath(), OVERWRITE_EXISTING)) {
+      out.putRawEntry(entry, new ByteArrayInputStream(new byte[0]));
+    }
+  }
+
+  private static int getLocalHeaderFlags(Path zip) throws IOException {
+    byte[] bytes = Files.readAllBytes(zip);
+    return (bytes[6] & 0xff) | ((bytes[7] & 0xff) << 8);
+  }
+
+  private Path writeSourceZip(byte[] prefix) throws IOException {
+    Path source = tmp.newFile().toPath();
+    try (OutputStream stream = Files.newOutputStream(source)) {
+      stream.write(prefix);
+      try (ZipOutputStream zip = new ZipOutputStream(stream)) {
+        zip.putNextEntry(new ZipEntry("deflated.txt"));
+        zip.write(TEXT);
+        zip.closeEntry();
+
+        ZipEntry stored = new ZipEntry("stored.txt");
+        stored.setMethod(ZipEntry.STORED);
+        CRC32 crc = new CRC32();
+        crc.update(TEXT);
+        stored.setCrc(crc.getValue());
+        stored.setSize(TEXT.length);
+        zip.putNextEntry(stored);
+        zip.write(TEXT);
+        zip.closeEntry();
+      }
+    }
+    return source;
+  }
+}
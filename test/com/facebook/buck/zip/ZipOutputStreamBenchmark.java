@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016-present Facebook, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.buck.zip;
+
+import static com.facebook.buck.zip.ZipOutputStreams.HandleDuplicates.APPEND_TO_ZIP;
+import static org.junit.Assert.assertEquals;
+
+import com.facebook.buck.testutil.integration.DebuggableTemporaryFolder;
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import com.google.caliper.api.Macrobenchmark;
+import com.google.common.io.Resources;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipFile;
+
+public class ZipOutputStreamBenchmark {
+  @Param({"100", "1000"})
+  private int entryCount = 100;
+
+  @Param({"1", "2", "4", "8"})
+  private int threadCount = 1;
+
+  public DebuggableTemporaryFolder tempDir = new DebuggableTemporaryFolder();
+
+  private Path output;
+  private byte[] contents;
+  private ListeningExecutorService executorService;
+
+  @Before
+  public void setUpTest() throws Exception {
+    entryCount = 100;
+    threadCount = 4;
+    setUpBenchmark();
+  }
+
+  @BeforeExperiment
+  public void setUpBenchmark() throws Exception {
+    tempDir.create();
+    output = tempDir.getRootPath().resolve("output.zip");
+    contents = Resources.toByteArray(getClass().getResource("macbeth.properties"));
+    executorService = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(threadCount));
+  }
+
+  @After
+  @AfterExperiment
+  public void cleanup() {
+    tempDir.delete();
+    executorService.shutdown();
+  }
+
+  @Test
+  public void writeZipCorrectness() throws Exception {
+    writeZip();
+    try (ZipFile zip = new ZipFile(output.toFile())) {
+      assertEquals(entryCount, zip.size());
+    }
+  }
+
+  @Macrobenchmark
+  public void writeZip() throws Exception {
+    CustomZipOutputStream out = ZipOutputStreams.newOutputStream(output, APPEND_TO_ZIP);
+    if (threadCount > 1) {
+      out = ZipOutputStreams.newParallelOutputStream(out, executorService, threadCount * 2);
+    }
+    try {
+      for (int i = 0; i < entryCount; i++) {
+        out.putNextEntry(new CustomZipEntry(String.format("macbeth_%d.txt", i)));
+        out.write(contents);
+        out.closeEntry();
+      }
+    } finally {
+      out.close();
+    }
+  }
+}
@@ -30,6 +30,7 @@ import com.facebook.buck.testutil.FakeProjectFilesystem;
 import com.facebook.buck.testutil.Zip;
 import com.facebook.buck.testutil.integration.TemporaryPaths;
 import com.facebook.buck.util.environment.Platform;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.ByteStreams;
@@ -396,6 +397,34 @@ public class ZipStepTest {
     assertEquals(entries1, entries2);
   }
 
+  @Test
+  public void parallelZipWritesTheSameBytesAsSerialZip() throws IOException {
+    Path toZip = tmp.newFolder("zipdir");
+    Files.createDirectories(toZip.resolve("child"));
+    for (int i = 0; i < 10; i++) {
+      Files.write(
+          toZip.resolve("child/file" + i + ".txt"),
+          Strings.repeat("file " + i + "\n", 100 * i).getBytes(UTF_8));
+    }
+
+    for (boolean parallel : new boolean[] {false, true}) {
+      ZipStep step = new ZipStep(
+          filesystem,
+          Paths.get("output-" + parallel + ".zip"),
+          ImmutableSet.<Path>of(),
+          false,
+          ZipCompressionLevel.DEFAULT_COMPRESSION_LEVEL,
+          Paths.get("zipdir"));
+      ExecutionContext context =
+          TestExecutionContext.newBuilder().setParallelZipEnabled(parallel).build();
+      assertEquals(0, step.execute(context));
+    }
+
+    assertArrayEquals(
+        Files.readAllBytes(tmp.getRoot().resolve("output-false.zip")),
+        Files.readAllBytes(tmp.getRoot().resolve("output-true.zip")));
+  }
+
   private ImmutableList<String> getEntries(ProjectFilesystem filesystem, Path zip)
       throws IOException {
     ImmutableList.Builder<String> entries = ImmutableList.builder();